@@ -0,0 +1,89 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * In-memory H2 database in MySQL mode with the migrated schema, so the DAOs
+ * can be benchmarked without a MySQL server.
+ */
+public class EmbeddedDataBaseConfig extends DataBaseConfig {
+
+	private final String name;
+
+	public EmbeddedDataBaseConfig(String name) {
+		this.name = name;
+	}
+
+	@Override
+	protected String getDriverClassName() {
+		return "org.h2.Driver";
+	}
+
+	@Override
+	protected String getUrl() {
+		return "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+	}
+
+	@Override
+	protected String getUser() {
+		return "sa";
+	}
+
+	@Override
+	protected String getPassword() {
+		return "";
+	}
+
+	/**
+	 * Recreates the parking and ticket tables with the given number of car
+	 * spots followed by bike spots, all available.
+	 */
+	public void createLot(int carSpots, int bikeSpots) throws Exception {
+		createLot(1, carSpots, bikeSpots);
+	}
+
+	/**
+	 * Same, numbering the spots from firstSpot, e.g. for the lot of a shard.
+	 */
+	public void createLot(int firstSpot, int carSpots, int bikeSpots) throws Exception {
+		Connection con = getConnection();
+		try {
+			try (Statement statement = con.createStatement()) {
+				statement.execute("drop table if exists reservation");
+				statement.execute("drop table if exists ticket_archive");
+				statement.execute("drop table if exists ticket");
+				statement.execute("drop table if exists parking");
+				statement.execute("drop table if exists schema_version");
+			}
+			SchemaMigrator migrator = new SchemaMigrator();
+			migrator.dataBaseConfig = this;
+			migrator.migrate();
+			try (PreparedStatement ps = con
+					.prepareStatement("insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(?,true,?)")) {
+				for (int spot = 0; spot < carSpots + bikeSpots; spot++) {
+					ps.setInt(1, firstSpot + spot);
+					ps.setString(2, (spot < carSpots ? ParkingType.CAR : ParkingType.BIKE).toString());
+					ps.addBatch();
+				}
+				ps.executeBatch();
+			}
+		} finally {
+			closeConnection(con);
+		}
+	}
+
+	public void execute(String sql) throws Exception {
+		Connection con = getConnection();
+		try (Statement statement = con.createStatement()) {
+			statement.execute(sql);
+		} finally {
+			closeConnection(con);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FareCalculatorBenchmark {
+
+	@Param({ "CAR", "BIKE" })
+	public ParkingType parkingType;
+
+	@Param({ "20", "45", "180", "1440", "10080" })
+	public int durationMinutes;
+
+	@Param({ "false", "true" })
+	public boolean discount;
+
+	private FareCalculatorService fareCalculatorService;
+	private Ticket ticket;
+
+	@Setup
+	public void setUp() {
+		fareCalculatorService = new FareCalculatorService();
+		LocalDateTime inTime = LocalDateTime.of(2021, 9, 14, 8, 0);
+		ticket = new Ticket();
+		ticket.setParkingSpot(new ParkingSpot(1, parkingType, false));
+		ticket.setInTime(inTime);
+		ticket.setOutTime(inTime.plusMinutes(durationMinutes));
+		ticket.setDiscount(discount);
+	}
+
+	@Benchmark
+	public double calculateFare() {
+		fareCalculatorService.calculateFare(ticket);
+		return ticket.getPrice();
+	}
+
+	@Benchmark
+	public double calculDiscount() {
+		fareCalculatorService.calculDiscount(durationMinutes, ticket);
+		return ticket.getPrice();
+	}
+}
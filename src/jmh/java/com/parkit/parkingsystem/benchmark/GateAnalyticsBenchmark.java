@@ -0,0 +1,75 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.analytics.GateAnalytics;
+import com.parkit.parkingsystem.analytics.WindowStats;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.simulation.SimulatedClock;
+
+/**
+ * Streaming gate statistics after a given number of vehicles went through: the
+ * cost of an exit and of a sliding window query should not depend on it. Time
+ * moves a second per event, so buckets keep leaving the window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GateAnalyticsBenchmark {
+
+	private static final LocalDateTime START = LocalDateTime.of(2021, 9, 14, 8, 0);
+	private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+	@Param({ "1000", "1000000" })
+	public int vehicles;
+
+	private final SimulatedClock clock = new SimulatedClock(START);
+	private final Ticket ticket = new Ticket();
+	private GateAnalytics analytics;
+	private int sequence;
+
+	@Setup
+	public void setUp() {
+		analytics = new GateAnalytics(clock, Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofDays(1));
+		ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+		for (int i = 0; i < vehicles; i++) {
+			exit();
+		}
+	}
+
+	@Benchmark
+	public void exit() {
+		clock.advance(ONE_SECOND);
+		sequence++;
+		ticket.setInTime(START);
+		ticket.setOutTime(START.plusMinutes(sequence % 600));
+		ticket.setPrice((sequence % 600) * 0.025);
+		analytics.onEntry(ticket);
+		analytics.onExit(ticket);
+	}
+
+	@Benchmark
+	public WindowStats querySlidingWindow() {
+		clock.advance(ONE_SECOND);
+		return analytics.getSlidingWindow();
+	}
+}
@@ -0,0 +1,61 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.journal.GateJournal;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GateJournalBenchmark {
+
+	private Path path;
+	private GateJournal journal;
+	private Ticket ticket;
+
+	// a fresh journal per iteration keeps the file at a few hundred MB
+	@Setup(Level.Iteration)
+	public void setUp() throws IOException {
+		path = Files.createTempFile("gate-journal", ".bin");
+		Files.delete(path);
+		journal = new GateJournal(path, 64 * 1024 * 1024, false);
+		ticket = new Ticket();
+		ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+		ticket.setVehicleRegNumber("ABCDEF");
+		ticket.setInTime(LocalDateTime.of(2021, 9, 14, 8, 0));
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws IOException {
+		journal.close();
+		Files.deleteIfExists(path);
+	}
+
+	@Benchmark
+	public void appendEntry() {
+		journal.onEntry(ticket);
+	}
+}
@@ -0,0 +1,113 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.simulation.TrafficSimulation;
+import com.parkit.parkingsystem.util.ScriptedInputReaderUtil;
+
+/**
+ * Full gate flows driven through a scripted InputReaderUtil against an
+ * embedded database. Each entry is paired with an exit outside of the
+ * measured section so the lot never fills up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ParkingServiceBenchmark {
+
+	@State(Scope.Thread)
+	public abstract static class GateState {
+
+		@Param({ "true", "false" })
+		public boolean freeSpotIndex;
+
+		@Param({ "true", "false" })
+		public boolean transactional;
+
+		protected ScriptedInputReaderUtil inputReaderUtil;
+		protected ParkingService parkingService;
+		private int sequence;
+
+		@Setup(Level.Trial)
+		public void setUpGate() throws Exception {
+			System.setProperty("parking.freeSpotIndex.enabled", Boolean.toString(freeSpotIndex));
+			EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("gate");
+			dataBaseConfig.createLot(500, 500);
+			ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+			parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+			TicketDAO ticketDAO = new TicketDAO();
+			ticketDAO.dataBaseConfig = dataBaseConfig;
+			inputReaderUtil = new ScriptedInputReaderUtil();
+			// the service reports to the console, keep it out of the measurements
+			parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO,
+					transactional ? dataBaseConfig::inTransaction : TransactionRunner.NONE, Clock.systemDefaultZone(),
+					TrafficSimulation.silentConsole());
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDownGate() {
+			DataBaseConfig.closeAllPools();
+		}
+
+		protected void scriptNextVehicle() {
+			sequence++;
+			inputReaderUtil.script(1 + (sequence & 1), "BENCH" + (sequence % 10000));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class IncomingState extends GateState {
+
+		@Setup(Level.Invocation)
+		public void nextVehicle() {
+			scriptNextVehicle();
+		}
+
+		@TearDown(Level.Invocation)
+		public void vehicleLeaves() {
+			parkingService.processExitingVehicle();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ExitingState extends GateState {
+
+		@Setup(Level.Invocation)
+		public void vehicleParked() {
+			scriptNextVehicle();
+			parkingService.processIncomingVehicle();
+		}
+	}
+
+	@Benchmark
+	public void processIncomingVehicle(IncomingState state) {
+		state.parkingService.processIncomingVehicle();
+	}
+
+	@Benchmark
+	public void processExitingVehicle(ExitingState state) {
+		state.parkingService.processExitingVehicle();
+	}
+}
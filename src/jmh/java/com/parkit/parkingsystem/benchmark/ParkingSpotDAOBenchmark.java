@@ -0,0 +1,81 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParkingSpotDAOBenchmark {
+
+	@Param({ "true", "false" })
+	public boolean freeSpotIndex;
+
+	@Param({ "100", "10000" })
+	public int spotsPerType;
+
+	private ParkingSpotDAO parkingSpotDAO;
+	private ParkingSpot parkingSpot;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		System.setProperty("parking.freeSpotIndex.enabled", Boolean.toString(freeSpotIndex));
+		EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("spots");
+		dataBaseConfig.createLot(spotsPerType, spotsPerType);
+		// occupy the lower half so the free spot search has work to do
+		dataBaseConfig.execute("update parking set AVAILABLE = false where PARKING_NUMBER <= " + (spotsPerType / 2));
+		parkingSpotDAO = new ParkingSpotDAO();
+		parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+		parkingSpot = new ParkingSpot(spotsPerType, ParkingType.CAR, true);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		parkingSpotDAO.stopOccupancyReconciler();
+		DataBaseConfig.closeAllPools();
+	}
+
+	@Benchmark
+	public int getNextAvailableSlot() {
+		return parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR);
+	}
+
+	@Benchmark
+	public boolean updateParking() {
+		parkingSpot.setAvailable(!parkingSpot.isAvailable());
+		return parkingSpotDAO.updateParking(parkingSpot);
+	}
+
+	@Benchmark
+	public boolean claimAndReleaseSlot() {
+		int parkingNumber = parkingSpotDAO.claimNextAvailableSlot(ParkingType.CAR);
+		return parkingSpotDAO.updateParking(new ParkingSpot(parkingNumber, ParkingType.CAR, true));
+	}
+
+	@Benchmark
+	public OccupancySnapshot getOccupancy() {
+		return parkingSpotDAO.getOccupancy();
+	}
+}
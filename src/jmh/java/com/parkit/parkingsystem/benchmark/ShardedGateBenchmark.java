@@ -0,0 +1,136 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.ShardRouter;
+import com.parkit.parkingsystem.dao.ShardedParkingSpotStore;
+import com.parkit.parkingsystem.dao.ShardedTicketStore;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.service.GateService;
+
+/**
+ * Transactional gate flows over one embedded database per lot: the latency of
+ * an entry or exit in the home lot should not depend on the number of lots.
+ * Each entry is paired with an exit outside of the measured section so the
+ * lot never fills up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ShardedGateBenchmark {
+
+	private static final int SPOTS_PER_LOT = 1000;
+
+	@State(Scope.Thread)
+	public abstract static class ShardedGateState {
+
+		@Param({ "1", "4", "16" })
+		public int lots;
+
+		protected GateService gateService;
+		private LocalDateTime time = LocalDateTime.of(2021, 9, 14, 8, 0);
+		private int sequence;
+		protected String vehicleRegNumber;
+
+		@Setup(Level.Trial)
+		public void setUpLots() throws Exception {
+			List<ShardRouter.Shard<ParkingSpotStore>> spotShards = new ArrayList<>();
+			List<ShardRouter.Shard<TicketStore>> ticketShards = new ArrayList<>();
+			for (int lot = 0; lot < lots; lot++) {
+				int firstSpot = 1 + lot * SPOTS_PER_LOT;
+				EmbeddedDataBaseConfig dataBaseConfig = new EmbeddedDataBaseConfig("lot" + lot);
+				dataBaseConfig.createLot(firstSpot, SPOTS_PER_LOT / 2, SPOTS_PER_LOT / 2);
+				ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+				parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+				TicketDAO ticketDAO = new TicketDAO();
+				ticketDAO.dataBaseConfig = dataBaseConfig;
+				int lastSpot = firstSpot + SPOTS_PER_LOT - 1;
+				spotShards.add(new ShardRouter.Shard<>("lot" + lot, firstSpot, lastSpot, parkingSpotDAO));
+				ticketShards.add(new ShardRouter.Shard<>("lot" + lot, firstSpot, lastSpot, ticketDAO));
+			}
+			gateService = new GateService(new ShardedParkingSpotStore(new ShardRouter<>(spotShards, "lot0")),
+					new ShardedTicketStore(new ShardRouter<>(ticketShards, "lot0")),
+					new DataBaseConfig()::inTransaction);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDownLots() {
+			DataBaseConfig.closeAllPools();
+		}
+
+		protected void nextVehicle() {
+			sequence++;
+			vehicleRegNumber = "SHARD" + (sequence % 10000);
+		}
+
+		protected void enter() {
+			time = time.plusMinutes(1);
+			gateService.enter(new EntryRequest(ParkingType.CAR, vehicleRegNumber, time));
+		}
+
+		protected void exit() {
+			time = time.plusMinutes(1);
+			gateService.exit(new ExitRequest(vehicleRegNumber, time));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class IncomingState extends ShardedGateState {
+
+		@Setup(Level.Invocation)
+		public void vehicleArrives() {
+			nextVehicle();
+		}
+
+		@TearDown(Level.Invocation)
+		public void vehicleLeaves() {
+			exit();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ExitingState extends ShardedGateState {
+
+		@Setup(Level.Invocation)
+		public void vehicleParked() {
+			nextVehicle();
+			enter();
+		}
+	}
+
+	@Benchmark
+	public void enter(IncomingState state) {
+		state.enter();
+	}
+
+	@Benchmark
+	public void exit(ExitingState state) {
+		state.exit();
+	}
+}
@@ -0,0 +1,107 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TicketDAOBenchmark {
+
+	private static final LocalDateTime IN_TIME = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	@Param({ "1000", "100000" })
+	public int ticketRows;
+
+	private EmbeddedDataBaseConfig dataBaseConfig;
+	private TicketDAO ticketDAO;
+	private Ticket ticket;
+	private int sequence;
+
+	/**
+	 * A seeded ticket reopened before each update, which only closes open
+	 * tickets.
+	 */
+	@State(Scope.Thread)
+	public static class OpenTicket {
+
+		@Setup(Level.Invocation)
+		public void reopen(TicketDAOBenchmark benchmark) throws Exception {
+			benchmark.ticket.setId(1 + (++benchmark.sequence % benchmark.ticketRows));
+			benchmark.dataBaseConfig
+					.execute("update ticket set OUT_TIME = null where ID = " + benchmark.ticket.getId());
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		dataBaseConfig = new EmbeddedDataBaseConfig("tickets");
+		dataBaseConfig.createLot(10, 10);
+		dataBaseConfig.execute("insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME, DISCOUNT)"
+				+ " select 1 + mod(X, 20), concat('OLD', X), 1.5, timestampadd(MINUTE, -X, now()), now(), false"
+				+ " from system_range(1, " + ticketRows + ")");
+		ticketDAO = new TicketDAO();
+		ticketDAO.dataBaseConfig = dataBaseConfig;
+
+		ticket = new Ticket();
+		ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+		ticket.setVehicleRegNumber("OLD1");
+		ticket.setInTime(IN_TIME);
+		ticket.setOutTime(IN_TIME.plusHours(2));
+		ticket.setPrice(3.0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ticketDAO.close();
+		DataBaseConfig.closeAllPools();
+	}
+
+	@Benchmark
+	public boolean saveTicket() {
+		sequence++;
+		Ticket newTicket = new Ticket();
+		newTicket.setParkingSpot(ticket.getParkingSpot());
+		newTicket.setVehicleRegNumber("NEW" + (sequence % 100000));
+		newTicket.setInTime(IN_TIME);
+		return ticketDAO.saveTicket(newTicket);
+	}
+
+	@Benchmark
+	public Ticket getTicket() {
+		return ticketDAO.getTicket("OLD" + (1 + (++sequence % ticketRows)));
+	}
+
+	@Benchmark
+	public boolean updateTicket(OpenTicket openTicket) {
+		return ticketDAO.updateTicket(ticket);
+	}
+
+	@Benchmark
+	public boolean isRecurring() {
+		return ticketDAO.isRecurring("OLD" + (1 + (++sequence % ticketRows)));
+	}
+}
@@ -0,0 +1,69 @@
+package com.parkit.parkingsystem.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkit.parkingsystem.util.TimingWheel;
+
+/**
+ * Reservation expiry bookkeeping with many holds outstanding: scheduling,
+ * cancelling and advancing one tick should not depend on how many there are.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TimingWheelBenchmark {
+
+	private static final long TICK_MILLIS = 1000;
+	private static final long DAY_MILLIS = 86_400_000L;
+
+	@Param({ "1000", "100000" })
+	public int outstanding;
+
+	private TimingWheel<Integer> wheel;
+	private long now;
+	private int sequence;
+
+	@Setup
+	public void setUp() {
+		wheel = new TimingWheel<>(TICK_MILLIS, 64, 4, 0);
+		// holds of up to a day, spread over every level
+		for (int i = 0; i < outstanding; i++) {
+			wheel.schedule(i, TICK_MILLIS + (i * 7919L) % DAY_MILLIS);
+		}
+	}
+
+	@Benchmark
+	public boolean scheduleAndCancel() {
+		sequence++;
+		return wheel.schedule(sequence, now + (sequence * 7919L) % DAY_MILLIS + TICK_MILLIS).cancel();
+	}
+
+	/**
+	 * Each expired hold is scheduled again a day later, so the wheel stays full.
+	 */
+	@Benchmark
+	public int advanceOneTick() {
+		now += TICK_MILLIS;
+		List<Integer> expired = wheel.advance(now);
+		for (Integer value : expired) {
+			wheel.schedule(value, now + DAY_MILLIS);
+		}
+		return expired.size();
+	}
+}
@@ -1,17 +1,63 @@
 package com.parkit.parkingsystem;
 
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.parkit.parkingsystem.billing.BillingRun;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+import com.parkit.parkingsystem.config.StorageEngine;
+import com.parkit.parkingsystem.export.ExportFormat;
+import com.parkit.parkingsystem.export.TicketExport;
+import com.parkit.parkingsystem.server.GateServer;
 import com.parkit.parkingsystem.service.InteractiveShell;
+import com.parkit.parkingsystem.simulation.TrafficSimulation;
 
 public class App {
 
 	private static final Logger logger = LogManager.getLogger("App");
 
-	public static void main(String args[]) {
+	public static void main(String args[]) throws Exception {
 		logger.info("Initializing Parking System");
-		InteractiveShell.loadInterface();
+		boolean billing = args.length > 0 && "billing".equals(args[0]);
+		boolean export = args.length > 0 && "export".equals(args[0]);
+		if (billing || export || StorageEngine.fromAppConfig() == StorageEngine.MYSQL) {
+			SchemaMigrator.migrateIfEnabled();
+		}
+		if (args.length > 0 && "server".equals(args[0])) {
+			GateServer.runFromAppConfig();
+		} else if (billing) {
+			BillingRun billingRun = BillingRun.fromAppConfig();
+			try {
+				System.out.println(billingRun.run(args.length > 1 && "--dry-run".equals(args[1])));
+			} finally {
+				billingRun.shutdown();
+				DataBaseConfig.closeAllPools();
+			}
+		} else if (export) {
+			if (args.length != 5) {
+				System.out.println("Usage: export <from yyyy-MM-dd> <to yyyy-MM-dd, excluded> <csv|columnar> <file>");
+				return;
+			}
+			try {
+				TicketExport.fromAppConfig().export(LocalDate.parse(args[1]).atStartOfDay(),
+						LocalDate.parse(args[2]).atStartOfDay(), ExportFormat.valueOf(args[3].toUpperCase()),
+						Paths.get(args[4]));
+			} finally {
+				DataBaseConfig.closeAllPools();
+			}
+		} else if (args.length > 0 && "simulate".equals(args[0])) {
+			try {
+				System.out.println(TrafficSimulation.runFromAppConfig());
+			} finally {
+				DataBaseConfig.closeAllPools();
+			}
+		} else {
+			InteractiveShell.loadInterface();
+		}
 	}
 
 }
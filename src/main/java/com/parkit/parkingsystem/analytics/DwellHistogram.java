@@ -0,0 +1,105 @@
+package com.parkit.parkingsystem.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of dwell times in minutes with log-linear buckets: every power of
+ * two is split in 8 linear sub-buckets (about 12% precision), up to 2^20
+ * minutes (two years), so it has a fixed size whatever the traffic. Histograms
+ * add and subtract bucket by bucket, which keeps a sliding window up to date
+ * as its oldest slice leaves it. Not thread-safe.
+ */
+final class DwellHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 20;
+	private static final long MAX_MINUTES = (1L << (MAX_EXPONENT + 1)) - 1;
+	static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long count;
+	private long totalMinutes;
+
+	void record(long minutes) {
+		minutes = Math.max(0, Math.min(minutes, MAX_MINUTES));
+		counts[bucketIndex(minutes)]++;
+		count++;
+		totalMinutes += minutes;
+	}
+
+	void add(DwellHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		totalMinutes += other.totalMinutes;
+	}
+
+	void subtract(DwellHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] -= other.counts[i];
+		}
+		count -= other.count;
+		totalMinutes -= other.totalMinutes;
+	}
+
+	void clear() {
+		if (count != 0) {
+			Arrays.fill(counts, 0);
+			count = 0;
+			totalMinutes = 0;
+		}
+	}
+
+	DwellHistogram copy() {
+		DwellHistogram copy = new DwellHistogram();
+		copy.add(this);
+		return copy;
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	double getMean() {
+		return (count == 0) ? 0 : (double) totalMinutes / count;
+	}
+
+	/**
+	 * @return the highest value of the bucket holding the percentile (0 to 100),
+	 *         0 when empty
+	 */
+	long getValueAtPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				return bucketUpperBound(i);
+			}
+		}
+		return MAX_MINUTES;
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+	}
+
+	static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,217 @@
+package com.parkit.parkingsystem.analytics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.GateEventListener;
+
+/**
+ * Streaming statistics of the gate: entries, exits, revenue, peak occupancy
+ * and dwell-time percentiles per parking type, over a sliding window (the last
+ * hour by default) and over tumbling periods (the current and previous day).
+ *
+ * Aggregates are updated as the events arrive and never recomputed from the
+ * tickets. The sliding window is a ring of buckets with running totals: when a
+ * bucket leaves the window its counts are subtracted from the totals and it is
+ * reused for the next one, so memory is fixed by the window and bucket sizes
+ * whatever the traffic, and a query reads the totals without touching the
+ * events. Events are counted in the bucket of their arrival, so a query over a
+ * window sees exactly the operations committed during it; the dwell time of an
+ * exit comes from its ticket.
+ */
+public class GateAnalytics implements GateEventListener {
+
+	private static final Logger logger = LogManager.getLogger("GateAnalytics");
+	private static final int TYPES = ParkingType.values().length;
+
+	private final Clock clock;
+	private final long bucketSeconds;
+	private final long periodSeconds;
+	private final WindowAggregate[] buckets;
+	private final WindowAggregate windowTotals = new WindowAggregate();
+	private final WindowAggregate period = new WindowAggregate();
+	private final int[] occupied = new int[TYPES];
+	// in buckets or periods since the local epoch
+	private long currentBucket;
+	private long currentPeriod;
+	private WindowStats previousPeriod;
+
+	/**
+	 * @return the statistics, or null when analytics.enabled is off
+	 */
+	public static GateAnalytics createIfEnabled() {
+		if (!AppConfig.getBoolean("analytics.enabled", true)) {
+			return null;
+		}
+		return new GateAnalytics(Clock.systemDefaultZone(),
+				Duration.ofMinutes(AppConfig.getLong("analytics.windowMinutes", 60)),
+				Duration.ofSeconds(AppConfig.getLong("analytics.bucketSeconds", 60)),
+				Duration.ofMinutes(AppConfig.getLong("analytics.periodMinutes", 1440)));
+	}
+
+	/**
+	 * @param window sliding window, a multiple of the bucket
+	 * @param bucket resolution of the sliding window: it moves one bucket at a
+	 *               time
+	 * @param period tumbling period, aligned on local midnight when it divides
+	 *               a day
+	 */
+	public GateAnalytics(Clock clock, Duration window, Duration bucket, Duration period) {
+		this.clock = clock;
+		this.bucketSeconds = bucket.getSeconds();
+		this.periodSeconds = period.getSeconds();
+		if (bucketSeconds < 1 || periodSeconds < 1 || window.getSeconds() < bucketSeconds
+				|| window.getSeconds() % bucketSeconds != 0) {
+			throw new IllegalArgumentException(
+					"Invalid analytics windows: window " + window + ", bucket " + bucket + ", period " + period);
+		}
+		this.buckets = new WindowAggregate[(int) (window.getSeconds() / bucketSeconds)];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new WindowAggregate();
+		}
+		long now = now();
+		this.currentBucket = now / bucketSeconds;
+		this.currentPeriod = now / periodSeconds;
+		this.previousPeriod = emptyPeriod(currentPeriod - 1);
+	}
+
+	/**
+	 * Starts from the occupancy of the stores, e.g. vehicles parked before a
+	 * restart.
+	 */
+	public synchronized void seed(OccupancySnapshot occupancy) {
+		if (occupancy == null) {
+			logger.warn("No occupancy to seed the gate analytics, counting from an empty lot");
+			return;
+		}
+		advance();
+		for (ParkingType parkingType : ParkingType.values()) {
+			int type = parkingType.ordinal();
+			occupied[type] = occupancy.getOccupied(parkingType);
+			buckets[(int) (currentBucket % buckets.length)].recordOccupied(parkingType, occupied[type]);
+			period.recordOccupied(parkingType, occupied[type]);
+		}
+	}
+
+	@Override
+	public void onSpotClaimed(ParkingSpot parkingSpot) {
+		// counted on entry, with the ticket
+	}
+
+	@Override
+	public synchronized void onEntry(Ticket ticket) {
+		ParkingType parkingType = ticket.getParkingSpot().getParkingType();
+		advance();
+		int count = ++occupied[parkingType.ordinal()];
+		buckets[(int) (currentBucket % buckets.length)].recordEntry(parkingType, count);
+		windowTotals.recordEntry(parkingType, count);
+		period.recordEntry(parkingType, count);
+	}
+
+	@Override
+	public synchronized void onExit(Ticket ticket) {
+		ParkingType parkingType = ticket.getParkingSpot().getParkingType();
+		advance();
+		int type = parkingType.ordinal();
+		// vehicles parked before the seed leave without having entered here
+		occupied[type] = Math.max(0, occupied[type] - 1);
+		long revenueCents = Math.round(ticket.getPrice() * 100);
+		long dwellMinutes = (ticket.getInTime() == null || ticket.getOutTime() == null) ? 0
+				: Duration.between(ticket.getInTime(), ticket.getOutTime()).toMinutes();
+		buckets[(int) (currentBucket % buckets.length)].recordExit(parkingType, revenueCents, dwellMinutes);
+		windowTotals.recordExit(parkingType, revenueCents, dwellMinutes);
+		period.recordExit(parkingType, revenueCents, dwellMinutes);
+	}
+
+	@Override
+	public void onSpotReleased(ParkingSpot parkingSpot) {
+		// counted on exit, with the ticket
+	}
+
+	/**
+	 * @return the vehicles of that type parked now
+	 */
+	public synchronized int getOccupied(ParkingType parkingType) {
+		return occupied[parkingType.ordinal()];
+	}
+
+	/**
+	 * @return the traffic of the sliding window ending with the current bucket
+	 */
+	public synchronized WindowStats getSlidingWindow() {
+		advance();
+		int[] peaks = new int[TYPES];
+		for (WindowAggregate bucket : buckets) {
+			for (int type = 0; type < TYPES; type++) {
+				peaks[type] = Math.max(peaks[type], bucket.getPeakOccupied(type));
+			}
+		}
+		return windowTotals.toStats(toDateTime((currentBucket - buckets.length + 1) * bucketSeconds),
+				toDateTime((currentBucket + 1) * bucketSeconds), peaks);
+	}
+
+	/**
+	 * @return the traffic of the tumbling period so far
+	 */
+	public synchronized WindowStats getCurrentPeriod() {
+		advance();
+		return period.toStats(toDateTime(currentPeriod * periodSeconds),
+				toDateTime((currentPeriod + 1) * periodSeconds));
+	}
+
+	/**
+	 * @return the traffic of the last complete period, empty until one ended
+	 */
+	public synchronized WindowStats getPreviousPeriod() {
+		advance();
+		return previousPeriod;
+	}
+
+	// moves the window and the period to the current time
+	private void advance() {
+		long now = now();
+		long bucket = now / bucketSeconds;
+		if (bucket > currentBucket) {
+			long steps = Math.min(bucket - currentBucket, buckets.length);
+			for (long step = steps - 1; step >= 0; step--) {
+				WindowAggregate expired = buckets[(int) ((bucket - step) % buckets.length)];
+				windowTotals.subtract(expired);
+				expired.reset(occupied);
+			}
+			currentBucket = bucket;
+		}
+		long periodIndex = now / periodSeconds;
+		if (periodIndex > currentPeriod) {
+			previousPeriod = (periodIndex == currentPeriod + 1)
+					? period.toStats(toDateTime(currentPeriod * periodSeconds),
+							toDateTime(periodIndex * periodSeconds))
+					: emptyPeriod(periodIndex - 1);
+			period.reset(occupied);
+			currentPeriod = periodIndex;
+		}
+	}
+
+	private WindowStats emptyPeriod(long periodIndex) {
+		return new WindowAggregate().toStats(toDateTime(periodIndex * periodSeconds),
+				toDateTime((periodIndex + 1) * periodSeconds), occupied.clone());
+	}
+
+	// local wall-clock time in seconds, so periods align on local midnight
+	private long now() {
+		return LocalDateTime.now(clock).toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private static LocalDateTime toDateTime(long localEpochSecond) {
+		return LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC);
+	}
+}
@@ -0,0 +1,97 @@
+package com.parkit.parkingsystem.analytics;
+
+import java.time.LocalDateTime;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Entries, exits, revenue, peak occupancy and dwell times of every parking
+ * type over a slice of time. Not thread-safe.
+ */
+final class WindowAggregate {
+
+	private static final int TYPES = ParkingType.values().length;
+
+	private final long[] entries = new long[TYPES];
+	private final long[] exits = new long[TYPES];
+	private final long[] revenueCents = new long[TYPES];
+	private final int[] peakOccupied = new int[TYPES];
+	private final DwellHistogram[] dwellMinutes = new DwellHistogram[TYPES];
+
+	WindowAggregate() {
+		for (int type = 0; type < TYPES; type++) {
+			dwellMinutes[type] = new DwellHistogram();
+		}
+	}
+
+	void recordEntry(ParkingType parkingType, int occupied) {
+		entries[parkingType.ordinal()]++;
+		recordOccupied(parkingType, occupied);
+	}
+
+	void recordExit(ParkingType parkingType, long revenue, long dwell) {
+		int type = parkingType.ordinal();
+		exits[type]++;
+		revenueCents[type] += revenue;
+		dwellMinutes[type].record(dwell);
+	}
+
+	void recordOccupied(ParkingType parkingType, int occupied) {
+		int type = parkingType.ordinal();
+		peakOccupied[type] = Math.max(peakOccupied[type], occupied);
+	}
+
+	/**
+	 * Adds the counts of the other aggregate; peaks are not additive and are
+	 * left alone.
+	 */
+	void add(WindowAggregate other) {
+		for (int type = 0; type < TYPES; type++) {
+			entries[type] += other.entries[type];
+			exits[type] += other.exits[type];
+			revenueCents[type] += other.revenueCents[type];
+			dwellMinutes[type].add(other.dwellMinutes[type]);
+		}
+	}
+
+	void subtract(WindowAggregate other) {
+		for (int type = 0; type < TYPES; type++) {
+			entries[type] -= other.entries[type];
+			exits[type] -= other.exits[type];
+			revenueCents[type] -= other.revenueCents[type];
+			dwellMinutes[type].subtract(other.dwellMinutes[type]);
+		}
+	}
+
+	/**
+	 * Empties the aggregate, its peaks starting at the current occupancy.
+	 */
+	void reset(int[] occupied) {
+		for (int type = 0; type < TYPES; type++) {
+			entries[type] = 0;
+			exits[type] = 0;
+			revenueCents[type] = 0;
+			peakOccupied[type] = occupied[type];
+			dwellMinutes[type].clear();
+		}
+	}
+
+	int getPeakOccupied(int type) {
+		return peakOccupied[type];
+	}
+
+	/**
+	 * @param peakOccupied peaks to report, indexed by ParkingType ordinal
+	 */
+	WindowStats toStats(LocalDateTime start, LocalDateTime end, int[] peakOccupied) {
+		DwellHistogram[] dwell = new DwellHistogram[TYPES];
+		for (int type = 0; type < TYPES; type++) {
+			dwell[type] = dwellMinutes[type].copy();
+		}
+		return new WindowStats(start, end, entries.clone(), exits.clone(), revenueCents.clone(), peakOccupied, dwell);
+	}
+
+	WindowStats toStats(LocalDateTime start, LocalDateTime end) {
+		return toStats(start, end, peakOccupied.clone());
+	}
+}
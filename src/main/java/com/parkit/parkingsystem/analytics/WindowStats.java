@@ -0,0 +1,103 @@
+package com.parkit.parkingsystem.analytics;
+
+import java.time.LocalDateTime;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Gate traffic of every parking type over a window of time, copied at the
+ * time of the query.
+ */
+public class WindowStats {
+
+	private final LocalDateTime start;
+	private final LocalDateTime end;
+	private final long[] entries;
+	private final long[] exits;
+	private final long[] revenueCents;
+	private final int[] peakOccupied;
+	private final DwellHistogram[] dwellMinutes;
+
+	WindowStats(LocalDateTime start, LocalDateTime end, long[] entries, long[] exits, long[] revenueCents,
+			int[] peakOccupied, DwellHistogram[] dwellMinutes) {
+		this.start = start;
+		this.end = end;
+		this.entries = entries;
+		this.exits = exits;
+		this.revenueCents = revenueCents;
+		this.peakOccupied = peakOccupied;
+		this.dwellMinutes = dwellMinutes;
+	}
+
+	public LocalDateTime getStart() {
+		return start;
+	}
+
+	public LocalDateTime getEnd() {
+		return end;
+	}
+
+	public long getEntries(ParkingType parkingType) {
+		return entries[parkingType.ordinal()];
+	}
+
+	public long getExits(ParkingType parkingType) {
+		return exits[parkingType.ordinal()];
+	}
+
+	/**
+	 * @return the fares paid at the exits of the window, to the cent
+	 */
+	public double getRevenue(ParkingType parkingType) {
+		return revenueCents[parkingType.ordinal()] / 100.0;
+	}
+
+	public double getTotalRevenue() {
+		long total = 0;
+		for (long cents : revenueCents) {
+			total += cents;
+		}
+		return total / 100.0;
+	}
+
+	/**
+	 * @return the most vehicles of that type parked at once during the window
+	 */
+	public int getPeakOccupied(ParkingType parkingType) {
+		return peakOccupied[parkingType.ordinal()];
+	}
+
+	/**
+	 * @return the mean stay of the vehicles that left during the window
+	 */
+	public double getAverageDwellMinutes(ParkingType parkingType) {
+		return dwellMinutes[parkingType.ordinal()].getMean();
+	}
+
+	/**
+	 * @return the stay at that percentile (0 to 100) of the vehicles that left
+	 *         during the window, about 12% precision
+	 */
+	public long getDwellMinutesAtPercentile(ParkingType parkingType, double percentile) {
+		return dwellMinutes[parkingType.ordinal()].getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * One line per window, e.g. for the STATS command of the gate server: per
+	 * type its entries, exits, revenue, peak occupancy and median and 95th
+	 * percentile stay in minutes.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder stats = new StringBuilder();
+		stats.append(start).append(' ').append(end);
+		for (ParkingType parkingType : ParkingType.values()) {
+			stats.append(' ').append(parkingType).append(' ').append(getEntries(parkingType)).append(' ')
+					.append(getExits(parkingType)).append(' ').append(getRevenue(parkingType)).append(' ')
+					.append(getPeakOccupied(parkingType)).append(' ')
+					.append(getDwellMinutesAtPercentile(parkingType, 50)).append(' ')
+					.append(getDwellMinutesAtPercentile(parkingType, 95));
+		}
+		return stats.toString();
+	}
+}
@@ -0,0 +1,124 @@
+package com.parkit.parkingsystem.billing;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Totals of a billing run per parking type. Partial reports of the parallel
+ * tasks are merged into the final one.
+ */
+public class BillingReport {
+
+	public static class Totals {
+		private long tickets;
+		private long changed;
+		private double previousTotal;
+		private double recomputedTotal;
+
+		public long getTickets() {
+			return tickets;
+		}
+
+		public long getChanged() {
+			return changed;
+		}
+
+		public double getPreviousTotal() {
+			return previousTotal;
+		}
+
+		public double getRecomputedTotal() {
+			return recomputedTotal;
+		}
+
+		void merge(Totals other) {
+			tickets += other.tickets;
+			changed += other.changed;
+			previousTotal += other.previousTotal;
+			recomputedTotal += other.recomputedTotal;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d tickets, %d changed, %.2f -> %.2f", tickets, changed, previousTotal,
+					recomputedTotal);
+		}
+	}
+
+	private final Map<ParkingType, Totals> totals = new EnumMap<>(ParkingType.class);
+	private long updatedRows;
+	private long skipped;
+	private long archived;
+
+	void add(ParkingType parkingType, double previousPrice, double recomputedPrice, boolean changed) {
+		Totals typeTotals = getTotals(parkingType);
+		typeTotals.tickets++;
+		typeTotals.previousTotal += previousPrice;
+		typeTotals.recomputedTotal += recomputedPrice;
+		if (changed) {
+			typeTotals.changed++;
+		}
+	}
+
+	void merge(BillingReport other) {
+		for (Map.Entry<ParkingType, Totals> entry : other.totals.entrySet()) {
+			getTotals(entry.getKey()).merge(entry.getValue());
+		}
+		updatedRows += other.updatedRows;
+		skipped += other.skipped;
+		archived += other.archived;
+	}
+
+	void addSkipped() {
+		skipped++;
+	}
+
+	void addArchived() {
+		archived++;
+	}
+
+	void addUpdatedRows(long rows) {
+		updatedRows += rows;
+	}
+
+	public Totals getTotals(ParkingType parkingType) {
+		return totals.computeIfAbsent(parkingType, type -> new Totals());
+	}
+
+	public Map<ParkingType, Totals> getTotals() {
+		return totals;
+	}
+
+	/**
+	 * @return the ticket rows whose price was written back
+	 */
+	public long getUpdatedRows() {
+		return updatedRows;
+	}
+
+	/**
+	 * @return the tickets left as they were because their times are invalid
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return the tickets read from ticket_archive, included in the totals
+	 */
+	public long getArchived() {
+		return archived;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder("Billing run: " + updatedRows + " prices updated, " + skipped
+				+ " tickets skipped, " + archived + " archived tickets included");
+		for (Map.Entry<ParkingType, Totals> entry : totals.entrySet()) {
+			report.append(System.lineSeparator()).append(entry.getKey()).append(": ").append(entry.getValue());
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,288 @@
+package com.parkit.parkingsystem.billing;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+
+/**
+ * Recomputes the fare of every closed ticket, live or archived, e.g. after a
+ * tariff change, and writes back the prices that differ to the table holding
+ * the ticket.
+ *
+ * The closed tickets are streamed from the database in chunks; each chunk is
+ * recomputed on a fork/join pool while the next one is read, and the changed
+ * prices are written in JDBC batches of batchSize rows, one transaction per
+ * batch. At most twice the pool parallelism chunks are in flight, so memory
+ * stays bounded whatever the size of the ticket table.
+ */
+public class BillingRun {
+
+	private static final Logger logger = LogManager.getLogger("BillingRun");
+
+	// prices are stored to the cent
+	private static final double PRICE_TOLERANCE = 0.005;
+	// below that many tickets a task is not split any further
+	private static final int SEQUENTIAL_THRESHOLD = 512;
+
+	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+	private final FareCalculatorService fareCalculatorService;
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+	private final int batchSize;
+
+	public static BillingRun fromAppConfig() {
+		int parallelism = AppConfig.getInt("billing.parallelism", 0);
+		return new BillingRun(new FareCalculatorService(),
+				new ForkJoinPool((parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors()),
+				AppConfig.getInt("billing.chunkSize", 8192), AppConfig.getInt("billing.batchSize", 500));
+	}
+
+	public BillingRun(FareCalculatorService fareCalculatorService, ForkJoinPool pool, int chunkSize, int batchSize) {
+		if (chunkSize < 1 || batchSize < 1) {
+			throw new IllegalArgumentException("Chunk and batch sizes must be positive");
+		}
+		this.fareCalculatorService = fareCalculatorService;
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @param dryRun only reports the totals, without writing any price
+	 */
+	public BillingReport run(boolean dryRun) throws ClassNotFoundException, SQLException {
+		long start = System.nanoTime();
+		BillingReport report = new BillingReport();
+		Deque<Chunk> inFlight = new ArrayDeque<>();
+		int maxInFlight = 2 * pool.getParallelism();
+		Connection readCon = null;
+		Connection writeCon = null;
+		PreparedStatement ps = null;
+		PreparedStatement updatePrice = null;
+		PreparedStatement updateArchivedPrice = null;
+		ResultSet rs = null;
+		try {
+			readCon = dataBaseConfig.getConnection();
+			// a streaming result set holds its connection, so prices go through another one
+			if (!dryRun) {
+				writeCon = dataBaseConfig.getConnection();
+				writeCon.setAutoCommit(false);
+				updatePrice = writeCon.prepareStatement(DBConstants.UPDATE_TICKET_PRICE);
+				updateArchivedPrice = writeCon.prepareStatement(DBConstants.UPDATE_ARCHIVED_TICKET_PRICE);
+			}
+			PreparedStatement[] updates = dryRun ? null : new PreparedStatement[] { updatePrice, updateArchivedPrice };
+			ps = readCon.prepareStatement(DBConstants.GET_CLOSED_TICKETS, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			dataBaseConfig.enableStreaming(ps);
+			rs = ps.executeQuery();
+			List<Ticket> tickets = new ArrayList<>(chunkSize);
+			boolean[] archived = new boolean[chunkSize];
+			while (rs.next()) {
+				archived[tickets.size()] = rs.getInt(8) == 1;
+				tickets.add(readTicket(rs));
+				if (tickets.size() == chunkSize) {
+					inFlight.addLast(submit(tickets, archived));
+					tickets = new ArrayList<>(chunkSize);
+					archived = new boolean[chunkSize];
+					if (inFlight.size() >= maxInFlight) {
+						complete(inFlight.removeFirst(), report, writeCon, updates);
+					}
+				}
+			}
+			if (!tickets.isEmpty()) {
+				inFlight.addLast(submit(tickets, archived));
+			}
+			while (!inFlight.isEmpty()) {
+				complete(inFlight.removeFirst(), report, writeCon, updates);
+			}
+			logger.info("Billing run completed in " + (System.nanoTime() - start) / 1_000_000 + " ms on "
+					+ pool.getParallelism() + " threads" + (dryRun ? " (dry run)" : ""));
+			return report;
+		} catch (SQLException | RuntimeException e) {
+			for (Chunk chunk : inFlight) {
+				chunk.task.cancel(true);
+			}
+			if (writeCon != null) {
+				writeCon.rollback();
+			}
+			throw e;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closePreparedStatement(updatePrice);
+			dataBaseConfig.closePreparedStatement(updateArchivedPrice);
+			dataBaseConfig.closeConnection(readCon);
+			dataBaseConfig.closeConnection(writeCon);
+		}
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private static Ticket readTicket(ResultSet rs) throws SQLException {
+		Ticket ticket = new Ticket();
+		ticket.setParkingSpot(new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(7)), false));
+		ticket.setId(rs.getInt(2));
+		ticket.setPrice(rs.getDouble(3));
+		ticket.setInTime(rs.getTimestamp(4).toLocalDateTime());
+		ticket.setOutTime(rs.getTimestamp(5).toLocalDateTime());
+		ticket.setDiscount(rs.getBoolean(6));
+		return ticket;
+	}
+
+	private Chunk submit(List<Ticket> tickets, boolean[] archived) {
+		double[] recomputed = new double[tickets.size()];
+		return new Chunk(tickets, archived, recomputed,
+				pool.submit(new RecomputeTask(fareCalculatorService, tickets, recomputed, 0, tickets.size())));
+	}
+
+	/**
+	 * @param updates the price updates of the ticket and ticket_archive tables,
+	 *                null for a dry run
+	 */
+	private void complete(Chunk chunk, BillingReport report, Connection writeCon, PreparedStatement[] updates)
+			throws SQLException {
+		report.merge(chunk.task.join());
+		for (int i = 0; i < chunk.tickets.size(); i++) {
+			if (chunk.archived[i]) {
+				report.addArchived();
+			}
+		}
+		if (updates == null) {
+			return;
+		}
+		int[] batched = new int[updates.length];
+		for (int i = 0; i < chunk.tickets.size(); i++) {
+			if (isChanged(chunk.tickets.get(i).getPrice(), chunk.recomputed[i])) {
+				int table = chunk.archived[i] ? 1 : 0;
+				PreparedStatement updatePrice = updates[table];
+				updatePrice.setDouble(1, chunk.recomputed[i]);
+				updatePrice.setInt(2, chunk.tickets.get(i).getId());
+				updatePrice.addBatch();
+				if (++batched[table] == batchSize) {
+					report.addUpdatedRows(executeBatch(writeCon, updatePrice));
+					batched[table] = 0;
+				}
+			}
+		}
+		for (int table = 0; table < updates.length; table++) {
+			if (batched[table] > 0) {
+				report.addUpdatedRows(executeBatch(writeCon, updates[table]));
+			}
+		}
+	}
+
+	private static long executeBatch(Connection writeCon, PreparedStatement updatePrice) throws SQLException {
+		long updated = 0;
+		for (int count : updatePrice.executeBatch()) {
+			// drivers may not report the count of every statement of a batch
+			updated += (count == Statement.SUCCESS_NO_INFO) ? 1 : count;
+		}
+		writeCon.commit();
+		return updated;
+	}
+
+	private static boolean isChanged(double previousPrice, double recomputedPrice) {
+		return Math.abs(recomputedPrice - previousPrice) >= PRICE_TOLERANCE;
+	}
+
+	private static final class Chunk {
+		private final List<Ticket> tickets;
+		// ticket i read from ticket_archive
+		private final boolean[] archived;
+		private final double[] recomputed;
+		private final ForkJoinTask<BillingReport> task;
+
+		private Chunk(List<Ticket> tickets, boolean[] archived, double[] recomputed,
+				ForkJoinTask<BillingReport> task) {
+			this.tickets = tickets;
+			this.archived = archived;
+			this.recomputed = recomputed;
+			this.task = task;
+		}
+	}
+
+	/**
+	 * Splits a range of tickets in halves until it is small enough to be
+	 * recomputed sequentially. The tickets are left untouched: fares are computed
+	 * on a copy so the read price stays available for the comparison.
+	 */
+	private static final class RecomputeTask extends RecursiveTask<BillingReport> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient FareCalculatorService fareCalculatorService;
+		private final transient List<Ticket> tickets;
+		private final double[] recomputed;
+		private final int from;
+		private final int to;
+
+		private RecomputeTask(FareCalculatorService fareCalculatorService, List<Ticket> tickets, double[] recomputed,
+				int from, int to) {
+			this.fareCalculatorService = fareCalculatorService;
+			this.tickets = tickets;
+			this.recomputed = recomputed;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BillingReport compute() {
+			if (to - from <= SEQUENTIAL_THRESHOLD) {
+				return computeSequentially();
+			}
+			int middle = (from + to) >>> 1;
+			RecomputeTask left = new RecomputeTask(fareCalculatorService, tickets, recomputed, from, middle);
+			left.fork();
+			BillingReport report = new RecomputeTask(fareCalculatorService, tickets, recomputed, middle, to)
+					.compute();
+			report.merge(left.join());
+			return report;
+		}
+
+		private BillingReport computeSequentially() {
+			BillingReport report = new BillingReport();
+			Ticket fare = new Ticket();
+			for (int i = from; i < to; i++) {
+				Ticket ticket = tickets.get(i);
+				fare.setParkingSpot(ticket.getParkingSpot());
+				fare.setInTime(ticket.getInTime());
+				fare.setOutTime(ticket.getOutTime());
+				fare.setDiscount(ticket.isDiscount());
+				try {
+					fareCalculatorService.calculateFare(fare);
+				} catch (IllegalArgumentException e) {
+					recomputed[i] = ticket.getPrice();
+					report.addSkipped();
+					continue;
+				}
+				recomputed[i] = fare.getPrice();
+				report.add(ticket.getParkingSpot().getParkingType(), ticket.getPrice(), fare.getPrice(),
+						isChanged(ticket.getPrice(), fare.getPrice()));
+			}
+			return report;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.parkit.parkingsystem.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Application settings read from parkingsystem.properties on the classpath.
+ * Any key can be overridden with a JVM system property of the same name.
+ */
+public class AppConfig {
+
+	private static final Logger logger = LogManager.getLogger("AppConfig");
+
+	private static final String CONFIG_FILE = "parkingsystem.properties";
+	private static final Properties properties = loadProperties();
+
+	private static Properties loadProperties() {
+		Properties props = new Properties();
+		try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+			if (in != null) {
+				props.load(in);
+			} else {
+				logger.warn("No " + CONFIG_FILE + " found on classpath, using defaults");
+			}
+		} catch (IOException e) {
+			logger.error("Error while reading " + CONFIG_FILE, e);
+		}
+		return props;
+	}
+
+	public static String getString(String key, String defaultValue) {
+		return System.getProperty(key, properties.getProperty(key, defaultValue));
+	}
+
+	public static int getInt(String key, int defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			logger.error("Invalid integer value for " + key + ": " + value);
+			return defaultValue;
+		}
+	}
+
+	public static long getLong(String key, long defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			logger.error("Invalid long value for " + key + ": " + value);
+			return defaultValue;
+		}
+	}
+
+	public static double getDouble(String key, double defaultValue) {
+		String value = getString(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			logger.error("Invalid double value for " + key + ": " + value);
+			return defaultValue;
+		}
+	}
+
+	public static boolean getBoolean(String key, boolean defaultValue) {
+		String value = getString(key, null);
+		return (value == null) ? defaultValue : Boolean.parseBoolean(value.trim());
+	}
+}
@@ -0,0 +1,395 @@
+package com.parkit.parkingsystem.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.metrics.MetricsRegistry;
+import com.parkit.parkingsystem.metrics.OperationMetrics;
+
+/**
+ * Bounded pool of JDBC connections. Idle connections are handed out most
+ * recently used first, validated when they have been idle for a while and
+ * evicted in the background once they exceed the idle timeout.
+ *
+ * Each connection keeps the statements prepared through
+ * {@link #prepareStatement(Connection, String, int)} for as long as it lives,
+ * so the DAO queries are parsed once per connection instead of once per call.
+ */
+public class ConnectionPool implements ConnectionPoolMXBean {
+
+	private static final Logger logger = LogManager.getLogger("ConnectionPool");
+	private static final OperationMetrics acquireMetrics = MetricsRegistry.operation("connectionPool.acquire");
+
+	public interface ConnectionFactory {
+		Connection create() throws SQLException;
+	}
+
+	private static class PooledConnection {
+		private final Connection connection;
+		private final StatementCache statementCache;
+		private long lastUsed;
+		private long lastValidated;
+
+		PooledConnection(Connection connection, long now, int statementCacheSize) {
+			this.connection = connection;
+			this.statementCache = (statementCacheSize > 0) ? new StatementCache(statementCacheSize) : null;
+			this.lastUsed = now;
+			this.lastValidated = now;
+		}
+	}
+
+	private final String name;
+	private final ConnectionFactory factory;
+	private final ConnectionPoolConfig config;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+	private final Map<Connection, PooledConnection> borrowed = new ConcurrentHashMap<>();
+	// statements held by the connection caches, closed with their connection
+	private final Set<PreparedStatement> cachedStatements = ConcurrentHashMap.newKeySet();
+	private final Semaphore permits;
+	private final ScheduledExecutorService evictor;
+	private volatile boolean closed;
+
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong acquiredCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong evictedCount = new AtomicLong();
+	private final AtomicLong validationFailureCount = new AtomicLong();
+	private final AtomicLong statementCacheHitCount = new AtomicLong();
+	private final AtomicLong statementCacheMissCount = new AtomicLong();
+	private final AtomicLong statementCacheEvictionCount = new AtomicLong();
+
+	public ConnectionPool(String name, ConnectionFactory factory, ConnectionPoolConfig config) {
+		if (config.getMaxSize() < 1 || config.getMinSize() < 0 || config.getMinSize() > config.getMaxSize()) {
+			throw new IllegalArgumentException("Invalid pool size: min=" + config.getMinSize() + " max="
+					+ config.getMaxSize());
+		}
+		this.name = name;
+		this.factory = factory;
+		this.config = config;
+		this.permits = new Semaphore(config.getMaxSize(), true);
+		this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "pool-evictor-" + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (config.getEvictionIntervalMillis() > 0) {
+			evictor.scheduleWithFixedDelay(this::evictIdleConnections, config.getEvictionIntervalMillis(),
+					config.getEvictionIntervalMillis(), TimeUnit.MILLISECONDS);
+		}
+		fillToMinSize();
+		MetricsRegistry.registerMBean(this, "ConnectionPool", name);
+	}
+
+	public Connection acquire() throws SQLException {
+		long start = acquireMetrics.start();
+		boolean acquired = false;
+		try {
+			Connection con = acquireConnection();
+			acquired = true;
+			return con;
+		} finally {
+			acquireMetrics.record(start, acquired);
+		}
+	}
+
+	private Connection acquireConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool " + name + " is closed");
+		}
+		try {
+			if (!permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+				timeoutCount.incrementAndGet();
+				throw new SQLException("Timed out after " + config.getAcquireTimeoutMillis()
+						+ "ms waiting for a connection from pool " + name);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection from pool " + name, e);
+		}
+		try {
+			PooledConnection pooled = takeIdleConnection();
+			if (pooled == null) {
+				pooled = newPooledConnection();
+				createdCount.incrementAndGet();
+				logger.debug("Created connection for pool " + name);
+			}
+			borrowed.put(pooled.connection, pooled);
+			acquiredCount.incrementAndGet();
+			return pooled.connection;
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public void release(Connection con) {
+		PooledConnection pooled = borrowed.remove(con);
+		if (pooled == null) {
+			logger.warn("Connection returned to pool " + name + " was not borrowed from it, closing it");
+			closeQuietly(con);
+			return;
+		}
+		try {
+			if (con.isClosed()) {
+				forgetStatements(pooled);
+				return;
+			}
+			if (!con.getAutoCommit()) {
+				con.rollback();
+				con.setAutoCommit(true);
+			}
+			pooled.lastUsed = System.currentTimeMillis();
+			if (closed) {
+				closeQuietly(pooled);
+			} else {
+				idle.offerFirst(pooled);
+			}
+		} catch (SQLException e) {
+			logger.error("Discarding broken connection from pool " + name, e);
+			closeQuietly(pooled);
+		} finally {
+			permits.release();
+		}
+	}
+
+	private PooledConnection takeIdleConnection() {
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			if (isUsable(pooled)) {
+				return pooled;
+			}
+			closeQuietly(pooled);
+		}
+		return null;
+	}
+
+	private boolean isUsable(PooledConnection pooled) {
+		long now = System.currentTimeMillis();
+		if (now - pooled.lastUsed > config.getIdleTimeoutMillis()) {
+			evictedCount.incrementAndGet();
+			return false;
+		}
+		if (now - pooled.lastValidated < config.getValidationIntervalMillis()) {
+			return true;
+		}
+		try {
+			if (pooled.connection.isValid(config.getValidationTimeoutSeconds())) {
+				pooled.lastValidated = now;
+				return true;
+			}
+		} catch (SQLException e) {
+			logger.debug("Validation failed for connection of pool " + name, e);
+		}
+		validationFailureCount.incrementAndGet();
+		return false;
+	}
+
+	void evictIdleConnections() {
+		long now = System.currentTimeMillis();
+		Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+		while (oldestFirst.hasNext() && getTotalConnections() > config.getMinSize()) {
+			PooledConnection pooled = oldestFirst.next();
+			if (now - pooled.lastUsed > config.getIdleTimeoutMillis() && idle.remove(pooled)) {
+				evictedCount.incrementAndGet();
+				closeQuietly(pooled);
+			}
+		}
+		fillToMinSize();
+	}
+
+	private void fillToMinSize() {
+		while (!closed && getTotalConnections() < config.getMinSize()) {
+			try {
+				idle.offerLast(newPooledConnection());
+				createdCount.incrementAndGet();
+			} catch (SQLException | RuntimeException e) {
+				logger.error("Unable to pre-create connection for pool " + name, e);
+				return;
+			}
+		}
+	}
+
+	public void close() {
+		closed = true;
+		evictor.shutdownNow();
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			closeQuietly(pooled);
+		}
+		MetricsRegistry.unregisterMBean("ConnectionPool", name);
+	}
+
+	private PooledConnection newPooledConnection() throws SQLException {
+		return new PooledConnection(factory.create(), System.currentTimeMillis(), config.getStatementCacheSize());
+	}
+
+	/**
+	 * Prepares a statement on a connection borrowed from this pool, reusing the
+	 * one prepared by an earlier call with the same SQL. Cached statements must
+	 * be handed back with {@link #recycle(PreparedStatement)} instead of being
+	 * closed; statements of other connections are prepared as usual.
+	 *
+	 * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS or
+	 *                          Statement.NO_GENERATED_KEYS
+	 */
+	public PreparedStatement prepareStatement(Connection con, String sql, int autoGeneratedKeys)
+			throws SQLException {
+		PooledConnection pooled = borrowed.get(con);
+		if (pooled == null || pooled.statementCache == null) {
+			return prepare(con, sql, autoGeneratedKeys);
+		}
+		String key = (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) ? "keys:" + sql : sql;
+		PreparedStatement ps = pooled.statementCache.get(key);
+		if (ps != null) {
+			if (!ps.isClosed()) {
+				statementCacheHitCount.incrementAndGet();
+				return ps;
+			}
+			// closed by a caller that did not recycle it
+			pooled.statementCache.remove(key);
+			cachedStatements.remove(ps);
+		}
+		statementCacheMissCount.incrementAndGet();
+		ps = prepare(con, sql, autoGeneratedKeys);
+		cachedStatements.add(ps);
+		PreparedStatement evicted = pooled.statementCache.put(key, ps);
+		if (evicted != null) {
+			statementCacheEvictionCount.incrementAndGet();
+			cachedStatements.remove(evicted);
+			closeQuietly(evicted);
+		}
+		return ps;
+	}
+
+	private static PreparedStatement prepare(Connection con, String sql, int autoGeneratedKeys) throws SQLException {
+		return (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) ? con.prepareStatement(sql, autoGeneratedKeys)
+				: con.prepareStatement(sql);
+	}
+
+	/**
+	 * Clears the parameters of a statement kept by a connection cache so the
+	 * next caller finds it ready.
+	 *
+	 * @return false if the statement is not cached and should be closed instead
+	 */
+	public boolean recycle(PreparedStatement ps) throws SQLException {
+		if (!cachedStatements.contains(ps)) {
+			return false;
+		}
+		if (!ps.isClosed()) {
+			ps.clearParameters();
+			ps.clearBatch();
+		}
+		return true;
+	}
+
+	private void forgetStatements(PooledConnection pooled) {
+		if (pooled.statementCache != null) {
+			cachedStatements.removeAll(pooled.statementCache.clear());
+		}
+	}
+
+	private void closeQuietly(PooledConnection pooled) {
+		// closing the connection closes its statements
+		forgetStatements(pooled);
+		closeQuietly(pooled.connection);
+	}
+
+	private void closeQuietly(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			logger.debug("Error while closing cached statement", e);
+		}
+	}
+
+	private void closeQuietly(Connection con) {
+		try {
+			con.close();
+		} catch (SQLException e) {
+			logger.error("Error while closing pooled connection", e);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public int getTotalConnections() {
+		return idle.size() + borrowed.size();
+	}
+
+	public int getIdleConnections() {
+		return idle.size();
+	}
+
+	public int getActiveConnections() {
+		return borrowed.size();
+	}
+
+	public long getCreatedCount() {
+		return createdCount.get();
+	}
+
+	public long getAcquiredCount() {
+		return acquiredCount.get();
+	}
+
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	public long getEvictedCount() {
+		return evictedCount.get();
+	}
+
+	public long getValidationFailureCount() {
+		return validationFailureCount.get();
+	}
+
+	public long getStatementCacheHitCount() {
+		return statementCacheHitCount.get();
+	}
+
+	public long getStatementCacheMissCount() {
+		return statementCacheMissCount.get();
+	}
+
+	public long getStatementCacheEvictionCount() {
+		return statementCacheEvictionCount.get();
+	}
+
+	public double getStatementCacheHitRatio() {
+		long hits = getStatementCacheHitCount();
+		long lookups = hits + getStatementCacheMissCount();
+		return (lookups == 0) ? 0.0 : (double) hits / lookups;
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionPool[" + name + " active=" + getActiveConnections() + " idle=" + getIdleConnections()
+				+ " created=" + getCreatedCount() + " acquired=" + getAcquiredCount() + " timeouts="
+				+ getTimeoutCount() + " evicted=" + getEvictedCount() + " validationFailures="
+				+ getValidationFailureCount() + " statementCacheHits=" + getStatementCacheHitCount()
+				+ " statementCacheMisses=" + getStatementCacheMissCount() + "]";
+	}
+}
@@ -0,0 +1,95 @@
+package com.parkit.parkingsystem.config;
+
+public class ConnectionPoolConfig {
+	private int minSize = 2;
+	private int maxSize = 10;
+	private long acquireTimeoutMillis = 5000;
+	private long idleTimeoutMillis = 300000;
+	private long evictionIntervalMillis = 60000;
+	private long validationIntervalMillis = 30000;
+	private int validationTimeoutSeconds = 2;
+	private int statementCacheSize = 32;
+
+	public static ConnectionPoolConfig fromAppConfig() {
+		ConnectionPoolConfig config = new ConnectionPoolConfig();
+		config.setMinSize(AppConfig.getInt("db.pool.minSize", config.getMinSize()));
+		config.setMaxSize(AppConfig.getInt("db.pool.maxSize", config.getMaxSize()));
+		config.setAcquireTimeoutMillis(AppConfig.getLong("db.pool.acquireTimeoutMillis", config.getAcquireTimeoutMillis()));
+		config.setIdleTimeoutMillis(AppConfig.getLong("db.pool.idleTimeoutMillis", config.getIdleTimeoutMillis()));
+		config.setEvictionIntervalMillis(
+				AppConfig.getLong("db.pool.evictionIntervalMillis", config.getEvictionIntervalMillis()));
+		config.setValidationIntervalMillis(
+				AppConfig.getLong("db.pool.validationIntervalMillis", config.getValidationIntervalMillis()));
+		config.setValidationTimeoutSeconds(
+				AppConfig.getInt("db.pool.validationTimeoutSeconds", config.getValidationTimeoutSeconds()));
+		config.setStatementCacheSize(AppConfig.getInt("db.pool.statementCacheSize", config.getStatementCacheSize()));
+		return config;
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getAcquireTimeoutMillis() {
+		return acquireTimeoutMillis;
+	}
+
+	public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	public long getEvictionIntervalMillis() {
+		return evictionIntervalMillis;
+	}
+
+	public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+		this.evictionIntervalMillis = evictionIntervalMillis;
+	}
+
+	public long getValidationIntervalMillis() {
+		return validationIntervalMillis;
+	}
+
+	public void setValidationIntervalMillis(long validationIntervalMillis) {
+		this.validationIntervalMillis = validationIntervalMillis;
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+
+	public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+
+	/**
+	 * @return the prepared statements kept per connection, 0 to disable the cache
+	 */
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+}
@@ -0,0 +1,34 @@
+package com.parkit.parkingsystem.config;
+
+/**
+ * JMX view of a connection pool and of the statement caches of its
+ * connections.
+ */
+public interface ConnectionPoolMXBean {
+
+	String getName();
+
+	int getTotalConnections();
+
+	int getIdleConnections();
+
+	int getActiveConnections();
+
+	long getCreatedCount();
+
+	long getAcquiredCount();
+
+	long getTimeoutCount();
+
+	long getEvictedCount();
+
+	long getValidationFailureCount();
+
+	long getStatementCacheHitCount();
+
+	long getStatementCacheMissCount();
+
+	long getStatementCacheEvictionCount();
+
+	double getStatementCacheHitRatio();
+}
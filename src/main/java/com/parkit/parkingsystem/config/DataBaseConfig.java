@@ -5,6 +5,15 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,32 +21,245 @@ import org.apache.logging.log4j.Logger;
 public class DataBaseConfig {
 
 	private static final Logger logger = LogManager.getLogger("DataBaseConfig");
+	private static final int STREAMING_FETCH_SIZE = 1000;
 
+	// one pool per database, shared by every DAO pointing at it
+	private static final ConcurrentMap<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+	// pool of this database, resolved once so the DAO calls do not look it up
+	private volatile ConnectionPool connectionPool;
+
+	// transaction bound to the thread by inTransaction, joined by every DAO called by its work
+	private static final ThreadLocal<BoundTransaction> boundTransaction = new ThreadLocal<>();
+
+	private static class BoundTransaction {
+		// one connection per database (pool), enlisted on first use
+		final Map<ConnectionPool, Connection> connections = new LinkedHashMap<>();
+		final List<Runnable> afterCommit = new ArrayList<>();
+		final List<Runnable> afterRollback = new ArrayList<>();
+	}
+
+	/**
+	 * Returns the connection of this database in the transaction bound to this
+	 * thread, or a connection from the pool.
+	 */
 	public Connection getConnection() throws ClassNotFoundException, SQLException {
+		BoundTransaction transaction = boundTransaction.get();
+		if (transaction == null) {
+			logger.debug("Acquire DB connection");
+			return getConnectionPool().acquire();
+		}
+		ConnectionPool pool = getConnectionPool();
+		Connection con = transaction.connections.get(pool);
+		if (con == null) {
+			con = pool.acquire();
+			transaction.connections.put(pool, con);
+			con.setAutoCommit(false);
+		}
+		return con;
+	}
+
+	/**
+	 * Runs the work in one transaction: every DAO called by the work on this
+	 * thread gets the same connection of its database from
+	 * {@link #getConnection()}, acquired on first use. The transaction is
+	 * committed when commit accepts the result of the work, rolled back
+	 * otherwise or when the work throws. A work running inside another
+	 * transaction joins it.
+	 *
+	 * A work touching several databases (e.g. shards) commits them one after the
+	 * other: it is only atomic within each database.
+	 *
+	 * @throws IllegalStateException when the transaction could not be committed;
+	 *                               it is then rolled back
+	 */
+	public <T> T inTransaction(Supplier<T> work, Predicate<? super T> commit) {
+		if (boundTransaction.get() != null) {
+			return work.get();
+		}
+		BoundTransaction transaction = new BoundTransaction();
+		boundTransaction.set(transaction);
+		boolean committed = false;
+		try {
+			T result = work.get();
+			if (commit.test(result)) {
+				for (Connection con : transaction.connections.values()) {
+					con.commit();
+				}
+				committed = true;
+			}
+			return result;
+		} catch (SQLException e) {
+			throw new IllegalStateException("Unable to commit transaction", e);
+		} finally {
+			endTransaction(transaction, committed);
+		}
+	}
+
+	private void endTransaction(BoundTransaction transaction, boolean committed) {
+		boundTransaction.remove();
+		for (Map.Entry<ConnectionPool, Connection> enlisted : transaction.connections.entrySet()) {
+			if (!committed) {
+				try {
+					enlisted.getValue().rollback();
+				} catch (SQLException e) {
+					logger.error("Error while rolling back transaction", e);
+				}
+			}
+			// back to the pool of its own database, which restores autocommit
+			enlisted.getKey().release(enlisted.getValue());
+		}
+		for (Runnable action : committed ? transaction.afterCommit : transaction.afterRollback) {
+			try {
+				action.run();
+			} catch (RuntimeException e) {
+				logger.error("Error in transaction completion action", e);
+			}
+		}
+	}
+
+	/**
+	 * @return true while this thread runs the work of {@link #inTransaction}
+	 */
+	public boolean isInTransaction() {
+		return boundTransaction.get() != null;
+	}
+
+	/**
+	 * Runs the action once the transaction bound to this thread commits, or right
+	 * away when there is none; e.g. to update a cache with a row only other
+	 * transactions will see once committed.
+	 */
+	public void afterCommit(Runnable action) {
+		BoundTransaction transaction = boundTransaction.get();
+		if (transaction == null) {
+			action.run();
+		} else {
+			transaction.afterCommit.add(action);
+		}
+	}
+
+	/**
+	 * Runs the action if the transaction bound to this thread rolls back; e.g. to
+	 * undo a cache update made along with a row change. Ignored when there is no
+	 * transaction.
+	 */
+	public void afterRollback(Runnable action) {
+		BoundTransaction transaction = boundTransaction.get();
+		if (transaction != null) {
+			transaction.afterRollback.add(action);
+		}
+	}
+
+	public ConnectionPool getConnectionPool() throws ClassNotFoundException {
+		ConnectionPool pool = connectionPool;
+		// resolved again after closeAllPools
+		if (pool == null || pool.isClosed()) {
+			String key = getPoolKey();
+			pool = pools.get(key);
+			if (pool == null) {
+				Class.forName(getDriverClassName());
+				pool = pools.computeIfAbsent(key, k -> createConnectionPool());
+			}
+			connectionPool = pool;
+		}
+		return pool;
+	}
+
+	private String getPoolKey() {
+		return getUser() + "@" + getUrl();
+	}
 
-		logger.info("Create DB connection");
-		Class.forName("com.mysql.cj.jdbc.Driver");
-		return DriverManager.getConnection(
-				"jdbc:mysql://localhost:3306/prod", "root", "root");
+	protected ConnectionPool createConnectionPool() {
+		logger.info("Create DB connection pool for " + getUrl());
+		return new ConnectionPool(getUrl(), () -> DriverManager.getConnection(getUrl(), getUser(), getPassword()),
+				getConnectionPoolConfig());
+	}
+
+	protected String getDriverClassName() {
+		return AppConfig.getString("db.driver", "com.mysql.cj.jdbc.Driver");
+	}
+
+	protected String getUrl() {
+		return AppConfig.getString("db.url", "jdbc:mysql://localhost:3306/prod");
+	}
+
+	protected String getUser() {
+		return AppConfig.getString("db.user", "root");
+	}
 
+	protected String getPassword() {
+		return AppConfig.getString("db.password", "root");
 	}
 
+	protected ConnectionPoolConfig getConnectionPoolConfig() {
+		return ConnectionPoolConfig.fromAppConfig();
+	}
+
+	/**
+	 * Makes the statement stream its result set row by row instead of loading it
+	 * fully in memory, for the bulk reads of the ticket and parking tables.
+	 */
+	public void enableStreaming(Statement statement) throws SQLException {
+		// MySQL Connector/J only streams with this marker fetch size
+		statement.setFetchSize(getUrl().startsWith("jdbc:mysql:") ? Integer.MIN_VALUE : STREAMING_FETCH_SIZE);
+	}
+
+	public static void closeAllPools() {
+		for (ConnectionPool pool : pools.values()) {
+			logger.info("Closing " + pool);
+			pool.close();
+		}
+		pools.clear();
+	}
+
+	/**
+	 * Releases the connection to the pool, unless it is the connection of the
+	 * transaction bound to this thread, released when the transaction ends.
+	 */
 	public void closeConnection(Connection con) {
-		if (con != null) {
+		BoundTransaction transaction = boundTransaction.get();
+		if (con != null && (transaction == null || !transaction.connections.containsValue(con))) {
 			try {
-				con.close();
-				logger.info("Closing DB connection");
-			} catch (SQLException e) {
-				logger.error("Error while closing connection", e);
+				getConnectionPool().release(con);
+				logger.debug("Released DB connection");
+			} catch (ClassNotFoundException e) {
+				logger.error("Error while releasing connection", e);
 			}
 		}
 	}
 
+	/**
+	 * Prepares one of the {@link com.parkit.parkingsystem.constants.DBConstants}
+	 * queries, reusing the statement already prepared on that connection. Close it
+	 * with {@link #closePreparedStatement(PreparedStatement)}, which hands it back
+	 * to the connection. Statements tuned by the caller (e.g. for streaming) must
+	 * be prepared on the connection directly.
+	 */
+	public PreparedStatement prepareStatement(Connection con, String sql) throws SQLException {
+		return prepareStatement(con, sql, Statement.NO_GENERATED_KEYS);
+	}
+
+	public PreparedStatement prepareStatement(Connection con, String sql, int autoGeneratedKeys)
+			throws SQLException {
+		ConnectionPool pool = connectionPool;
+		if (pool == null) {
+			return (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS)
+					? con.prepareStatement(sql, autoGeneratedKeys)
+					: con.prepareStatement(sql);
+		}
+		return pool.prepareStatement(con, sql, autoGeneratedKeys);
+	}
+
 	public void closePreparedStatement(PreparedStatement ps) {
 		if (ps != null) {
 			try {
+				ConnectionPool pool = connectionPool;
+				if (pool != null && pool.recycle(ps)) {
+					return;
+				}
 				ps.close();
-				logger.info("Closing Prepared Statement");
+				logger.debug("Closing Prepared Statement");
 			} catch (SQLException e) {
 				logger.error("Error while closing prepared statement", e);
 			}
@@ -48,7 +270,7 @@ public class DataBaseConfig {
 		if (rs != null) {
 			try {
 				rs.close();
-				logger.info("Closing Result Set");
+				logger.debug("Closing Result Set");
 			} catch (SQLException e) {
 				logger.error("Error while closing result set", e);
 			}
@@ -0,0 +1,222 @@
+package com.parkit.parkingsystem.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.constants.DBConstants;
+
+/**
+ * Applies the versioned scripts of db/migration to the database of its
+ * {@link DataBaseConfig} and records each applied version in the
+ * schema_version table, so every database (prod, test) is brought to the same
+ * schema at startup.
+ *
+ * The migration runs under a MySQL named lock: when several processes start
+ * at once, the others wait for the first one to finish, then read the version
+ * it reached, so no process opens its gates on a half-migrated schema. The
+ * lock belongs to the session, so the server releases it if the process dies.
+ * A version is recorded once its script succeeded; DDL is not transactional in
+ * MySQL, so a script that failed halfway is retried at the next start and
+ * must be fixed by hand first. Databases without named locks (the embedded
+ * H2) are migrated by a single process and run unlocked.
+ */
+public class SchemaMigrator {
+
+	private static final Logger logger = LogManager.getLogger("SchemaMigrator");
+	private static final String MIGRATION_PATH = "db/migration/";
+
+	// in order, version n being MIGRATIONS[n - 1]; only ever append to it
+	private static final String[] MIGRATIONS = { "V1__create_tables.sql", "V2__add_lookup_indexes.sql",
+			"V3__create_ticket_archive.sql", "V4__create_reservation.sql", "V5__add_in_time_indexes.sql" };
+
+	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+	private final int lockTimeoutSeconds = AppConfig.getInt("db.migrationLockTimeoutSeconds", 300);
+
+	/**
+	 * Migrates the configured database and the database of every shard when
+	 * db.migrateOnStartup is set.
+	 */
+	public static void migrateIfEnabled() throws ClassNotFoundException, SQLException, IOException {
+		if (AppConfig.getBoolean("db.migrateOnStartup", true)) {
+			new SchemaMigrator().migrate();
+			for (ShardDataBaseConfig shard : ShardDataBaseConfig.fromAppConfig()) {
+				SchemaMigrator migrator = new SchemaMigrator();
+				migrator.dataBaseConfig = shard;
+				migrator.migrate();
+			}
+		}
+	}
+
+	public static int getLatestVersion() {
+		return MIGRATIONS.length;
+	}
+
+	/**
+	 * @return the last version applied, 0 for a database never migrated
+	 */
+	public int getCurrentVersion() throws ClassNotFoundException, SQLException {
+		Connection con = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			return getCurrentVersion(con);
+		} finally {
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Applies the scripts newer than the current version.
+	 *
+	 * @return the number of scripts applied
+	 */
+	public int migrate() throws ClassNotFoundException, SQLException, IOException {
+		Connection con = null;
+		int applied = 0;
+		boolean locked = false;
+		try {
+			con = dataBaseConfig.getConnection();
+			locked = acquireLock(con);
+			// read under the lock: another process may have migrated while we waited
+			for (int version = getCurrentVersion(con) + 1; version <= MIGRATIONS.length; version++) {
+				applyScript(con, version);
+				recordVersion(con, version);
+				applied++;
+			}
+			logger.info("Database schema at version " + getCurrentVersion(con) + ", " + applied
+					+ " migrations applied");
+			return applied;
+		} finally {
+			if (locked) {
+				releaseLock(con);
+			}
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Waits for the other processes migrating the same database.
+	 *
+	 * @return false when the database has no named locks
+	 */
+	private boolean acquireLock(Connection con) throws SQLException {
+		String product = con.getMetaData().getDatabaseProductName();
+		if (!"MySQL".equalsIgnoreCase(product) && !"MariaDB".equalsIgnoreCase(product)) {
+			logger.debug("No named locks on " + product + ", migrating unlocked");
+			return false;
+		}
+		try (PreparedStatement ps = con.prepareStatement(DBConstants.GET_SCHEMA_LOCK)) {
+			ps.setInt(1, lockTimeoutSeconds);
+			try (ResultSet rs = ps.executeQuery()) {
+				// 1 when taken, 0 on timeout, null on error
+				if (!rs.next() || rs.getInt(1) != 1) {
+					throw new SQLException("Schema migration lock not acquired within " + lockTimeoutSeconds
+							+ " seconds: another process is still migrating");
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Releases the lock, or ends the session holding it: a pooled connection
+	 * still holding it would block every later migration.
+	 */
+	private void releaseLock(Connection con) {
+		try (PreparedStatement ps = con.prepareStatement(DBConstants.RELEASE_SCHEMA_LOCK)) {
+			ps.executeQuery().close();
+		} catch (SQLException e) {
+			logger.error("Error releasing the schema migration lock, closing its connection", e);
+			try {
+				// the pool discards a closed connection
+				con.close();
+			} catch (SQLException closeError) {
+				logger.error("Error closing the connection holding the schema migration lock", closeError);
+			}
+		}
+	}
+
+	private int getCurrentVersion(Connection con) throws SQLException {
+		try (Statement statement = con.createStatement()) {
+			// creates the version table of a database never migrated
+			statement.execute(DBConstants.CREATE_SCHEMA_VERSION);
+			try (ResultSet rs = statement.executeQuery(DBConstants.GET_SCHEMA_VERSION)) {
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		}
+	}
+
+	private void recordVersion(Connection con, int version) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(DBConstants.SAVE_SCHEMA_VERSION)) {
+			ps.setInt(1, version);
+			ps.setString(2, getDescription(version));
+			ps.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now(ZoneId.systemDefault())));
+			ps.executeUpdate();
+		}
+	}
+
+	private void applyScript(Connection con, int version) throws SQLException, IOException {
+		String script = MIGRATIONS[version - 1];
+		logger.info("Applying schema version " + version + ": " + getDescription(version));
+		try (Statement statement = con.createStatement()) {
+			for (String sql : readStatements(script)) {
+				statement.execute(sql);
+			}
+		} catch (SQLException e) {
+			throw new SQLException("Schema version " + version + " (" + script + ") failed: " + e.getMessage(),
+					e.getSQLState(), e);
+		}
+	}
+
+	// V2__add_lookup_indexes.sql -> add lookup indexes
+	private static String getDescription(int version) {
+		String script = MIGRATIONS[version - 1];
+		return script.substring(script.indexOf("__") + 2, script.lastIndexOf('.')).replace('_', ' ');
+	}
+
+	/**
+	 * Splits a script into its statements: one or more lines ended by a
+	 * semicolon, "--" comment lines skipped.
+	 */
+	private static List<String> readStatements(String script) throws IOException {
+		InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(MIGRATION_PATH + script);
+		if (in == null) {
+			throw new IOException("Migration script " + MIGRATION_PATH + script + " not found on the classpath");
+		}
+		List<String> statements = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			StringBuilder statement = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String trimmed = line.trim();
+				if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+					continue;
+				}
+				statement.append(trimmed).append(' ');
+				if (trimmed.endsWith(";")) {
+					statements.add(statement.substring(0, statement.lastIndexOf(";")).trim());
+					statement.setLength(0);
+				}
+			}
+			if (statement.length() > 0) {
+				statements.add(statement.toString().trim());
+			}
+		}
+		return statements;
+	}
+}
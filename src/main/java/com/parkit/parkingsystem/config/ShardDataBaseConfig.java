@@ -0,0 +1,67 @@
+package com.parkit.parkingsystem.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Database of one shard (a lot or a level), configured with the
+ * storage.shard.&lt;lot&gt;.db.* settings. The url is required; driver, user
+ * and password fall back to the db.* settings. Each shard gets its own
+ * connection pool.
+ */
+public class ShardDataBaseConfig extends DataBaseConfig {
+
+	private final String lotId;
+	private final String url;
+
+	public ShardDataBaseConfig(String lotId) {
+		this.lotId = lotId;
+		this.url = AppConfig.getString("storage.shard." + lotId + ".db.url", null);
+		if (url == null) {
+			throw new IllegalArgumentException("No storage.shard." + lotId + ".db.url for shard " + lotId);
+		}
+	}
+
+	/**
+	 * @return the databases of the lots listed in storage.shards (comma
+	 *         separated), none when it is empty
+	 */
+	public static List<ShardDataBaseConfig> fromAppConfig() {
+		List<ShardDataBaseConfig> shards = new ArrayList<>();
+		String lotIds = AppConfig.getString("storage.shards", "").trim();
+		if (!lotIds.isEmpty()) {
+			for (String lotId : lotIds.split(",")) {
+				shards.add(new ShardDataBaseConfig(lotId.trim()));
+			}
+		}
+		return shards;
+	}
+
+	public String getLotId() {
+		return lotId;
+	}
+
+	private String getShardSetting(String key, String defaultValue) {
+		return AppConfig.getString("storage.shard." + lotId + "." + key, AppConfig.getString(key, defaultValue));
+	}
+
+	@Override
+	protected String getDriverClassName() {
+		return getShardSetting("db.driver", "com.mysql.cj.jdbc.Driver");
+	}
+
+	@Override
+	protected String getUrl() {
+		return url;
+	}
+
+	@Override
+	protected String getUser() {
+		return getShardSetting("db.user", "root");
+	}
+
+	@Override
+	protected String getPassword() {
+		return getShardSetting("db.password", "root");
+	}
+}
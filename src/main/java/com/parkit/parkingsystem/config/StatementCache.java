@@ -0,0 +1,56 @@
+package com.parkit.parkingsystem.config;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepared statements of one pooled connection, keyed by their SQL, least
+ * recently used evicted first. Not thread-safe: a connection is only used by
+ * the thread that borrowed it.
+ */
+class StatementCache {
+
+	private final int maxSize;
+	private final LinkedHashMap<String, PreparedStatement> statements;
+
+	StatementCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.statements = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	PreparedStatement get(String key) {
+		return statements.get(key);
+	}
+
+	void remove(String key) {
+		statements.remove(key);
+	}
+
+	/**
+	 * @return the statement evicted to make room, or null
+	 */
+	PreparedStatement put(String key, PreparedStatement statement) {
+		statements.put(key, statement);
+		if (statements.size() > maxSize) {
+			Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+			PreparedStatement evicted = eldest.next().getValue();
+			eldest.remove();
+			return evicted;
+		}
+		return null;
+	}
+
+	/**
+	 * Empties the cache and returns its statements, to be closed with their
+	 * connection.
+	 */
+	List<PreparedStatement> clear() {
+		List<PreparedStatement> cleared = new ArrayList<>(statements.values());
+		statements.clear();
+		return cleared;
+	}
+}
@@ -0,0 +1,100 @@
+package com.parkit.parkingsystem.config;
+
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryReservationStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.dao.InstrumentedParkingSpotStore;
+import com.parkit.parkingsystem.dao.InstrumentedTicketStore;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.ReservationDAO;
+import com.parkit.parkingsystem.dao.ReservationStore;
+import com.parkit.parkingsystem.dao.ShardRouter;
+import com.parkit.parkingsystem.dao.ShardedParkingSpotStore;
+import com.parkit.parkingsystem.dao.ShardedTicketStore;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+
+/**
+ * Storage engine behind the gate flows, selected at startup with the
+ * storage.engine setting. With storage.shards set, the MYSQL engine spreads
+ * the spots and tickets over one database per lot.
+ */
+public enum StorageEngine {
+	MYSQL, MEMORY;
+
+	public static StorageEngine fromAppConfig() {
+		return valueOf(AppConfig.getString("storage.engine", "mysql").trim().toUpperCase());
+	}
+
+	public ParkingSpotStore createParkingSpotStore() {
+		ParkingSpotStore store;
+		switch (this) {
+		case MEMORY:
+			store = InMemoryParkingSpotStore.fromLayout(AppConfig.getString("storage.memory.layout", "CAR:1-3,BIKE:4-5"));
+			break;
+		default:
+			ShardRouter<ParkingSpotStore> router = ShardRouter.fromAppConfig(dataBaseConfig -> {
+				ParkingSpotDAO shard = new ParkingSpotDAO();
+				shard.dataBaseConfig = dataBaseConfig;
+				return shard;
+			});
+			store = (router == null) ? new ParkingSpotDAO() : new ShardedParkingSpotStore(router);
+		}
+		return isInstrumented() ? new InstrumentedParkingSpotStore(metricsName(store), store) : store;
+	}
+
+	public TicketStore createTicketStore() {
+		TicketStore store;
+		switch (this) {
+		case MEMORY:
+			store = new InMemoryTicketStore();
+			break;
+		default:
+			ShardRouter<TicketStore> router = ShardRouter.fromAppConfig(dataBaseConfig -> {
+				TicketDAO shard = new TicketDAO();
+				shard.dataBaseConfig = dataBaseConfig;
+				return shard;
+			});
+			store = (router == null) ? new TicketDAO() : new ShardedTicketStore(router);
+		}
+		return isInstrumented() ? new InstrumentedTicketStore(metricsName(store), store) : store;
+	}
+
+	/**
+	 * Reservations are kept in the main database, also when the spots are
+	 * sharded.
+	 */
+	public ReservationStore createReservationStore() {
+		switch (this) {
+		case MEMORY:
+			return new InMemoryReservationStore();
+		default:
+			return new ReservationDAO();
+		}
+	}
+
+	/**
+	 * @return the runner making each gate flow a single transaction of the
+	 *         stores of this engine
+	 */
+	public TransactionRunner createTransactionRunner() {
+		switch (this) {
+		case MEMORY:
+			return TransactionRunner.NONE;
+		default:
+			return new DataBaseConfig()::inTransaction;
+		}
+	}
+
+	private static boolean isInstrumented() {
+		return AppConfig.getBoolean("metrics.enabled", true);
+	}
+
+	// e.g. ticketDAO.saveTicket
+	private static String metricsName(Object store) {
+		String className = store.getClass().getSimpleName();
+		return Character.toLowerCase(className.charAt(0)) + className.substring(1);
+	}
+}
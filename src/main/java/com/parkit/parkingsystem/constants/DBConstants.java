@@ -4,12 +4,41 @@ public class DBConstants {
 
 	public static final String GET_NEXT_PARKING_SPOT = "select min(PARKING_NUMBER) from parking where AVAILABLE = true and TYPE = ?";
 	public static final String UPDATE_PARKING_SPOT = "update parking set available = ? where PARKING_NUMBER = ?";
+	public static final String GET_PARKING_SPOTS = "select PARKING_NUMBER, AVAILABLE, TYPE from parking";
+	public static final String GET_AVAILABLE_PARKING_SPOTS = "select PARKING_NUMBER from parking where AVAILABLE = true and TYPE = ? order by PARKING_NUMBER limit ?";
+	public static final String FLIP_PARKING_SPOT = "update parking set available = ? where PARKING_NUMBER = ? and AVAILABLE = ?";
+	public static final String PARKING_SPOT_EXISTS = "select 1 from parking where PARKING_NUMBER = ?";
+	public static final String GET_OCCUPANCY = "select TYPE, count(*), sum(case when AVAILABLE then 1 else 0 end) from parking group by TYPE";
+	public static final String CLAIM_PARKING_SPOT = "update parking set available = false where PARKING_NUMBER = ? and AVAILABLE = true";
 
 	public static final String SAVE_TICKET = "insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME, DISCOUNT) values(?,?,?,?,?,?)";
-	public static final String UPDATE_TICKET = "update ticket set PRICE=?, OUT_TIME=? where ID=?";
+	public static final String UPDATE_TICKET = "update ticket set PRICE=?, OUT_TIME=? where ID=? and OUT_TIME is null";
 
 	public static final String GET_TICKET = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT, p.TYPE from ticket t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER=? order by t.IN_TIME DESC limit 1";
-	public static final String GET_RECURRING_USER = "select VEHICLE_REG_NUMBER from ticket where VEHICLE_REG_NUMBER > ?";
+	public static final String GET_OPEN_TICKETS = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT, p.TYPE, t.VEHICLE_REG_NUMBER from ticket t,parking p where p.parking_number = t.parking_number and t.OUT_TIME is null";
+	public static final String GET_TICKET_BY_VEHICLE_AND_IN_TIME = "select ID, OUT_TIME from ticket where VEHICLE_REG_NUMBER = ? and IN_TIME between ? and ? order by IN_TIME limit 1";
+	public static final String GET_CLOSED_TICKETS = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT, p.TYPE, 0 from ticket t,parking p where p.parking_number = t.parking_number and t.OUT_TIME is not null union all select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT, p.TYPE, 1 from ticket_archive t,parking p where p.parking_number = t.parking_number";
+	public static final String UPDATE_TICKET_PRICE = "update ticket set PRICE=? where ID=?";
+	public static final String UPDATE_ARCHIVED_TICKET_PRICE = "update ticket_archive set PRICE=? where ID=?";
+	public static final String GET_RECURRING_USER = "select 1 from ticket where VEHICLE_REG_NUMBER = ? limit 1";
+	public static final String GET_VEHICLES_WITH_TICKET = "select VEHICLE_REG_NUMBER from ticket union select VEHICLE_REG_NUMBER from ticket_archive";
+	public static final String GET_VEHICLES_WITH_TICKET_AFTER = "select VEHICLE_REG_NUMBER, ID from ticket where ID > ?";
+	public static final String GET_ARCHIVED_TICKET = "select t.PARKING_NUMBER, t.ID, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT, p.TYPE from ticket_archive t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER=? order by t.IN_TIME DESC limit 1";
+	public static final String GET_ARCHIVED_RECURRING_USER = "select 1 from ticket_archive where VEHICLE_REG_NUMBER = ? limit 1";
+	public static final String GET_ARCHIVABLE_TICKETS = "select ID from ticket where OUT_TIME < ? order by OUT_TIME limit ?";
+	public static final String ARCHIVE_TICKET = "insert into ticket_archive(ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME, DISCOUNT) select ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME, DISCOUNT from ticket where ID = ? and OUT_TIME is not null";
+	public static final String DELETE_ARCHIVED_TICKET = "delete from ticket where ID = ? and OUT_TIME is not null";
+	public static final String GET_TICKETS_IN_RANGE = "select t.ID, t.PARKING_NUMBER, p.TYPE, t.VEHICLE_REG_NUMBER, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT from ticket t,parking p where p.parking_number = t.parking_number and t.IN_TIME >= ? and t.IN_TIME < ? union all select t.ID, t.PARKING_NUMBER, p.TYPE, t.VEHICLE_REG_NUMBER, t.PRICE, t.IN_TIME, t.OUT_TIME, t.DISCOUNT from ticket_archive t,parking p where p.parking_number = t.parking_number and t.IN_TIME >= ? and t.IN_TIME < ?";
 	public static final String GET_SAVED_TICKET = "select t.ID, t.PARKINGSPOT from ticket where t.ID = ?";
 
+	public static final String SAVE_RESERVATION = "insert into reservation(PARKING_NUMBER, VEHICLE_REG_NUMBER, RESERVED_UNTIL) values(?,?,?)";
+	public static final String DELETE_RESERVATION = "delete from reservation where ID = ?";
+	public static final String GET_RESERVATIONS = "select r.ID, r.PARKING_NUMBER, p.TYPE, r.VEHICLE_REG_NUMBER, r.RESERVED_UNTIL from reservation r, parking p where p.PARKING_NUMBER = r.PARKING_NUMBER";
+
+	public static final String CREATE_SCHEMA_VERSION = "create table if not exists schema_version(VERSION int PRIMARY KEY, DESCRIPTION varchar(100) NOT NULL, APPLIED_ON DATETIME NOT NULL)";
+	public static final String GET_SCHEMA_VERSION = "select max(VERSION) from schema_version";
+	public static final String SAVE_SCHEMA_VERSION = "insert into schema_version(VERSION, DESCRIPTION, APPLIED_ON) values(?,?,?)";
+	public static final String GET_SCHEMA_LOCK = "select GET_LOCK('schema_migration', ?)";
+	public static final String RELEASE_SCHEMA_LOCK = "select RELEASE_LOCK('schema_migration')";
+
 }
@@ -0,0 +1,12 @@
+package com.parkit.parkingsystem.constants;
+
+public enum GateStatus {
+	ACCEPTED,
+	LOT_FULL,
+	NOT_PARKED,
+	INVALID_REQUEST,
+	STORE_ERROR,
+	ALREADY_RESERVED,
+	NOT_RESERVED
+
+}
@@ -0,0 +1,81 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * In-memory view of the free parking spots, one sorted set per parking type,
+ * so the lowest free spot is found in O(log n) without querying the database.
+ */
+public class FreeSpotIndex {
+
+	private final Map<ParkingType, ConcurrentSkipListSet<Integer>> freeSpots = new EnumMap<>(ParkingType.class);
+
+	public FreeSpotIndex() {
+		for (ParkingType parkingType : ParkingType.values()) {
+			freeSpots.put(parkingType, new ConcurrentSkipListSet<Integer>());
+		}
+	}
+
+	/**
+	 * @return the lowest free spot number of that type, or 0 when the type is
+	 *         full (same contract as the MIN(PARKING_NUMBER) query)
+	 */
+	public int lowestFree(ParkingType parkingType) {
+		Integer lowest = freeSpots.get(parkingType).ceiling(Integer.MIN_VALUE);
+		return (lowest == null) ? 0 : lowest;
+	}
+
+	/**
+	 * Atomically removes and returns the lowest free spot of that type. Two
+	 * concurrent callers never receive the same spot.
+	 *
+	 * @return the claimed spot number, or 0 when the type is full
+	 */
+	public int claimLowest(ParkingType parkingType) {
+		Integer lowest = freeSpots.get(parkingType).pollFirst();
+		return (lowest == null) ? 0 : lowest;
+	}
+
+	/**
+	 * Takes that spot only if it is still free in the index.
+	 */
+	public boolean claim(int parkingNumber, ParkingType parkingType) {
+		return freeSpots.get(parkingType).remove(parkingNumber);
+	}
+
+	public void update(ParkingSpot parkingSpot) {
+		if (parkingSpot.isAvailable()) {
+			markFree(parkingSpot.getId(), parkingSpot.getParkingType());
+		} else {
+			markTaken(parkingSpot.getId(), parkingSpot.getParkingType());
+		}
+	}
+
+	public void markFree(int parkingNumber, ParkingType parkingType) {
+		freeSpots.get(parkingType).add(parkingNumber);
+	}
+
+	public void markTaken(int parkingNumber, ParkingType parkingType) {
+		freeSpots.get(parkingType).remove(parkingNumber);
+	}
+
+	public boolean isFree(int parkingNumber, ParkingType parkingType) {
+		return freeSpots.get(parkingType).contains(parkingNumber);
+	}
+
+	/**
+	 * @return the free spot numbers of that type, lowest first
+	 */
+	public int[] getFreeSpots(ParkingType parkingType) {
+		return freeSpots.get(parkingType).stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	public int freeCount(ParkingType parkingType) {
+		return freeSpots.get(parkingType).size();
+	}
+}
@@ -0,0 +1,204 @@
+package com.parkit.parkingsystem.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.BloomFilter;
+
+/**
+ * The in-memory indexes of the gates (free spots, open tickets and known
+ * vehicles) saved to a local binary file at shutdown, so the next startup can
+ * restore them without scanning the parking and ticket tables.
+ *
+ * Layout: magic, version, write time, then per parking type its name, total
+ * spots and free spot numbers, then the open tickets, then the Bloom filter of
+ * the known vehicles if any. The file is written aside and moved in place, so
+ * a crash while writing leaves the previous snapshot.
+ */
+public class GateSnapshot {
+
+	private static final int MAGIC = 0x50475331; // "PGS1"
+	private static final int VERSION = 1;
+
+	private final long writtenAtMillis;
+	private final FreeSpotIndex freeSpotIndex;
+	private final int[] totalSpots;
+	private final List<Ticket> openTickets;
+	private final BloomFilter knownVehicles;
+
+	/**
+	 * @param totalSpots    indexed by ParkingType ordinal
+	 * @param knownVehicles null when the recurring vehicle cache is disabled
+	 */
+	public GateSnapshot(long writtenAtMillis, FreeSpotIndex freeSpotIndex, int[] totalSpots, List<Ticket> openTickets,
+			BloomFilter knownVehicles) {
+		this.writtenAtMillis = writtenAtMillis;
+		this.freeSpotIndex = freeSpotIndex;
+		this.totalSpots = totalSpots.clone();
+		this.openTickets = openTickets;
+		this.knownVehicles = knownVehicles;
+	}
+
+	/**
+	 * Captures the indexes of the DAOs, loading the ones not loaded yet.
+	 *
+	 * @return the snapshot, or null when the spots or open tickets are not
+	 *         indexed
+	 */
+	public static GateSnapshot capture(ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO) {
+		FreeSpotIndex index = parkingSpotDAO.getFreeSpotIndex();
+		OccupancySnapshot occupancy = parkingSpotDAO.getOccupancy();
+		OpenTicketIndex openTicketIndex = ticketDAO.getOpenTicketIndex();
+		if (index == null || occupancy == null || openTicketIndex == null) {
+			return null;
+		}
+		int[] totalSpots = new int[ParkingType.values().length];
+		for (ParkingType parkingType : ParkingType.values()) {
+			totalSpots[parkingType.ordinal()] = occupancy.getTotal(parkingType);
+		}
+		RecurringVehicleCache cache = ticketDAO.getRecurringVehicleCache();
+		return new GateSnapshot(System.currentTimeMillis(), index, totalSpots, openTicketIndex.getTickets(),
+				(cache == null) ? null : cache.getKnownVehicles());
+	}
+
+	public void write(Path path) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(writtenAtMillis);
+				out.writeInt(ParkingType.values().length);
+				for (ParkingType parkingType : ParkingType.values()) {
+					int[] freeSpots = freeSpotIndex.getFreeSpots(parkingType);
+					out.writeUTF(parkingType.name());
+					out.writeInt(totalSpots[parkingType.ordinal()]);
+					out.writeInt(freeSpots.length);
+					for (int parkingNumber : freeSpots) {
+						out.writeInt(parkingNumber);
+					}
+				}
+				out.writeInt(openTickets.size());
+				for (Ticket ticket : openTickets) {
+					out.writeInt(ticket.getId());
+					out.writeInt(ticket.getParkingSpot().getId());
+					out.writeUTF(ticket.getParkingSpot().getParkingType().name());
+					out.writeUTF(ticket.getVehicleRegNumber());
+					writeTime(out, ticket.getInTime());
+					out.writeDouble(ticket.getPrice());
+					out.writeBoolean(ticket.isDiscount());
+				}
+				out.writeBoolean(knownVehicles != null);
+				if (knownVehicles != null) {
+					knownVehicles.writeTo(out);
+				}
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	public static GateSnapshot read(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException(path + " is not a gate snapshot of version " + VERSION);
+			}
+			long writtenAtMillis = in.readLong();
+			FreeSpotIndex freeSpotIndex = new FreeSpotIndex();
+			int[] totalSpots = new int[ParkingType.values().length];
+			int typeCount = in.readInt();
+			for (int type = 0; type < typeCount; type++) {
+				ParkingType parkingType = parseType(in.readUTF());
+				totalSpots[parkingType.ordinal()] = in.readInt();
+				int freeCount = in.readInt();
+				for (int i = 0; i < freeCount; i++) {
+					freeSpotIndex.markFree(in.readInt(), parkingType);
+				}
+			}
+			int ticketCount = in.readInt();
+			List<Ticket> openTickets = new ArrayList<>(ticketCount);
+			for (int i = 0; i < ticketCount; i++) {
+				Ticket ticket = new Ticket();
+				ticket.setId(in.readInt());
+				int parkingNumber = in.readInt();
+				ticket.setParkingSpot(new ParkingSpot(parkingNumber, parseType(in.readUTF()), false));
+				ticket.setVehicleRegNumber(in.readUTF());
+				ticket.setInTime(readTime(in));
+				ticket.setPrice(in.readDouble());
+				ticket.setDiscount(in.readBoolean());
+				openTickets.add(ticket);
+			}
+			BloomFilter knownVehicles = in.readBoolean() ? BloomFilter.readFrom(in) : null;
+			return new GateSnapshot(writtenAtMillis, freeSpotIndex, totalSpots, openTickets, knownVehicles);
+		}
+	}
+
+	private static ParkingType parseType(String name) throws IOException {
+		try {
+			return ParkingType.valueOf(name);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Unknown parking type in gate snapshot: " + name, e);
+		}
+	}
+
+	// local date-times, only encoded through UTC
+	private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+		out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(time.getNano());
+	}
+
+	private static LocalDateTime readTime(DataInputStream in) throws IOException {
+		return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+	}
+
+	public long getWrittenAtMillis() {
+		return writtenAtMillis;
+	}
+
+	public FreeSpotIndex getFreeSpotIndex() {
+		return freeSpotIndex;
+	}
+
+	/**
+	 * @return total spots, indexed by ParkingType ordinal
+	 */
+	public int[] getTotalSpots() {
+		return totalSpots.clone();
+	}
+
+	public OpenTicketIndex getOpenTicketIndex() {
+		OpenTicketIndex index = new OpenTicketIndex();
+		for (Ticket ticket : openTickets) {
+			index.put(ticket);
+		}
+		return index;
+	}
+
+	public int getOpenTicketCount() {
+		return openTickets.size();
+	}
+
+	/**
+	 * @return the known vehicles, or null when the snapshot has none
+	 */
+	public BloomFilter getKnownVehicles() {
+		return knownVehicles;
+	}
+}
@@ -0,0 +1,118 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * Parking spots held in memory, indexed by spot number. Meant for small lots,
+ * edge gate controllers and load tests that run without a database.
+ */
+public class InMemoryParkingSpotStore implements ParkingSpotStore {
+
+	private static final int FREE = 1;
+	private static final int TAKEN = 0;
+
+	private final ParkingType[] parkingTypes;
+	private final AtomicIntegerArray availability;
+	private final FreeSpotIndex freeSpotIndex = new FreeSpotIndex();
+	private final OccupancyCounters occupancyCounters = new OccupancyCounters();
+
+	/**
+	 * @param parkingTypes type of each spot, indexed by spot number; null
+	 *                     entries are not parking spots
+	 */
+	public InMemoryParkingSpotStore(ParkingType[] parkingTypes) {
+		this.parkingTypes = parkingTypes.clone();
+		this.availability = new AtomicIntegerArray(parkingTypes.length);
+		int[] spots = new int[ParkingType.values().length];
+		for (int number = 1; number < parkingTypes.length; number++) {
+			if (parkingTypes[number] != null) {
+				availability.set(number, FREE);
+				freeSpotIndex.markFree(number, parkingTypes[number]);
+				spots[parkingTypes[number].ordinal()]++;
+			}
+		}
+		occupancyCounters.reset(spots, spots);
+	}
+
+	/**
+	 * Builds a lot from a layout such as "CAR:1-3,BIKE:4-5".
+	 */
+	public static InMemoryParkingSpotStore fromLayout(String layout) {
+		int maxNumber = 0;
+		String[] ranges = layout.split(",");
+		for (String range : ranges) {
+			maxNumber = Math.max(maxNumber, parseRange(range)[1]);
+		}
+		ParkingType[] parkingTypes = new ParkingType[maxNumber + 1];
+		for (String range : ranges) {
+			int[] bounds = parseRange(range);
+			ParkingType parkingType = ParkingType.valueOf(range.substring(0, range.indexOf(':')).trim());
+			for (int number = bounds[0]; number <= bounds[1]; number++) {
+				parkingTypes[number] = parkingType;
+			}
+		}
+		return new InMemoryParkingSpotStore(parkingTypes);
+	}
+
+	private static int[] parseRange(String range) {
+		String numbers = range.substring(range.indexOf(':') + 1).trim();
+		int dash = numbers.indexOf('-');
+		int first = Integer.parseInt((dash < 0 ? numbers : numbers.substring(0, dash)).trim());
+		int last = (dash < 0) ? first : Integer.parseInt(numbers.substring(dash + 1).trim());
+		if (first < 1 || last < first) {
+			throw new IllegalArgumentException("Invalid parking spot range: " + range);
+		}
+		return new int[] { first, last };
+	}
+
+	@Override
+	public int getNextAvailableSlot(ParkingType parkingType) {
+		return freeSpotIndex.lowestFree(parkingType);
+	}
+
+	@Override
+	public int claimNextAvailableSlot(ParkingType parkingType) {
+		int candidate;
+		while ((candidate = freeSpotIndex.claimLowest(parkingType)) > 0) {
+			if (availability.compareAndSet(candidate, FREE, TAKEN)) {
+				occupancyCounters.spotTaken(parkingType);
+				return candidate;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public boolean updateParking(ParkingSpot parkingSpot) {
+		int number = parkingSpot.getId();
+		if (number < 1 || number >= parkingTypes.length || parkingTypes[number] == null) {
+			return false;
+		}
+		ParkingType parkingType = parkingTypes[number];
+		if (parkingSpot.isAvailable()) {
+			if (availability.getAndSet(number, FREE) == TAKEN) {
+				occupancyCounters.spotFreed(parkingType);
+			}
+			freeSpotIndex.markFree(number, parkingType);
+		} else {
+			if (availability.getAndSet(number, TAKEN) == FREE) {
+				occupancyCounters.spotTaken(parkingType);
+			}
+			freeSpotIndex.markTaken(number, parkingType);
+		}
+		return true;
+	}
+
+	@Override
+	public OccupancySnapshot getOccupancy() {
+		return occupancyCounters.snapshot();
+	}
+
+	public ParkingType getParkingType(int number) {
+		return (number < 1 || number >= parkingTypes.length) ? null : parkingTypes[number];
+	}
+}
@@ -0,0 +1,36 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.parkit.parkingsystem.model.Reservation;
+
+/**
+ * Reservations held in memory, lost on shutdown like the rest of the memory
+ * storage engine.
+ */
+public class InMemoryReservationStore implements ReservationStore {
+
+	private final AtomicInteger idSequence = new AtomicInteger();
+	private final ConcurrentMap<Integer, Reservation> reservations = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean saveReservation(Reservation reservation) {
+		reservation.setId(idSequence.incrementAndGet());
+		reservations.put(reservation.getId(), reservation);
+		return true;
+	}
+
+	@Override
+	public boolean deleteReservation(int id) {
+		return reservations.remove(id) != null;
+	}
+
+	@Override
+	public List<Reservation> getReservations() {
+		return new ArrayList<>(reservations.values());
+	}
+}
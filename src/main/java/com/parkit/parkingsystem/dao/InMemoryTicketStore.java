@@ -0,0 +1,74 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Tickets held in memory. Only the latest ticket of each vehicle is kept,
+ * which is all the gate flows need, so memory is bounded by the number of
+ * distinct vehicles rather than by traffic.
+ */
+public class InMemoryTicketStore implements TicketStore {
+
+	private final AtomicInteger idSequence = new AtomicInteger();
+	private final ConcurrentMap<String, Ticket> latestByVehicle = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, Ticket> openById = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean saveTicket(Ticket ticket) {
+		ticket.setId(idSequence.incrementAndGet());
+		Ticket stored = OpenTicketIndex.copy(ticket);
+		latestByVehicle.put(stored.getVehicleRegNumber(), stored);
+		if (stored.getOutTime() == null) {
+			openById.put(stored.getId(), stored);
+		}
+		return true;
+	}
+
+	@Override
+	public Ticket getTicket(String vehicleRegNumber) {
+		Ticket stored = latestByVehicle.get(vehicleRegNumber);
+		return (stored == null) ? null : OpenTicketIndex.copy(stored);
+	}
+
+	@Override
+	public boolean updateTicket(Ticket ticket) {
+		Ticket stored = openById.remove(ticket.getId());
+		if (stored == null) {
+			return false;
+		}
+		Ticket updated = OpenTicketIndex.copy(stored);
+		updated.setPrice(ticket.getPrice());
+		updated.setOutTime(ticket.getOutTime());
+		// only replace the latest ticket if the vehicle did not come back meanwhile
+		latestByVehicle.replace(updated.getVehicleRegNumber(), stored, updated);
+		return true;
+	}
+
+	@Override
+	public boolean isRecurring(String vehicleRegNumber) {
+		return latestByVehicle.containsKey(vehicleRegNumber);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> saveTicketAsync(Ticket ticket) {
+		return CompletableFuture.completedFuture(saveTicket(ticket));
+	}
+
+	@Override
+	public CompletableFuture<Boolean> updateTicketAsync(Ticket ticket) {
+		return CompletableFuture.completedFuture(updateTicket(ticket));
+	}
+
+	@Override
+	public void close() {
+	}
+
+	public int getOpenTicketCount() {
+		return openById.size();
+	}
+}
@@ -0,0 +1,87 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.metrics.MetricsRegistry;
+import com.parkit.parkingsystem.metrics.OperationMetrics;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * Records the latency and failures of every call to the wrapped parking spot
+ * store. A call fails when it throws or returns its error value; a full lot is
+ * not an error.
+ */
+public class InstrumentedParkingSpotStore implements ParkingSpotStore {
+
+	private final ParkingSpotStore delegate;
+	private final OperationMetrics getNextAvailableSlot;
+	private final OperationMetrics claimNextAvailableSlot;
+	private final OperationMetrics updateParking;
+
+	public InstrumentedParkingSpotStore(String name, ParkingSpotStore delegate) {
+		this.delegate = delegate;
+		this.getNextAvailableSlot = MetricsRegistry.operation(name + ".getNextAvailableSlot");
+		this.claimNextAvailableSlot = MetricsRegistry.operation(name + ".claimNextAvailableSlot");
+		this.updateParking = MetricsRegistry.operation(name + ".updateParking");
+	}
+
+	public ParkingSpotStore getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public int getNextAvailableSlot(ParkingType parkingType) {
+		long start = getNextAvailableSlot.start();
+		int parkingNumber = -1;
+		try {
+			parkingNumber = delegate.getNextAvailableSlot(parkingType);
+			return parkingNumber;
+		} finally {
+			getNextAvailableSlot.record(start, parkingNumber >= 0);
+		}
+	}
+
+	@Override
+	public int claimNextAvailableSlot(ParkingType parkingType) {
+		long start = claimNextAvailableSlot.start();
+		int parkingNumber = -1;
+		try {
+			parkingNumber = delegate.claimNextAvailableSlot(parkingType);
+			return parkingNumber;
+		} finally {
+			claimNextAvailableSlot.record(start, parkingNumber >= 0);
+		}
+	}
+
+	@Override
+	public int claimNextAvailableSlot(String lotId, ParkingType parkingType) {
+		long start = claimNextAvailableSlot.start();
+		int parkingNumber = -1;
+		try {
+			parkingNumber = delegate.claimNextAvailableSlot(lotId, parkingType);
+			return parkingNumber;
+		} finally {
+			claimNextAvailableSlot.record(start, parkingNumber >= 0);
+		}
+	}
+
+	@Override
+	public boolean updateParking(ParkingSpot parkingSpot) {
+		long start = updateParking.start();
+		boolean updated = false;
+		try {
+			updated = delegate.updateParking(parkingSpot);
+			return updated;
+		} finally {
+			updateParking.record(start, updated);
+		}
+	}
+
+	/**
+	 * Not timed: a snapshot is a memory read, polled by the display boards.
+	 */
+	@Override
+	public OccupancySnapshot getOccupancy() {
+		return delegate.getOccupancy();
+	}
+}
@@ -0,0 +1,108 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.parkit.parkingsystem.metrics.MetricsRegistry;
+import com.parkit.parkingsystem.metrics.OperationMetrics;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Records the latency and failures of every call to the wrapped ticket store.
+ * A call fails when it throws or reports that nothing was written.
+ */
+public class InstrumentedTicketStore implements TicketStore {
+
+	private final TicketStore delegate;
+	private final OperationMetrics saveTicket;
+	private final OperationMetrics getTicket;
+	private final OperationMetrics updateTicket;
+	private final OperationMetrics isRecurring;
+	private final OperationMetrics saveTicketAsync;
+	private final OperationMetrics updateTicketAsync;
+
+	public InstrumentedTicketStore(String name, TicketStore delegate) {
+		this.delegate = delegate;
+		this.saveTicket = MetricsRegistry.operation(name + ".saveTicket");
+		this.getTicket = MetricsRegistry.operation(name + ".getTicket");
+		this.updateTicket = MetricsRegistry.operation(name + ".updateTicket");
+		this.isRecurring = MetricsRegistry.operation(name + ".isRecurring");
+		this.saveTicketAsync = MetricsRegistry.operation(name + ".saveTicketAsync");
+		this.updateTicketAsync = MetricsRegistry.operation(name + ".updateTicketAsync");
+	}
+
+	public TicketStore getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public boolean saveTicket(Ticket ticket) {
+		long start = saveTicket.start();
+		boolean saved = false;
+		try {
+			saved = delegate.saveTicket(ticket);
+			return saved;
+		} finally {
+			saveTicket.record(start, saved);
+		}
+	}
+
+	@Override
+	public Ticket getTicket(String vehicleRegNumber) {
+		long start = getTicket.start();
+		boolean done = false;
+		try {
+			Ticket ticket = delegate.getTicket(vehicleRegNumber);
+			done = true;
+			return ticket;
+		} finally {
+			getTicket.record(start, done);
+		}
+	}
+
+	@Override
+	public boolean updateTicket(Ticket ticket) {
+		long start = updateTicket.start();
+		boolean updated = false;
+		try {
+			updated = delegate.updateTicket(ticket);
+			return updated;
+		} finally {
+			updateTicket.record(start, updated);
+		}
+	}
+
+	@Override
+	public boolean isRecurring(String vehicleRegNumber) {
+		long start = isRecurring.start();
+		boolean done = false;
+		try {
+			boolean recurring = delegate.isRecurring(vehicleRegNumber);
+			done = true;
+			return recurring;
+		} finally {
+			isRecurring.record(start, done);
+		}
+	}
+
+	/**
+	 * Records the time until the write is committed, not until it is queued.
+	 */
+	@Override
+	public CompletableFuture<Boolean> saveTicketAsync(Ticket ticket) {
+		long start = saveTicketAsync.start();
+		return delegate.saveTicketAsync(ticket)
+				.whenComplete((saved, failure) -> saveTicketAsync.record(start, failure == null && saved));
+	}
+
+	@Override
+	public CompletableFuture<Boolean> updateTicketAsync(Ticket ticket) {
+		long start = updateTicketAsync.start();
+		return delegate.updateTicketAsync(ticket)
+				.whenComplete((updated, failure) -> updateTicketAsync.record(start, failure == null && updated));
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+}
@@ -0,0 +1,82 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+
+/**
+ * Free spot counters of every parking type packed in a single AtomicLong, one
+ * bit field per type. A spot flip is one atomic add and a snapshot one
+ * volatile read, so display boards can poll at any rate without locks or
+ * database queries, and the counts of a snapshot are always from the same
+ * instant.
+ *
+ * Each field is biased by half its range so a count drifting below zero
+ * (e.g. a flip counted before a reconcile) never borrows from its neighbour;
+ * snapshots clamp the counts to [0, total].
+ */
+public class OccupancyCounters {
+
+	private static final int TYPE_COUNT = ParkingType.values().length;
+	private static final int BITS_PER_TYPE = Long.SIZE / TYPE_COUNT;
+	private static final long FIELD_MASK = (BITS_PER_TYPE == Long.SIZE) ? -1L : (1L << BITS_PER_TYPE) - 1;
+	private static final long BIAS = 1L << (BITS_PER_TYPE - 2);
+
+	/**
+	 * The most spots of one type the counters can hold.
+	 */
+	public static final int MAX_SPOTS_PER_TYPE = (int) Math.min(Integer.MAX_VALUE, BIAS - 1);
+
+	private final AtomicLong freeCounts = new AtomicLong(biased(new int[TYPE_COUNT]));
+	private volatile int[] totals = new int[TYPE_COUNT];
+
+	/**
+	 * Replaces the counts, e.g. with the ones read from the parking table.
+	 * Flips counted meanwhile are lost; the next reconcile catches up.
+	 *
+	 * @param free  free spots, indexed by ParkingType ordinal
+	 * @param total spots, indexed by ParkingType ordinal
+	 */
+	public void reset(int[] free, int[] total) {
+		for (int i = 0; i < TYPE_COUNT; i++) {
+			if (total[i] > MAX_SPOTS_PER_TYPE || free[i] < 0 || free[i] > total[i]) {
+				throw new IllegalArgumentException("Invalid occupancy of " + ParkingType.values()[i] + ": " + free[i]
+						+ " free of " + total[i]);
+			}
+		}
+		totals = total.clone();
+		freeCounts.set(biased(free));
+	}
+
+	public void spotFreed(ParkingType parkingType) {
+		freeCounts.getAndAdd(1L << shift(parkingType));
+	}
+
+	public void spotTaken(ParkingType parkingType) {
+		freeCounts.getAndAdd(-(1L << shift(parkingType)));
+	}
+
+	public OccupancySnapshot snapshot() {
+		long packed = freeCounts.get();
+		int[] total = totals;
+		int[] free = new int[TYPE_COUNT];
+		for (int i = 0; i < TYPE_COUNT; i++) {
+			long count = ((packed >>> (i * BITS_PER_TYPE)) & FIELD_MASK) - BIAS;
+			free[i] = (int) Math.max(0, Math.min(total[i], count));
+		}
+		return new OccupancySnapshot(free, total);
+	}
+
+	private static int shift(ParkingType parkingType) {
+		return parkingType.ordinal() * BITS_PER_TYPE;
+	}
+
+	private static long biased(int[] free) {
+		long packed = 0;
+		for (int i = 0; i < TYPE_COUNT; i++) {
+			packed += (free[i] + BIAS) << (i * BITS_PER_TYPE);
+		}
+		return packed;
+	}
+}
@@ -0,0 +1,71 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Open tickets (no out time yet) keyed by vehicle registration number, so an
+ * exiting vehicle's ticket is found without querying the database. Tickets are
+ * copied in and out so callers cannot change the indexed state.
+ */
+public class OpenTicketIndex {
+
+	private final ConcurrentMap<String, Ticket> openTickets = new ConcurrentHashMap<>();
+
+	public Ticket get(String vehicleRegNumber) {
+		Ticket ticket = openTickets.get(vehicleRegNumber);
+		return (ticket == null) ? null : copy(ticket);
+	}
+
+	/**
+	 * Indexes an open ticket, keeping the most recent one if the vehicle already
+	 * has an open ticket.
+	 */
+	public void put(Ticket ticket) {
+		final Ticket indexed = copy(ticket);
+		openTickets.merge(indexed.getVehicleRegNumber(), indexed,
+				(current, candidate) -> candidate.getInTime().isBefore(current.getInTime()) ? current : candidate);
+	}
+
+	/**
+	 * Removes the ticket, unless the vehicle has meanwhile been indexed with
+	 * another ticket.
+	 */
+	public void remove(Ticket ticket) {
+		openTickets.computeIfPresent(ticket.getVehicleRegNumber(),
+				(vehicleRegNumber, current) -> (current.getId() == ticket.getId()) ? null : current);
+	}
+
+	/**
+	 * @return a copy of every indexed ticket
+	 */
+	public List<Ticket> getTickets() {
+		List<Ticket> tickets = new ArrayList<>(openTickets.size());
+		for (Ticket ticket : openTickets.values()) {
+			tickets.add(copy(ticket));
+		}
+		return tickets;
+	}
+
+	public int size() {
+		return openTickets.size();
+	}
+
+	static Ticket copy(Ticket ticket) {
+		Ticket copy = new Ticket();
+		copy.setId(ticket.getId());
+		ParkingSpot parkingSpot = ticket.getParkingSpot();
+		copy.setParkingSpot(new ParkingSpot(parkingSpot.getId(), parkingSpot.getParkingType(), parkingSpot.isAvailable()));
+		copy.setVehicleRegNumber(ticket.getVehicleRegNumber());
+		copy.setPrice(ticket.getPrice());
+		copy.setInTime(ticket.getInTime());
+		copy.setOutTime(ticket.getOutTime());
+		copy.setDiscount(ticket.isDiscount());
+		return copy;
+	}
+}
@@ -3,60 +3,399 @@ package com.parkit.parkingsystem.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.parkit.parkingsystem.config.AppConfig;
 import com.parkit.parkingsystem.config.DataBaseConfig;
 import com.parkit.parkingsystem.constants.DBConstants;
 import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
 import com.parkit.parkingsystem.model.ParkingSpot;
 
-public class ParkingSpotDAO {
+public class ParkingSpotDAO implements ParkingSpotStore {
 	private static final Logger logger = LogManager.getLogger("ParkingSpotDAO");
+	private static final int CLAIM_CANDIDATES = 8;
+	private static final int CLAIM_ROUNDS = 3;
 	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
 
+	private final boolean freeSpotIndexEnabled = AppConfig.getBoolean("parking.freeSpotIndex.enabled", true);
+	private volatile FreeSpotIndex freeSpotIndex;
+	private final long occupancyReconcileSeconds = AppConfig
+			.getLong("parking.occupancy.reconcileIntervalSeconds", 60);
+	private volatile OccupancyCounters occupancyCounters;
+	private ScheduledExecutorService occupancyReconciler;
+
+	@Override
 	public int getNextAvailableSlot(ParkingType parkingType) {
+		FreeSpotIndex index = getFreeSpotIndex();
+		if (index != null) {
+			return index.lowestFree(parkingType);
+		}
 
 		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
 		int result = -1;
 		try {
 			con = dataBaseConfig.getConnection();
-			PreparedStatement ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT);
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.GET_NEXT_PARKING_SPOT);
 			ps.setString(1, parkingType.toString());
-			ResultSet rs = ps.executeQuery();
+			rs = ps.executeQuery();
 			if (rs.next()) {
 				result = rs.getInt(1);
-				;
 			}
-			dataBaseConfig.closeResultSet(rs);
-			dataBaseConfig.closePreparedStatement(ps);
 		} catch (Exception ex) {
 			logger.error("Error fetching next available slot", ex);
 		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
 			dataBaseConfig.closeConnection(con);
 		}
 		return result;
 
 	}
 
+	/**
+	 * Sets the availability of that spot. The row is only updated when the
+	 * availability actually changes, which tells the occupancy counters whether
+	 * a spot was freed or taken.
+	 */
+	@Override
 	public boolean updateParking(ParkingSpot parkingSpot) {
-		// update the availability for that parking slot
 		Connection con = null;
+		PreparedStatement ps = null;
 		try {
 			con = dataBaseConfig.getConnection();
-			PreparedStatement ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT);
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.FLIP_PARKING_SPOT);
 			ps.setBoolean(1, parkingSpot.isAvailable());
 			ps.setInt(2, parkingSpot.getId());
-			int updateRowCount = ps.executeUpdate();
-			dataBaseConfig.closePreparedStatement(ps);
-			return (updateRowCount == 1);
+			ps.setBoolean(3, !parkingSpot.isAvailable());
+			boolean flipped = ps.executeUpdate() == 1;
+			boolean updated = flipped || parkingSpotExists(con, parkingSpot.getId());
+			if (updated && freeSpotIndex != null) {
+				freeSpotIndex.update(parkingSpot);
+			}
+			if (flipped && parkingSpot.getParkingType() != null) {
+				onSpotFlipped(parkingSpot.getId(), parkingSpot.getParkingType(), parkingSpot.isAvailable());
+			}
+			return updated;
 		} catch (Exception ex) {
 			logger.error("Error updating parking info", ex);
 			return false;
 		} finally {
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	private void onSpotFlipped(int parkingNumber, ParkingType parkingType, boolean available) {
+		OccupancyCounters counters = occupancyCounters;
+		if (counters != null) {
+			if (available) {
+				counters.spotFreed(parkingType);
+			} else {
+				counters.spotTaken(parkingType);
+			}
+		}
+		FreeSpotIndex index = freeSpotIndex;
+		dataBaseConfig.afterRollback(() -> {
+			if (index != null) {
+				index.update(new ParkingSpot(parkingNumber, parkingType, !available));
+			}
+			if (counters != null) {
+				if (available) {
+					counters.spotTaken(parkingType);
+				} else {
+					counters.spotFreed(parkingType);
+				}
+			}
+		});
+	}
+
+	private boolean parkingSpotExists(Connection con, int parkingNumber) throws SQLException {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.PARKING_SPOT_EXISTS);
+			ps.setInt(1, parkingNumber);
+			rs = ps.executeQuery();
+			return rs.next();
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+		}
+	}
+
+	/**
+	 * Atomically takes the lowest free spot of that type. The spot is only
+	 * marked unavailable if it is still available in the database, so two gates
+	 * (in this process or another one) never get the same spot; a gate losing
+	 * the race moves on to the next candidate.
+	 *
+	 * @return the claimed spot number, 0 when the type is full, -1 on error
+	 */
+	@Override
+	public int claimNextAvailableSlot(ParkingType parkingType) {
+		FreeSpotIndex index = getFreeSpotIndex();
+		Connection con = null;
+		PreparedStatement ps = null;
+		// taken from the index and not claimed yet: given back if the claim fails
+		int indexCandidate = 0;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.CLAIM_PARKING_SPOT);
+			if (index != null) {
+				// the index hands distinct candidates to concurrent gates of this process
+				while ((indexCandidate = index.claimLowest(parkingType)) > 0) {
+					int candidate = indexCandidate;
+					boolean claimed = claimParkingSpot(ps, candidate);
+					// claimed here or owned by another gate: not free either way
+					indexCandidate = 0;
+					if (claimed) {
+						onSpotClaimed(index, candidate, parkingType);
+						return candidate;
+					}
+					logger.debug("Parking spot " + candidate + " was taken by another gate");
+				}
+			}
+			for (int round = 0; round < CLAIM_ROUNDS; round++) {
+				int[] candidates = getAvailableSlots(con, parkingType, CLAIM_CANDIDATES);
+				if (candidates.length == 0) {
+					return 0;
+				}
+				// start at a random candidate to spread gates contending on the lowest spots
+				int offset = ThreadLocalRandom.current().nextInt(candidates.length);
+				for (int i = 0; i < candidates.length; i++) {
+					int candidate = candidates[(offset + i) % candidates.length];
+					if (claimParkingSpot(ps, candidate)) {
+						if (index != null) {
+							index.claim(candidate, parkingType);
+						}
+						onSpotClaimed(index, candidate, parkingType);
+						return candidate;
+					}
+				}
+			}
+			logger.error("Unable to claim a " + parkingType + " parking spot after " + CLAIM_ROUNDS + " rounds");
+			return -1;
+		} catch (Exception ex) {
+			logger.error("Error claiming next available slot", ex);
+			if (index != null && indexCandidate > 0) {
+				index.markFree(indexCandidate, parkingType);
+			}
+			return -1;
+		} finally {
+			dataBaseConfig.closePreparedStatement(ps);
 			dataBaseConfig.closeConnection(con);
 		}
 	}
 
+	private void onSpotClaimed(FreeSpotIndex index, int parkingNumber, ParkingType parkingType) {
+		OccupancyCounters counters = occupancyCounters;
+		if (counters != null) {
+			counters.spotTaken(parkingType);
+		}
+		// the claim is undone with the transaction it was part of
+		dataBaseConfig.afterRollback(() -> {
+			if (index != null) {
+				index.markFree(parkingNumber, parkingType);
+			}
+			if (counters != null) {
+				counters.spotFreed(parkingType);
+			}
+		});
+	}
+
+	private boolean claimParkingSpot(PreparedStatement ps, int parkingNumber) throws SQLException {
+		ps.setInt(1, parkingNumber);
+		return ps.executeUpdate() == 1;
+	}
+
+	private int[] getAvailableSlots(Connection con, ParkingType parkingType, int limit) throws SQLException {
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.GET_AVAILABLE_PARKING_SPOTS);
+			ps.setString(1, parkingType.toString());
+			ps.setInt(2, limit);
+			rs = ps.executeQuery();
+			int[] candidates = new int[limit];
+			int count = 0;
+			while (rs.next()) {
+				candidates[count++] = rs.getInt(1);
+			}
+			return Arrays.copyOf(candidates, count);
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+		}
+	}
+
+	/**
+	 * Returns the free spot index, loading it from the parking table on first
+	 * use. Returns null when the index is disabled or could not be loaded, in
+	 * which case callers fall back to querying the database.
+	 */
+	public FreeSpotIndex getFreeSpotIndex() {
+		if (freeSpotIndex == null && freeSpotIndexEnabled) {
+			synchronized (this) {
+				if (freeSpotIndex == null) {
+					loadFreeSpotIndex();
+				}
+			}
+		}
+		return freeSpotIndex;
+	}
+
+	/**
+	 * (Re)builds the free spot index and the occupancy counters from the parking
+	 * table, streamed in a single pass.
+	 */
+	public synchronized boolean loadFreeSpotIndex() {
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = con.prepareStatement(DBConstants.GET_PARKING_SPOTS);
+			dataBaseConfig.enableStreaming(ps);
+			rs = ps.executeQuery();
+			FreeSpotIndex index = new FreeSpotIndex();
+			int[] free = new int[ParkingType.values().length];
+			int[] total = new int[ParkingType.values().length];
+			int spotCount = 0;
+			while (rs.next()) {
+				ParkingType parkingType = ParkingType.valueOf(rs.getString(3));
+				if (rs.getBoolean(2)) {
+					index.markFree(rs.getInt(1), parkingType);
+					free[parkingType.ordinal()]++;
+				}
+				total[parkingType.ordinal()]++;
+				spotCount++;
+			}
+			if (freeSpotIndexEnabled) {
+				freeSpotIndex = index;
+			}
+			resetOccupancy(free, total);
+			logger.info("Loaded free spot index for " + spotCount + " parking spots");
+			return true;
+		} catch (Exception ex) {
+			logger.error("Error loading free spot index", ex);
+			return false;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Replaces the free spot index and the occupancy counters, e.g. with the
+	 * ones of a snapshot.
+	 *
+	 * @param total spots, indexed by ParkingType ordinal
+	 */
+	public synchronized void restore(FreeSpotIndex index, int[] total) {
+		int[] free = new int[ParkingType.values().length];
+		for (ParkingType parkingType : ParkingType.values()) {
+			free[parkingType.ordinal()] = index.freeCount(parkingType);
+		}
+		if (freeSpotIndexEnabled) {
+			freeSpotIndex = index;
+		}
+		resetOccupancy(free, total);
+	}
+
+	/**
+	 * Returns the occupancy from counters kept up to date by every spot flip of
+	 * this process. The counters are loaded from the parking table on first use,
+	 * then reconciled every parking.occupancy.reconcileIntervalSeconds to catch
+	 * the flips of other processes.
+	 *
+	 * @return the occupancy, or null when it could not be loaded
+	 */
+	@Override
+	public OccupancySnapshot getOccupancy() {
+		if (occupancyCounters == null) {
+			synchronized (this) {
+				if (occupancyCounters == null) {
+					reconcileOccupancy();
+				}
+			}
+		}
+		OccupancyCounters counters = occupancyCounters;
+		return (counters == null) ? null : counters.snapshot();
+	}
+
+	/**
+	 * Resets the occupancy counters to the counts of the parking table.
+	 */
+	public boolean reconcileOccupancy() {
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.GET_OCCUPANCY);
+			rs = ps.executeQuery();
+			int[] free = new int[ParkingType.values().length];
+			int[] total = new int[ParkingType.values().length];
+			while (rs.next()) {
+				int type = ParkingType.valueOf(rs.getString(1)).ordinal();
+				total[type] = rs.getInt(2);
+				free[type] = rs.getInt(3);
+			}
+			resetOccupancy(free, total);
+			return true;
+		} catch (Exception ex) {
+			logger.error("Error loading parking occupancy", ex);
+			return false;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	private synchronized void resetOccupancy(int[] free, int[] total) {
+		if (occupancyCounters == null) {
+			OccupancyCounters counters = new OccupancyCounters();
+			counters.reset(free, total);
+			occupancyCounters = counters;
+			startOccupancyReconciler();
+		} else {
+			occupancyCounters.reset(free, total);
+		}
+	}
+
+	private void startOccupancyReconciler() {
+		if (occupancyReconcileSeconds <= 0 || occupancyReconciler != null) {
+			return;
+		}
+		occupancyReconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "occupancy-reconciler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		occupancyReconciler.scheduleWithFixedDelay(this::reconcileOccupancy, occupancyReconcileSeconds,
+				occupancyReconcileSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stops the periodic reconcile of the occupancy counters.
+	 */
+	public synchronized void stopOccupancyReconciler() {
+		if (occupancyReconciler != null) {
+			occupancyReconciler.shutdownNow();
+			occupancyReconciler = null;
+		}
+	}
 }
@@ -0,0 +1,43 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * Storage of the parking spots and their availability.
+ */
+public interface ParkingSpotStore {
+
+	/**
+	 * @return the lowest available spot number of that type, 0 when the type is
+	 *         full, -1 on error
+	 */
+	int getNextAvailableSlot(ParkingType parkingType);
+
+	/**
+	 * Atomically marks the lowest available spot of that type as unavailable.
+	 *
+	 * @return the claimed spot number, 0 when the type is full, -1 on error
+	 */
+	int claimNextAvailableSlot(ParkingType parkingType);
+
+	/**
+	 * Claims a spot of that type in that lot first; stores of a single lot
+	 * ignore the lot.
+	 *
+	 * @param lotId null for the lot of this gate process
+	 * @return the claimed spot number, 0 when the type is full, -1 on error
+	 */
+	default int claimNextAvailableSlot(String lotId, ParkingType parkingType) {
+		return claimNextAvailableSlot(parkingType);
+	}
+
+	boolean updateParking(ParkingSpot parkingSpot);
+
+	/**
+	 * @return the free and total spots of every type, read without querying the
+	 *         storage
+	 */
+	OccupancySnapshot getOccupancy();
+}
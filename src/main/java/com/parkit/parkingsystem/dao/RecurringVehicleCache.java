@@ -0,0 +1,80 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.parkit.parkingsystem.util.BloomFilter;
+
+/**
+ * Membership of the vehicles that already have a ticket. A Bloom filter
+ * answers "never seen" without a database round trip and a bounded LRU keeps
+ * the vehicles confirmed by the database. Only the remaining cases (Bloom
+ * filter false positives and vehicles evicted from the LRU) need a query.
+ * Vehicles first parked by another process are only known once the
+ * {@link TicketDAO} refresh added them.
+ */
+public class RecurringVehicleCache {
+
+	private final BloomFilter knownVehicles;
+	private final Map<String, Boolean> confirmedVehicles;
+
+	public RecurringVehicleCache(long expectedVehicles, double falsePositiveProbability, final int maxConfirmed) {
+		this(new BloomFilter(expectedVehicles, falsePositiveProbability), maxConfirmed);
+	}
+
+	/**
+	 * @param knownVehicles e.g. restored from a snapshot
+	 */
+	public RecurringVehicleCache(BloomFilter knownVehicles, final int maxConfirmed) {
+		this.knownVehicles = knownVehicles;
+		this.confirmedVehicles = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > maxConfirmed;
+			}
+		};
+	}
+
+	/**
+	 * @return false if the vehicle certainly has no ticket
+	 */
+	public boolean mightBeRecurring(String vehicleRegNumber) {
+		return knownVehicles.mightContain(vehicleRegNumber);
+	}
+
+	public boolean isConfirmed(String vehicleRegNumber) {
+		synchronized (confirmedVehicles) {
+			return confirmedVehicles.get(vehicleRegNumber) != null;
+		}
+	}
+
+	/**
+	 * Records a vehicle known from the ticket table, without promoting it to
+	 * the LRU.
+	 */
+	public void addKnown(String vehicleRegNumber) {
+		knownVehicles.add(vehicleRegNumber);
+	}
+
+	/**
+	 * Records a vehicle that now has a ticket.
+	 */
+	public void addConfirmed(String vehicleRegNumber) {
+		knownVehicles.add(vehicleRegNumber);
+		synchronized (confirmedVehicles) {
+			confirmedVehicles.put(vehicleRegNumber, Boolean.TRUE);
+		}
+	}
+
+	public BloomFilter getKnownVehicles() {
+		return knownVehicles;
+	}
+
+	public int getConfirmedCount() {
+		synchronized (confirmedVehicles) {
+			return confirmedVehicles.size();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.parkit.parkingsystem.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Reservation;
+
+public class ReservationDAO implements ReservationStore {
+	private static final Logger logger = LogManager.getLogger("ReservationDAO");
+
+	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+	@Override
+	public boolean saveReservation(Reservation reservation) {
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet generatedKeys = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.SAVE_RESERVATION, Statement.RETURN_GENERATED_KEYS);
+			ps.setInt(1, reservation.getParkingSpot().getId());
+			ps.setString(2, reservation.getVehicleRegNumber());
+			ps.setTimestamp(3, Timestamp.valueOf(reservation.getReservedUntil()));
+			if (ps.executeUpdate() != 1) {
+				return false;
+			}
+			generatedKeys = ps.getGeneratedKeys();
+			if (generatedKeys.next()) {
+				reservation.setId(generatedKeys.getInt(1));
+			}
+			return true;
+		} catch (Exception ex) {
+			logger.error("Error saving reservation", ex);
+			return false;
+		} finally {
+			dataBaseConfig.closeResultSet(generatedKeys);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	@Override
+	public boolean deleteReservation(int id) {
+		Connection con = null;
+		PreparedStatement ps = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.DELETE_RESERVATION);
+			ps.setInt(1, id);
+			return ps.executeUpdate() == 1;
+		} catch (Exception ex) {
+			logger.error("Error deleting reservation", ex);
+			return false;
+		} finally {
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Streams the reservations, as there can be tens of thousands of them.
+	 */
+	@Override
+	public List<Reservation> getReservations() {
+		List<Reservation> reservations = new ArrayList<>();
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = con.prepareStatement(DBConstants.GET_RESERVATIONS);
+			dataBaseConfig.enableStreaming(ps);
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				Reservation reservation = new Reservation(
+						new ParkingSpot(rs.getInt(2), ParkingType.valueOf(rs.getString(3)), false), rs.getString(4),
+						rs.getTimestamp(5).toLocalDateTime());
+				reservation.setId(rs.getInt(1));
+				reservations.add(reservation);
+			}
+		} catch (Exception ex) {
+			logger.error("Error loading reservations", ex);
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+		return reservations;
+	}
+}
@@ -0,0 +1,27 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.List;
+
+import com.parkit.parkingsystem.model.Reservation;
+
+/**
+ * Storage of the spot reservations, so holds survive a restart.
+ */
+public interface ReservationStore {
+
+	/**
+	 * Saves the reservation and sets its id.
+	 */
+	boolean saveReservation(Reservation reservation);
+
+	/**
+	 * @return true if it was deleted, false if it was already gone (e.g. taken
+	 *         by the vehicle or expired meanwhile) or on error
+	 */
+	boolean deleteReservation(int id);
+
+	/**
+	 * @return every reservation, expired or not
+	 */
+	List<Reservation> getReservations();
+}
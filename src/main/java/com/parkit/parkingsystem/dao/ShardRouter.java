@@ -0,0 +1,181 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.ShardDataBaseConfig;
+
+/**
+ * Routes to the store of a shard: each lot (or level) has its own storage and
+ * owns a range of spot numbers, so a spot number alone identifies its shard.
+ * Routing is a map lookup, independent of the number of shards.
+ *
+ * The home shard is the lot of this gate process: it is tried first whenever
+ * several shards may answer, so the other shards are only reached when it
+ * cannot.
+ *
+ * @param <T> the store of a shard
+ */
+public class ShardRouter<T> {
+
+	/**
+	 * The store of one lot and its range of spot numbers.
+	 */
+	public static class Shard<T> {
+		private final String lotId;
+		private final int firstSpot;
+		private final int lastSpot;
+		private final T store;
+
+		public Shard(String lotId, int firstSpot, int lastSpot, T store) {
+			if (firstSpot < 1 || lastSpot < firstSpot) {
+				throw new IllegalArgumentException(
+						"Invalid spot range of shard " + lotId + ": " + firstSpot + "-" + lastSpot);
+			}
+			this.lotId = lotId;
+			this.firstSpot = firstSpot;
+			this.lastSpot = lastSpot;
+			this.store = store;
+		}
+
+		public String getLotId() {
+			return lotId;
+		}
+
+		public int getFirstSpot() {
+			return firstSpot;
+		}
+
+		public int getLastSpot() {
+			return lastSpot;
+		}
+
+		public T getStore() {
+			return store;
+		}
+	}
+
+	private final NavigableMap<Integer, Shard<T>> shardsByFirstSpot = new TreeMap<>();
+	private final Map<String, Shard<T>> shardsByLot = new LinkedHashMap<>();
+	private final Shard<T> home;
+	private final List<T> homeFirst;
+
+	/**
+	 * @param homeLotId lot of this gate process, null for the first shard
+	 */
+	public ShardRouter(List<Shard<T>> shards, String homeLotId) {
+		if (shards.isEmpty()) {
+			throw new IllegalArgumentException("No shard configured");
+		}
+		for (Shard<T> shard : shards) {
+			Map.Entry<Integer, Shard<T>> below = shardsByFirstSpot.floorEntry(shard.getLastSpot());
+			Map.Entry<Integer, Shard<T>> above = shardsByFirstSpot.ceilingEntry(shard.getFirstSpot());
+			if ((below != null && below.getValue().getLastSpot() >= shard.getFirstSpot())
+					|| (above != null && above.getKey() <= shard.getLastSpot())) {
+				throw new IllegalArgumentException("Spot range of shard " + shard.getLotId() + " overlaps another shard");
+			}
+			if (shardsByLot.put(shard.getLotId(), shard) != null) {
+				throw new IllegalArgumentException("Duplicate shard " + shard.getLotId());
+			}
+			shardsByFirstSpot.put(shard.getFirstSpot(), shard);
+		}
+		this.home = (homeLotId == null) ? shards.get(0) : shardsByLot.get(homeLotId);
+		if (home == null) {
+			throw new IllegalArgumentException("Unknown home shard " + homeLotId);
+		}
+		List<T> stores = new ArrayList<>(shards.size());
+		stores.add(home.getStore());
+		for (Shard<T> shard : shards) {
+			if (shard != home) {
+				stores.add(shard.getStore());
+			}
+		}
+		this.homeFirst = Collections.unmodifiableList(stores);
+	}
+
+	/**
+	 * Builds the shards of the storage.shards setting (comma-separated lot ids),
+	 * each with the spot range of storage.shard.&lt;lot&gt;.spots (e.g. 1-5000)
+	 * and a store on its {@link ShardDataBaseConfig}; storage.shard.home is the
+	 * lot of this process.
+	 *
+	 * @return the router, or null when storage.shards is empty
+	 */
+	public static <T> ShardRouter<T> fromAppConfig(Function<DataBaseConfig, T> storeFactory) {
+		List<ShardDataBaseConfig> dataBaseConfigs = ShardDataBaseConfig.fromAppConfig();
+		if (dataBaseConfigs.isEmpty()) {
+			return null;
+		}
+		List<Shard<T>> shards = new ArrayList<>();
+		for (ShardDataBaseConfig dataBaseConfig : dataBaseConfigs) {
+			String lotId = dataBaseConfig.getLotId();
+			String spots = AppConfig.getString("storage.shard." + lotId + ".spots", "").trim();
+			int dash = spots.indexOf('-');
+			if (dash < 0) {
+				throw new IllegalArgumentException("Invalid storage.shard." + lotId + ".spots: " + spots);
+			}
+			shards.add(new Shard<>(lotId, Integer.parseInt(spots.substring(0, dash).trim()),
+					Integer.parseInt(spots.substring(dash + 1).trim()), storeFactory.apply(dataBaseConfig)));
+		}
+		String homeLotId = AppConfig.getString("storage.shard.home", "").trim();
+		return new ShardRouter<>(shards, homeLotId.isEmpty() ? null : homeLotId);
+	}
+
+	/**
+	 * @return the store owning that spot, or null when no shard does
+	 */
+	public T forSpot(int parkingNumber) {
+		Map.Entry<Integer, Shard<T>> entry = shardsByFirstSpot.floorEntry(parkingNumber);
+		return (entry == null || entry.getValue().getLastSpot() < parkingNumber) ? null
+				: entry.getValue().getStore();
+	}
+
+	/**
+	 * @return the store of that lot, or null when it has no shard
+	 */
+	public T forLot(String lotId) {
+		Shard<T> shard = shardsByLot.get(lotId);
+		return (shard == null) ? null : shard.getStore();
+	}
+
+	public T getHome() {
+		return home.getStore();
+	}
+
+	/**
+	 * @return the stores of every shard, the home shard first
+	 */
+	public List<T> getStores() {
+		return homeFirst;
+	}
+
+	/**
+	 * @return the stores of every shard, that lot's shard first
+	 */
+	public List<T> getStores(String lotId) {
+		Shard<T> first = (lotId == null) ? null : shardsByLot.get(lotId);
+		if (first == null || first == home) {
+			return homeFirst;
+		}
+		List<T> stores = new ArrayList<>(homeFirst.size());
+		stores.add(first.getStore());
+		for (T store : homeFirst) {
+			if (store != first.getStore()) {
+				stores.add(store);
+			}
+		}
+		return stores;
+	}
+
+	public List<Shard<T>> getShards() {
+		return new ArrayList<>(shardsByLot.values());
+	}
+}
@@ -0,0 +1,86 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * Parking spots spread over the shards of a {@link ShardRouter}. A spot is
+ * claimed in the requested lot (the home lot by default) and only looked for
+ * in the other lots when that one is full, so an entry touches a single shard
+ * as long as its lot has room. A spot update goes to the shard owning its
+ * number.
+ */
+public class ShardedParkingSpotStore implements ParkingSpotStore {
+
+	private final ShardRouter<ParkingSpotStore> router;
+
+	public ShardedParkingSpotStore(ShardRouter<ParkingSpotStore> router) {
+		this.router = router;
+	}
+
+	public ShardRouter<ParkingSpotStore> getRouter() {
+		return router;
+	}
+
+	@Override
+	public int getNextAvailableSlot(ParkingType parkingType) {
+		int result = 0;
+		for (ParkingSpotStore store : router.getStores()) {
+			int parkingNumber = store.getNextAvailableSlot(parkingType);
+			if (parkingNumber > 0) {
+				return parkingNumber;
+			}
+			result = Math.min(result, parkingNumber);
+		}
+		return result;
+	}
+
+	@Override
+	public int claimNextAvailableSlot(ParkingType parkingType) {
+		return claimNextAvailableSlot(null, parkingType);
+	}
+
+	/**
+	 * @return a spot of that lot, else of the next lot with room; -1 only when
+	 *         no lot had room and one of them failed
+	 */
+	@Override
+	public int claimNextAvailableSlot(String lotId, ParkingType parkingType) {
+		int result = 0;
+		for (ParkingSpotStore store : router.getStores(lotId)) {
+			int parkingNumber = store.claimNextAvailableSlot(parkingType);
+			if (parkingNumber > 0) {
+				return parkingNumber;
+			}
+			result = Math.min(result, parkingNumber);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean updateParking(ParkingSpot parkingSpot) {
+		ParkingSpotStore store = router.forSpot(parkingSpot.getId());
+		return store != null && store.updateParking(parkingSpot);
+	}
+
+	/**
+	 * @return the sum of the shard snapshots, null when one is unavailable
+	 */
+	@Override
+	public OccupancySnapshot getOccupancy() {
+		int[] free = new int[ParkingType.values().length];
+		int[] total = new int[ParkingType.values().length];
+		for (ParkingSpotStore store : router.getStores()) {
+			OccupancySnapshot occupancy = store.getOccupancy();
+			if (occupancy == null) {
+				return null;
+			}
+			for (ParkingType parkingType : ParkingType.values()) {
+				free[parkingType.ordinal()] += occupancy.getFree(parkingType);
+				total[parkingType.ordinal()] += occupancy.getTotal(parkingType);
+			}
+		}
+		return new OccupancySnapshot(free, total);
+	}
+}
@@ -0,0 +1,121 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Tickets spread over the shards of a {@link ShardRouter}: a ticket lives in
+ * the shard owning its spot, so it is written to a single shard. Reads by
+ * plate go to the shard where this process parked the vehicle, and fan out to
+ * every shard only for vehicles it did not park or that already left.
+ */
+public class ShardedTicketStore implements TicketStore {
+
+	private final ShardRouter<TicketStore> router;
+
+	// shard of the open ticket of each vehicle parked through this store
+	private final ConcurrentMap<String, TicketStore> openTicketShards = new ConcurrentHashMap<>();
+
+	public ShardedTicketStore(ShardRouter<TicketStore> router) {
+		this.router = router;
+	}
+
+	public ShardRouter<TicketStore> getRouter() {
+		return router;
+	}
+
+	private TicketStore route(Ticket ticket) {
+		return (ticket.getParkingSpot() == null) ? null : router.forSpot(ticket.getParkingSpot().getId());
+	}
+
+	@Override
+	public boolean saveTicket(Ticket ticket) {
+		TicketStore store = route(ticket);
+		if (store == null || !store.saveTicket(ticket)) {
+			return false;
+		}
+		track(ticket, store);
+		return true;
+	}
+
+	@Override
+	public Ticket getTicket(String vehicleRegNumber) {
+		TicketStore home = openTicketShards.get(vehicleRegNumber);
+		if (home != null) {
+			Ticket ticket = home.getTicket(vehicleRegNumber);
+			if (ticket != null && ticket.getOutTime() == null) {
+				return ticket;
+			}
+		}
+		Ticket latest = null;
+		for (TicketStore store : router.getStores()) {
+			Ticket ticket = store.getTicket(vehicleRegNumber);
+			if (ticket != null && ticket.getOutTime() == null) {
+				return ticket;
+			}
+			if (ticket != null && (latest == null || ticket.getInTime().isAfter(latest.getInTime()))) {
+				latest = ticket;
+			}
+		}
+		return latest;
+	}
+
+	@Override
+	public boolean updateTicket(Ticket ticket) {
+		TicketStore store = route(ticket);
+		if (store == null || !store.updateTicket(ticket)) {
+			return false;
+		}
+		track(ticket, store);
+		return true;
+	}
+
+	@Override
+	public boolean isRecurring(String vehicleRegNumber) {
+		for (TicketStore store : router.getStores()) {
+			if (store.isRecurring(vehicleRegNumber)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public CompletableFuture<Boolean> saveTicketAsync(Ticket ticket) {
+		TicketStore store = route(ticket);
+		if (store == null) {
+			return CompletableFuture.completedFuture(false);
+		}
+		track(ticket, store);
+		return store.saveTicketAsync(ticket);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> updateTicketAsync(Ticket ticket) {
+		TicketStore store = route(ticket);
+		if (store == null) {
+			return CompletableFuture.completedFuture(false);
+		}
+		track(ticket, store);
+		return store.updateTicketAsync(ticket);
+	}
+
+	@Override
+	public void close() {
+		for (TicketStore store : router.getStores()) {
+			store.close();
+		}
+	}
+
+	// only open tickets are tracked, so the map never outgrows the lots
+	private void track(Ticket ticket, TicketStore store) {
+		if (ticket.getOutTime() == null) {
+			openTicketShards.put(ticket.getVehicleRegNumber(), store);
+		} else {
+			openTicketShards.remove(ticket.getVehicleRegNumber(), store);
+		}
+	}
+}
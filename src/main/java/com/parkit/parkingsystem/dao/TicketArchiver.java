@@ -0,0 +1,176 @@
+package com.parkit.parkingsystem.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+
+/**
+ * Moves the tickets closed for longer than a configurable age from the ticket
+ * table to ticket_archive, so the table the gates query only holds open and
+ * recent tickets. {@link TicketDAO} reads the archive for the history of a
+ * vehicle.
+ *
+ * Tickets are moved in chunks of chunkSize, oldest first, one short
+ * transaction per chunk with a pause in between. Gates only write open
+ * tickets, so a chunk never waits for a gate nor makes one wait.
+ */
+public class TicketArchiver {
+
+	private static final Logger logger = LogManager.getLogger("TicketArchiver");
+
+	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+	private final long archiveAfterDays;
+	private final int chunkSize;
+	private final long pauseMillis;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Starts the background archiver when ticket.archive.enabled is set.
+	 *
+	 * @return the running archiver, or null
+	 */
+	public static TicketArchiver startIfEnabled() {
+		if (!AppConfig.getBoolean("ticket.archive.enabled", false)) {
+			return null;
+		}
+		TicketArchiver archiver = new TicketArchiver(AppConfig.getLong("ticket.archive.afterDays", 90),
+				AppConfig.getInt("ticket.archive.chunkSize", 1000), AppConfig.getLong("ticket.archive.pauseMillis", 100));
+		archiver.start(AppConfig.getLong("ticket.archive.intervalMinutes", 60));
+		return archiver;
+	}
+
+	/**
+	 * @param archiveAfterDays tickets closed for longer are archived
+	 * @param pauseMillis      pause between two chunks
+	 */
+	public TicketArchiver(long archiveAfterDays, int chunkSize, long pauseMillis) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Archive chunk size must be positive");
+		}
+		this.archiveAfterDays = archiveAfterDays;
+		this.chunkSize = chunkSize;
+		this.pauseMillis = pauseMillis;
+	}
+
+	public synchronized void start(long intervalMinutes) {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ticket-archiver");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::archiveQuietly, 0, intervalMinutes, TimeUnit.MINUTES);
+		logger.info("Archiving tickets closed for more than " + archiveAfterDays + " days every " + intervalMinutes
+				+ " minutes");
+	}
+
+	public synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	private void archiveQuietly() {
+		try {
+			archive(LocalDateTime.now(ZoneId.systemDefault()).minusDays(archiveAfterDays));
+		} catch (Exception e) {
+			logger.error("Error archiving tickets", e);
+		}
+	}
+
+	/**
+	 * Archives every ticket closed before the cutoff.
+	 *
+	 * @return the number of tickets archived
+	 */
+	public long archive(LocalDateTime cutoff) throws ClassNotFoundException, SQLException, InterruptedException {
+		long start = System.nanoTime();
+		long archived = 0;
+		int moved;
+		do {
+			moved = archiveChunk(cutoff);
+			archived += moved;
+			if (moved == chunkSize && pauseMillis > 0) {
+				Thread.sleep(pauseMillis);
+			}
+		} while (moved == chunkSize);
+		if (archived > 0) {
+			logger.info("Archived " + archived + " tickets closed before " + cutoff + " in "
+					+ (System.nanoTime() - start) / 1_000_000 + " ms");
+		}
+		return archived;
+	}
+
+	/**
+	 * Moves the oldest chunk of tickets closed before the cutoff in one
+	 * transaction.
+	 *
+	 * @return the number of tickets moved
+	 */
+	private int archiveChunk(LocalDateTime cutoff) throws ClassNotFoundException, SQLException {
+		Connection con = null;
+		PreparedStatement select = null;
+		PreparedStatement insert = null;
+		PreparedStatement delete = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			con.setAutoCommit(false);
+			select = dataBaseConfig.prepareStatement(con, DBConstants.GET_ARCHIVABLE_TICKETS);
+			select.setTimestamp(1, Timestamp.valueOf(cutoff));
+			select.setInt(2, chunkSize);
+			rs = select.executeQuery();
+			List<Integer> ids = new ArrayList<>(chunkSize);
+			while (rs.next()) {
+				ids.add(rs.getInt(1));
+			}
+			if (ids.isEmpty()) {
+				con.commit();
+				return 0;
+			}
+			insert = dataBaseConfig.prepareStatement(con, DBConstants.ARCHIVE_TICKET);
+			delete = dataBaseConfig.prepareStatement(con, DBConstants.DELETE_ARCHIVED_TICKET);
+			for (int id : ids) {
+				insert.setInt(1, id);
+				insert.addBatch();
+				delete.setInt(1, id);
+				delete.addBatch();
+			}
+			insert.executeBatch();
+			delete.executeBatch();
+			con.commit();
+			return ids.size();
+		} catch (SQLException | RuntimeException e) {
+			if (con != null) {
+				con.rollback();
+			}
+			throw e;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(delete);
+			dataBaseConfig.closePreparedStatement(insert);
+			dataBaseConfig.closePreparedStatement(select);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+}
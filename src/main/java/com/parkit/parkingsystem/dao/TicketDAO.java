@@ -3,29 +3,132 @@ package com.parkit.parkingsystem.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.parkit.parkingsystem.config.AppConfig;
 import com.parkit.parkingsystem.config.DataBaseConfig;
 import com.parkit.parkingsystem.constants.DBConstants;
 import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.model.ParkingSpot;
 import com.parkit.parkingsystem.model.Ticket;
 
-public class TicketDAO {
+public class TicketDAO implements TicketStore {
 	private static final Logger logger = LogManager.getLogger("TicketDAO");
 
 	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
 
+	private final boolean writeBehindEnabled = AppConfig.getBoolean("ticket.writeBehind.enabled", false);
+	private volatile TicketWriteBehind writeBehind;
+
+	private final boolean openTicketIndexEnabled = AppConfig.getBoolean("ticket.openTicketIndex.enabled", true);
+	private volatile OpenTicketIndex openTicketIndex;
+
+	private final boolean recurringCacheEnabled = AppConfig.getBoolean("ticket.recurringCache.enabled", true);
+	private volatile RecurringVehicleCache recurringVehicleCache;
+	private final long recurringCacheRefreshSeconds = AppConfig
+			.getLong("ticket.recurringCache.refreshIntervalSeconds", 60);
+	private ScheduledExecutorService recurringCacheRefresher;
+	// highest ticket id seen by the last refresh and by the one before
+	private long refreshedTicketId;
+	private long previousRefreshedTicketId;
+
+	/**
+	 * Returns the write-behind journal, started on first use, or null when
+	 * ticket writes are synchronous.
+	 */
+	public TicketWriteBehind getWriteBehind() {
+		if (writeBehind == null && writeBehindEnabled) {
+			synchronized (this) {
+				if (writeBehind == null) {
+					writeBehind = new TicketWriteBehind(dataBaseConfig);
+				}
+			}
+		}
+		return writeBehind;
+	}
+
+	public void setWriteBehind(TicketWriteBehind writeBehind) {
+		this.writeBehind = writeBehind;
+	}
+
+	/**
+	 * @return the journal for a write, or null to write synchronously: a write
+	 *         made in a gate transaction goes on the connection of the
+	 *         transaction, so it commits or rolls back with the spot update, and
+	 *         the gate never waits on the writer while holding its connection
+	 */
+	private TicketWriteBehind getWriteBehindOutsideTransaction() {
+		return dataBaseConfig.isInTransaction() ? null : getWriteBehind();
+	}
+
+	// a no-op for the gate transactions, whose writes bypass the journal
+	private void flushPendingWrites() {
+		if (writeBehind != null) {
+			writeBehind.flush();
+		}
+	}
+
+	/**
+	 * Saves the ticket through the write-behind journal when enabled. The future
+	 * completes once the ticket is committed.
+	 */
+	@Override
+	public CompletableFuture<Boolean> saveTicketAsync(Ticket ticket) {
+		TicketWriteBehind journal = getWriteBehindOutsideTransaction();
+		if (journal != null) {
+			return saveThroughJournal(journal, ticket);
+		}
+		return CompletableFuture.completedFuture(saveTicket(ticket));
+	}
+
+	/**
+	 * Updates the ticket through the write-behind journal when enabled. The
+	 * future completes once the update is committed.
+	 */
+	@Override
+	public CompletableFuture<Boolean> updateTicketAsync(Ticket ticket) {
+		TicketWriteBehind journal = getWriteBehindOutsideTransaction();
+		if (journal != null) {
+			return journal.update(ticket);
+		}
+		return CompletableFuture.completedFuture(updateTicket(ticket));
+	}
+
+	@Override
+	public void close() {
+		stopRecurringCacheRefresher();
+		if (writeBehind != null) {
+			writeBehind.close();
+		}
+	}
+
+	/**
+	 * @return true once the ticket is inserted, or accepted by the write-behind
+	 *         journal when enabled outside a transaction (the gate does not wait
+	 *         for the commit)
+	 */
+	@Override
 	public boolean saveTicket(Ticket ticket) {
+		TicketWriteBehind journal = getWriteBehindOutsideTransaction();
+		if (journal != null) {
+			return !saveThroughJournal(journal, ticket).isCompletedExceptionally();
+		}
 
 		Connection con = null;
 		PreparedStatement ps = null;
+		ResultSet generatedKeys = null;
 		try {
 			con = dataBaseConfig.getConnection();
-			ps = con.prepareStatement(DBConstants.SAVE_TICKET);
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS);
 			// ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME)
 //			ps.setInt(1, ticket.getId());
 			ps.setInt(1, ticket.getParkingSpot().getId());
@@ -34,102 +137,389 @@ public class TicketDAO {
 			ps.setTimestamp(4, Timestamp.valueOf(ticket.getInTime()));
 			ps.setTimestamp(5, (ticket.getOutTime() == null) ? null : Timestamp.valueOf(ticket.getOutTime()));
 			ps.setBoolean(6, ticket.isDiscount());
-			return ps.execute();
+			boolean saved = ps.executeUpdate() == 1;
+			if (saved) {
+				generatedKeys = ps.getGeneratedKeys();
+				if (generatedKeys.next()) {
+					ticket.setId(generatedKeys.getInt(1));
+				}
+				// cached once other gates can see the ticket
+				dataBaseConfig.afterCommit(() -> onTicketSaved(ticket));
+			}
+			return saved;
 		} catch (Exception ex) {
 			logger.error("Error fetching next available slot", ex);
 		} finally {
-			dataBaseConfig.closeConnection(con);
+			dataBaseConfig.closeResultSet(generatedKeys);
 			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
 
 		}
 		return false;
 
 	}
 
+	@Override
 	public Ticket getTicket(String vehicleRegNumber) {
+		OpenTicketIndex index = getOpenTicketIndex();
+		if (index != null) {
+			Ticket openTicket = index.get(vehicleRegNumber);
+			if (openTicket != null) {
+				return openTicket;
+			}
+		}
+		flushPendingWrites();
 		Connection con = null;
 		Ticket ticket = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ticket = findLatestTicket(con, DBConstants.GET_TICKET, vehicleRegNumber);
+			if (ticket == null) {
+				// only closed tickets are archived, so the archive is history only
+				ticket = findLatestTicket(con, DBConstants.GET_ARCHIVED_TICKET, vehicleRegNumber);
+			}
+		} catch (Exception ex) {
+			logger.error("Error fetching next available slot", ex);
+		} finally {
+			dataBaseConfig.closeConnection(con);
+		}
+		return ticket;
+	}
+
+	private Ticket findLatestTicket(Connection con, String sql, String vehicleRegNumber) throws SQLException {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		try {
-			con = dataBaseConfig.getConnection();
-			ps = con.prepareStatement(DBConstants.GET_TICKET);
+			ps = dataBaseConfig.prepareStatement(con, sql);
 			// ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME)
 			ps.setString(1, vehicleRegNumber);
 			rs = ps.executeQuery();
-			if (rs.next()) {
-				ticket = new Ticket();
-				ParkingSpot parkingSpot = new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(7)), false);
-				ticket.setParkingSpot(parkingSpot);
-				ticket.setId(rs.getInt(2));
-				ticket.setVehicleRegNumber(vehicleRegNumber);
-				ticket.setPrice(rs.getDouble(3));
-				ticket.setInTime(rs.getTimestamp(4).toLocalDateTime());
-				ticket.setOutTime((rs.getTimestamp(5) == null) ? null : rs.getTimestamp(5).toLocalDateTime());
-				ticket.setDiscount(rs.getBoolean(6));
+			if (!rs.next()) {
+				return null;
 			}
-			dataBaseConfig.closeResultSet(rs);
-			dataBaseConfig.closePreparedStatement(ps);
-		} catch (Exception ex) {
-			logger.error("Error fetching next available slot", ex);
+			Ticket ticket = new Ticket();
+			ParkingSpot parkingSpot = new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(7)), false);
+			ticket.setParkingSpot(parkingSpot);
+			ticket.setId(rs.getInt(2));
+			ticket.setVehicleRegNumber(vehicleRegNumber);
+			ticket.setPrice(rs.getDouble(3));
+			ticket.setInTime(rs.getTimestamp(4).toLocalDateTime());
+			ticket.setOutTime((rs.getTimestamp(5) == null) ? null : rs.getTimestamp(5).toLocalDateTime());
+			ticket.setDiscount(rs.getBoolean(6));
+			return ticket;
 		} finally {
-			dataBaseConfig.closeConnection(con);
 			dataBaseConfig.closeResultSet(rs);
 			dataBaseConfig.closePreparedStatement(ps);
 		}
-		return ticket;
 	}
 
+	@Override
 	public boolean updateTicket(Ticket ticket) {
+		TicketWriteBehind journal = getWriteBehindOutsideTransaction();
+		if (journal != null) {
+			try {
+				boolean updated = journal.update(ticket).get();
+				onTicketUpdated(ticket, updated);
+				return updated;
+			} catch (Exception ex) {
+				logger.error("Error saving ticket info", ex);
+				return false;
+			}
+		}
+
 		Connection con = null;
 		PreparedStatement ps = null;
 		try {
 			con = dataBaseConfig.getConnection();
-			ps = con.prepareStatement(DBConstants.UPDATE_TICKET);
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.UPDATE_TICKET);
 			ps.setDouble(1, ticket.getPrice());
 			ps.setTimestamp(2, Timestamp.valueOf(ticket.getOutTime()));
 			ps.setInt(3, ticket.getId());
-			ps.execute();
-			return true;
+			// guarded by OUT_TIME is null, so a ticket is only closed once
+			boolean updated = ps.executeUpdate() == 1;
+			onTicketUpdated(ticket, updated);
+			return updated;
 		} catch (Exception ex) {
 			logger.error("Error saving ticket info", ex);
 		} finally {
-			dataBaseConfig.closeConnection(con);
 			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
 		}
 		return false;
 	}
 
+	private CompletableFuture<Boolean> saveThroughJournal(TicketWriteBehind journal, Ticket ticket) {
+		RecurringVehicleCache cache = recurringVehicleCache;
+		if (cache != null) {
+			// known right away so a pending ticket sends isRecurring to the database
+			cache.addKnown(ticket.getVehicleRegNumber());
+		}
+		// indexed once committed, when the generated id is known
+		return journal.save(ticket).thenApply(saved -> {
+			onTicketSaved(ticket);
+			return saved;
+		});
+	}
+
+	private void onTicketSaved(Ticket ticket) {
+		if (recurringVehicleCache != null) {
+			recurringVehicleCache.addConfirmed(ticket.getVehicleRegNumber());
+		}
+		if (openTicketIndex != null && ticket.getOutTime() == null) {
+			openTicketIndex.put(ticket);
+		}
+	}
+
+	private void onTicketUpdated(Ticket ticket, boolean updated) {
+		// a failed update means the indexed ticket is stale (e.g. closed by another gate process)
+		if (openTicketIndex != null && (!updated || ticket.getOutTime() != null)) {
+			openTicketIndex.remove(ticket);
+		}
+	}
+
+	@Override
 	public boolean isRecurring(String vehicleRegNumber) {
+		RecurringVehicleCache cache = getRecurringVehicleCache();
+		if (cache != null) {
+			if (!cache.mightBeRecurring(vehicleRegNumber)) {
+				return false;
+			}
+			if (cache.isConfirmed(vehicleRegNumber)) {
+				return true;
+			}
+		}
+		flushPendingWrites();
 		Connection con = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			if (hasTicket(con, DBConstants.GET_RECURRING_USER, vehicleRegNumber)
+					|| hasTicket(con, DBConstants.GET_ARCHIVED_RECURRING_USER, vehicleRegNumber)) {
+				if (cache != null) {
+					cache.addConfirmed(vehicleRegNumber);
+				}
+				return true;
+			}
+		} catch (Exception ex) {
+			logger.error("Error fetching recurring vehicle ", ex);
+		} finally {
+			dataBaseConfig.closeConnection(con);
+		}
+		return false;
+	}
+
+	private boolean hasTicket(Connection con, String sql, String vehicleRegNumber) throws SQLException {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		try {
-			con = dataBaseConfig.getConnection();
-			ps = con.prepareStatement(DBConstants.GET_RECURRING_USER);
+			ps = dataBaseConfig.prepareStatement(con, sql);
 			ps.setString(1, vehicleRegNumber);
 			rs = ps.executeQuery();
-			if (rs.next()) {
-				return rs.getBoolean(1);
+			return rs.next();
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+		}
+	}
 
+	/**
+	 * Returns the recurring vehicle cache, warmed from the ticket table on first
+	 * use, or null when it is disabled or could not be loaded. It is then
+	 * refreshed every ticket.recurringCache.refreshIntervalSeconds with the
+	 * vehicles of the tickets saved by the other processes.
+	 */
+	public RecurringVehicleCache getRecurringVehicleCache() {
+		if (recurringVehicleCache == null && recurringCacheEnabled) {
+			synchronized (this) {
+				if (recurringVehicleCache == null) {
+					loadRecurringVehicleCache();
+				}
 			}
+		}
+		return recurringVehicleCache;
+	}
+
+	/**
+	 * (Re)builds the recurring vehicle cache from the ticket and archive tables.
+	 */
+	public synchronized boolean loadRecurringVehicleCache() {
+		flushPendingWrites();
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = con.prepareStatement(DBConstants.GET_VEHICLES_WITH_TICKET);
+			dataBaseConfig.enableStreaming(ps);
+			rs = ps.executeQuery();
+			RecurringVehicleCache cache = new RecurringVehicleCache(
+					AppConfig.getLong("ticket.recurringCache.expectedVehicles", 1000000),
+					Double.parseDouble(AppConfig.getString("ticket.recurringCache.falsePositiveProbability", "0.01")),
+					AppConfig.getInt("ticket.recurringCache.maxConfirmed", 10000));
+			int vehicleCount = 0;
+			while (rs.next()) {
+				cache.addKnown(rs.getString(1));
+				vehicleCount++;
+			}
+			setRecurringVehicleCache(cache);
+			logger.info("Loaded recurring vehicle cache for " + vehicleCount + " vehicles");
+			return true;
 		} catch (Exception ex) {
-			logger.error("Error fetching recurring vehicle ", ex);
+			logger.error("Error loading recurring vehicle cache", ex);
+			return false;
 		} finally {
 			dataBaseConfig.closeResultSet(rs);
 			dataBaseConfig.closePreparedStatement(ps);
 			dataBaseConfig.closeConnection(con);
 		}
-		return false;
+	}
+
+	/**
+	 * Returns the open ticket index, loaded from the ticket table on first use,
+	 * or null when it is disabled or could not be loaded. Other processes may
+	 * close tickets behind this index: the guarded ticket update then fails and
+	 * drops the stale entry, and a restart reloads the index.
+	 */
+	public OpenTicketIndex getOpenTicketIndex() {
+		if (openTicketIndex == null && openTicketIndexEnabled) {
+			synchronized (this) {
+				if (openTicketIndex == null) {
+					loadOpenTicketIndex();
+				}
+			}
+		}
+		return openTicketIndex;
+	}
+
+	/**
+	 * (Re)builds the open ticket index from the ticket table.
+	 */
+	public synchronized boolean loadOpenTicketIndex() {
+		flushPendingWrites();
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = con.prepareStatement(DBConstants.GET_OPEN_TICKETS);
+			dataBaseConfig.enableStreaming(ps);
+			rs = ps.executeQuery();
+			OpenTicketIndex index = new OpenTicketIndex();
+			while (rs.next()) {
+				Ticket ticket = new Ticket();
+				ticket.setParkingSpot(new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(7)), false));
+				ticket.setId(rs.getInt(2));
+				ticket.setPrice(rs.getDouble(3));
+				ticket.setInTime(rs.getTimestamp(4).toLocalDateTime());
+				ticket.setDiscount(rs.getBoolean(6));
+				ticket.setVehicleRegNumber(rs.getString(8));
+				index.put(ticket);
+			}
+			openTicketIndex = index;
+			logger.info("Loaded open ticket index for " + index.size() + " vehicles");
+			return true;
+		} catch (Exception ex) {
+			logger.error("Error loading open ticket index", ex);
+			return false;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Replaces the open ticket index and the recurring vehicle cache, e.g. with
+	 * the ones of a snapshot; a null argument leaves that one as it is.
+	 */
+	public synchronized void restore(OpenTicketIndex index, RecurringVehicleCache cache) {
+		if (index != null && openTicketIndexEnabled) {
+			openTicketIndex = index;
+		}
+		if (cache != null && recurringCacheEnabled) {
+			setRecurringVehicleCache(cache);
+		}
+	}
+
+	// the first refresh scans every ticket, saved before or during the load
+	private void setRecurringVehicleCache(RecurringVehicleCache cache) {
+		recurringVehicleCache = cache;
+		refreshedTicketId = 0;
+		previousRefreshedTicketId = 0;
+		startRecurringCacheRefresher();
+	}
+
+	/**
+	 * Adds the vehicles of the tickets saved since the last refreshes, e.g. by
+	 * the other processes sharing the database, to the recurring vehicle cache,
+	 * whose Bloom filter would report them as new otherwise. The filter only
+	 * grows, so no vehicle saved during the scan is lost as with a reload. Each
+	 * refresh scans from the ticket id reached two refreshes ago, so a ticket
+	 * committed after the last refresh with a lower id than it saw (its
+	 * transaction was still open) is picked up by this one.
+	 */
+	public synchronized boolean refreshRecurringVehicleCache() {
+		RecurringVehicleCache cache = recurringVehicleCache;
+		if (cache == null) {
+			return false;
+		}
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = con.prepareStatement(DBConstants.GET_VEHICLES_WITH_TICKET_AFTER);
+			dataBaseConfig.enableStreaming(ps);
+			ps.setLong(1, previousRefreshedTicketId);
+			rs = ps.executeQuery();
+			long lastTicketId = refreshedTicketId;
+			while (rs.next()) {
+				cache.addKnown(rs.getString(1));
+				lastTicketId = Math.max(lastTicketId, rs.getLong(2));
+			}
+			previousRefreshedTicketId = refreshedTicketId;
+			refreshedTicketId = lastTicketId;
+			return true;
+		} catch (Exception ex) {
+			logger.error("Error refreshing recurring vehicle cache", ex);
+			return false;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	private void startRecurringCacheRefresher() {
+		if (recurringCacheRefreshSeconds <= 0 || recurringCacheRefresher != null) {
+			return;
+		}
+		recurringCacheRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "recurring-cache-refresher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		recurringCacheRefresher.scheduleWithFixedDelay(this::refreshRecurringVehicleCache,
+				recurringCacheRefreshSeconds, recurringCacheRefreshSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stops the periodic refresh of the recurring vehicle cache.
+	 */
+	public synchronized void stopRecurringCacheRefresher() {
+		if (recurringCacheRefresher != null) {
+			recurringCacheRefresher.shutdownNow();
+			recurringCacheRefresher = null;
+		}
 	}
 
 	public boolean isSaved(String vehicleRegNumber) {
+		flushPendingWrites();
 		Connection con = null;
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		try {
 			con = dataBaseConfig.getConnection();
-			ps = con.prepareStatement(DBConstants.GET_SAVED_TICKET);
+			ps = dataBaseConfig.prepareStatement(con, DBConstants.GET_SAVED_TICKET);
 			ps.setString(1, vehicleRegNumber);
 			rs = ps.executeQuery();
 			if (rs.next()) {
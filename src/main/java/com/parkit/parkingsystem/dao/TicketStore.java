@@ -0,0 +1,31 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Storage of the parking tickets.
+ */
+public interface TicketStore {
+
+	boolean saveTicket(Ticket ticket);
+
+	/**
+	 * @return the most recent ticket of that vehicle, or null if it has none
+	 */
+	Ticket getTicket(String vehicleRegNumber);
+
+	boolean updateTicket(Ticket ticket);
+
+	/**
+	 * @return true if that vehicle already has a ticket
+	 */
+	boolean isRecurring(String vehicleRegNumber);
+
+	CompletableFuture<Boolean> saveTicketAsync(Ticket ticket);
+
+	CompletableFuture<Boolean> updateTicketAsync(Ticket ticket);
+
+	void close();
+}
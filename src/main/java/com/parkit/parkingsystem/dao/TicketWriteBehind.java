@@ -0,0 +1,253 @@
+package com.parkit.parkingsystem.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Write-behind journal for ticket inserts and updates. Writes are queued in a
+ * bounded queue and a background writer flushes them as JDBC batches in a
+ * single transaction (group commit) once the batch is full or the flush
+ * interval has elapsed. The returned futures complete after the commit.
+ */
+public class TicketWriteBehind {
+
+	private static final Logger logger = LogManager.getLogger("TicketWriteBehind");
+
+	private static class PendingWrite {
+		private final Ticket ticket;
+		private final boolean insert;
+		private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+		PendingWrite(Ticket ticket, boolean insert) {
+			this.ticket = ticket;
+			this.insert = insert;
+		}
+
+		boolean isBarrier() {
+			return ticket == null;
+		}
+	}
+
+	private final DataBaseConfig dataBaseConfig;
+	private final BlockingQueue<PendingWrite> queue;
+	private final int batchSize;
+	private final long flushIntervalNanos;
+	private final long offerTimeoutMillis;
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final Thread writer;
+	private volatile boolean running = true;
+
+	public TicketWriteBehind(DataBaseConfig dataBaseConfig) {
+		this(dataBaseConfig, AppConfig.getInt("ticket.writeBehind.capacity", 1024),
+				AppConfig.getInt("ticket.writeBehind.batchSize", 64),
+				AppConfig.getLong("ticket.writeBehind.flushIntervalMillis", 5),
+				AppConfig.getLong("ticket.writeBehind.offerTimeoutMillis", 1000));
+	}
+
+	public TicketWriteBehind(DataBaseConfig dataBaseConfig, int capacity, int batchSize, long flushIntervalMillis,
+			long offerTimeoutMillis) {
+		this.dataBaseConfig = dataBaseConfig;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		this.offerTimeoutMillis = offerTimeoutMillis;
+		this.writer = new Thread(this::writeLoop, "ticket-write-behind");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	public CompletableFuture<Boolean> save(Ticket ticket) {
+		return enqueue(new PendingWrite(ticket, true));
+	}
+
+	public CompletableFuture<Boolean> update(Ticket ticket) {
+		return enqueue(new PendingWrite(ticket, false));
+	}
+
+	/**
+	 * Blocks until every write queued before this call is committed.
+	 */
+	public void flush() {
+		if (pendingCount.get() == 0) {
+			return;
+		}
+		try {
+			enqueue(new PendingWrite(null, false)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.error("Error while flushing ticket writes", e.getCause());
+		}
+	}
+
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	private CompletableFuture<Boolean> enqueue(PendingWrite write) {
+		if (!running) {
+			write.done.completeExceptionally(new IllegalStateException("Ticket write-behind is closed"));
+			return write.done;
+		}
+		pendingCount.incrementAndGet();
+		try {
+			// backpressure: callers wait while the writer is behind
+			if (!queue.offer(write, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				pendingCount.decrementAndGet();
+				write.done.completeExceptionally(new RejectedExecutionException(
+						"Ticket write-behind queue is full (" + queue.size() + " pending writes)"));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pendingCount.decrementAndGet();
+			write.done.completeExceptionally(e);
+		}
+		return write.done;
+	}
+
+	private void writeLoop() {
+		List<PendingWrite> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + flushIntervalNanos;
+				while (batch.size() < batchSize) {
+					long remaining = deadline - System.nanoTime();
+					PendingWrite next = (remaining > 0) ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				flushBatch(batch);
+			} catch (InterruptedException e) {
+				flushBatch(batch);
+				running = false;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void flushBatch(List<PendingWrite> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		Connection con = null;
+		PreparedStatement insertPs = null;
+		PreparedStatement updatePs = null;
+		ResultSet generatedKeys = null;
+		List<PendingWrite> inserts = new ArrayList<>(batch.size());
+		List<PendingWrite> updates = new ArrayList<>(batch.size());
+		try {
+			con = dataBaseConfig.getConnection();
+			con.setAutoCommit(false);
+			insertPs = dataBaseConfig.prepareStatement(con, DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS);
+			updatePs = dataBaseConfig.prepareStatement(con, DBConstants.UPDATE_TICKET);
+			for (PendingWrite write : batch) {
+				if (write.isBarrier()) {
+					continue;
+				}
+				Ticket ticket = write.ticket;
+				if (write.insert) {
+					insertPs.setInt(1, ticket.getParkingSpot().getId());
+					insertPs.setString(2, ticket.getVehicleRegNumber());
+					insertPs.setDouble(3, ticket.getPrice());
+					insertPs.setTimestamp(4, Timestamp.valueOf(ticket.getInTime()));
+					insertPs.setTimestamp(5,
+							(ticket.getOutTime() == null) ? null : Timestamp.valueOf(ticket.getOutTime()));
+					insertPs.setBoolean(6, ticket.isDiscount());
+					insertPs.addBatch();
+					inserts.add(write);
+				} else {
+					updatePs.setDouble(1, ticket.getPrice());
+					updatePs.setTimestamp(2, Timestamp.valueOf(ticket.getOutTime()));
+					updatePs.setInt(3, ticket.getId());
+					updatePs.addBatch();
+					updates.add(write);
+				}
+			}
+			// inserts first: an update can only target a ticket whose id is already known
+			if (!inserts.isEmpty()) {
+				insertPs.executeBatch();
+				generatedKeys = insertPs.getGeneratedKeys();
+				for (int i = 0; i < inserts.size() && generatedKeys.next(); i++) {
+					inserts.get(i).ticket.setId(generatedKeys.getInt(1));
+				}
+			}
+			int[] updateCounts = updates.isEmpty() ? new int[0] : updatePs.executeBatch();
+			con.commit();
+			pendingCount.addAndGet(-batch.size());
+			for (PendingWrite write : batch) {
+				if (write.isBarrier() || write.insert) {
+					write.done.complete(true);
+				}
+			}
+			// guarded by OUT_TIME is null: an update matching no row closed an already closed ticket
+			for (int i = 0; i < updates.size(); i++) {
+				updates.get(i).done.complete(i < updateCounts.length
+						&& (updateCounts[i] == 1 || updateCounts[i] == Statement.SUCCESS_NO_INFO));
+			}
+			logger.debug("Committed " + batch.size() + " ticket writes");
+		} catch (Exception ex) {
+			logger.error("Error writing batch of " + batch.size() + " tickets", ex);
+			try {
+				if (con != null) {
+					con.rollback();
+				}
+			} catch (Exception rollbackEx) {
+				logger.error("Error rolling back ticket batch", rollbackEx);
+			}
+			pendingCount.addAndGet(-batch.size());
+			for (PendingWrite write : batch) {
+				write.done.completeExceptionally(ex);
+			}
+		} finally {
+			dataBaseConfig.closeResultSet(generatedKeys);
+			dataBaseConfig.closePreparedStatement(insertPs);
+			dataBaseConfig.closePreparedStatement(updatePs);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	/**
+	 * Stops accepting writes and waits for the queued ones to be committed.
+	 */
+	public void close() {
+		running = false;
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		PendingWrite stranded;
+		while ((stranded = queue.poll()) != null) {
+			pendingCount.decrementAndGet();
+			stranded.done.completeExceptionally(new IllegalStateException("Ticket write-behind is closed"));
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package com.parkit.parkingsystem.dao;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs the store calls of one gate flow as a single unit of work.
+ */
+public interface TransactionRunner {
+
+	/**
+	 * For stores whose every call is atomic on its own (e.g. in memory): runs the
+	 * work directly.
+	 */
+	TransactionRunner NONE = new TransactionRunner() {
+		@Override
+		public <T> T inTransaction(Supplier<T> work, Predicate<? super T> commit) {
+			return work.get();
+		}
+	};
+
+	/**
+	 * Runs the work in one transaction, committed when commit accepts its result
+	 * and rolled back otherwise. The stores called by the work on this thread
+	 * join the transaction.
+	 *
+	 * @return the result of the work
+	 */
+	<T> T inTransaction(Supplier<T> work, Predicate<? super T> commit);
+}
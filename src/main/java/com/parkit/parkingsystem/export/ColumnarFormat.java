@@ -0,0 +1,80 @@
+package com.parkit.parkingsystem.export;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary layout of the columnar ticket export. The file starts with a header
+ * (magic, version) followed by blocks of at most blockRows tickets, the last
+ * one empty:
+ *
+ * <pre>
+ * int    row count (0 ends the export)
+ * int    body length
+ * int    CRC32 of the body
+ * body   one column after the other, each holding the value of every row:
+ *        id                  zigzag varint, delta to the previous row
+ *        parking number      zigzag varint
+ *        parking type        byte (ordinal + 1, 0 when unknown)
+ *        vehicle reg number  varint UTF-8 length + 1 (0 when null), then its bytes
+ *        price               zigzag varint, in cents
+ *        in time             zigzag varint + 1 (0 when null), epoch seconds of the
+ *                            UTC wall clock, delta to the previous in time
+ *        out time            zigzag varint + 1 (0 when null), seconds after the in time
+ *        discount            bitset, one bit per row
+ * </pre>
+ *
+ * Ids and in times change little from one row to the next and a stay lasts a
+ * few hours, so most values fit in one to three bytes; times are kept to the
+ * second and prices to the cent, as in the database.
+ */
+final class ColumnarFormat {
+
+	static final int MAGIC = 0x504b5443;
+	static final int VERSION = 1;
+	static final int FILE_HEADER_SIZE = 8;
+	static final int BLOCK_HEADER_SIZE = 12;
+	static final int MAX_VARINT_SIZE = 10;
+	// a null time in the column arrays of the writer and the reader
+	static final long NO_TIME = Long.MIN_VALUE;
+
+	private ColumnarFormat() {
+	}
+
+	static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalStateException("Malformed variable-length integer");
+	}
+
+	static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	static long toSeconds(LocalDateTime time) {
+		return (time == null) ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	static LocalDateTime fromSeconds(long seconds) {
+		return (seconds == NO_TIME) ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+	}
+}
@@ -0,0 +1,180 @@
+package com.parkit.parkingsystem.export;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Reads back an export written in the {@link ColumnarFormat}, one block at a
+ * time: memory is fixed by the block size of the writer whatever the number
+ * of rows. A block whose CRC does not match fails the read.
+ */
+public class ColumnarTicketReader {
+
+	private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.BLOCK_HEADER_SIZE);
+	private final CRC32 crc = new CRC32();
+	private ByteBuffer body = ByteBuffer.allocate(0);
+	private int[] ids = new int[0];
+	private int[] parkingNumbers = new int[0];
+	private byte[] parkingTypes = new byte[0];
+	private String[] vehicleRegNumbers = new String[0];
+	private long[] priceCents = new long[0];
+	private long[] inSeconds = new long[0];
+	private long[] outSeconds = new long[0];
+	private boolean[] discounts = new boolean[0];
+	private boolean started;
+	private boolean ended;
+	private int rows;
+	private int next;
+
+	/**
+	 * @param channel positioned at the start of the export, left open
+	 */
+	public ColumnarTicketReader(ReadableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * @return the next ticket, or null at the end of the export
+	 */
+	public Ticket next() throws IOException {
+		while (next == rows) {
+			if (ended || !readBlock()) {
+				ended = true;
+				return null;
+			}
+		}
+		int row = next++;
+		Ticket ticket = new Ticket();
+		ParkingType parkingType = (parkingTypes[row] == 0) ? null : PARKING_TYPES[parkingTypes[row] - 1];
+		ticket.setParkingSpot(new ParkingSpot(parkingNumbers[row], parkingType, false));
+		ticket.setId(ids[row]);
+		ticket.setVehicleRegNumber(vehicleRegNumbers[row]);
+		ticket.setPrice(priceCents[row] / 100.0);
+		ticket.setInTime(ColumnarFormat.fromSeconds(inSeconds[row]));
+		ticket.setOutTime(ColumnarFormat.fromSeconds(outSeconds[row]));
+		ticket.setDiscount(discounts[row]);
+		return ticket;
+	}
+
+	// false on the block ending the export
+	private boolean readBlock() throws IOException {
+		if (!started) {
+			started = true;
+			ByteBuffer fileHeader = ByteBuffer.allocate(ColumnarFormat.FILE_HEADER_SIZE);
+			readFully(fileHeader);
+			if (fileHeader.getInt() != ColumnarFormat.MAGIC) {
+				throw new IOException("Not a columnar ticket export");
+			}
+			int version = fileHeader.getInt();
+			if (version != ColumnarFormat.VERSION) {
+				throw new IOException("Unsupported columnar ticket export version " + version);
+			}
+		}
+		((Buffer) header).clear();
+		readFully(header);
+		int rowCount = header.getInt();
+		int length = header.getInt();
+		int checksum = header.getInt();
+		if (rowCount < 0 || length < 0) {
+			throw new IOException("Corrupt block header: " + rowCount + " rows, " + length + " bytes");
+		}
+		if (body.capacity() < length) {
+			body = ByteBuffer.allocate(length);
+		}
+		((Buffer) body).clear();
+		((Buffer) body).limit(length);
+		readFully(body);
+		crc.reset();
+		crc.update(body.array(), 0, length);
+		if ((int) crc.getValue() != checksum) {
+			throw new IOException("Corrupt block: CRC mismatch");
+		}
+		rows = 0;
+		next = 0;
+		if (rowCount == 0) {
+			return false;
+		}
+		try {
+			decode(rowCount);
+		} catch (RuntimeException e) {
+			throw new IOException("Corrupt block", e);
+		}
+		rows = rowCount;
+		return true;
+	}
+
+	private void decode(int rowCount) {
+		if (ids.length < rowCount) {
+			ids = new int[rowCount];
+			parkingNumbers = new int[rowCount];
+			parkingTypes = new byte[rowCount];
+			vehicleRegNumbers = new String[rowCount];
+			priceCents = new long[rowCount];
+			inSeconds = new long[rowCount];
+			outSeconds = new long[rowCount];
+			discounts = new boolean[rowCount];
+		}
+		long previous = 0;
+		for (int row = 0; row < rowCount; row++) {
+			previous += ColumnarFormat.unzigzag(ColumnarFormat.getVarLong(body));
+			ids[row] = (int) previous;
+		}
+		for (int row = 0; row < rowCount; row++) {
+			parkingNumbers[row] = (int) ColumnarFormat.unzigzag(ColumnarFormat.getVarLong(body));
+		}
+		body.get(parkingTypes, 0, rowCount);
+		for (int row = 0; row < rowCount; row++) {
+			int length = (int) ColumnarFormat.getVarLong(body);
+			if (length == 0) {
+				vehicleRegNumbers[row] = null;
+			} else {
+				byte[] bytes = new byte[length - 1];
+				body.get(bytes);
+				vehicleRegNumbers[row] = new String(bytes, StandardCharsets.UTF_8);
+			}
+		}
+		for (int row = 0; row < rowCount; row++) {
+			priceCents[row] = ColumnarFormat.unzigzag(ColumnarFormat.getVarLong(body));
+		}
+		previous = 0;
+		for (int row = 0; row < rowCount; row++) {
+			long value = ColumnarFormat.getVarLong(body);
+			if (value == 0) {
+				inSeconds[row] = ColumnarFormat.NO_TIME;
+			} else {
+				previous += ColumnarFormat.unzigzag(value - 1);
+				inSeconds[row] = previous;
+			}
+		}
+		for (int row = 0; row < rowCount; row++) {
+			long value = ColumnarFormat.getVarLong(body);
+			long from = (inSeconds[row] == ColumnarFormat.NO_TIME) ? 0 : inSeconds[row];
+			outSeconds[row] = (value == 0) ? ColumnarFormat.NO_TIME : from + ColumnarFormat.unzigzag(value - 1);
+		}
+		for (int row = 0; row < rowCount; row++) {
+			discounts[row] = (body.get(body.position() + (row >> 3)) & (1 << (row & 7))) != 0;
+		}
+	}
+
+	// fills the buffer up to its limit, then flips it for reading
+	private void readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("Truncated columnar ticket export");
+			}
+		}
+		((Buffer) buffer).flip();
+	}
+}
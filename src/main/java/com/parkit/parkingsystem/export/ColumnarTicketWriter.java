@@ -0,0 +1,173 @@
+package com.parkit.parkingsystem.export;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Writes tickets in the {@link ColumnarFormat}: rows are kept in per-column
+ * arrays until a block is full, then the block is encoded column by column and
+ * written to the channel. Memory is fixed by the block size whatever the
+ * number of rows.
+ */
+class ColumnarTicketWriter implements TicketRowWriter {
+
+	private final WritableByteChannel channel;
+	private final int blockRows;
+	private final int[] ids;
+	private final int[] parkingNumbers;
+	private final byte[] parkingTypes;
+	private final String[] vehicleRegNumbers;
+	private final long[] priceCents;
+	private final long[] inSeconds;
+	private final long[] outSeconds;
+	private final byte[] discounts;
+	private final ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.BLOCK_HEADER_SIZE);
+	private final CRC32 crc = new CRC32();
+	private ByteBuffer body;
+	private int rows;
+	private boolean headerWritten;
+
+	/**
+	 * @param bufferBytes initial size of the block buffer, grown to the largest
+	 *                    block
+	 */
+	ColumnarTicketWriter(WritableByteChannel channel, int bufferBytes, int blockRows) {
+		if (blockRows < 1) {
+			throw new IllegalArgumentException("Block rows must be positive");
+		}
+		this.channel = channel;
+		this.blockRows = blockRows;
+		this.ids = new int[blockRows];
+		this.parkingNumbers = new int[blockRows];
+		this.parkingTypes = new byte[blockRows];
+		this.vehicleRegNumbers = new String[blockRows];
+		this.priceCents = new long[blockRows];
+		this.inSeconds = new long[blockRows];
+		this.outSeconds = new long[blockRows];
+		this.discounts = new byte[(blockRows + 7) / 8];
+		this.body = ByteBuffer.allocate(Math.max(bufferBytes, 64));
+	}
+
+	@Override
+	public void write(int id, int parkingNumber, ParkingType parkingType, String vehicleRegNumber, double price,
+			LocalDateTime inTime, LocalDateTime outTime, boolean discount) throws IOException {
+		ids[rows] = id;
+		parkingNumbers[rows] = parkingNumber;
+		parkingTypes[rows] = (byte) ((parkingType == null) ? 0 : parkingType.ordinal() + 1);
+		vehicleRegNumbers[rows] = vehicleRegNumber;
+		priceCents[rows] = Math.round(price * 100);
+		inSeconds[rows] = ColumnarFormat.toSeconds(inTime);
+		outSeconds[rows] = ColumnarFormat.toSeconds(outTime);
+		if (discount) {
+			discounts[rows >> 3] |= 1 << (rows & 7);
+		}
+		if (++rows == blockRows) {
+			writeBlock();
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (rows > 0) {
+			writeBlock();
+		}
+		// the empty block ending the export
+		writeBlock();
+	}
+
+	private void writeBlock() throws IOException {
+		if (!headerWritten) {
+			headerWritten = true;
+			ByteBuffer fileHeader = ByteBuffer.allocate(ColumnarFormat.FILE_HEADER_SIZE);
+			fileHeader.putInt(ColumnarFormat.MAGIC).putInt(ColumnarFormat.VERSION);
+			writeFully(fileHeader);
+		}
+		encodeBody();
+		crc.reset();
+		crc.update(body.array(), 0, body.position());
+		((Buffer) header).clear();
+		header.putInt(rows).putInt(body.position()).putInt((int) crc.getValue());
+		writeFully(header);
+		writeFully(body);
+		rows = 0;
+		Arrays.fill(discounts, (byte) 0);
+		Arrays.fill(vehicleRegNumbers, null);
+	}
+
+	private void encodeBody() {
+		((Buffer) body).clear();
+		long previous = 0;
+		for (int row = 0; row < rows; row++) {
+			ensureCapacity(ColumnarFormat.MAX_VARINT_SIZE);
+			ColumnarFormat.putVarLong(body, ColumnarFormat.zigzag((long) ids[row] - previous));
+			previous = ids[row];
+		}
+		for (int row = 0; row < rows; row++) {
+			ensureCapacity(ColumnarFormat.MAX_VARINT_SIZE);
+			ColumnarFormat.putVarLong(body, ColumnarFormat.zigzag(parkingNumbers[row]));
+		}
+		ensureCapacity(rows);
+		body.put(parkingTypes, 0, rows);
+		for (int row = 0; row < rows; row++) {
+			byte[] bytes = (vehicleRegNumbers[row] == null) ? null
+					: vehicleRegNumbers[row].getBytes(StandardCharsets.UTF_8);
+			ensureCapacity(ColumnarFormat.MAX_VARINT_SIZE + ((bytes == null) ? 0 : bytes.length));
+			if (bytes == null) {
+				ColumnarFormat.putVarLong(body, 0);
+			} else {
+				ColumnarFormat.putVarLong(body, bytes.length + 1);
+				body.put(bytes);
+			}
+		}
+		for (int row = 0; row < rows; row++) {
+			ensureCapacity(ColumnarFormat.MAX_VARINT_SIZE);
+			ColumnarFormat.putVarLong(body, ColumnarFormat.zigzag(priceCents[row]));
+		}
+		previous = 0;
+		for (int row = 0; row < rows; row++) {
+			ensureCapacity(ColumnarFormat.MAX_VARINT_SIZE);
+			if (inSeconds[row] == ColumnarFormat.NO_TIME) {
+				ColumnarFormat.putVarLong(body, 0);
+			} else {
+				ColumnarFormat.putVarLong(body, ColumnarFormat.zigzag(inSeconds[row] - previous) + 1);
+				previous = inSeconds[row];
+			}
+		}
+		for (int row = 0; row < rows; row++) {
+			ensureCapacity(ColumnarFormat.MAX_VARINT_SIZE);
+			if (outSeconds[row] == ColumnarFormat.NO_TIME) {
+				ColumnarFormat.putVarLong(body, 0);
+			} else {
+				long from = (inSeconds[row] == ColumnarFormat.NO_TIME) ? 0 : inSeconds[row];
+				ColumnarFormat.putVarLong(body, ColumnarFormat.zigzag(outSeconds[row] - from) + 1);
+			}
+		}
+		int discountBytes = (rows + 7) / 8;
+		ensureCapacity(discountBytes);
+		body.put(discounts, 0, discountBytes);
+	}
+
+	private void ensureCapacity(int bytes) {
+		if (body.remaining() < bytes) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(body.capacity() * 2, body.position() + bytes));
+			((Buffer) body).flip();
+			larger.put(body);
+			body = larger;
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		((Buffer) buffer).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
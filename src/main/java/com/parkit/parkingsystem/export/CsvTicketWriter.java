@@ -0,0 +1,151 @@
+package com.parkit.parkingsystem.export;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Writes tickets as UTF-8 CSV: a header line, then one line per ticket with
+ * the price to the cent and the times as yyyy-MM-dd HH:mm:ss (empty out time
+ * while parked). Each line is built in a reused builder and encoded straight
+ * into the output buffer, written to the channel whenever it fills up.
+ */
+class CsvTicketWriter implements TicketRowWriter {
+
+	static final String HEADER = "id,parking_number,parking_type,vehicle_reg_number,price,in_time,out_time,discount";
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	private final StringBuilder line = new StringBuilder(128);
+	private boolean headerWritten;
+
+	CsvTicketWriter(WritableByteChannel channel, int bufferBytes) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+	}
+
+	@Override
+	public void write(int id, int parkingNumber, ParkingType parkingType, String vehicleRegNumber, double price,
+			LocalDateTime inTime, LocalDateTime outTime, boolean discount) throws IOException {
+		writeHeader();
+		line.setLength(0);
+		line.append(id).append(',').append(parkingNumber).append(',');
+		if (parkingType != null) {
+			line.append(parkingType);
+		}
+		line.append(',');
+		appendText(vehicleRegNumber);
+		line.append(',');
+		appendPrice(price);
+		line.append(',');
+		appendTime(inTime);
+		line.append(',');
+		appendTime(outTime);
+		line.append(',').append(discount).append("\r\n");
+		encode();
+	}
+
+	@Override
+	public void finish() throws IOException {
+		writeHeader();
+		drain();
+	}
+
+	private void writeHeader() throws IOException {
+		if (!headerWritten) {
+			headerWritten = true;
+			line.setLength(0);
+			line.append(HEADER).append("\r\n");
+			encode();
+		}
+	}
+
+	private void appendText(String text) {
+		if (text == null) {
+			return;
+		}
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\r') < 0 && text.indexOf('\n') < 0) {
+			line.append(text);
+			return;
+		}
+		line.append('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"') {
+				line.append('"');
+			}
+			line.append(c);
+		}
+		line.append('"');
+	}
+
+	private void appendPrice(double price) {
+		long cents = Math.round(price * 100);
+		if (cents < 0) {
+			line.append('-');
+			cents = -cents;
+		}
+		line.append(cents / 100).append('.');
+		appendPadded(cents % 100, 2);
+	}
+
+	private void appendTime(LocalDateTime time) {
+		if (time == null) {
+			return;
+		}
+		appendPadded(time.getYear(), 4);
+		line.append('-');
+		appendPadded(time.getMonthValue(), 2);
+		line.append('-');
+		appendPadded(time.getDayOfMonth(), 2);
+		line.append(' ');
+		appendPadded(time.getHour(), 2);
+		line.append(':');
+		appendPadded(time.getMinute(), 2);
+		line.append(':');
+		appendPadded(time.getSecond(), 2);
+	}
+
+	private void appendPadded(long value, int digits) {
+		for (long limit = 10; digits > 1; digits--, limit *= 10) {
+			if (value < limit) {
+				line.append('0');
+			}
+		}
+		line.append(value);
+	}
+
+	private void encode() throws IOException {
+		CharBuffer chars = CharBuffer.wrap(line);
+		while (true) {
+			CoderResult result = encoder.encode(chars, buffer, true);
+			if (result.isUnderflow()) {
+				break;
+			}
+			if (result.isOverflow()) {
+				drain();
+			} else {
+				result.throwException();
+			}
+		}
+		encoder.reset();
+	}
+
+	private void drain() throws IOException {
+		// through Buffer, whose flip/clear also exist on a Java 8 runtime
+		((Buffer) buffer).flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		((Buffer) buffer).clear();
+	}
+}
@@ -0,0 +1,25 @@
+package com.parkit.parkingsystem.export;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Output formats of the ticket export: CSV is RFC 4180 text with a header
+ * line, COLUMNAR blocks of rows stored column by column, read back with the
+ * {@link ColumnarTicketReader}.
+ */
+public enum ExportFormat {
+	CSV, COLUMNAR;
+
+	/**
+	 * @param bufferBytes output buffered between two channel writes
+	 * @param blockRows   rows per block of the columnar format
+	 */
+	public TicketRowWriter createWriter(WritableByteChannel channel, int bufferBytes, int blockRows) {
+		switch (this) {
+		case COLUMNAR:
+			return new ColumnarTicketWriter(channel, bufferBytes, blockRows);
+		default:
+			return new CsvTicketWriter(channel, bufferBytes);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.parkit.parkingsystem.export;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Exports the tickets that entered during a period, live and archived, e.g.
+ * the monthly dump for finance.
+ *
+ * The tickets are streamed from the database and each row is handed to the
+ * {@link TicketRowWriter} column values in, so memory stays bounded by the
+ * writer buffers whatever the number of rows. Files are written through a
+ * {@link FileChannel} next to the target and moved into place once complete,
+ * so a failed export never leaves a truncated file behind.
+ */
+public class TicketExport {
+
+	private static final Logger logger = LogManager.getLogger("TicketExport");
+
+	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+	private final int bufferBytes;
+	private final int blockRows;
+
+	public static TicketExport fromAppConfig() {
+		return new TicketExport(AppConfig.getInt("export.bufferBytes", 64 * 1024),
+				AppConfig.getInt("export.blockRows", 4096));
+	}
+
+	/**
+	 * @param bufferBytes output buffered between two writes to the file
+	 * @param blockRows   rows per block of the columnar format
+	 */
+	public TicketExport(int bufferBytes, int blockRows) {
+		if (bufferBytes < 1 || blockRows < 1) {
+			throw new IllegalArgumentException("Buffer size and block rows must be positive");
+		}
+		this.bufferBytes = bufferBytes;
+		this.blockRows = blockRows;
+	}
+
+	/**
+	 * @param from first in time exported
+	 * @param to   end of the period, excluded
+	 * @return the number of tickets exported
+	 */
+	public long export(LocalDateTime from, LocalDateTime to, ExportFormat format, Path path)
+			throws ClassNotFoundException, SQLException, IOException {
+		long start = System.nanoTime();
+		Path partial = path.resolveSibling(path.getFileName() + ".part");
+		long rows;
+		try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			TicketRowWriter writer = format.createWriter(channel, bufferBytes, blockRows);
+			rows = export(from, to, writer);
+			writer.finish();
+			channel.force(false);
+		} catch (SQLException | IOException | RuntimeException e) {
+			Files.deleteIfExists(partial);
+			throw e;
+		}
+		Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING);
+		logger.info("Exported " + rows + " tickets from " + from + " to " + to + " in " + format + " to " + path
+				+ " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+		return rows;
+	}
+
+	/**
+	 * Streams the tickets of the period to the writer, without finishing it.
+	 *
+	 * @return the number of tickets written
+	 */
+	public long export(LocalDateTime from, LocalDateTime to, TicketRowWriter writer)
+			throws ClassNotFoundException, SQLException, IOException {
+		Connection con = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			con = dataBaseConfig.getConnection();
+			ps = con.prepareStatement(DBConstants.GET_TICKETS_IN_RANGE, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			dataBaseConfig.enableStreaming(ps);
+			Timestamp fromTime = Timestamp.valueOf(from);
+			Timestamp toTime = Timestamp.valueOf(to);
+			// once for the live tickets, once for the archived ones
+			ps.setTimestamp(1, fromTime);
+			ps.setTimestamp(2, toTime);
+			ps.setTimestamp(3, fromTime);
+			ps.setTimestamp(4, toTime);
+			rs = ps.executeQuery();
+			long rows = 0;
+			while (rs.next()) {
+				Timestamp outTime = rs.getTimestamp(7);
+				writer.write(rs.getInt(1), rs.getInt(2), ParkingType.valueOf(rs.getString(3)), rs.getString(4),
+						rs.getDouble(5), rs.getTimestamp(6).toLocalDateTime(),
+						(outTime == null) ? null : outTime.toLocalDateTime(), rs.getBoolean(8));
+				rows++;
+			}
+			return rows;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+			dataBaseConfig.closePreparedStatement(ps);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.parkit.parkingsystem.export;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Encodes ticket rows as they are read, column values in, without building a
+ * {@link com.parkit.parkingsystem.model.Ticket} per row. Writers buffer a
+ * fixed amount of output and never hold on to past rows.
+ */
+public interface TicketRowWriter {
+
+	/**
+	 * @param outTime null while the vehicle is parked
+	 */
+	void write(int id, int parkingNumber, ParkingType parkingType, String vehicleRegNumber, double price,
+			LocalDateTime inTime, LocalDateTime outTime, boolean discount) throws IOException;
+
+	/**
+	 * Writes the buffered rows and the end of the export; the channel is left
+	 * open.
+	 */
+	void finish() throws IOException;
+}
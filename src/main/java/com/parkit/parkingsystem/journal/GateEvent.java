@@ -0,0 +1,99 @@
+package com.parkit.parkingsystem.journal;
+
+import java.time.LocalDateTime;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * One record of the gate journal.
+ */
+public class GateEvent {
+
+	public enum Type {
+		SPOT_CLAIMED,
+		ENTRY,
+		EXIT,
+		SPOT_RELEASED
+
+	}
+
+	private final long sequence;
+	private final Type type;
+	private final int parkingNumber;
+	private final ParkingType parkingType;
+	private final int ticketId;
+	private final String vehicleRegNumber;
+	private final LocalDateTime inTime;
+	private final LocalDateTime outTime;
+	private final double price;
+	private final boolean discount;
+
+	public GateEvent(long sequence, Type type, int parkingNumber, ParkingType parkingType, int ticketId,
+			String vehicleRegNumber, LocalDateTime inTime, LocalDateTime outTime, double price, boolean discount) {
+		this.sequence = sequence;
+		this.type = type;
+		this.parkingNumber = parkingNumber;
+		this.parkingType = parkingType;
+		this.ticketId = ticketId;
+		this.vehicleRegNumber = vehicleRegNumber;
+		this.inTime = inTime;
+		this.outTime = outTime;
+		this.price = price;
+		this.discount = discount;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public int getParkingNumber() {
+		return parkingNumber;
+	}
+
+	public ParkingType getParkingType() {
+		return parkingType;
+	}
+
+	/**
+	 * @return the ticket id, 0 for spot events and for tickets whose id was not
+	 *         known yet (write-behind)
+	 */
+	public int getTicketId() {
+		return ticketId;
+	}
+
+	/**
+	 * @return the vehicle registration number, null for spot events
+	 */
+	public String getVehicleRegNumber() {
+		return vehicleRegNumber;
+	}
+
+	public LocalDateTime getInTime() {
+		return inTime;
+	}
+
+	public LocalDateTime getOutTime() {
+		return outTime;
+	}
+
+	public double getPrice() {
+		return price;
+	}
+
+	public boolean isDiscount() {
+		return discount;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + sequence + " " + type + " spot=" + parkingNumber + " " + parkingType
+				+ ((vehicleRegNumber == null) ? ""
+						: " ticket=" + ticketId + " vehicle=" + vehicleRegNumber + " in=" + inTime + " out=" + outTime
+								+ " price=" + price + " discount=" + discount);
+	}
+}
@@ -0,0 +1,230 @@
+package com.parkit.parkingsystem.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.GateEventListener;
+
+/**
+ * Append-only journal of the gate events, written straight into a
+ * memory-mapped file: an append is a few puts into the mapped region, with no
+ * system call and no intermediate buffer. The OS writes the pages back, so
+ * appended records survive a crash of the process; {@link #force()} (or
+ * journal.forceOnAppend) also makes them survive a crash of the machine.
+ *
+ * Reopening an existing journal continues after its last valid record.
+ */
+public class GateJournal implements GateEventListener, Closeable {
+
+	private static final Logger logger = LogManager.getLogger("GateJournal");
+
+	private final Path path;
+	private final FileChannel channel;
+	private final int regionSize;
+	private final boolean forceOnAppend;
+	private final CRC32 crc = new CRC32();
+	private MappedByteBuffer region;
+	private ByteBuffer regionView;
+	private long regionStart;
+	private int position;
+	private long nextSequence;
+
+	public static GateJournal fromAppConfig() throws IOException {
+		return new GateJournal(Paths.get(AppConfig.getString("journal.path", "gate-journal.bin")),
+				AppConfig.getInt("journal.regionSizeBytes", 64 * 1024 * 1024),
+				AppConfig.getBoolean("journal.forceOnAppend", false));
+	}
+
+	/**
+	 * Opens the journal when journal.enabled is set.
+	 *
+	 * @return the journal, or null when disabled or it could not be opened
+	 */
+	public static GateJournal openIfEnabled() {
+		if (!AppConfig.getBoolean("journal.enabled", false)) {
+			return null;
+		}
+		try {
+			GateJournal gateJournal = fromAppConfig();
+			logger.info("Journaling gate events to " + gateJournal.getPath());
+			return gateJournal;
+		} catch (IOException e) {
+			logger.error("Unable to open the gate journal, gate events are not journaled", e);
+			return null;
+		}
+	}
+
+	public static void closeQuietly(GateJournal gateJournal) {
+		if (gateJournal != null) {
+			try {
+				gateJournal.close();
+			} catch (IOException e) {
+				logger.error("Error while closing the gate journal", e);
+			}
+		}
+	}
+
+	public GateJournal(Path path, int regionSize, boolean forceOnAppend) throws IOException {
+		this.path = path;
+		this.forceOnAppend = forceOnAppend;
+		long endPosition = JournalFormat.FILE_HEADER_SIZE;
+		long lastSequence = 0;
+		if (Files.exists(path) && Files.size(path) > 0) {
+			try (GateJournalReader reader = new GateJournalReader(path)) {
+				reader.read(1, Long.MAX_VALUE, event -> {
+				});
+				regionSize = reader.getRegionSize();
+				endPosition = reader.getEndPosition();
+				lastSequence = reader.getLastSequence();
+			}
+			logger.info("Reopened gate journal " + path + " after sequence " + lastSequence);
+		}
+		if (regionSize < 1024) {
+			throw new IllegalArgumentException("Journal region size too small: " + regionSize);
+		}
+		this.regionSize = regionSize;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.nextSequence = lastSequence + 1;
+		mapRegion(endPosition / regionSize);
+		this.position = (int) (endPosition - regionStart);
+		if (lastSequence == 0 && endPosition == JournalFormat.FILE_HEADER_SIZE) {
+			region.putInt(0, JournalFormat.MAGIC);
+			region.putInt(4, JournalFormat.VERSION);
+			region.putInt(8, regionSize);
+		}
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the sequence of the next appended record
+	 */
+	public synchronized long getNextSequence() {
+		return nextSequence;
+	}
+
+	/**
+	 * Appends a record and returns its sequence.
+	 */
+	public synchronized long append(GateEvent.Type type, int parkingNumber, ParkingType parkingType, int ticketId,
+			String vehicleRegNumber, LocalDateTime inTime, LocalDateTime outTime, double price, boolean discount)
+			throws IOException {
+		if (region == null) {
+			throw new IOException("Gate journal " + path + " is closed");
+		}
+		byte[] vehicleRegNumberBytes = JournalFormat.encodeVehicleRegNumber(vehicleRegNumber);
+		int recordSize = JournalFormat.recordSize(vehicleRegNumberBytes);
+		if (position + recordSize > regionSize) {
+			if (position + 4 <= regionSize) {
+				region.putInt(position, JournalFormat.END_OF_REGION);
+			}
+			mapRegion(regionStart / regionSize + 1);
+			position = 0;
+		}
+		long sequence = nextSequence++;
+		JournalFormat.writePayload(region, position, sequence, type, parkingNumber, parkingType, ticketId,
+				vehicleRegNumberBytes, inTime, outTime, price, discount);
+		// through Buffer, whose limit/position also exist on a Java 8 runtime
+		Buffer payload = regionView;
+		payload.limit(position + recordSize);
+		payload.position(position + JournalFormat.RECORD_HEADER_SIZE);
+		crc.reset();
+		crc.update(regionView);
+		region.putInt(position + 4, (int) crc.getValue());
+		// the length goes last: a record is only visible once complete
+		region.putInt(position, recordSize);
+		position += recordSize;
+		if (forceOnAppend) {
+			region.force();
+		}
+		return sequence;
+	}
+
+	private void mapRegion(long index) throws IOException {
+		if (region != null) {
+			region.force();
+		}
+		regionStart = index * regionSize;
+		region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+		regionView = region.duplicate();
+	}
+
+	/**
+	 * Forces the appended records to the storage device.
+	 */
+	public synchronized void force() {
+		if (region != null) {
+			region.force();
+		}
+	}
+
+	@Override
+	public void onSpotClaimed(ParkingSpot parkingSpot) {
+		appendSpotEvent(GateEvent.Type.SPOT_CLAIMED, parkingSpot);
+	}
+
+	@Override
+	public void onEntry(Ticket ticket) {
+		appendTicketEvent(GateEvent.Type.ENTRY, ticket);
+	}
+
+	@Override
+	public void onExit(Ticket ticket) {
+		appendTicketEvent(GateEvent.Type.EXIT, ticket);
+	}
+
+	@Override
+	public void onSpotReleased(ParkingSpot parkingSpot) {
+		appendSpotEvent(GateEvent.Type.SPOT_RELEASED, parkingSpot);
+	}
+
+	private void appendSpotEvent(GateEvent.Type type, ParkingSpot parkingSpot) {
+		try {
+			append(type, parkingSpot.getId(), parkingSpot.getParkingType(), 0, null, null, null, 0, false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void appendTicketEvent(GateEvent.Type type, Ticket ticket) {
+		ParkingSpot parkingSpot = ticket.getParkingSpot();
+		try {
+			append(type, parkingSpot.getId(), parkingSpot.getParkingType(), ticket.getId(),
+					ticket.getVehicleRegNumber(), ticket.getInTime(), ticket.getOutTime(), ticket.getPrice(),
+					ticket.isDiscount());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (region != null) {
+			region.force();
+			region = null;
+			regionView = null;
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.parkit.parkingsystem.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads a gate journal region by region through read-only mappings. Reading
+ * stops at the end of the journal or at the first torn or corrupt record,
+ * which is where a crash interrupted the last append.
+ */
+public class GateJournalReader implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger("GateJournalReader");
+
+	private final FileChannel channel;
+	private final int regionSize;
+	private final CRC32 crc = new CRC32();
+	private long endPosition;
+	private long lastSequence;
+
+	public GateJournalReader(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		ByteBuffer header = ByteBuffer.allocate(JournalFormat.FILE_HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header) >= 0) {
+			// read the whole header
+		}
+		if (header.position() < JournalFormat.FILE_HEADER_SIZE || header.getInt(0) != JournalFormat.MAGIC) {
+			channel.close();
+			throw new IOException(path + " is not a gate journal");
+		}
+		if (header.getInt(4) != JournalFormat.VERSION) {
+			channel.close();
+			throw new IOException("Unsupported gate journal version " + header.getInt(4) + " in " + path);
+		}
+		this.regionSize = header.getInt(8);
+		this.endPosition = JournalFormat.FILE_HEADER_SIZE;
+	}
+
+	public int getRegionSize() {
+		return regionSize;
+	}
+
+	/**
+	 * Reads every record with a sequence between from and to (both inclusive),
+	 * in append order.
+	 */
+	public void read(long fromSequence, long toSequence, Consumer<GateEvent> consumer) throws IOException {
+		long fileSize = channel.size();
+		long regionStart = 0;
+		int position = JournalFormat.FILE_HEADER_SIZE;
+		while (regionStart < fileSize) {
+			int length = (int) Math.min(regionSize, fileSize - regionStart);
+			MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, length);
+			while (true) {
+				if (position + 4 > length) {
+					break;
+				}
+				int recordSize = region.getInt(position);
+				if (recordSize == JournalFormat.END_OF_REGION) {
+					break;
+				}
+				if (recordSize == 0 || !isValid(region, position, recordSize, length)) {
+					endPosition = regionStart + position;
+					return;
+				}
+				GateEvent event = JournalFormat.readRecord(region, position);
+				if (event.getSequence() > toSequence) {
+					endPosition = regionStart + position;
+					return;
+				}
+				lastSequence = event.getSequence();
+				if (event.getSequence() >= fromSequence) {
+					consumer.accept(event);
+				}
+				position += recordSize;
+			}
+			regionStart += regionSize;
+			position = 0;
+		}
+		endPosition = regionStart;
+	}
+
+	public List<GateEvent> readAll() throws IOException {
+		List<GateEvent> events = new ArrayList<>();
+		read(1, Long.MAX_VALUE, events::add);
+		return events;
+	}
+
+	/**
+	 * @return the file position right after the last record read, valid after a
+	 *         read of the whole journal
+	 */
+	public long getEndPosition() {
+		return endPosition;
+	}
+
+	/**
+	 * @return the sequence of the last record read, 0 if none
+	 */
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	private boolean isValid(ByteBuffer region, int position, int recordSize, int regionLength) {
+		int minimumSize = JournalFormat.RECORD_HEADER_SIZE + JournalFormat.FIXED_PAYLOAD_SIZE;
+		if (recordSize < minimumSize || position + recordSize > regionLength) {
+			logger.warn("Gate journal truncated at a record of invalid size " + recordSize);
+			return false;
+		}
+		if (recordSize != minimumSize + JournalFormat.payloadVehicleRegNumberLength(region, position)) {
+			logger.warn("Gate journal truncated at a record of inconsistent size " + recordSize);
+			return false;
+		}
+		ByteBuffer payload = region.duplicate();
+		// through Buffer, whose limit/position also exist on a Java 8 runtime
+		((Buffer) payload).limit(position + recordSize);
+		((Buffer) payload).position(position + JournalFormat.RECORD_HEADER_SIZE);
+		crc.reset();
+		crc.update(payload);
+		if ((int) crc.getValue() != region.getInt(position + 4)) {
+			logger.warn("Gate journal truncated at a torn record");
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,88 @@
+package com.parkit.parkingsystem.journal;
+
+import java.io.IOException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.model.ExitResult;
+import com.parkit.parkingsystem.service.GateService;
+
+/**
+ * Replays the entries and exits of a journal range through a
+ * {@link GateService}, usually one backed by in-memory stores, to reproduce
+ * an incident. Spot events are not replayed: the gate service claims and
+ * releases its own spots. Replayed fares are compared with the journaled ones.
+ */
+public class GateJournalReplayer {
+
+	private static final Logger logger = LogManager.getLogger("GateJournalReplayer");
+	private static final double FARE_TOLERANCE = 0.005;
+
+	public static class Report {
+		private int entries;
+		private int exits;
+		private int rejected;
+		private int fareMismatches;
+
+		public int getEntries() {
+			return entries;
+		}
+
+		public int getExits() {
+			return exits;
+		}
+
+		public int getRejected() {
+			return rejected;
+		}
+
+		public int getFareMismatches() {
+			return fareMismatches;
+		}
+
+		@Override
+		public String toString() {
+			return "Replayed " + entries + " entries and " + exits + " exits, " + rejected + " rejected, "
+					+ fareMismatches + " fare mismatches";
+		}
+	}
+
+	public Report replay(GateJournalReader reader, long fromSequence, long toSequence, GateService gateService)
+			throws IOException {
+		Report report = new Report();
+		reader.read(fromSequence, toSequence, event -> {
+			switch (event.getType()) {
+			case ENTRY: {
+				report.entries++;
+				EntryResult result = gateService.enter(
+						new EntryRequest(event.getParkingType(), event.getVehicleRegNumber(), event.getInTime()));
+				if (!result.isAccepted()) {
+					report.rejected++;
+					logger.warn("Replayed " + event + " was rejected: " + result.getStatus());
+				}
+				break;
+			}
+			case EXIT: {
+				report.exits++;
+				ExitResult result = gateService.exit(new ExitRequest(event.getVehicleRegNumber(), event.getOutTime()));
+				if (!result.isAccepted()) {
+					report.rejected++;
+					logger.warn("Replayed " + event + " was rejected: " + result.getStatus());
+				} else if (Math.abs(result.getFare() - event.getPrice()) > FARE_TOLERANCE) {
+					report.fareMismatches++;
+					logger.warn("Replayed " + event + " charged " + result.getFare());
+				}
+				break;
+			}
+			default:
+				break;
+			}
+		});
+		logger.info(report);
+		return report;
+	}
+}
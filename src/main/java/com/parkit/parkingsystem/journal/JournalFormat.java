@@ -0,0 +1,122 @@
+package com.parkit.parkingsystem.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Binary layout of the gate journal. The file starts with a header (magic,
+ * version, region size) and is split in regions of the same size, each mapped
+ * at once; records never span two regions. A record is:
+ *
+ * <pre>
+ * int    length (whole record, written last: 0 means end of journal, -1 end of region)
+ * int    CRC32 of the payload
+ * long   sequence
+ * byte   event type
+ * int    parking number
+ * byte   parking type (ordinal + 1, 0 when unknown)
+ * int    ticket id
+ * long   in time (epoch nanos, UTC wall clock; Long.MIN_VALUE when null)
+ * long   out time (same)
+ * double price
+ * byte   discount
+ * byte   vehicle registration number length, then its UTF-8 bytes
+ * </pre>
+ */
+final class JournalFormat {
+
+	static final int MAGIC = 0x4741544a;
+	static final int VERSION = 1;
+	static final int FILE_HEADER_SIZE = 16;
+	static final int RECORD_HEADER_SIZE = 8;
+	static final int FIXED_PAYLOAD_SIZE = 8 + 1 + 4 + 1 + 4 + 8 + 8 + 8 + 1 + 1;
+	static final int MAX_VEHICLE_REG_NUMBER_BYTES = 255;
+	static final int END_OF_REGION = -1;
+
+	private static final long NO_TIME = Long.MIN_VALUE;
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	private static final GateEvent.Type[] TYPES = GateEvent.Type.values();
+	private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+
+	private JournalFormat() {
+	}
+
+	static int recordSize(byte[] vehicleRegNumber) {
+		return RECORD_HEADER_SIZE + FIXED_PAYLOAD_SIZE + vehicleRegNumber.length;
+	}
+
+	static byte[] encodeVehicleRegNumber(String vehicleRegNumber) {
+		if (vehicleRegNumber == null) {
+			return new byte[0];
+		}
+		byte[] bytes = vehicleRegNumber.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_VEHICLE_REG_NUMBER_BYTES) {
+			throw new IllegalArgumentException("Vehicle registration number too long: " + vehicleRegNumber);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Writes the payload of a record at that absolute position, leaving its
+	 * length and CRC to the caller.
+	 */
+	static void writePayload(ByteBuffer buffer, int position, long sequence, GateEvent.Type type, int parkingNumber,
+			ParkingType parkingType, int ticketId, byte[] vehicleRegNumber, LocalDateTime inTime,
+			LocalDateTime outTime, double price, boolean discount) {
+		int p = position + RECORD_HEADER_SIZE;
+		buffer.putLong(p, sequence);
+		buffer.put(p + 8, (byte) type.ordinal());
+		buffer.putInt(p + 9, parkingNumber);
+		buffer.put(p + 13, (byte) ((parkingType == null) ? 0 : parkingType.ordinal() + 1));
+		buffer.putInt(p + 14, ticketId);
+		buffer.putLong(p + 18, encodeTime(inTime));
+		buffer.putLong(p + 26, encodeTime(outTime));
+		buffer.putDouble(p + 34, price);
+		buffer.put(p + 42, (byte) (discount ? 1 : 0));
+		buffer.put(p + 43, (byte) vehicleRegNumber.length);
+		for (int i = 0; i < vehicleRegNumber.length; i++) {
+			buffer.put(p + FIXED_PAYLOAD_SIZE + i, vehicleRegNumber[i]);
+		}
+	}
+
+	static GateEvent readRecord(ByteBuffer buffer, int position) {
+		int p = position + RECORD_HEADER_SIZE;
+		int parkingTypeCode = buffer.get(p + 13);
+		int vehicleRegNumberLength = buffer.get(p + 43) & 0xff;
+		String vehicleRegNumber = null;
+		if (vehicleRegNumberLength > 0) {
+			byte[] bytes = new byte[vehicleRegNumberLength];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(p + FIXED_PAYLOAD_SIZE + i);
+			}
+			vehicleRegNumber = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return new GateEvent(buffer.getLong(p), TYPES[buffer.get(p + 8)], buffer.getInt(p + 9),
+				(parkingTypeCode == 0) ? null : PARKING_TYPES[parkingTypeCode - 1], buffer.getInt(p + 14),
+				vehicleRegNumber, decodeTime(buffer.getLong(p + 18)), decodeTime(buffer.getLong(p + 26)),
+				buffer.getDouble(p + 34), buffer.get(p + 42) != 0);
+	}
+
+	static int payloadVehicleRegNumberLength(ByteBuffer buffer, int position) {
+		return buffer.get(position + RECORD_HEADER_SIZE + 43) & 0xff;
+	}
+
+	static long encodeTime(LocalDateTime time) {
+		if (time == null) {
+			return NO_TIME;
+		}
+		return time.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + time.getNano();
+	}
+
+	static LocalDateTime decodeTime(long epochNanos) {
+		if (epochNanos == NO_TIME) {
+			return null;
+		}
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+				(int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+	}
+}
@@ -0,0 +1,148 @@
+package com.parkit.parkingsystem.journal;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+
+/**
+ * Rebuilds the parking and ticket tables from a gate journal after a crash,
+ * e.g. when ticket writes were still queued in the write-behind journal.
+ * Spots get the availability of their last journaled event; journaled tickets
+ * missing from the ticket table are inserted and journaled exits are applied
+ * to tickets still open. Applying the same journal twice changes nothing.
+ *
+ * Only the spots and tickets of that journal are touched, so with several
+ * gate processes each journal is recovered in turn.
+ */
+public class JournalRecovery {
+
+	private static final Logger logger = LogManager.getLogger("JournalRecovery");
+
+	public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+	/**
+	 * Final state of the spots and tickets found in a journal.
+	 */
+	public static class RecoveredState {
+		private final Map<Integer, Boolean> spotAvailability = new TreeMap<>();
+		private final Map<String, GateEvent> tickets = new LinkedHashMap<>();
+
+		void apply(GateEvent event) {
+			switch (event.getType()) {
+			case SPOT_CLAIMED:
+				spotAvailability.put(event.getParkingNumber(), false);
+				break;
+			case SPOT_RELEASED:
+				spotAvailability.put(event.getParkingNumber(), true);
+				break;
+			default:
+				// the exit of a ticket replaces its entry
+				tickets.put(event.getVehicleRegNumber() + "@" + event.getInTime(), event);
+			}
+		}
+
+		public Map<Integer, Boolean> getSpotAvailability() {
+			return spotAvailability;
+		}
+
+		/**
+		 * @return the last event (entry or exit) of every journaled ticket
+		 */
+		public Map<String, GateEvent> getTickets() {
+			return tickets;
+		}
+	}
+
+	public RecoveredState read(GateJournalReader reader) throws IOException {
+		RecoveredState state = new RecoveredState();
+		reader.read(1, Long.MAX_VALUE, state::apply);
+		return state;
+	}
+
+	/**
+	 * Applies the recovered state in a single transaction.
+	 *
+	 * @return the number of rows changed
+	 */
+	public int apply(RecoveredState state) throws ClassNotFoundException, SQLException {
+		Connection con = null;
+		PreparedStatement updateSpot = null;
+		PreparedStatement findTicket = null;
+		PreparedStatement insertTicket = null;
+		PreparedStatement closeTicket = null;
+		int changed = 0;
+		try {
+			con = dataBaseConfig.getConnection();
+			con.setAutoCommit(false);
+			updateSpot = dataBaseConfig.prepareStatement(con, DBConstants.UPDATE_PARKING_SPOT);
+			for (Map.Entry<Integer, Boolean> spot : state.getSpotAvailability().entrySet()) {
+				updateSpot.setBoolean(1, spot.getValue());
+				updateSpot.setInt(2, spot.getKey());
+				changed += updateSpot.executeUpdate();
+			}
+			findTicket = dataBaseConfig.prepareStatement(con, DBConstants.GET_TICKET_BY_VEHICLE_AND_IN_TIME);
+			insertTicket = dataBaseConfig.prepareStatement(con, DBConstants.SAVE_TICKET);
+			closeTicket = dataBaseConfig.prepareStatement(con, DBConstants.UPDATE_TICKET);
+			for (GateEvent ticket : state.getTickets().values()) {
+				changed += recoverTicket(ticket, findTicket, insertTicket, closeTicket);
+			}
+			con.commit();
+			logger.info("Recovered " + state.getSpotAvailability().size() + " spots and "
+					+ state.getTickets().size() + " tickets, " + changed + " rows changed");
+			return changed;
+		} catch (SQLException | RuntimeException e) {
+			if (con != null) {
+				con.rollback();
+			}
+			throw e;
+		} finally {
+			dataBaseConfig.closePreparedStatement(closeTicket);
+			dataBaseConfig.closePreparedStatement(insertTicket);
+			dataBaseConfig.closePreparedStatement(findTicket);
+			dataBaseConfig.closePreparedStatement(updateSpot);
+			dataBaseConfig.closeConnection(con);
+		}
+	}
+
+	private int recoverTicket(GateEvent ticket, PreparedStatement findTicket, PreparedStatement insertTicket,
+			PreparedStatement closeTicket) throws SQLException {
+		Timestamp outTime = (ticket.getOutTime() == null) ? null : Timestamp.valueOf(ticket.getOutTime());
+		// the IN_TIME column drops the fraction of a second, so match within a second
+		findTicket.setString(1, ticket.getVehicleRegNumber());
+		findTicket.setTimestamp(2, Timestamp.valueOf(ticket.getInTime().minusSeconds(1)));
+		findTicket.setTimestamp(3, Timestamp.valueOf(ticket.getInTime().plusSeconds(1)));
+		ResultSet rs = findTicket.executeQuery();
+		try {
+			if (!rs.next()) {
+				insertTicket.setInt(1, ticket.getParkingNumber());
+				insertTicket.setString(2, ticket.getVehicleRegNumber());
+				insertTicket.setDouble(3, ticket.getPrice());
+				insertTicket.setTimestamp(4, Timestamp.valueOf(ticket.getInTime()));
+				insertTicket.setTimestamp(5, outTime);
+				insertTicket.setBoolean(6, ticket.isDiscount());
+				return insertTicket.executeUpdate();
+			}
+			if (rs.getTimestamp(2) == null && outTime != null) {
+				closeTicket.setDouble(1, ticket.getPrice());
+				closeTicket.setTimestamp(2, outTime);
+				closeTicket.setInt(3, rs.getInt(1));
+				return closeTicket.executeUpdate();
+			}
+			return 0;
+		} finally {
+			dataBaseConfig.closeResultSet(rs);
+		}
+	}
+}
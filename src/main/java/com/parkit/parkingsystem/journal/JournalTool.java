@@ -0,0 +1,61 @@
+package com.parkit.parkingsystem.journal;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.service.GateService;
+
+/**
+ * Command line tooling for gate journals:
+ *
+ * <pre>
+ * dump    &lt;journal&gt; [fromSequence] [toSequence]   prints the events
+ * replay  &lt;journal&gt; [fromSequence] [toSequence]   replays them through an in-memory gate service
+ * recover &lt;journal&gt;                                rebuilds the parking and ticket tables
+ * </pre>
+ */
+public class JournalTool {
+
+	private static final Logger logger = LogManager.getLogger("JournalTool");
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.out.println("Usage: JournalTool dump|replay|recover <journal> [fromSequence] [toSequence]");
+			return;
+		}
+		Path path = Paths.get(args[1]);
+		long fromSequence = (args.length > 2) ? Long.parseLong(args[2]) : 1;
+		long toSequence = (args.length > 3) ? Long.parseLong(args[3]) : Long.MAX_VALUE;
+		try (GateJournalReader reader = new GateJournalReader(path)) {
+			switch (args[0]) {
+			case "dump": {
+				reader.read(fromSequence, toSequence, System.out::println);
+				break;
+			}
+			case "replay": {
+				GateService gateService = new GateService(
+						InMemoryParkingSpotStore.fromLayout(AppConfig.getString("storage.memory.layout", "CAR:1-3,BIKE:4-5")),
+						new InMemoryTicketStore());
+				System.out.println(new GateJournalReplayer().replay(reader, fromSequence, toSequence, gateService));
+				break;
+			}
+			case "recover": {
+				JournalRecovery recovery = new JournalRecovery();
+				int changed = recovery.apply(recovery.read(reader));
+				System.out.println("Recovered " + path + ": " + changed + " rows changed");
+				DataBaseConfig.closeAllPools();
+				break;
+			}
+			default:
+				logger.error("Unknown journal command " + args[0]);
+			}
+		}
+	}
+}
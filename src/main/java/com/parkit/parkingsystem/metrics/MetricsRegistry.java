@@ -0,0 +1,140 @@
+package com.parkit.parkingsystem.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+
+/**
+ * Process-wide registry of the operation metrics. Each operation is exposed as
+ * an MXBean under com.parkit.parkingsystem:type=Operation and, when
+ * metrics.dumpIntervalSeconds is set, dumped to the log periodically.
+ */
+public final class MetricsRegistry {
+
+	private static final Logger logger = LogManager.getLogger("Metrics");
+	private static final String JMX_DOMAIN = "com.parkit.parkingsystem";
+
+	private static final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+	private static final boolean jmxEnabled = AppConfig.getBoolean("metrics.jmx.enabled", true);
+	private static ScheduledExecutorService reporter;
+
+	private MetricsRegistry() {
+	}
+
+	/**
+	 * Returns the metrics of that operation, created on first use. Look them up
+	 * once and keep them in a field: the lookup is not meant for the hot path.
+	 */
+	public static OperationMetrics operation(String name) {
+		OperationMetrics metrics = operations.get(name);
+		if (metrics == null) {
+			metrics = operations.computeIfAbsent(name, OperationMetrics::new);
+			if (jmxEnabled) {
+				register(metrics);
+			}
+		}
+		return metrics;
+	}
+
+	public static Map<String, OperationMetrics> getOperations() {
+		return new TreeMap<>(operations);
+	}
+
+	private static synchronized void register(OperationMetrics metrics) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + metrics.getName());
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(metrics, objectName);
+			}
+		} catch (Exception e) {
+			logger.warn("Unable to register metrics of " + metrics.getName() + " in JMX", e);
+		}
+	}
+
+	/**
+	 * Exposes another component (e.g. a connection pool) in JMX under
+	 * com.parkit.parkingsystem:type=&lt;type&gt;, replacing a previous one of the
+	 * same name.
+	 */
+	public static synchronized void registerMBean(Object mbean, String type, String name) {
+		if (!jmxEnabled) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = objectName(type, name);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(mbean, objectName);
+		} catch (Exception e) {
+			logger.warn("Unable to register " + type + " " + name + " in JMX", e);
+		}
+	}
+
+	public static synchronized void unregisterMBean(String type, String name) {
+		if (!jmxEnabled) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = objectName(type, name);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (Exception e) {
+			logger.warn("Unable to unregister " + type + " " + name + " from JMX", e);
+		}
+	}
+
+	private static ObjectName objectName(String type, String name) throws MalformedObjectNameException {
+		// names such as JDBC URLs contain characters reserved in object names
+		return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+	}
+
+	/**
+	 * Starts the periodic dump of every operation to the log, every
+	 * metrics.dumpIntervalSeconds (0 disables it).
+	 */
+	public static synchronized void startReporter() {
+		long intervalSeconds = AppConfig.getLong("metrics.dumpIntervalSeconds", 60);
+		if (reporter != null || intervalSeconds <= 0) {
+			return;
+		}
+		reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "metrics-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reporter.scheduleAtFixedRate(MetricsRegistry::dump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+	}
+
+	public static synchronized void stopReporter() {
+		if (reporter != null) {
+			reporter.shutdownNow();
+			reporter = null;
+			dump();
+		}
+	}
+
+	public static void dump() {
+		for (OperationMetrics metrics : getOperations().values()) {
+			logger.info(String.format("%s throughput=%.1f/s", metrics, metrics.getThroughputPerSecond()));
+		}
+	}
+}
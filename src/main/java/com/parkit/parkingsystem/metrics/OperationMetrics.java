@@ -0,0 +1,113 @@
+package com.parkit.parkingsystem.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histogram, error count and throughput of one operation. Callers take
+ * a start time and record once the operation is done:
+ *
+ * <pre>
+ * long start = metrics.start();
+ * ...
+ * metrics.record(start);
+ * </pre>
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	private final String name;
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final AtomicLong errorCount = new AtomicLong();
+	private final long createdNanos = System.nanoTime();
+
+	OperationMetrics(String name) {
+		this.name = name;
+	}
+
+	public long start() {
+		return System.nanoTime();
+	}
+
+	public void record(long startNanos) {
+		latencies.record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Records a failed operation: counted as an error and in the latencies.
+	 */
+	public void recordError(long startNanos) {
+		errorCount.incrementAndGet();
+		record(startNanos);
+	}
+
+	public void record(long startNanos, boolean succeeded) {
+		if (succeeded) {
+			record(startNanos);
+		} else {
+			recordError(startNanos);
+		}
+	}
+
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getCount() {
+		return latencies.getCount();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	@Override
+	public double getThroughputPerSecond() {
+		double elapsedSeconds = (System.nanoTime() - createdNanos) / 1e9;
+		return (elapsedSeconds <= 0) ? 0 : getCount() / elapsedSeconds;
+	}
+
+	@Override
+	public double getMeanMicros() {
+		return latencies.getMean() / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getP50Micros() {
+		return latencies.getValueAtPercentile(50) / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getP90Micros() {
+		return latencies.getValueAtPercentile(90) / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getP99Micros() {
+		return latencies.getValueAtPercentile(99) / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getP999Micros() {
+		return latencies.getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getMaxMicros() {
+		return latencies.getMax() / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s count=%d errors=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+				name, getCount(), getErrorCount(), getMeanMicros(), getP50Micros(), getP90Micros(), getP99Micros(),
+				getP999Micros(), getMaxMicros());
+	}
+}
@@ -0,0 +1,27 @@
+package com.parkit.parkingsystem.metrics;
+
+/**
+ * JMX view of the metrics of one operation. Latencies are in microseconds.
+ */
+public interface OperationMetricsMXBean {
+
+	String getName();
+
+	long getCount();
+
+	long getErrorCount();
+
+	double getThroughputPerSecond();
+
+	double getMeanMicros();
+
+	double getP50Micros();
+
+	double getP90Micros();
+
+	double getP99Micros();
+
+	double getP999Micros();
+
+	double getMaxMicros();
+}
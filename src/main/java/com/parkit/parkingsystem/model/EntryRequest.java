@@ -0,0 +1,42 @@
+package com.parkit.parkingsystem.model;
+
+import java.time.LocalDateTime;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+public class EntryRequest {
+	private final ParkingType parkingType;
+	private final String vehicleRegNumber;
+	private final LocalDateTime inTime;
+	private final String lotId;
+
+	public EntryRequest(ParkingType parkingType, String vehicleRegNumber, LocalDateTime inTime) {
+		this(parkingType, vehicleRegNumber, inTime, null);
+	}
+
+	/**
+	 * @param lotId lot to park in first, null for the lot of the gate process
+	 */
+	public EntryRequest(ParkingType parkingType, String vehicleRegNumber, LocalDateTime inTime, String lotId) {
+		this.parkingType = parkingType;
+		this.vehicleRegNumber = vehicleRegNumber;
+		this.inTime = inTime;
+		this.lotId = lotId;
+	}
+
+	public ParkingType getParkingType() {
+		return parkingType;
+	}
+
+	public String getVehicleRegNumber() {
+		return vehicleRegNumber;
+	}
+
+	public LocalDateTime getInTime() {
+		return inTime;
+	}
+
+	public String getLotId() {
+		return lotId;
+	}
+}
@@ -0,0 +1,44 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+
+public class EntryResult {
+	private final GateStatus status;
+	private final Ticket ticket;
+
+	private EntryResult(GateStatus status, Ticket ticket) {
+		this.status = status;
+		this.ticket = ticket;
+	}
+
+	public static EntryResult accepted(Ticket ticket) {
+		return new EntryResult(GateStatus.ACCEPTED, ticket);
+	}
+
+	public static EntryResult rejected(GateStatus status) {
+		return new EntryResult(status, null);
+	}
+
+	public GateStatus getStatus() {
+		return status;
+	}
+
+	public boolean isAccepted() {
+		return status == GateStatus.ACCEPTED;
+	}
+
+	/**
+	 * @return the saved ticket, null unless the entry was accepted
+	 */
+	public Ticket getTicket() {
+		return ticket;
+	}
+
+	public ParkingSpot getParkingSpot() {
+		return (ticket == null) ? null : ticket.getParkingSpot();
+	}
+
+	public boolean isDiscount() {
+		return ticket != null && ticket.isDiscount();
+	}
+}
@@ -0,0 +1,21 @@
+package com.parkit.parkingsystem.model;
+
+import java.time.LocalDateTime;
+
+public class ExitRequest {
+	private final String vehicleRegNumber;
+	private final LocalDateTime outTime;
+
+	public ExitRequest(String vehicleRegNumber, LocalDateTime outTime) {
+		this.vehicleRegNumber = vehicleRegNumber;
+		this.outTime = outTime;
+	}
+
+	public String getVehicleRegNumber() {
+		return vehicleRegNumber;
+	}
+
+	public LocalDateTime getOutTime() {
+		return outTime;
+	}
+}
@@ -0,0 +1,40 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+
+public class ExitResult {
+	private final GateStatus status;
+	private final Ticket ticket;
+
+	private ExitResult(GateStatus status, Ticket ticket) {
+		this.status = status;
+		this.ticket = ticket;
+	}
+
+	public static ExitResult accepted(Ticket ticket) {
+		return new ExitResult(GateStatus.ACCEPTED, ticket);
+	}
+
+	public static ExitResult rejected(GateStatus status) {
+		return new ExitResult(status, null);
+	}
+
+	public GateStatus getStatus() {
+		return status;
+	}
+
+	public boolean isAccepted() {
+		return status == GateStatus.ACCEPTED;
+	}
+
+	/**
+	 * @return the closed ticket, null unless the exit was accepted
+	 */
+	public Ticket getTicket() {
+		return ticket;
+	}
+
+	public double getFare() {
+		return (ticket == null) ? 0 : ticket.getPrice();
+	}
+}
@@ -0,0 +1,46 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Free and total spots of every parking type, all read at the same instant.
+ */
+public class OccupancySnapshot {
+
+	private final int[] free;
+	private final int[] total;
+
+	/**
+	 * @param free  free spots, indexed by ParkingType ordinal
+	 * @param total spots, indexed by ParkingType ordinal
+	 */
+	public OccupancySnapshot(int[] free, int[] total) {
+		this.free = free.clone();
+		this.total = total.clone();
+	}
+
+	public int getFree(ParkingType parkingType) {
+		return free[parkingType.ordinal()];
+	}
+
+	public int getTotal(ParkingType parkingType) {
+		return total[parkingType.ordinal()];
+	}
+
+	public int getOccupied(ParkingType parkingType) {
+		return getTotal(parkingType) - getFree(parkingType);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder snapshot = new StringBuilder();
+		for (ParkingType parkingType : ParkingType.values()) {
+			if (snapshot.length() > 0) {
+				snapshot.append(' ');
+			}
+			snapshot.append(parkingType).append(' ').append(getFree(parkingType)).append(' ')
+					.append(getTotal(parkingType));
+		}
+		return snapshot.toString();
+	}
+}
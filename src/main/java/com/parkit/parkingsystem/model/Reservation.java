@@ -0,0 +1,40 @@
+package com.parkit.parkingsystem.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A spot held for a vehicle until a deadline: the spot stays unavailable
+ * until the vehicle enters, the reservation is cancelled or it expires.
+ */
+public class Reservation {
+	private int id;
+	private final ParkingSpot parkingSpot;
+	private final String vehicleRegNumber;
+	private final LocalDateTime reservedUntil;
+
+	public Reservation(ParkingSpot parkingSpot, String vehicleRegNumber, LocalDateTime reservedUntil) {
+		this.parkingSpot = parkingSpot;
+		this.vehicleRegNumber = vehicleRegNumber;
+		this.reservedUntil = reservedUntil;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public ParkingSpot getParkingSpot() {
+		return parkingSpot;
+	}
+
+	public String getVehicleRegNumber() {
+		return vehicleRegNumber;
+	}
+
+	public LocalDateTime getReservedUntil() {
+		return reservedUntil;
+	}
+}
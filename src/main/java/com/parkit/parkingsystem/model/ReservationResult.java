@@ -0,0 +1,36 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+
+public class ReservationResult {
+	private final GateStatus status;
+	private final Reservation reservation;
+
+	private ReservationResult(GateStatus status, Reservation reservation) {
+		this.status = status;
+		this.reservation = reservation;
+	}
+
+	public static ReservationResult accepted(Reservation reservation) {
+		return new ReservationResult(GateStatus.ACCEPTED, reservation);
+	}
+
+	public static ReservationResult rejected(GateStatus status) {
+		return new ReservationResult(status, null);
+	}
+
+	public GateStatus getStatus() {
+		return status;
+	}
+
+	public boolean isAccepted() {
+		return status == GateStatus.ACCEPTED;
+	}
+
+	/**
+	 * @return the reservation, null unless accepted
+	 */
+	public Reservation getReservation() {
+		return reservation;
+	}
+}
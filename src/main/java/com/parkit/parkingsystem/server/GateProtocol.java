@@ -0,0 +1,162 @@
+package com.parkit.parkingsystem.server;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+import com.parkit.parkingsystem.analytics.GateAnalytics;
+import com.parkit.parkingsystem.analytics.WindowStats;
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.model.ExitResult;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ReservationResult;
+import com.parkit.parkingsystem.service.GateService;
+import com.parkit.parkingsystem.service.ReservationService;
+
+/**
+ * Line protocol of the gate server, one request and one response line each:
+ *
+ * <pre>
+ * ENTER &lt;CAR|BIKE&gt; &lt;plate&gt; [in-time]  -&gt;  OK &lt;spot&gt; &lt;ticket id&gt; &lt;discount&gt; | ERR &lt;status&gt;
+ * EXIT &lt;plate&gt; [out-time]            -&gt;  OK &lt;fare&gt; &lt;ticket id&gt; | ERR &lt;status&gt;
+ * OCCUPANCY                          -&gt;  OK CAR &lt;free&gt; &lt;total&gt; BIKE &lt;free&gt; &lt;total&gt; | ERR &lt;status&gt;
+ * RESERVE &lt;CAR|BIKE&gt; &lt;plate&gt; &lt;minutes&gt; -&gt; OK &lt;spot&gt; &lt;reservation id&gt; &lt;until&gt; | ERR &lt;status&gt;
+ * CANCEL &lt;plate&gt;                     -&gt;  OK &lt;spot&gt; | ERR &lt;status&gt;
+ * STATS [WINDOW|PERIOD|PREVIOUS]     -&gt;  OK &lt;start&gt; &lt;end&gt; (CAR|BIKE &lt;entries&gt; &lt;exits&gt; &lt;revenue&gt; &lt;peak&gt; &lt;p50&gt; &lt;p95&gt;)... | ERR &lt;status&gt;
+ * PING                               -&gt;  PONG
+ * QUIT                               -&gt;  BYE, then the connection is closed
+ * </pre>
+ *
+ * Times are ISO local date-times (2021-09-14T08:00:00); the server time is used
+ * when they are omitted.
+ */
+public class GateProtocol {
+
+	static final String QUIT = "QUIT";
+	static final String BYE = "BYE";
+
+	private final GateService gateService;
+
+	public GateProtocol(GateService gateService) {
+		this.gateService = gateService;
+	}
+
+	public String handle(String line) {
+		String[] words = line.trim().split("\\s+");
+		try {
+			switch (words[0].toUpperCase()) {
+			case "ENTER":
+				return enter(words);
+			case "EXIT":
+				return exit(words);
+			case "OCCUPANCY":
+				return occupancy(words);
+			case "RESERVE":
+				return reserve(words);
+			case "CANCEL":
+				return cancel(words);
+			case "STATS":
+				return stats(words);
+			case "PING":
+				return "PONG";
+			case QUIT:
+				return BYE;
+			default:
+				return error(GateStatus.INVALID_REQUEST);
+			}
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			return error(GateStatus.INVALID_REQUEST);
+		}
+	}
+
+	private String enter(String[] words) {
+		if (words.length < 3 || words.length > 4) {
+			return error(GateStatus.INVALID_REQUEST);
+		}
+		EntryResult result = gateService.enter(new EntryRequest(ParkingType.valueOf(words[1].toUpperCase()),
+				words[2], parseTime(words, 3)));
+		if (!result.isAccepted()) {
+			return error(result.getStatus());
+		}
+		return "OK " + result.getParkingSpot().getId() + " " + result.getTicket().getId() + " "
+				+ result.isDiscount();
+	}
+
+	private String exit(String[] words) {
+		if (words.length < 2 || words.length > 3) {
+			return error(GateStatus.INVALID_REQUEST);
+		}
+		ExitResult result = gateService.exit(new ExitRequest(words[1], parseTime(words, 2)));
+		if (!result.isAccepted()) {
+			return error(result.getStatus());
+		}
+		return "OK " + result.getFare() + " " + result.getTicket().getId();
+	}
+
+	private String occupancy(String[] words) {
+		if (words.length != 1) {
+			return error(GateStatus.INVALID_REQUEST);
+		}
+		OccupancySnapshot occupancy = gateService.getOccupancy();
+		return (occupancy == null) ? error(GateStatus.STORE_ERROR) : "OK " + occupancy;
+	}
+
+	private String reserve(String[] words) {
+		ReservationService reservationService = gateService.getReservationService();
+		if (words.length != 4 || reservationService == null) {
+			return error(GateStatus.INVALID_REQUEST);
+		}
+		ReservationResult result = reservationService.reserve(ParkingType.valueOf(words[1].toUpperCase()), words[2],
+				Duration.ofMinutes(Long.parseLong(words[3])));
+		if (!result.isAccepted()) {
+			return error(result.getStatus());
+		}
+		return "OK " + result.getReservation().getParkingSpot().getId() + " " + result.getReservation().getId() + " "
+				+ result.getReservation().getReservedUntil();
+	}
+
+	private String cancel(String[] words) {
+		ReservationService reservationService = gateService.getReservationService();
+		if (words.length != 2 || reservationService == null) {
+			return error(GateStatus.INVALID_REQUEST);
+		}
+		ReservationResult result = reservationService.cancel(words[1]);
+		return result.isAccepted() ? "OK " + result.getReservation().getParkingSpot().getId()
+				: error(result.getStatus());
+	}
+
+	private String stats(String[] words) {
+		GateAnalytics analytics = gateService.getAnalytics();
+		if (words.length > 2 || analytics == null) {
+			return error(GateStatus.INVALID_REQUEST);
+		}
+		WindowStats stats;
+		switch ((words.length == 1) ? "WINDOW" : words[1].toUpperCase()) {
+		case "WINDOW":
+			stats = analytics.getSlidingWindow();
+			break;
+		case "PERIOD":
+			stats = analytics.getCurrentPeriod();
+			break;
+		case "PREVIOUS":
+			stats = analytics.getPreviousPeriod();
+			break;
+		default:
+			return error(GateStatus.INVALID_REQUEST);
+		}
+		return "OK " + stats;
+	}
+
+	private static LocalDateTime parseTime(String[] words, int index) {
+		return (words.length > index) ? LocalDateTime.parse(words[index]) : LocalDateTime.now(ZoneId.systemDefault());
+	}
+
+	static String error(Object reason) {
+		return "ERR " + reason;
+	}
+}
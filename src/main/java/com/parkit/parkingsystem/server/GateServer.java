@@ -0,0 +1,324 @@
+package com.parkit.parkingsystem.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.analytics.GateAnalytics;
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.ConnectionPoolConfig;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.StorageEngine;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.TicketArchiver;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.journal.GateJournal;
+import com.parkit.parkingsystem.metrics.MetricsRegistry;
+import com.parkit.parkingsystem.service.GateService;
+import com.parkit.parkingsystem.service.GateWarmUp;
+import com.parkit.parkingsystem.service.ReservationService;
+
+/**
+ * Serves many gate terminals from one process over the {@link GateProtocol}
+ * line protocol. Each terminal connection runs on its own virtual thread when
+ * the JVM has them (Java 21+), on a platform thread otherwise. At most
+ * maxConnections terminals are connected and at most maxConcurrentRequests
+ * requests run at once, so a burst of lanes queues at the server instead of
+ * piling up on the connection pool.
+ */
+public class GateServer {
+
+	private static final Logger logger = LogManager.getLogger("GateServer");
+
+	private final GateProtocol protocol;
+	private final int port;
+	private final int maxConcurrentRequests;
+	private final long requestPermitTimeoutMillis;
+	private final int idleTimeoutMillis;
+	private final Semaphore connectionPermits;
+	private final Semaphore requestPermits;
+	private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+	private ExecutorService executor;
+	private ServerSocket serverSocket;
+	private Thread acceptor;
+	private volatile boolean running;
+
+	/**
+	 * Runs a gate server on the configured storage engine until the JVM is
+	 * stopped; SIGTERM or Ctrl-C shut it down gracefully.
+	 */
+	public static void runFromAppConfig() throws IOException, InterruptedException {
+		StorageEngine storageEngine = StorageEngine.fromAppConfig();
+		logger.info("Using " + storageEngine + " storage engine");
+		ParkingSpotStore parkingSpotStore = storageEngine.createParkingSpotStore();
+		TicketStore ticketStore = storageEngine.createTicketStore();
+		GateWarmUp warmUp = GateWarmUp.fromAppConfig();
+		if (warmUp != null) {
+			warmUp.warmUp(parkingSpotStore, ticketStore);
+		}
+		TransactionRunner transactionRunner = storageEngine.createTransactionRunner();
+		GateService gateService = new GateService(parkingSpotStore, ticketStore, transactionRunner);
+		ReservationService reservationService = ReservationService.startIfEnabled(parkingSpotStore,
+				storageEngine.createReservationStore(), transactionRunner);
+		gateService.setReservationService(reservationService);
+		GateAnalytics analytics = GateAnalytics.createIfEnabled();
+		if (analytics != null) {
+			analytics.seed(gateService.getOccupancy());
+			gateService.setAnalytics(analytics);
+		}
+		GateJournal gateJournal = GateJournal.openIfEnabled();
+		if (gateJournal != null) {
+			gateService.addListener(gateJournal);
+		}
+		TicketArchiver ticketArchiver = (storageEngine == StorageEngine.MYSQL) ? TicketArchiver.startIfEnabled() : null;
+		MetricsRegistry.startReporter();
+		GateServer server = fromAppConfig(gateService, storageEngine);
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.shutdown(AppConfig.getLong("server.shutdownTimeoutMillis", 10000));
+			if (reservationService != null) {
+				reservationService.stop();
+			}
+			if (ticketArchiver != null) {
+				ticketArchiver.stop();
+			}
+			ticketStore.close();
+			if (warmUp != null) {
+				// pending ticket writes are flushed, the pools still open
+				warmUp.writeSnapshot(parkingSpotStore, ticketStore);
+			}
+			DataBaseConfig.closeAllPools();
+			MetricsRegistry.stopReporter();
+			GateJournal.closeQuietly(gateJournal);
+		}, "gate-server-shutdown"));
+		server.acceptor.join();
+	}
+
+	/**
+	 * On the MySQL engine the requests in flight default to the connection pool
+	 * size: each request holds a connection, so more requests would only wait
+	 * on the pool, past the permit timeout the server answers with.
+	 */
+	public static GateServer fromAppConfig(GateService gateService, StorageEngine storageEngine) {
+		int maxConcurrentRequests;
+		if (storageEngine == StorageEngine.MYSQL) {
+			int poolSize = ConnectionPoolConfig.fromAppConfig().getMaxSize();
+			maxConcurrentRequests = AppConfig.getInt("server.maxConcurrentRequests", poolSize);
+			if (maxConcurrentRequests > poolSize) {
+				logger.warn("server.maxConcurrentRequests (" + maxConcurrentRequests + ") is above db.pool.maxSize ("
+						+ poolSize + "): the extra requests wait for a connection");
+			}
+		} else {
+			maxConcurrentRequests = AppConfig.getInt("server.maxConcurrentRequests", 64);
+		}
+		return new GateServer(gateService, AppConfig.getInt("server.port", 7070),
+				AppConfig.getInt("server.maxConnections", 512), maxConcurrentRequests,
+				AppConfig.getLong("server.requestPermitTimeoutMillis", 1000),
+				AppConfig.getInt("server.idleTimeoutMillis", 0));
+	}
+
+	/**
+	 * @param port              0 for any free port
+	 * @param idleTimeoutMillis closes terminals silent for that long, 0 for never
+	 */
+	public GateServer(GateService gateService, int port, int maxConnections, int maxConcurrentRequests,
+			long requestPermitTimeoutMillis, int idleTimeoutMillis) {
+		this.protocol = new GateProtocol(gateService);
+		this.port = port;
+		this.maxConcurrentRequests = maxConcurrentRequests;
+		this.requestPermitTimeoutMillis = requestPermitTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.connectionPermits = new Semaphore(maxConnections);
+		this.requestPermits = new Semaphore(maxConcurrentRequests, true);
+	}
+
+	public synchronized void start() throws IOException {
+		if (running) {
+			return;
+		}
+		serverSocket = new ServerSocket(port, 128, InetAddress.getByName(AppConfig.getString("server.host", "0.0.0.0")));
+		executor = newPerConnectionExecutor();
+		running = true;
+		acceptor = new Thread(this::acceptLoop, "gate-server-acceptor");
+		acceptor.start();
+		logger.info("Gate server listening on port " + getPort());
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public int getConnectionCount() {
+		return openSockets.size();
+	}
+
+	private void acceptLoop() {
+		while (running) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (running) {
+					logger.error("Error accepting gate connection", e);
+				}
+				continue;
+			}
+			if (!connectionPermits.tryAcquire()) {
+				reject(socket, "BUSY");
+				continue;
+			}
+			try {
+				openSockets.add(socket);
+				executor.execute(() -> serve(socket));
+			} catch (RejectedExecutionException e) {
+				openSockets.remove(socket);
+				connectionPermits.release();
+				reject(socket, "SHUTTING_DOWN");
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (Socket connection = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new BufferedWriter(
+						new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+			connection.setTcpNoDelay(true);
+			connection.setSoTimeout(idleTimeoutMillis);
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				String response = handle(line);
+				out.write(response);
+				out.write('\n');
+				out.flush();
+				if (GateProtocol.BYE.equals(response) || !running) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// closed by the terminal, by the idle timeout or by shutdown
+			logger.debug("Gate connection closed: " + e.getMessage());
+		} finally {
+			openSockets.remove(socket);
+			connectionPermits.release();
+		}
+	}
+
+	private String handle(String line) {
+		if (!running) {
+			return GateProtocol.error("SHUTTING_DOWN");
+		}
+		try {
+			if (!requestPermits.tryAcquire(requestPermitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				return GateProtocol.error("BUSY");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return GateProtocol.error("SHUTTING_DOWN");
+		}
+		try {
+			return protocol.handle(line);
+		} finally {
+			requestPermits.release();
+		}
+	}
+
+	private static void reject(Socket socket, String reason) {
+		try (Socket rejected = socket) {
+			rejected.getOutputStream().write((GateProtocol.error(reason) + "\n").getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			logger.debug("Error rejecting gate connection", e);
+		}
+	}
+
+	/**
+	 * Stops accepting terminals, lets the running requests complete (within the
+	 * timeout) and then closes every connection.
+	 *
+	 * @return true if every request completed in time
+	 */
+	public boolean shutdown(long timeoutMillis) {
+		synchronized (this) {
+			if (!running) {
+				return true;
+			}
+			running = false;
+		}
+		logger.info("Shutting down gate server, " + openSockets.size() + " terminals connected");
+		closeQuietly(serverSocket);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		boolean drained = false;
+		try {
+			acceptor.join(timeoutMillis);
+			// holding every permit means no request is running any more
+			drained = requestPermits.tryAcquire(maxConcurrentRequests, timeoutMillis, TimeUnit.MILLISECONDS);
+			for (Socket socket : openSockets) {
+				closeQuietly(socket);
+			}
+			executor.shutdown();
+			long remaining = Math.max(0, deadline - System.nanoTime());
+			if (!executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+				executor.shutdownNow();
+				drained = false;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+		}
+		logger.info("Gate server stopped" + (drained ? "" : " before every request completed"));
+		return drained;
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			logger.debug("Error closing " + closeable, e);
+		}
+	}
+
+	/**
+	 * Virtual thread per connection when the JVM supports it, looked up
+	 * reflectively so the code still builds and runs on Java 8.
+	 */
+	static ExecutorService newPerConnectionExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+			logger.info("Serving gate connections on virtual threads");
+			return executor;
+		} catch (ReflectiveOperationException e) {
+			logger.info("Virtual threads unavailable, serving gate connections on platform threads");
+			AtomicInteger threadCount = new AtomicInteger();
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "gate-connection-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
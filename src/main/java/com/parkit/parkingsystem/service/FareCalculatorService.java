@@ -1,40 +1,28 @@
 package com.parkit.parkingsystem.service;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-
-import com.parkit.parkingsystem.constants.Fare;
 import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.tariff.TariffTable;
 
 public class FareCalculatorService {
+
+	private final TariffTable tariffTable;
+
+	public FareCalculatorService() {
+		this(TariffTable.fromAppConfig());
+	}
+
+	public FareCalculatorService(TariffTable tariffTable) {
+		this.tariffTable = tariffTable;
+	}
+
 	public void calculateFare(Ticket ticket) {
 		if ((ticket.getOutTime() == null) || (ticket.getOutTime().isBefore(ticket.getInTime()))) {
 			throw new IllegalArgumentException("Out time provided is incorrect:" + ticket.getOutTime().toString());
 		}
 
-		LocalDateTime inHour = ticket.getInTime();
-		LocalDateTime outHour = ticket.getOutTime();
-
-		// TODO: Some tests are failing here. Need to check if this logic is correct
-		long duration = ChronoUnit.SECONDS.between(inHour, outHour) / 60;
-		if (duration >= 30) {
-			switch (ticket.getParkingSpot().getParkingType()) {
-			case CAR: {
-				ticket.setPrice(duration * Fare.CAR_RATE_PER_HOUR);
-				calculDiscount(ticket.getPrice(), ticket);
-				break;
-			}
-			case BIKE: {
-				ticket.setPrice(duration * Fare.BIKE_RATE_PER_HOUR);
-				calculDiscount(ticket.getPrice(), ticket);
-				break;
-			}
-			default:
-				throw new IllegalArgumentException("Unkown Parking Type");
-			}
-		} else {
-			ticket.setPrice(0.0);
-		}
+		double price = tariffTable.cost(ticket.getParkingSpot().getParkingType(), ticket.getInTime(),
+				ticket.getOutTime());
+		calculDiscount(price, ticket);
 	}
 
 	public void calculDiscount(double price, Ticket ticket) {
@@ -44,4 +32,4 @@ public class FareCalculatorService {
 		}
 		ticket.setPrice(price);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Notified by the {@link GateService} of every accepted gate operation, on the
+ * gate's thread and after the store updates were committed. Implementations
+ * must be thread-safe and fast: they sit on the gate hot path.
+ */
+public interface GateEventListener {
+
+	void onSpotClaimed(ParkingSpot parkingSpot);
+
+	void onEntry(Ticket ticket);
+
+	void onExit(Ticket ticket);
+
+	void onSpotReleased(ParkingSpot parkingSpot);
+}
@@ -0,0 +1,279 @@
+package com.parkit.parkingsystem.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.analytics.GateAnalytics;
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.metrics.MetricsRegistry;
+import com.parkit.parkingsystem.metrics.OperationMetrics;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.model.ExitResult;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Reservation;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Headless gate operations: no console I/O, the caller provides the vehicle
+ * type, plate and time and gets a typed result back. Holds no per-call state,
+ * so a single instance can serve any number of gates concurrently.
+ *
+ * Each entry and exit runs as one unit of work through the
+ * {@link TransactionRunner} of the stores: the spot and the ticket are both
+ * updated or both left as they were. Listeners are only notified of the
+ * operations that were committed.
+ *
+ * With a {@link ReservationService}, a vehicle holding a reservation of its
+ * type parks on its held spot. With {@link GateAnalytics}, the committed
+ * operations also feed the traffic statistics.
+ */
+public class GateService {
+	private static final Logger logger = LogManager.getLogger("GateService");
+	private static final OperationMetrics enterMetrics = MetricsRegistry.operation("gateService.enter");
+	private static final OperationMetrics exitMetrics = MetricsRegistry.operation("gateService.exit");
+
+	private final FareCalculatorService fareCalculatorService = new FareCalculatorService();
+	private final ParkingSpotStore parkingSpotStore;
+	private final TicketStore ticketStore;
+	private final TransactionRunner transactionRunner;
+	private final List<GateEventListener> listeners = new CopyOnWriteArrayList<>();
+	private volatile ReservationService reservationService;
+	private volatile GateAnalytics analytics;
+
+	public GateService(ParkingSpotStore parkingSpotStore, TicketStore ticketStore) {
+		this(parkingSpotStore, ticketStore, TransactionRunner.NONE);
+	}
+
+	public GateService(ParkingSpotStore parkingSpotStore, TicketStore ticketStore,
+			TransactionRunner transactionRunner) {
+		this.parkingSpotStore = parkingSpotStore;
+		this.ticketStore = ticketStore;
+		this.transactionRunner = transactionRunner;
+	}
+
+	public void addListener(GateEventListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(GateEventListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @param reservationService null to ignore reservations
+	 */
+	public void setReservationService(ReservationService reservationService) {
+		this.reservationService = reservationService;
+	}
+
+	/**
+	 * @return the reservations, null when disabled
+	 */
+	public ReservationService getReservationService() {
+		return reservationService;
+	}
+
+	/**
+	 * Feeds the statistics with the gate events, in place of the previous ones.
+	 *
+	 * @param analytics null to keep no statistics
+	 */
+	public synchronized void setAnalytics(GateAnalytics analytics) {
+		if (this.analytics != null) {
+			removeListener(this.analytics);
+		}
+		this.analytics = analytics;
+		if (analytics != null) {
+			addListener(analytics);
+		}
+	}
+
+	/**
+	 * @return the statistics, null when disabled
+	 */
+	public GateAnalytics getAnalytics() {
+		return analytics;
+	}
+
+	/**
+	 * @return the free and total spots of every type, null when unavailable
+	 */
+	public OccupancySnapshot getOccupancy() {
+		return parkingSpotStore.getOccupancy();
+	}
+
+	public EntryResult enter(EntryRequest request) {
+		long start = enterMetrics.start();
+		ReservationService reservations = reservationService;
+		Reservation reservation = (reservations == null || request.getVehicleRegNumber() == null) ? null
+				: reservations.getReservation(request.getVehicleRegNumber());
+		if (reservation != null && reservation.getParkingSpot().getParkingType() != request.getParkingType()) {
+			// a vehicle of another type than reserved is parked as usual
+			reservation = null;
+		}
+		EntryResult result;
+		try {
+			Reservation held = reservation;
+			result = transactionRunner.inTransaction(() -> processEntry(request, reservations, held),
+					EntryResult::isAccepted);
+		} catch (RuntimeException e) {
+			logger.error("Unable to process incoming vehicle", e);
+			result = EntryResult.rejected(GateStatus.STORE_ERROR);
+		}
+		if (result.isAccepted() && reservation != null
+				&& result.getParkingSpot().getId() == reservation.getParkingSpot().getId()) {
+			reservations.taken(reservation);
+		}
+		if (result.isAccepted()) {
+			fireSpotClaimed(result.getParkingSpot());
+			fireEntry(result.getTicket());
+		}
+		// a full lot or a bad request is an answer, not a failure
+		enterMetrics.record(start, result.getStatus() != GateStatus.STORE_ERROR);
+		return result;
+	}
+
+	public ExitResult exit(ExitRequest request) {
+		long start = exitMetrics.start();
+		ExitResult result;
+		try {
+			result = transactionRunner.inTransaction(() -> processExit(request), ExitResult::isAccepted);
+		} catch (RuntimeException e) {
+			logger.error("Unable to process exiting vehicle", e);
+			result = ExitResult.rejected(GateStatus.STORE_ERROR);
+		}
+		if (result.isAccepted()) {
+			fireExit(result.getTicket());
+			fireSpotReleased(result.getTicket().getParkingSpot());
+		}
+		exitMetrics.record(start, result.getStatus() != GateStatus.STORE_ERROR);
+		return result;
+	}
+
+	private EntryResult processEntry(EntryRequest request, ReservationService reservations, Reservation reservation) {
+		if (request.getParkingType() == null || isBlank(request.getVehicleRegNumber())
+				|| request.getInTime() == null) {
+			return EntryResult.rejected(GateStatus.INVALID_REQUEST);
+		}
+		try {
+			int parkingNumber;
+			if (reservation != null && reservations.take(reservation)) {
+				// held for this vehicle since it reserved
+				parkingNumber = reservation.getParkingSpot().getId();
+			} else {
+				// only succeeds if no other gate took the spot meanwhile
+				parkingNumber = parkingSpotStore.claimNextAvailableSlot(request.getLotId(), request.getParkingType());
+			}
+			if (parkingNumber == 0) {
+				return EntryResult.rejected(GateStatus.LOT_FULL);
+			}
+			if (parkingNumber < 0) {
+				return EntryResult.rejected(GateStatus.STORE_ERROR);
+			}
+			ParkingSpot parkingSpot = new ParkingSpot(parkingNumber, request.getParkingType(), false);
+
+			Ticket ticket = new Ticket();
+			ticket.setDiscount(ticketStore.isRecurring(request.getVehicleRegNumber()));
+			ticket.setParkingSpot(parkingSpot);
+			ticket.setVehicleRegNumber(request.getVehicleRegNumber());
+			ticket.setPrice(0);
+			ticket.setInTime(request.getInTime());
+			ticket.setOutTime(null);
+			if (!ticketStore.saveTicket(ticket)) {
+				// give the spot back, the vehicle has no ticket for it (stores
+				// without transactions keep the claim otherwise)
+				parkingSpot.setAvailable(true);
+				parkingSpotStore.updateParking(parkingSpot);
+				return EntryResult.rejected(GateStatus.STORE_ERROR);
+			}
+			return EntryResult.accepted(ticket);
+		} catch (Exception e) {
+			logger.error("Unable to process incoming vehicle", e);
+			return EntryResult.rejected(GateStatus.STORE_ERROR);
+		}
+	}
+
+	private ExitResult processExit(ExitRequest request) {
+		if (isBlank(request.getVehicleRegNumber()) || request.getOutTime() == null) {
+			return ExitResult.rejected(GateStatus.INVALID_REQUEST);
+		}
+		try {
+			Ticket ticket = ticketStore.getTicket(request.getVehicleRegNumber());
+			if (ticket == null || ticket.getOutTime() != null) {
+				return ExitResult.rejected(GateStatus.NOT_PARKED);
+			}
+			if (request.getOutTime().isBefore(ticket.getInTime())) {
+				return ExitResult.rejected(GateStatus.INVALID_REQUEST);
+			}
+			ticket.setOutTime(request.getOutTime());
+			fareCalculatorService.calculateFare(ticket);
+			if (!ticketStore.updateTicket(ticket)) {
+				return ExitResult.rejected(GateStatus.STORE_ERROR);
+			}
+			ParkingSpot parkingSpot = ticket.getParkingSpot();
+			parkingSpot.setAvailable(true);
+			if (!parkingSpotStore.updateParking(parkingSpot)) {
+				// in a transaction the ticket update is rolled back with it, so the vehicle can exit again
+				return ExitResult.rejected(GateStatus.STORE_ERROR);
+			}
+			return ExitResult.accepted(ticket);
+		} catch (Exception e) {
+			logger.error("Unable to process exiting vehicle", e);
+			return ExitResult.rejected(GateStatus.STORE_ERROR);
+		}
+	}
+
+	// a failing listener is logged and never fails the gate operation
+	private void fireSpotClaimed(ParkingSpot parkingSpot) {
+		for (GateEventListener listener : listeners) {
+			try {
+				listener.onSpotClaimed(parkingSpot);
+			} catch (RuntimeException e) {
+				logger.error("Gate event listener failed on spot claim", e);
+			}
+		}
+	}
+
+	private void fireEntry(Ticket ticket) {
+		for (GateEventListener listener : listeners) {
+			try {
+				listener.onEntry(ticket);
+			} catch (RuntimeException e) {
+				logger.error("Gate event listener failed on entry", e);
+			}
+		}
+	}
+
+	private void fireExit(Ticket ticket) {
+		for (GateEventListener listener : listeners) {
+			try {
+				listener.onExit(ticket);
+			} catch (RuntimeException e) {
+				logger.error("Gate event listener failed on exit", e);
+			}
+		}
+	}
+
+	private void fireSpotReleased(ParkingSpot parkingSpot) {
+		for (GateEventListener listener : listeners) {
+			try {
+				listener.onSpotReleased(parkingSpot);
+			} catch (RuntimeException e) {
+				logger.error("Gate event listener failed on spot release", e);
+			}
+		}
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.trim().isEmpty();
+	}
+}
@@ -0,0 +1,297 @@
+package com.parkit.parkingsystem.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.config.ConnectionPool;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.FreeSpotIndex;
+import com.parkit.parkingsystem.dao.GateSnapshot;
+import com.parkit.parkingsystem.dao.InstrumentedParkingSpotStore;
+import com.parkit.parkingsystem.dao.InstrumentedTicketStore;
+import com.parkit.parkingsystem.dao.OpenTicketIndex;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.RecurringVehicleCache;
+import com.parkit.parkingsystem.dao.ShardRouter;
+import com.parkit.parkingsystem.dao.ShardedParkingSpotStore;
+import com.parkit.parkingsystem.dao.ShardedTicketStore;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * Startup phase run before the gates open, so the first vehicles after a
+ * restart do not pay the cold paths:
+ * <ul>
+ * <li>the driver is loaded, the connection pool filled and the gate
+ * statements prepared on its connections;</li>
+ * <li>the free spot index, occupancy counters, open ticket index and
+ * recurring vehicle cache are streamed from the database;</li>
+ * <li>the fare and index code is run until the JIT compiled it.</li>
+ * </ul>
+ * The indexes are loaded completely before the gates open rather than swapped
+ * in under live traffic: a refresh running alongside the gates would lose the
+ * claims, releases and closes committed between its scan and its swap. The
+ * time to ready includes the table scans; the snapshot written at the last
+ * shutdown is only a fallback, restored when the database cannot be read and
+ * the snapshot is recent enough. Stale entries it brings are then caught by
+ * the guarded spot and ticket updates, and the occupancy reconciliation.
+ * Restored indexes are not reloaded once the database is back, for the same
+ * reason: they serve until the next restart, so spots freed and tickets
+ * opened since the snapshot by another process stay missing from them until
+ * the process is restarted with the database reachable.
+ * Each shard of a sharded storage is warmed up the same way, with its own
+ * snapshot file. The time to ready is logged and returned.
+ */
+public class GateWarmUp {
+
+	private static final Logger logger = LogManager.getLogger("GateWarmUp");
+
+	private static final String[] GATE_STATEMENTS = { DBConstants.CLAIM_PARKING_SPOT, DBConstants.FLIP_PARKING_SPOT,
+			DBConstants.GET_TICKET, DBConstants.UPDATE_TICKET, DBConstants.GET_RECURRING_USER };
+
+	private final Path snapshotPath;
+	private final long snapshotMaxAgeMillis;
+	private final int jitWarmUpIterations;
+
+	/**
+	 * @return the warm-up configured by the startup.* settings, or null when
+	 *         startup.warmUp.enabled is off
+	 */
+	public static GateWarmUp fromAppConfig() {
+		if (!AppConfig.getBoolean("startup.warmUp.enabled", true)) {
+			return null;
+		}
+		String snapshotPath = AppConfig.getString("startup.snapshot.path", "").trim();
+		return new GateWarmUp(snapshotPath.isEmpty() ? null : Paths.get(snapshotPath),
+				AppConfig.getLong("startup.snapshot.maxAgeMinutes", 60) * 60_000,
+				AppConfig.getInt("startup.jitWarmUpIterations", 20000));
+	}
+
+	/**
+	 * @param snapshotPath null to always load from the database
+	 */
+	public GateWarmUp(Path snapshotPath, long snapshotMaxAgeMillis, int jitWarmUpIterations) {
+		this.snapshotPath = snapshotPath;
+		this.snapshotMaxAgeMillis = snapshotMaxAgeMillis;
+		this.jitWarmUpIterations = jitWarmUpIterations;
+	}
+
+	/**
+	 * @return the time to ready in milliseconds
+	 */
+	public long warmUp(ParkingSpotStore parkingSpotStore, TicketStore ticketStore) {
+		long start = System.nanoTime();
+		String source = "memory";
+		for (Map.Entry<String, ParkingSpotDAO> shard : unwrapShards(parkingSpotStore).entrySet()) {
+			TicketDAO ticketDAO = unwrapShards(ticketStore).get(shard.getKey());
+			if (ticketDAO != null) {
+				source = warmUp(shard.getValue(), ticketDAO, shardSnapshotPath(shard.getKey()));
+			}
+		}
+		warmUpJit();
+		long readyMillis = (System.nanoTime() - start) / 1_000_000;
+		logger.info("Gates ready in " + readyMillis + " ms (indexes from " + source + ")");
+		return readyMillis;
+	}
+
+	private String warmUp(ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO, Path path) {
+		prepareGateStatements(parkingSpotDAO.dataBaseConfig);
+		boolean spotsLoaded = parkingSpotDAO.loadFreeSpotIndex();
+		boolean ticketsLoaded = ticketDAO.loadOpenTicketIndex();
+		boolean vehiclesLoaded = ticketDAO.getRecurringVehicleCache() != null;
+		if (spotsLoaded && ticketsLoaded) {
+			return "database";
+		}
+		GateSnapshot snapshot = readSnapshot(path);
+		if (snapshot == null) {
+			logger.warn("Database unavailable and no gate snapshot, indexes are loaded on first use");
+			return "database";
+		}
+		logger.warn("Database unavailable, restoring the indexes from the gate snapshot " + path
+				+ "; they are kept until the next restart");
+		if (!spotsLoaded) {
+			parkingSpotDAO.restore(snapshot.getFreeSpotIndex(), snapshot.getTotalSpots());
+		}
+		ticketDAO.restore(ticketsLoaded ? null : snapshot.getOpenTicketIndex(),
+				(vehiclesLoaded || snapshot.getKnownVehicles() == null) ? null
+						: new RecurringVehicleCache(snapshot.getKnownVehicles(),
+								AppConfig.getInt("ticket.recurringCache.maxConfirmed", 10000)));
+		return "snapshot";
+	}
+
+	/**
+	 * Saves the indexes of the DAOs for the next startup, one file per shard;
+	 * does nothing without a snapshot path or for stores not backed by the
+	 * database.
+	 */
+	public boolean writeSnapshot(ParkingSpotStore parkingSpotStore, TicketStore ticketStore) {
+		if (snapshotPath == null) {
+			return false;
+		}
+		boolean written = false;
+		for (Map.Entry<String, ParkingSpotDAO> shard : unwrapShards(parkingSpotStore).entrySet()) {
+			TicketDAO ticketDAO = unwrapShards(ticketStore).get(shard.getKey());
+			if (ticketDAO != null) {
+				written |= writeSnapshot(shard.getValue(), ticketDAO, shardSnapshotPath(shard.getKey()));
+			}
+		}
+		return written;
+	}
+
+	private static boolean writeSnapshot(ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO, Path path) {
+		try {
+			GateSnapshot snapshot = GateSnapshot.capture(parkingSpotDAO, ticketDAO);
+			if (snapshot == null) {
+				return false;
+			}
+			snapshot.write(path);
+			logger.info("Wrote gate snapshot " + path + " with " + snapshot.getOpenTicketCount() + " open tickets");
+			return true;
+		} catch (IOException | RuntimeException e) {
+			logger.error("Unable to write gate snapshot " + path, e);
+			return false;
+		}
+	}
+
+	// e.g. gate-snapshot.bin.north for the shard of lot north
+	private Path shardSnapshotPath(String lotId) {
+		if (snapshotPath == null || lotId.isEmpty()) {
+			return snapshotPath;
+		}
+		return snapshotPath.resolveSibling(snapshotPath.getFileName() + "." + lotId);
+	}
+
+	private GateSnapshot readSnapshot(Path path) {
+		if (path == null || !Files.exists(path)) {
+			return null;
+		}
+		try {
+			GateSnapshot snapshot = GateSnapshot.read(path);
+			long ageMillis = System.currentTimeMillis() - snapshot.getWrittenAtMillis();
+			if (ageMillis > snapshotMaxAgeMillis) {
+				logger.info("Ignoring gate snapshot " + path + " written " + ageMillis / 1000 + " s ago");
+				return null;
+			}
+			return snapshot;
+		} catch (IOException | RuntimeException e) {
+			logger.error("Ignoring unreadable gate snapshot " + path, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Fills the connection pool and prepares the gate statements on every idle
+	 * connection, so they are in the statement caches.
+	 */
+	private static void prepareGateStatements(DataBaseConfig dataBaseConfig) {
+		List<Connection> connections = new ArrayList<>();
+		try {
+			ConnectionPool pool = dataBaseConfig.getConnectionPool();
+			int idleConnections = Math.max(1, pool.getIdleConnections());
+			for (int i = 0; i < idleConnections; i++) {
+				Connection con = dataBaseConfig.getConnection();
+				connections.add(con);
+				for (String sql : GATE_STATEMENTS) {
+					dataBaseConfig.closePreparedStatement(dataBaseConfig.prepareStatement(con, sql));
+				}
+				dataBaseConfig.closePreparedStatement(
+						dataBaseConfig.prepareStatement(con, DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS));
+			}
+		} catch (ClassNotFoundException | SQLException e) {
+			logger.error("Unable to prepare the gate statements", e);
+		} finally {
+			for (Connection con : connections) {
+				dataBaseConfig.closeConnection(con);
+			}
+		}
+	}
+
+	/**
+	 * Runs the fare and index code on throwaway data, leaving the stores and the
+	 * metrics untouched.
+	 */
+	private void warmUpJit() {
+		FareCalculatorService fareCalculatorService = new FareCalculatorService();
+		FreeSpotIndex freeSpotIndex = new FreeSpotIndex();
+		OpenTicketIndex openTicketIndex = new OpenTicketIndex();
+		LocalDateTime inTime = LocalDateTime.of(2021, 9, 14, 8, 0);
+		double total = 0;
+		for (int i = 0; i < jitWarmUpIterations; i++) {
+			ParkingType parkingType = ParkingType.values()[i % ParkingType.values().length];
+			int parkingNumber = 1 + i % 64;
+			freeSpotIndex.markFree(parkingNumber, parkingType);
+			Ticket ticket = new Ticket();
+			ticket.setId(i);
+			ticket.setParkingSpot(new ParkingSpot(freeSpotIndex.claimLowest(parkingType), parkingType, false));
+			ticket.setVehicleRegNumber("WARMUP" + (i % 64));
+			ticket.setDiscount((i & 1) == 0);
+			ticket.setInTime(inTime);
+			openTicketIndex.put(ticket);
+			ticket = openTicketIndex.get(ticket.getVehicleRegNumber());
+			// stays of 0 to 48 hours, across the tariff bands
+			ticket.setOutTime(inTime.plusMinutes(i % (48 * 60)));
+			fareCalculatorService.calculateFare(ticket);
+			openTicketIndex.remove(ticket);
+			freeSpotIndex.markFree(parkingNumber, parkingType);
+			total += ticket.getPrice();
+		}
+		logger.debug("JIT warm-up ran " + jitWarmUpIterations + " fares (" + total + ")");
+	}
+
+	/**
+	 * @return the DAOs behind the store by lot id, "" for a single database;
+	 *         empty for stores not backed by the database
+	 */
+	private static Map<String, ParkingSpotDAO> unwrapShards(ParkingSpotStore store) {
+		if (store instanceof InstrumentedParkingSpotStore) {
+			store = ((InstrumentedParkingSpotStore) store).getDelegate();
+		}
+		Map<String, ParkingSpotDAO> daos = new LinkedHashMap<>();
+		if (store instanceof ShardedParkingSpotStore) {
+			for (ShardRouter.Shard<ParkingSpotStore> shard : ((ShardedParkingSpotStore) store).getRouter().getShards()) {
+				if (shard.getStore() instanceof ParkingSpotDAO) {
+					daos.put(shard.getLotId(), (ParkingSpotDAO) shard.getStore());
+				}
+			}
+		} else if (store instanceof ParkingSpotDAO) {
+			daos.put("", (ParkingSpotDAO) store);
+		}
+		return daos;
+	}
+
+	private static Map<String, TicketDAO> unwrapShards(TicketStore store) {
+		if (store instanceof InstrumentedTicketStore) {
+			store = ((InstrumentedTicketStore) store).getDelegate();
+		}
+		Map<String, TicketDAO> daos = new LinkedHashMap<>();
+		if (store instanceof ShardedTicketStore) {
+			for (ShardRouter.Shard<TicketStore> shard : ((ShardedTicketStore) store).getRouter().getShards()) {
+				if (shard.getStore() instanceof TicketDAO) {
+					daos.put(shard.getLotId(), (TicketDAO) shard.getStore());
+				}
+			}
+		} else if (store instanceof TicketDAO) {
+			daos.put("", (TicketDAO) store);
+		}
+		return daos;
+	}
+}
@@ -3,8 +3,14 @@ package com.parkit.parkingsystem.service;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.parkit.parkingsystem.dao.ParkingSpotDAO;
-import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.analytics.GateAnalytics;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.StorageEngine;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.TicketArchiver;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.journal.GateJournal;
+import com.parkit.parkingsystem.metrics.MetricsRegistry;
 import com.parkit.parkingsystem.util.InputReaderUtil;
 
 public class InteractiveShell {
@@ -16,9 +22,27 @@ public class InteractiveShell {
 
 		boolean continueApp = true;
 		InputReaderUtil inputReaderUtil = new InputReaderUtil();
-		ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
-		TicketDAO ticketDAO = new TicketDAO();
-		ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
+		StorageEngine storageEngine = StorageEngine.fromAppConfig();
+		logger.info("Using " + storageEngine + " storage engine");
+		ParkingSpotStore parkingSpotStore = storageEngine.createParkingSpotStore();
+		TicketStore ticketStore = storageEngine.createTicketStore();
+		GateWarmUp warmUp = GateWarmUp.fromAppConfig();
+		if (warmUp != null) {
+			warmUp.warmUp(parkingSpotStore, ticketStore);
+		}
+		ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotStore, ticketStore,
+				storageEngine.createTransactionRunner());
+		TicketArchiver ticketArchiver = (storageEngine == StorageEngine.MYSQL) ? TicketArchiver.startIfEnabled() : null;
+		MetricsRegistry.startReporter();
+		GateAnalytics analytics = GateAnalytics.createIfEnabled();
+		if (analytics != null) {
+			analytics.seed(parkingService.getGateService().getOccupancy());
+			parkingService.getGateService().setAnalytics(analytics);
+		}
+		GateJournal gateJournal = GateJournal.openIfEnabled();
+		if (gateJournal != null) {
+			parkingService.getGateService().addListener(gateJournal);
+		}
 
 		while (continueApp) {
 			loadMenu();
@@ -35,6 +59,16 @@ public class InteractiveShell {
 			case 3: {
 				System.out.println("Exiting from the system!");
 				continueApp = false;
+				if (ticketArchiver != null) {
+					ticketArchiver.stop();
+				}
+				ticketStore.close();
+				if (warmUp != null) {
+					warmUp.writeSnapshot(parkingSpotStore, ticketStore);
+				}
+				DataBaseConfig.closeAllPools();
+				MetricsRegistry.stopReporter();
+				GateJournal.closeQuietly(gateJournal);
 				break;
 			}
 			default:
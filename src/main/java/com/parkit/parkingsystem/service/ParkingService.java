@@ -1,85 +1,129 @@
 package com.parkit.parkingsystem.service;
 
+import java.io.PrintStream;
+import java.time.Clock;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.parkit.parkingsystem.constants.GateStatus;
 import com.parkit.parkingsystem.constants.ParkingType;
-import com.parkit.parkingsystem.dao.ParkingSpotDAO;
-import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.model.ExitResult;
 import com.parkit.parkingsystem.model.ParkingSpot;
-import com.parkit.parkingsystem.model.Ticket;
 import com.parkit.parkingsystem.util.InputReaderUtil;
 
+/**
+ * Console client of the {@link GateService}: reads the vehicle type and plate
+ * from the user and prints the outcome to its console, System.out unless a
+ * simulation or benchmark silences it. Entry and exit times are read from the
+ * clock, the system one unless a simulation drives it.
+ */
 public class ParkingService {
 	private static final Logger logger = LogManager.getLogger("ParkingService");
 
-	private static FareCalculatorService fareCalculatorService = new FareCalculatorService();
 	private InputReaderUtil inputReaderUtil;
-	private ParkingSpotDAO parkingSpotDAO;
-	private TicketDAO ticketDAO;
+	private ParkingSpotStore parkingSpotStore;
+	private GateService gateService;
+	private Clock clock;
+	private PrintStream console;
 
-	public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO) {
+	public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotStore parkingSpotStore, TicketStore ticketStore) {
+		this(inputReaderUtil, parkingSpotStore, ticketStore, TransactionRunner.NONE);
+	}
+
+	public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotStore parkingSpotStore, TicketStore ticketStore,
+			TransactionRunner transactionRunner) {
+		this(inputReaderUtil, parkingSpotStore, ticketStore, transactionRunner, Clock.systemDefaultZone());
+	}
+
+	public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotStore parkingSpotStore, TicketStore ticketStore,
+			TransactionRunner transactionRunner, Clock clock) {
+		this(inputReaderUtil, parkingSpotStore, ticketStore, transactionRunner, clock, System.out);
+	}
+
+	public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotStore parkingSpotStore, TicketStore ticketStore,
+			TransactionRunner transactionRunner, Clock clock, PrintStream console) {
 		this.inputReaderUtil = inputReaderUtil;
-		this.parkingSpotDAO = parkingSpotDAO;
-		this.ticketDAO = ticketDAO;
+		this.parkingSpotStore = parkingSpotStore;
+		this.gateService = new GateService(parkingSpotStore, ticketStore, transactionRunner);
+		this.clock = clock;
+		this.console = console;
+	}
+
+	public GateService getGateService() {
+		return gateService;
 	}
 
-	public void processIncomingVehicle() {
+	/**
+	 * @return the outcome of the entry, rejected with LOT_FULL when no spot of
+	 *         the type is free
+	 */
+	public EntryResult processIncomingVehicle() {
 		try {
-			ParkingSpot parkingSpot = getNextParkingNumberIfAvailable();
-			if (parkingSpot != null && parkingSpot.getId() > 0) {
-				String vehicleRegNumber = getVehichleRegNumber();
-				parkingSpot.setAvailable(false);
-				parkingSpotDAO.updateParking(parkingSpot);// allot this parking space and mark it's availability as
-															// false
-
-				LocalDateTime inTime = LocalDateTime.now(ZoneId.systemDefault()).minusHours(1);
-				Ticket ticket = new Ticket();
-				// ID, PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME)
-//				ticket.getId();
-				if (ticketDAO.isRecurring(vehicleRegNumber)) {
-					System.out.println("Welcome back! 5% discount applied");
-					ticket.setDiscount(true);
-				} else {
-					ticket.setDiscount(false);
-				}
-				ticket.setParkingSpot(parkingSpot);
-				ticket.setVehicleRegNumber(vehicleRegNumber);
-				ticket.setPrice(0);
-				ticket.setInTime(inTime);
-				ticket.setOutTime(null);
-				ticketDAO.saveTicket(ticket);
-				System.out.println("Generated Ticket and saved in DB");
-				System.out.println("Please park your vehicle in spot number:" + parkingSpot.getId());
-				System.out.println(
-						"Recorded in-time for vehicle number:" + vehicleRegNumber + " is:" + ticket.getInTime());
+			ParkingType parkingType;
+			try {
+				parkingType = getVehichleType();
+			} catch (IllegalArgumentException ie) {
+				logger.error("Error parsing user input for type of vehicle", ie);
+				return EntryResult.rejected(GateStatus.INVALID_REQUEST);
+			}
+			ParkingSpot parkingSpot = getNextParkingNumberIfAvailable(parkingType);
+			if (parkingSpot == null) {
+				return EntryResult.rejected(GateStatus.LOT_FULL);
+			}
+			String vehicleRegNumber = getVehichleRegNumber();
+			LocalDateTime inTime = LocalDateTime.now(clock).minusHours(1);
+			EntryResult result = gateService
+					.enter(new EntryRequest(parkingSpot.getParkingType(), vehicleRegNumber, inTime));
+			if (!result.isAccepted()) {
+				logger.error("Unable to allot a parking spot: " + result.getStatus());
+				return result;
+			}
+			if (result.isDiscount()) {
+				console.println("Welcome back! 5% discount applied");
 			}
+			console.println("Generated Ticket and saved in DB");
+			console.println("Please park your vehicle in spot number:" + result.getParkingSpot().getId());
+			console.println("Recorded in-time for vehicle number:" + vehicleRegNumber + " is:"
+					+ result.getTicket().getInTime());
+			return result;
 		} catch (Exception e) {
 			logger.error("Unable to process incoming vehicle", e);
+			return EntryResult.rejected(GateStatus.INVALID_REQUEST);
 		}
 	}
 
 	private String getVehichleRegNumber() throws Exception {
-		System.out.println("Please type the vehicle registration number and press enter key");
+		console.println("Please type the vehicle registration number and press enter key");
 		return inputReaderUtil.readVehicleRegistrationNumber();
 	}
 
 	public ParkingSpot getNextParkingNumberIfAvailable() {
+		try {
+			return getNextParkingNumberIfAvailable(getVehichleType());
+		} catch (IllegalArgumentException ie) {
+			logger.error("Error parsing user input for type of vehicle", ie);
+			return null;
+		}
+	}
+
+	private ParkingSpot getNextParkingNumberIfAvailable(ParkingType parkingType) {
 		int parkingNumber = 0;
 		ParkingSpot parkingSpot = null;
 		try {
-			ParkingType parkingType = getVehichleType();
-			parkingNumber = parkingSpotDAO.getNextAvailableSlot(parkingType);
+			parkingNumber = parkingSpotStore.getNextAvailableSlot(parkingType);
 			if (parkingNumber > 0) {
 				parkingSpot = new ParkingSpot(parkingNumber, parkingType, true);
 			} else {
 				throw new Exception("Error fetching parking number from DB. Parking slots might be full");
 			}
-		} catch (IllegalArgumentException ie) {
-			logger.error("Error parsing user input for type of vehicle", ie);
 		} catch (Exception e) {
 			logger.error("Error fetching next available parking slot", e);
 		}
@@ -87,9 +131,9 @@ public class ParkingService {
 	}
 
 	private ParkingType getVehichleType() {
-		System.out.println("Please select vehicle type from menu");
-		System.out.println("1 CAR");
-		System.out.println("2 BIKE");
+		console.println("Please select vehicle type from menu");
+		console.println("1 CAR");
+		console.println("2 BIKE");
 		int input = inputReaderUtil.readSelection();
 		switch (input) {
 		case 1: {
@@ -99,34 +143,29 @@ public class ParkingService {
 			return ParkingType.BIKE;
 		}
 		default: {
-			System.out.println("Incorrect input provided");
+			console.println("Incorrect input provided");
 			throw new IllegalArgumentException("Entered input is invalid");
 		}
 		}
 	}
 
-	public void processExitingVehicle() {
+	public ExitResult processExitingVehicle() {
 		try {
 			String vehicleRegNumber = getVehichleRegNumber();
-			Ticket ticket = ticketDAO.getTicket(vehicleRegNumber);
-			LocalDateTime outTime = LocalDateTime.now(ZoneId.systemDefault());
-			ticket.setOutTime(outTime);
-			fareCalculatorService.calculateFare(ticket);
-			if (ticketDAO.updateTicket(ticket)) {
-				ParkingSpot parkingSpot = ticket.getParkingSpot();
-				parkingSpot.setAvailable(true);
-				parkingSpotDAO.updateParking(parkingSpot);
-
-				System.out.println("Please pay the parking fare:" + ticket.getPrice());
-				System.out.println(
-						"Recorded out-time for vehicle number:" + ticket.getVehicleRegNumber() + " is:"
-								+ ticket.getOutTime());
+			LocalDateTime outTime = LocalDateTime.now(clock);
+			ExitResult result = gateService.exit(new ExitRequest(vehicleRegNumber, outTime));
+			if (result.isAccepted()) {
+				console.println("Please pay the parking fare:" + result.getFare());
+				console.println("Recorded out-time for vehicle number:" + vehicleRegNumber + " is:"
+						+ result.getTicket().getOutTime());
 			} else {
-				System.out.println("Unable to update ticket information. Error occurred");
+				console.println("Unable to update ticket information. Error occurred: " + result.getStatus());
 			}
+			return result;
 		} catch (Exception e) {
 
 			logger.error("Unable to process exiting vehicle", e);
+			return ExitResult.rejected(GateStatus.INVALID_REQUEST);
 		}
 	}
 }
@@ -0,0 +1,298 @@
+package com.parkit.parkingsystem.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.ReservationStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Reservation;
+import com.parkit.parkingsystem.model.ReservationResult;
+import com.parkit.parkingsystem.util.TimingWheel;
+
+/**
+ * Pre-booked spots: a reservation claims a spot of the requested type, which
+ * stays unavailable until the vehicle enters, the reservation is cancelled or
+ * its hold expires. Holds are saved in the {@link ReservationStore} and their
+ * expiry is tracked in memory on a {@link TimingWheel}, advanced by a daemon
+ * thread every tick, so expiring tens of thousands of holds never polls the
+ * database. Saved holds are rescheduled at startup, those expired while the
+ * process was down released right away. A hold whose release fails stays
+ * tracked and is released again one tick later.
+ */
+public class ReservationService {
+
+	private static final Logger logger = LogManager.getLogger("ReservationService");
+	private static final int WHEEL_LEVELS = 4;
+
+	private final ParkingSpotStore parkingSpotStore;
+	private final ReservationStore reservationStore;
+	private final TransactionRunner transactionRunner;
+	private final Clock clock;
+	private final long tickMillis;
+	private final Duration maxHold;
+	private final TimingWheel<Reservation> expiries;
+	private final ConcurrentMap<String, Reservation> reservationsByVehicle = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, TimingWheel.Timeout<Reservation>> timeouts = new ConcurrentHashMap<>();
+	private ScheduledExecutorService ticker;
+
+	/**
+	 * @return a started service restoring the saved holds, or null when
+	 *         reservation.enabled is off
+	 */
+	public static ReservationService startIfEnabled(ParkingSpotStore parkingSpotStore,
+			ReservationStore reservationStore, TransactionRunner transactionRunner) {
+		if (!AppConfig.getBoolean("reservation.enabled", true)) {
+			return null;
+		}
+		ReservationService service = new ReservationService(parkingSpotStore, reservationStore, transactionRunner,
+				Clock.systemDefaultZone(), AppConfig.getLong("reservation.tickMillis", 1000),
+				AppConfig.getInt("reservation.wheelSize", 64),
+				Duration.ofMinutes(AppConfig.getLong("reservation.maxHoldMinutes", 1440)));
+		service.restore();
+		service.start();
+		return service;
+	}
+
+	/**
+	 * @param tickMillis expiry resolution: holds are released at most one tick
+	 *                   after their deadline
+	 * @param wheelSize  slots per level of the timing wheel
+	 */
+	public ReservationService(ParkingSpotStore parkingSpotStore, ReservationStore reservationStore,
+			TransactionRunner transactionRunner, Clock clock, long tickMillis, int wheelSize, Duration maxHold) {
+		this.parkingSpotStore = parkingSpotStore;
+		this.reservationStore = reservationStore;
+		this.transactionRunner = transactionRunner;
+		this.clock = clock;
+		this.tickMillis = tickMillis;
+		this.maxHold = maxHold;
+		this.expiries = new TimingWheel<>(tickMillis, wheelSize, WHEEL_LEVELS, clock.millis());
+	}
+
+	/**
+	 * Schedules the expiry of the saved holds.
+	 *
+	 * @return the number of holds restored
+	 */
+	public int restore() {
+		List<Reservation> reservations = reservationStore.getReservations();
+		for (Reservation reservation : reservations) {
+			track(reservation);
+		}
+		logger.info("Restored " + reservations.size() + " reservations");
+		return reservations.size();
+	}
+
+	public synchronized void start() {
+		if (ticker != null) {
+			return;
+		}
+		ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "reservation-expiry");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleAtFixedRate(this::expireQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stop() {
+		if (ticker != null) {
+			ticker.shutdownNow();
+			ticker = null;
+		}
+	}
+
+	/**
+	 * Holds a spot of that type for the vehicle.
+	 */
+	public ReservationResult reserve(ParkingType parkingType, String vehicleRegNumber, Duration hold) {
+		if (parkingType == null || vehicleRegNumber == null || vehicleRegNumber.trim().isEmpty() || hold == null
+				|| hold.isNegative() || hold.isZero() || hold.compareTo(maxHold) > 0) {
+			return ReservationResult.rejected(GateStatus.INVALID_REQUEST);
+		}
+		// placeholder with id 0, so concurrent requests for one vehicle hold one spot
+		Reservation pending = new Reservation(null, vehicleRegNumber, null);
+		if (reservationsByVehicle.putIfAbsent(vehicleRegNumber, pending) != null) {
+			return ReservationResult.rejected(GateStatus.ALREADY_RESERVED);
+		}
+		ReservationResult result;
+		try {
+			result = transactionRunner.inTransaction(() -> hold(parkingType, vehicleRegNumber, hold),
+					ReservationResult::isAccepted);
+		} catch (RuntimeException e) {
+			logger.error("Unable to reserve a spot", e);
+			result = ReservationResult.rejected(GateStatus.STORE_ERROR);
+		}
+		if (result.isAccepted()) {
+			track(result.getReservation());
+		} else {
+			reservationsByVehicle.remove(vehicleRegNumber, pending);
+		}
+		return result;
+	}
+
+	private ReservationResult hold(ParkingType parkingType, String vehicleRegNumber, Duration hold) {
+		int parkingNumber = parkingSpotStore.claimNextAvailableSlot(parkingType);
+		if (parkingNumber == 0) {
+			return ReservationResult.rejected(GateStatus.LOT_FULL);
+		}
+		if (parkingNumber < 0) {
+			return ReservationResult.rejected(GateStatus.STORE_ERROR);
+		}
+		ParkingSpot parkingSpot = new ParkingSpot(parkingNumber, parkingType, false);
+		Reservation reservation = new Reservation(parkingSpot, vehicleRegNumber,
+				LocalDateTime.now(clock).plus(hold));
+		if (!reservationStore.saveReservation(reservation)) {
+			// stores without transactions keep the claim otherwise
+			freeSpot(parkingSpot);
+			return ReservationResult.rejected(GateStatus.STORE_ERROR);
+		}
+		return ReservationResult.accepted(reservation);
+	}
+
+	/**
+	 * Releases the spot held for the vehicle.
+	 */
+	public ReservationResult cancel(String vehicleRegNumber) {
+		Reservation reservation = getReservation(vehicleRegNumber);
+		TimingWheel.Timeout<Reservation> timeout = (reservation == null) ? null : timeouts.get(reservation.getId());
+		if (timeout == null) {
+			return ReservationResult.rejected(GateStatus.NOT_RESERVED);
+		}
+		if (!release(reservation)) {
+			retryLater(reservation, timeout);
+			return ReservationResult.rejected(GateStatus.STORE_ERROR);
+		}
+		untrack(reservation);
+		return ReservationResult.accepted(reservation);
+	}
+
+	/**
+	 * @return the reservation of that vehicle, or null if it has none
+	 */
+	public Reservation getReservation(String vehicleRegNumber) {
+		Reservation reservation = reservationsByVehicle.get(vehicleRegNumber);
+		return (reservation == null || reservation.getId() == 0) ? null : reservation;
+	}
+
+	public int getReservationCount() {
+		return timeouts.size();
+	}
+
+	/**
+	 * Deletes the saved hold for the entry of its vehicle, in the entry
+	 * transaction; the spot stays taken.
+	 *
+	 * @return false if the hold expired or was cancelled meanwhile
+	 */
+	boolean take(Reservation reservation) {
+		return reservationStore.deleteReservation(reservation.getId());
+	}
+
+	/**
+	 * Forgets the hold once the entry that took it is committed.
+	 */
+	void taken(Reservation reservation) {
+		untrack(reservation);
+	}
+
+	/**
+	 * Releases the holds whose deadline is reached; called every tick.
+	 *
+	 * @return the number of holds released
+	 */
+	public int expire() {
+		int released = 0;
+		for (Reservation reservation : expiries.advance(clock.millis())) {
+			TimingWheel.Timeout<Reservation> timeout = timeouts.get(reservation.getId());
+			if (timeout == null) {
+				// taken or cancelled meanwhile
+				continue;
+			}
+			if (release(reservation)) {
+				untrack(reservation);
+				released++;
+			} else {
+				retryLater(reservation, timeout);
+			}
+		}
+		if (released > 0) {
+			logger.info("Released " + released + " expired reservations");
+		}
+		return released;
+	}
+
+	private void expireQuietly() {
+		try {
+			expire();
+		} catch (RuntimeException e) {
+			logger.error("Error expiring reservations", e);
+		}
+	}
+
+	private void track(Reservation reservation) {
+		reservationsByVehicle.put(reservation.getVehicleRegNumber(), reservation);
+		long deadlineMillis = reservation.getReservedUntil().atZone(clock.getZone()).toInstant().toEpochMilli();
+		timeouts.put(reservation.getId(), expiries.schedule(reservation, deadlineMillis));
+	}
+
+	/**
+	 * Keeps the hold whose release failed, e.g. on a database error, and
+	 * releases it again one tick later. Holds untracked meanwhile, i.e. taken by
+	 * their vehicle or released by another caller, are left alone.
+	 */
+	private void retryLater(Reservation reservation, TimingWheel.Timeout<Reservation> timeout) {
+		TimingWheel.Timeout<Reservation> retry = expiries.schedule(reservation, clock.millis() + tickMillis);
+		if (!timeouts.replace(reservation.getId(), timeout, retry)) {
+			retry.cancel();
+			return;
+		}
+		timeout.cancel();
+		logger.warn("Unable to release reserved spot " + reservation.getParkingSpot().getId() + ", retrying in "
+				+ tickMillis + " ms");
+	}
+
+	// true for the one caller that stops tracking it
+	private boolean untrack(Reservation reservation) {
+		TimingWheel.Timeout<Reservation> timeout = timeouts.remove(reservation.getId());
+		if (timeout == null) {
+			return false;
+		}
+		timeout.cancel();
+		reservationsByVehicle.remove(reservation.getVehicleRegNumber(), reservation);
+		return true;
+	}
+
+	/**
+	 * Deletes the hold and frees its spot in one transaction; the spot is left
+	 * alone when the hold was already gone, i.e. taken by its vehicle.
+	 */
+	private boolean release(Reservation reservation) {
+		try {
+			return transactionRunner.inTransaction(() -> reservationStore.deleteReservation(reservation.getId())
+					&& freeSpot(reservation.getParkingSpot()), released -> released);
+		} catch (RuntimeException e) {
+			logger.error("Unable to release reserved spot " + reservation.getParkingSpot().getId(), e);
+			return false;
+		}
+	}
+
+	private boolean freeSpot(ParkingSpot parkingSpot) {
+		return parkingSpotStore.updateParking(new ParkingSpot(parkingSpot.getId(), parkingSpot.getParkingType(), true));
+	}
+}
@@ -0,0 +1,34 @@
+package com.parkit.parkingsystem.simulation;
+
+import java.util.Random;
+
+/**
+ * Distributions of the simulated stays, around a mean in minutes. The spread
+ * is the standard deviation of the logarithm for LOGNORMAL and the half-width
+ * relative to the mean for UNIFORM; EXPONENTIAL and FIXED ignore it.
+ */
+public enum DwellDistribution {
+	EXPONENTIAL, LOGNORMAL, UNIFORM, FIXED;
+
+	/**
+	 * @return a stay of at least one minute
+	 */
+	public long sampleMinutes(Random random, double meanMinutes, double spread) {
+		double minutes;
+		switch (this) {
+		case EXPONENTIAL:
+			minutes = -meanMinutes * Math.log(1 - random.nextDouble());
+			break;
+		case LOGNORMAL:
+			// mu chosen so that the mean of the distribution is meanMinutes
+			minutes = Math.exp(Math.log(meanMinutes) - spread * spread / 2 + spread * random.nextGaussian());
+			break;
+		case UNIFORM:
+			minutes = meanMinutes * (1 + spread * (2 * random.nextDouble() - 1));
+			break;
+		default:
+			minutes = meanMinutes;
+		}
+		return Math.max(1, Math.round(minutes));
+	}
+}
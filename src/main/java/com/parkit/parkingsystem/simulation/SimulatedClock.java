@@ -0,0 +1,78 @@
+package com.parkit.parkingsystem.simulation;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock standing still at the time it was last set to, so a simulation (or a
+ * test) can replay hours of traffic in seconds. Local times map to UTC
+ * instants, without daylight saving gaps. It is driven from one thread and
+ * read from any.
+ */
+public class SimulatedClock extends Clock {
+
+	private volatile Instant now;
+
+	public SimulatedClock(LocalDateTime start) {
+		set(start);
+	}
+
+	public void set(LocalDateTime time) {
+		now = time.toInstant(ZoneOffset.UTC);
+	}
+
+	public void advance(Duration duration) {
+		now = now.plus(duration);
+	}
+
+	public LocalDateTime getDateTime() {
+		return LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return ZoneOffset.UTC;
+	}
+
+	/**
+	 * @return a view of this clock in that zone, moving with it
+	 */
+	@Override
+	public Clock withZone(ZoneId zone) {
+		return zone.equals(getZone()) ? this : new ZonedView(this, zone);
+	}
+
+	@Override
+	public Instant instant() {
+		return now;
+	}
+
+	private static final class ZonedView extends Clock {
+		private final SimulatedClock clock;
+		private final ZoneId zone;
+
+		ZonedView(SimulatedClock clock, ZoneId zone) {
+			this.clock = clock;
+			this.zone = zone;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return zone;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return clock.withZone(zone);
+		}
+
+		@Override
+		public Instant instant() {
+			return clock.instant();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.parkit.parkingsystem.simulation;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+
+/**
+ * Outcome of a {@link TrafficSimulation}: gate operations, their latencies
+ * and failures, and what running them cost in time and allocations.
+ */
+public class SimulationReport {
+
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	private final long simulatedMinutes;
+	private final LatencyHistogram entryLatencies = new LatencyHistogram();
+	private final LatencyHistogram exitLatencies = new LatencyHistogram();
+	private final Map<GateStatus, Long> entryFailures = new EnumMap<>(GateStatus.class);
+	private final Map<GateStatus, Long> exitFailures = new EnumMap<>(GateStatus.class);
+	private long discounts;
+	private long wallNanos;
+	private long allocatedBytes = -1;
+	private int parked;
+	private int peakParked;
+
+	SimulationReport(long simulatedMinutes) {
+		this.simulatedMinutes = simulatedMinutes;
+	}
+
+	void recordEntry(long latencyNanos, GateStatus status, boolean discount) {
+		entryLatencies.record(latencyNanos);
+		if (status != GateStatus.ACCEPTED) {
+			entryFailures.merge(status, 1L, Long::sum);
+		} else if (discount) {
+			discounts++;
+		}
+	}
+
+	void recordExit(long latencyNanos, GateStatus status) {
+		exitLatencies.record(latencyNanos);
+		if (status != GateStatus.ACCEPTED) {
+			exitFailures.merge(status, 1L, Long::sum);
+		}
+	}
+
+	void setParked(int parked) {
+		this.parked = parked;
+		peakParked = Math.max(peakParked, parked);
+	}
+
+	void finish(long wallNanos, long allocatedBytes) {
+		this.wallNanos = wallNanos;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	public long getSimulatedMinutes() {
+		return simulatedMinutes;
+	}
+
+	public long getEntries() {
+		return entryLatencies.getCount();
+	}
+
+	public long getExits() {
+		return exitLatencies.getCount();
+	}
+
+	/**
+	 * @return latencies of every entry, in nanoseconds
+	 */
+	public LatencyHistogram getEntryLatencies() {
+		return entryLatencies;
+	}
+
+	public LatencyHistogram getExitLatencies() {
+		return exitLatencies;
+	}
+
+	/**
+	 * @return rejected entries per status, e.g. LOT_FULL when the slots were
+	 *         full
+	 */
+	public Map<GateStatus, Long> getEntryFailures() {
+		return entryFailures;
+	}
+
+	public Map<GateStatus, Long> getExitFailures() {
+		return exitFailures;
+	}
+
+	/**
+	 * @return the entries recognised as recurring vehicles
+	 */
+	public long getDiscounts() {
+		return discounts;
+	}
+
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * @return the gate operations run per second of wall-clock time
+	 */
+	public double getThroughput() {
+		return (wallNanos == 0) ? 0 : (getEntries() + getExits()) * 1e9 / wallNanos;
+	}
+
+	/**
+	 * @return the bytes allocated by the simulation thread, -1 when the JVM does
+	 *         not measure it
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return the vehicles still parked at the end of the simulation
+	 */
+	public int getParked() {
+		return parked;
+	}
+
+	public int getPeakParked() {
+		return peakParked;
+	}
+
+	@Override
+	public String toString() {
+		long operations = getEntries() + getExits();
+		StringBuilder report = new StringBuilder(String.format(
+				"Simulation: %d simulated minutes, %d entries (%d recurring), %d exits in %d ms, %.0f operations/s",
+				simulatedMinutes, getEntries(), discounts, getExits(), wallNanos / 1_000_000, getThroughput()));
+		appendLatencies(report, "Entry", entryLatencies);
+		appendLatencies(report, "Exit", exitLatencies);
+		report.append(System.lineSeparator());
+		if (allocatedBytes < 0) {
+			report.append("Allocation: not measured by this JVM");
+		} else {
+			report.append(String.format("Allocation: %.1f MB/s, %d bytes/operation",
+					(wallNanos == 0) ? 0 : allocatedBytes * 1e9 / wallNanos / (1024 * 1024),
+					(operations == 0) ? 0 : allocatedBytes / operations));
+		}
+		report.append(System.lineSeparator()).append("Failures: entries ").append(entryFailures).append(", exits ")
+				.append(exitFailures);
+		report.append(System.lineSeparator()).append("Parked: ").append(parked).append(" at the end, peak ")
+				.append(peakParked);
+		return report.toString();
+	}
+
+	private static void appendLatencies(StringBuilder report, String operation, LatencyHistogram latencies) {
+		report.append(System.lineSeparator()).append(String.format(
+				"%s latency (us): p50 %.1f, p95 %.1f, p99 %.1f, max %.1f", operation,
+				latencies.getValueAtPercentile(50) / NANOS_PER_MICRO,
+				latencies.getValueAtPercentile(95) / NANOS_PER_MICRO,
+				latencies.getValueAtPercentile(99) / NANOS_PER_MICRO, latencies.getMax() / NANOS_PER_MICRO));
+	}
+}
@@ -0,0 +1,189 @@
+package com.parkit.parkingsystem.simulation;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Synthetic traffic of a {@link TrafficSimulation}: arrival rates per
+ * simulated hour, mix of vehicle types, stay distribution and share of
+ * recurring vehicles.
+ */
+public class TrafficProfile {
+	private LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+	private long durationMinutes = 180;
+	private double[] arrivalsPerHour = { 600 };
+	private double[] typeWeights = defaultTypeWeights();
+	private DwellDistribution dwellDistribution = DwellDistribution.LOGNORMAL;
+	private double meanDwellMinutes = 90;
+	private double dwellSpread = 0.8;
+	private double recurringShare = 0.3;
+	private int recurringPlates = 500;
+	private long seed = 42;
+
+	public static TrafficProfile fromAppConfig() {
+		TrafficProfile profile = new TrafficProfile();
+		String start = AppConfig.getString("simulation.start", "").trim();
+		if (!start.isEmpty()) {
+			profile.setStart(LocalDateTime.parse(start));
+		}
+		profile.setDurationMinutes(AppConfig.getLong("simulation.durationMinutes", profile.getDurationMinutes()));
+		profile.setArrivalsPerHour(parseRates(AppConfig.getString("simulation.arrivalsPerHour", "600")));
+		profile.setTypeWeights(parseTypeMix(AppConfig.getString("simulation.typeMix", "CAR:80,BIKE:20")));
+		profile.setDwellDistribution(DwellDistribution
+				.valueOf(AppConfig.getString("simulation.dwell.distribution", "lognormal").trim().toUpperCase()));
+		profile.setMeanDwellMinutes(AppConfig.getDouble("simulation.dwell.meanMinutes", profile.getMeanDwellMinutes()));
+		profile.setDwellSpread(AppConfig.getDouble("simulation.dwell.spread", profile.getDwellSpread()));
+		profile.setRecurringShare(AppConfig.getDouble("simulation.recurringShare", profile.getRecurringShare()));
+		profile.setRecurringPlates(AppConfig.getInt("simulation.recurringPlates", profile.getRecurringPlates()));
+		profile.setSeed(AppConfig.getLong("simulation.seed", profile.getSeed()));
+		return profile;
+	}
+
+	/**
+	 * @param rates arrivals per hour of each simulated hour, comma separated,
+	 *              e.g. 120,900,300
+	 */
+	public static double[] parseRates(String rates) {
+		String[] values = rates.split(",");
+		double[] arrivalsPerHour = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			arrivalsPerHour[i] = Double.parseDouble(values[i].trim());
+			if (arrivalsPerHour[i] < 0) {
+				throw new IllegalArgumentException("Negative arrival rate: " + rates);
+			}
+		}
+		return arrivalsPerHour;
+	}
+
+	/**
+	 * @param typeMix relative weight of each parking type, e.g. CAR:80,BIKE:20;
+	 *                missing types never arrive
+	 * @return the weights indexed by ParkingType ordinal
+	 */
+	public static double[] parseTypeMix(String typeMix) {
+		double[] weights = new double[ParkingType.values().length];
+		for (String entry : typeMix.split(",")) {
+			String[] typeAndWeight = entry.split(":");
+			if (typeAndWeight.length != 2) {
+				throw new IllegalArgumentException("Invalid type mix entry: " + entry);
+			}
+			weights[ParkingType.valueOf(typeAndWeight[0].trim().toUpperCase()).ordinal()] = Double
+					.parseDouble(typeAndWeight[1].trim());
+		}
+		return weights;
+	}
+
+	private static double[] defaultTypeWeights() {
+		double[] weights = new double[ParkingType.values().length];
+		weights[ParkingType.CAR.ordinal()] = 80;
+		weights[ParkingType.BIKE.ordinal()] = 20;
+		return weights;
+	}
+
+	public LocalDateTime getStart() {
+		return start;
+	}
+
+	public void setStart(LocalDateTime start) {
+		this.start = start;
+	}
+
+	public long getDurationMinutes() {
+		return durationMinutes;
+	}
+
+	public void setDurationMinutes(long durationMinutes) {
+		this.durationMinutes = durationMinutes;
+	}
+
+	/**
+	 * @return the arrival rate of each simulated hour, the last one held until
+	 *         the end
+	 */
+	public double[] getArrivalsPerHour() {
+		return arrivalsPerHour.clone();
+	}
+
+	public void setArrivalsPerHour(double... arrivalsPerHour) {
+		if (arrivalsPerHour.length == 0) {
+			throw new IllegalArgumentException("At least one arrival rate is required");
+		}
+		this.arrivalsPerHour = arrivalsPerHour.clone();
+	}
+
+	/**
+	 * @return the arrival rate at that many minutes into the simulation
+	 */
+	public double getArrivalsPerHour(long minute) {
+		return arrivalsPerHour[(int) Math.min(minute / 60, arrivalsPerHour.length - 1)];
+	}
+
+	public double[] getTypeWeights() {
+		return typeWeights.clone();
+	}
+
+	public void setTypeWeights(double[] typeWeights) {
+		if (Arrays.stream(typeWeights).sum() <= 0) {
+			throw new IllegalArgumentException("The type mix must give a weight to at least one parking type");
+		}
+		this.typeWeights = typeWeights.clone();
+	}
+
+	public DwellDistribution getDwellDistribution() {
+		return dwellDistribution;
+	}
+
+	public void setDwellDistribution(DwellDistribution dwellDistribution) {
+		this.dwellDistribution = dwellDistribution;
+	}
+
+	public double getMeanDwellMinutes() {
+		return meanDwellMinutes;
+	}
+
+	public void setMeanDwellMinutes(double meanDwellMinutes) {
+		this.meanDwellMinutes = meanDwellMinutes;
+	}
+
+	public double getDwellSpread() {
+		return dwellSpread;
+	}
+
+	public void setDwellSpread(double dwellSpread) {
+		this.dwellSpread = dwellSpread;
+	}
+
+	/**
+	 * @return the share of arrivals (0 to 1) by one of the recurring vehicles
+	 */
+	public double getRecurringShare() {
+		return recurringShare;
+	}
+
+	public void setRecurringShare(double recurringShare) {
+		this.recurringShare = recurringShare;
+	}
+
+	/**
+	 * @return the number of recurring vehicles, coming back again and again
+	 */
+	public int getRecurringPlates() {
+		return recurringPlates;
+	}
+
+	public void setRecurringPlates(int recurringPlates) {
+		this.recurringPlates = recurringPlates;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+}
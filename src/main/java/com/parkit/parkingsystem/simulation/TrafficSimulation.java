@@ -0,0 +1,238 @@
+package com.parkit.parkingsystem.simulation;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.parkit.parkingsystem.config.StorageEngine;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ExitResult;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.ScriptedInputReaderUtil;
+
+/**
+ * Load generator replaying synthetic traffic through the {@link ParkingService}
+ * flow, on any storage engine. Arrivals follow a Poisson process at the rate
+ * of each simulated hour of the {@link TrafficProfile}; each accepted vehicle
+ * leaves after a stay drawn from the dwell distribution. Events run one after
+ * the other on the calling thread as fast as the gate serves them, the
+ * {@link SimulatedClock} jumping to the time of each event, so hours of rush
+ * traffic take seconds and the report shows the throughput the stores
+ * sustain.
+ *
+ * The service given to the simulation should print to a
+ * {@link #silentConsole()}, so its console output does not slow the run.
+ */
+public class TrafficSimulation {
+
+	private static final Logger logger = LogManager.getLogger("TrafficSimulation");
+	private static final ParkingType[] PARKING_TYPES = ParkingType.values();
+	private static final double SECONDS_PER_HOUR = 3600;
+
+	private final ParkingService parkingService;
+	private final ScriptedInputReaderUtil inputReaderUtil;
+	private final SimulatedClock clock;
+	private final TrafficProfile profile;
+
+	private static final class Departure implements Comparable<Departure> {
+		private final double second;
+		private final String vehicleRegNumber;
+
+		Departure(double second, String vehicleRegNumber) {
+			this.second = second;
+			this.vehicleRegNumber = vehicleRegNumber;
+		}
+
+		@Override
+		public int compareTo(Departure other) {
+			return Double.compare(second, other.second);
+		}
+	}
+
+	/**
+	 * Simulates the configured traffic on the configured storage engine.
+	 */
+	public static SimulationReport runFromAppConfig() {
+		TrafficProfile profile = TrafficProfile.fromAppConfig();
+		StorageEngine storageEngine = StorageEngine.fromAppConfig();
+		logger.info("Simulating " + profile.getDurationMinutes() + " minutes of traffic on the " + storageEngine
+				+ " storage engine");
+		ParkingSpotStore parkingSpotStore = storageEngine.createParkingSpotStore();
+		TicketStore ticketStore = storageEngine.createTicketStore();
+		SimulatedClock clock = new SimulatedClock(profile.getStart());
+		ScriptedInputReaderUtil inputReaderUtil = new ScriptedInputReaderUtil();
+		ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotStore, ticketStore,
+				storageEngine.createTransactionRunner(), clock, silentConsole());
+		try {
+			return new TrafficSimulation(parkingService, inputReaderUtil, clock, profile).run();
+		} finally {
+			ticketStore.close();
+		}
+	}
+
+	/**
+	 * @return a console discarding what the service prints
+	 */
+	public static PrintStream silentConsole() {
+		return new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+	}
+
+	/**
+	 * @param parkingService reading its input from inputReaderUtil and its time
+	 *                       from clock
+	 */
+	public TrafficSimulation(ParkingService parkingService, ScriptedInputReaderUtil inputReaderUtil,
+			SimulatedClock clock, TrafficProfile profile) {
+		this.parkingService = parkingService;
+		this.inputReaderUtil = inputReaderUtil;
+		this.clock = clock;
+		this.profile = profile;
+	}
+
+	public SimulationReport run() {
+		SimulationReport report = new SimulationReport(profile.getDurationMinutes());
+		Random random = new Random(profile.getSeed());
+		double[] typeWeights = profile.getTypeWeights();
+		double end = profile.getDurationMinutes() * 60.0;
+		PriorityQueue<Departure> departures = new PriorityQueue<>();
+		Set<String> parked = new HashSet<>();
+		long sequence = 0;
+		double nextArrival = nextArrival(random, 0);
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		try {
+			while (true) {
+				double departure = departures.isEmpty() ? Double.MAX_VALUE : departures.peek().second;
+				double now = Math.min(nextArrival, departure);
+				if (now >= end) {
+					break;
+				}
+				clock.set(profile.getStart().plusNanos((long) (now * 1e9)));
+				if (departure <= nextArrival) {
+					String vehicleRegNumber = departures.poll().vehicleRegNumber;
+					inputReaderUtil.script(0, vehicleRegNumber);
+					long operationStart = System.nanoTime();
+					ExitResult result = parkingService.processExitingVehicle();
+					report.recordExit(System.nanoTime() - operationStart, result.getStatus());
+					// a failed exit is not retried
+					parked.remove(vehicleRegNumber);
+				} else {
+					ParkingType parkingType = pickType(random, typeWeights);
+					String vehicleRegNumber = pickVehicle(random, parked);
+					if (vehicleRegNumber == null) {
+						vehicleRegNumber = "SIM" + Long.toString(++sequence, 36).toUpperCase();
+					}
+					inputReaderUtil.script(parkingType.ordinal() + 1, vehicleRegNumber);
+					long operationStart = System.nanoTime();
+					EntryResult result = parkingService.processIncomingVehicle();
+					report.recordEntry(System.nanoTime() - operationStart, result.getStatus(), result.isDiscount());
+					if (result.isAccepted()) {
+						parked.add(vehicleRegNumber);
+						departures.add(new Departure(now + 60.0 * profile.getDwellDistribution().sampleMinutes(random,
+								profile.getMeanDwellMinutes(), profile.getDwellSpread()), vehicleRegNumber));
+					}
+					nextArrival = nextArrival(random, now);
+				}
+				report.setParked(parked.size());
+			}
+		} finally {
+			long wallNanos = System.nanoTime() - start;
+			long allocatedAfter = allocatedBytes();
+			report.finish(wallNanos, (allocatedBefore < 0) ? -1 : allocatedAfter - allocatedBefore);
+		}
+		logger.info("Simulation completed in " + report.getWallNanos() / 1_000_000 + " ms: " + report.getEntries()
+				+ " entries, " + report.getExits() + " exits");
+		return report;
+	}
+
+	/**
+	 * @return the second of the next arrival after that one; as the process is
+	 *         memoryless, a gap crossing into an hour of another rate is drawn
+	 *         again from the start of that hour
+	 */
+	private double nextArrival(Random random, double from) {
+		double second = from;
+		int hours = profile.getArrivalsPerHour().length;
+		while (true) {
+			long hour = (long) (second / SECONDS_PER_HOUR);
+			double rate = profile.getArrivalsPerHour(hour * 60);
+			// the last rate holds until the end
+			double hourEnd = (hour >= hours - 1) ? Double.MAX_VALUE : (hour + 1) * SECONDS_PER_HOUR;
+			if (rate <= 0) {
+				if (hourEnd == Double.MAX_VALUE) {
+					return Double.MAX_VALUE;
+				}
+				second = hourEnd;
+				continue;
+			}
+			double gap = -Math.log(1 - random.nextDouble()) * SECONDS_PER_HOUR / rate;
+			if (second + gap < hourEnd) {
+				return second + gap;
+			}
+			second = hourEnd;
+		}
+	}
+
+	private static ParkingType pickType(Random random, double[] typeWeights) {
+		double total = 0;
+		for (double weight : typeWeights) {
+			total += weight;
+		}
+		double pick = random.nextDouble() * total;
+		for (int type = 0; type < typeWeights.length; type++) {
+			pick -= typeWeights[type];
+			if (pick < 0 && typeWeights[type] > 0) {
+				return PARKING_TYPES[type];
+			}
+		}
+		// rounding at the upper end
+		for (int type = typeWeights.length - 1; type >= 0; type--) {
+			if (typeWeights[type] > 0) {
+				return PARKING_TYPES[type];
+			}
+		}
+		throw new IllegalStateException("No parking type in the traffic mix");
+	}
+
+	/**
+	 * @return one of the recurring vehicles not parked, or null for a new one
+	 */
+	private String pickVehicle(Random random, Set<String> parked) {
+		if (profile.getRecurringPlates() <= 0 || random.nextDouble() >= profile.getRecurringShare()) {
+			return null;
+		}
+		String vehicleRegNumber = "REG" + random.nextInt(profile.getRecurringPlates());
+		return parked.contains(vehicleRegNumber) ? null : vehicleRegNumber;
+	}
+
+	// bytes allocated so far by this thread, -1 when the JVM does not tell
+	private static long allocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadBean;
+			if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+				return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+}
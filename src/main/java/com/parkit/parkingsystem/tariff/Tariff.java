@@ -0,0 +1,71 @@
+package com.parkit.parkingsystem.tariff;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Tariff of one vehicle type, compiled into a table of the cumulative cost of
+ * each minute of the day. The cost of any stay is then a few table lookups,
+ * whatever its length: whole days cost the daily price (capped), and the
+ * remainder is the difference of two cumulative costs.
+ */
+public class Tariff {
+
+	static final int MINUTES_PER_DAY = 24 * 60;
+
+	private final int graceMinutes;
+	private final double dailyCap;
+	// cumulativeCost[m] is the cost of the minutes of the day before minute m
+	private final double[] cumulativeCost;
+
+	/**
+	 * @param ratePerMinute the rate of every minute of the day
+	 * @param graceMinutes  stays shorter than that are free
+	 * @param dailyCap      the most charged for each 24 hours of a stay, 0 for no
+	 *                      cap
+	 */
+	Tariff(double[] ratePerMinute, int graceMinutes, double dailyCap) {
+		if (ratePerMinute.length != MINUTES_PER_DAY) {
+			throw new IllegalArgumentException("A tariff needs the rate of the " + MINUTES_PER_DAY + " minutes of a day");
+		}
+		this.graceMinutes = graceMinutes;
+		this.dailyCap = (dailyCap > 0) ? dailyCap : Double.POSITIVE_INFINITY;
+		this.cumulativeCost = new double[MINUTES_PER_DAY + 1];
+		for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+			cumulativeCost[minute + 1] = cumulativeCost[minute] + ratePerMinute[minute];
+		}
+	}
+
+	public int getGraceMinutes() {
+		return graceMinutes;
+	}
+
+	public double getDayCost() {
+		return Math.min(cumulativeCost[MINUTES_PER_DAY], dailyCap);
+	}
+
+	/**
+	 * @return the cost of a stay, charged per whole minute elapsed and rounded to
+	 *         the cent
+	 */
+	public double cost(LocalDateTime inTime, LocalDateTime outTime) {
+		long minutes = ChronoUnit.SECONDS.between(inTime, outTime) / 60;
+		if (minutes < graceMinutes) {
+			return 0.0;
+		}
+		int startMinute = inTime.getHour() * 60 + inTime.getMinute();
+		long days = minutes / MINUTES_PER_DAY;
+		int remainder = (int) (minutes % MINUTES_PER_DAY);
+		double cost = days * getDayCost() + Math.min(rangeCost(startMinute, remainder), dailyCap);
+		return Math.round(cost * 100) / 100.0;
+	}
+
+	// cost of the minutes [start, start + length) of the day, wrapping past midnight
+	private double rangeCost(int start, int length) {
+		int end = start + length;
+		if (end <= MINUTES_PER_DAY) {
+			return cumulativeCost[end] - cumulativeCost[start];
+		}
+		return (cumulativeCost[MINUTES_PER_DAY] - cumulativeCost[start]) + cumulativeCost[end - MINUTES_PER_DAY];
+	}
+}
@@ -0,0 +1,103 @@
+package com.parkit.parkingsystem.tariff;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.parkit.parkingsystem.config.AppConfig;
+import com.parkit.parkingsystem.constants.Fare;
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * Tariffs of every vehicle type, read from the configuration:
+ *
+ * <pre>
+ * tariff.CAR.ratePerMinute=1.5               base rate of every minute of the stay
+ * tariff.CAR.bands=22:00-06:00@0.5,...       time-of-day rates overriding the base rate
+ * tariff.CAR.graceMinutes=30                 shorter stays are free
+ * tariff.CAR.dailyCap=0                      the most charged per 24 hours, 0 for no cap
+ * </pre>
+ *
+ * Bands are applied in order, a later band overriding an earlier one where
+ * they overlap, and may wrap past midnight.
+ */
+public class TariffTable {
+
+	private final Map<ParkingType, Tariff> tariffs;
+
+	public TariffTable(Map<ParkingType, Tariff> tariffs) {
+		this.tariffs = new EnumMap<>(tariffs);
+	}
+
+	public static TariffTable fromAppConfig() {
+		Map<ParkingType, Tariff> tariffs = new EnumMap<>(ParkingType.class);
+		for (ParkingType parkingType : ParkingType.values()) {
+			String prefix = "tariff." + parkingType + ".";
+			tariffs.put(parkingType,
+					compile(AppConfig.getString(prefix + "ratePerMinute", String.valueOf(defaultRate(parkingType))),
+							AppConfig.getString(prefix + "bands", ""), AppConfig.getInt(prefix + "graceMinutes", 30),
+							Double.parseDouble(AppConfig.getString(prefix + "dailyCap", "0"))));
+		}
+		return new TariffTable(tariffs);
+	}
+
+	private static double defaultRate(ParkingType parkingType) {
+		switch (parkingType) {
+		case BIKE:
+			return Fare.BIKE_RATE_PER_HOUR;
+		default:
+			return Fare.CAR_RATE_PER_HOUR;
+		}
+	}
+
+	/**
+	 * Compiles a tariff from its configuration values.
+	 *
+	 * @param bands comma separated HH:mm-HH:mm@rate, empty for a flat rate
+	 */
+	public static Tariff compile(String ratePerMinute, String bands, int graceMinutes, double dailyCap) {
+		double[] rates = new double[Tariff.MINUTES_PER_DAY];
+		Arrays.fill(rates, Double.parseDouble(ratePerMinute.trim()));
+		for (String band : bands.split(",")) {
+			if (band.trim().isEmpty()) {
+				continue;
+			}
+			String[] rangeAndRate = band.trim().split("@");
+			String[] range = rangeAndRate[0].split("-");
+			if (rangeAndRate.length != 2 || range.length != 2) {
+				throw new IllegalArgumentException("Invalid tariff band, expected HH:mm-HH:mm@rate: " + band);
+			}
+			int start = minuteOfDay(range[0]);
+			int end = minuteOfDay(range[1]);
+			double rate = Double.parseDouble(rangeAndRate[1].trim());
+			// start == end is the whole day
+			int minute = start;
+			do {
+				rates[minute] = rate;
+				minute = (minute + 1) % Tariff.MINUTES_PER_DAY;
+			} while (minute != end);
+		}
+		return new Tariff(rates, graceMinutes, dailyCap);
+	}
+
+	private static int minuteOfDay(String time) {
+		String value = time.trim();
+		if ("24:00".equals(value)) {
+			return 0;
+		}
+		LocalTime localTime = LocalTime.parse(value);
+		return localTime.getHour() * 60 + localTime.getMinute();
+	}
+
+	public Tariff getTariff(ParkingType parkingType) {
+		Objects.requireNonNull(parkingType, "Unknown parking type");
+		return tariffs.get(parkingType);
+	}
+
+	public double cost(ParkingType parkingType, LocalDateTime inTime, LocalDateTime outTime) {
+		return getTariff(parkingType).cost(inTime, outTime);
+	}
+}
@@ -0,0 +1,108 @@
+package com.parkit.parkingsystem.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. mightContain never returns false for
+ * a value that was added; it returns true for a value that was not added with
+ * roughly the configured false positive probability.
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+		long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability)
+				/ (Math.log(2) * Math.log(2)));
+		int words = (int) Math.max(1, (optimalBits + 63) / 64);
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = words * 64L;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+	}
+
+	private BloomFilter(AtomicLongArray bits, int hashCount) {
+		this.bits = bits;
+		this.bitCount = bits.length() * 64L;
+		this.hashCount = hashCount;
+	}
+
+	/**
+	 * Writes the filter, to be read back with {@link #readFrom(DataInput)}.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(hashCount);
+		out.writeInt(bits.length());
+		for (int word = 0; word < bits.length(); word++) {
+			out.writeLong(bits.get(word));
+		}
+	}
+
+	public static BloomFilter readFrom(DataInput in) throws IOException {
+		int hashCount = in.readInt();
+		int words = in.readInt();
+		if (hashCount < 1 || words < 1) {
+			throw new IOException("Invalid Bloom filter: " + words + " words, " + hashCount + " hashes");
+		}
+		AtomicLongArray bits = new AtomicLongArray(words);
+		for (int word = 0; word < words; word++) {
+			bits.set(word, in.readLong());
+		}
+		return new BloomFilter(bits, hashCount);
+	}
+
+	public void add(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current;
+			while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+				// retry until the bit is set
+			}
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	private static long hash64(String value) {
+		// FNV-1a followed by the murmur3 finalizer
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
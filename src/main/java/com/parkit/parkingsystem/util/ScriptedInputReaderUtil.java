@@ -0,0 +1,26 @@
+package com.parkit.parkingsystem.util;
+
+/**
+ * Replays a fixed vehicle type selection and registration number instead of
+ * reading the console, e.g. for benchmarks and traffic simulations.
+ */
+public class ScriptedInputReaderUtil extends InputReaderUtil {
+
+	private int selection;
+	private String vehicleRegNumber;
+
+	public void script(int selection, String vehicleRegNumber) {
+		this.selection = selection;
+		this.vehicleRegNumber = vehicleRegNumber;
+	}
+
+	@Override
+	public int readSelection() {
+		return selection;
+	}
+
+	@Override
+	public String readVehicleRegistrationNumber() {
+		return vehicleRegNumber;
+	}
+}
@@ -0,0 +1,205 @@
+package com.parkit.parkingsystem.util;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: schedules values to expire at a deadline with
+ * O(1) scheduling and cancellation, however many are outstanding.
+ *
+ * Level 0 has one slot per tick; each slot of level n spans wheelSize slots
+ * of level n - 1. A value goes to the lowest level whose range covers its
+ * deadline and moves down a level each time the wheel reaches its slot, so
+ * advancing by one tick only touches the slots due at that tick. Deadlines
+ * are rounded up to the tick: a value never expires early, and at most one
+ * tick late. Deadlines past the range of the top level are re-filed at each
+ * turn of that level until they come in range.
+ *
+ * @param <T> the scheduled values
+ */
+public class TimingWheel<T> {
+
+	/**
+	 * A scheduled value, which can be cancelled until it expired.
+	 */
+	public static final class Timeout<T> {
+		private final T value;
+		private final long deadlineTick;
+		private Timeout<T> previous;
+		private Timeout<T> next;
+		// the slot holding it, null once expired or cancelled
+		private Slot<T> slot;
+		private final TimingWheel<T> wheel;
+
+		private Timeout(TimingWheel<T> wheel, T value, long deadlineTick) {
+			this.wheel = wheel;
+			this.value = value;
+			this.deadlineTick = deadlineTick;
+		}
+
+		public T getValue() {
+			return value;
+		}
+
+		/**
+		 * @return true if it was cancelled, false if it already expired or was
+		 *         cancelled
+		 */
+		public boolean cancel() {
+			synchronized (wheel) {
+				if (slot == null) {
+					return false;
+				}
+				slot.remove(this);
+				wheel.size--;
+				return true;
+			}
+		}
+	}
+
+	// doubly linked list of timeouts around a sentinel
+	private static final class Slot<T> {
+		private final Timeout<T> head = new Timeout<>(null, null, 0);
+
+		Slot() {
+			head.previous = head;
+			head.next = head;
+		}
+
+		void add(Timeout<T> timeout) {
+			timeout.slot = this;
+			timeout.previous = head.previous;
+			timeout.next = head;
+			head.previous.next = timeout;
+			head.previous = timeout;
+		}
+
+		void remove(Timeout<T> timeout) {
+			timeout.previous.next = timeout.next;
+			timeout.next.previous = timeout.previous;
+			timeout.previous = null;
+			timeout.next = null;
+			timeout.slot = null;
+		}
+
+		/**
+		 * Empties the slot and returns its timeouts, detached from it.
+		 */
+		List<Timeout<T>> drain() {
+			List<Timeout<T>> timeouts = new ArrayList<>();
+			while (head.next != head) {
+				Timeout<T> timeout = head.next;
+				remove(timeout);
+				timeouts.add(timeout);
+			}
+			return timeouts;
+		}
+	}
+
+	private final long tickMillis;
+	private final int wheelSize;
+	private final long[] ticksPerSlot;
+	private final Slot<T>[][] levels;
+	// deadlines already due when scheduled or re-filed, expired on next advance
+	private final Slot<T> due = new Slot<>();
+	private long currentTick;
+	private int size;
+
+	/**
+	 * @param startMillis the current time, in the unit of the deadlines
+	 */
+	public TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+		if (tickMillis < 1 || wheelSize < 2 || levelCount < 1) {
+			throw new IllegalArgumentException("Invalid timing wheel: tick " + tickMillis + " ms, " + wheelSize
+					+ " slots, " + levelCount + " levels");
+		}
+		this.tickMillis = tickMillis;
+		this.wheelSize = wheelSize;
+		this.ticksPerSlot = new long[levelCount];
+		this.levels = newSlots(levelCount, wheelSize);
+		long span = 1;
+		for (int level = 0; level < levelCount; level++) {
+			ticksPerSlot[level] = span;
+			for (int index = 0; index < wheelSize; index++) {
+				levels[level][index] = new Slot<>();
+			}
+			span = (span > Long.MAX_VALUE / wheelSize) ? Long.MAX_VALUE : span * wheelSize;
+		}
+		this.currentTick = startMillis / tickMillis;
+	}
+
+	// generic arrays cannot be created directly
+	@SuppressWarnings("unchecked")
+	private static <T> Slot<T>[][] newSlots(int levelCount, int wheelSize) {
+		return (Slot<T>[][]) Array.newInstance(Slot.class, levelCount, wheelSize);
+	}
+
+	/**
+	 * Schedules the value to expire at the deadline; a deadline already past
+	 * expires on the next {@link #advance(long)}.
+	 */
+	public synchronized Timeout<T> schedule(T value, long deadlineMillis) {
+		// rounded up, so it never expires before its deadline
+		long deadlineTick = deadlineMillis / tickMillis + ((deadlineMillis % tickMillis == 0) ? 0 : 1);
+		Timeout<T> timeout = new Timeout<>(this, value, deadlineTick);
+		file(timeout);
+		size++;
+		return timeout;
+	}
+
+	private void file(Timeout<T> timeout) {
+		long deadlineTick = timeout.deadlineTick;
+		if (deadlineTick <= currentTick) {
+			due.add(timeout);
+			return;
+		}
+		for (int level = 0; level < levels.length; level++) {
+			long span = ticksPerSlot[level];
+			if (deadlineTick / span - currentTick / span < wheelSize || level == levels.length - 1) {
+				levels[level][(int) ((deadlineTick / span) % wheelSize)].add(timeout);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Moves the wheel to that time.
+	 *
+	 * @return the values whose deadline is reached, in no particular order
+	 */
+	public synchronized List<T> advance(long nowMillis) {
+		List<T> expired = new ArrayList<>();
+		collect(due, expired);
+		long targetTick = nowMillis / tickMillis;
+		while (currentTick < targetTick) {
+			currentTick++;
+			// higher levels first, so their values trickle down to this tick
+			for (int level = levels.length - 1; level > 0; level--) {
+				long span = ticksPerSlot[level];
+				if (currentTick % span == 0) {
+					for (Timeout<T> timeout : levels[level][(int) ((currentTick / span) % wheelSize)].drain()) {
+						file(timeout);
+					}
+				}
+			}
+			collect(levels[0][(int) (currentTick % wheelSize)], expired);
+			collect(due, expired);
+		}
+		return expired;
+	}
+
+	private void collect(Slot<T> slot, List<T> expired) {
+		for (Timeout<T> timeout : slot.drain()) {
+			expired.add(timeout.value);
+			size--;
+		}
+	}
+
+	/**
+	 * @return the number of values scheduled and neither expired nor cancelled
+	 */
+	public synchronized int size() {
+		return size;
+	}
+}
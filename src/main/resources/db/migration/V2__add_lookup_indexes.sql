@@ -0,0 +1,8 @@
+-- GET_TICKET and GET_RECURRING_USER: latest ticket of a vehicle
+create index TICKET_VEHICLE_IN_TIME on ticket(VEHICLE_REG_NUMBER, IN_TIME);
+
+-- open tickets (OUT_TIME is null) and closed tickets of the billing run
+create index TICKET_OUT_TIME on ticket(OUT_TIME);
+
+-- GET_NEXT_PARKING_SPOT and GET_AVAILABLE_PARKING_SPOTS: lowest free spot of a type
+create index PARKING_TYPE_AVAILABLE on parking(TYPE, AVAILABLE, PARKING_NUMBER);
@@ -0,0 +1,14 @@
+-- Closed tickets moved out of the ticket table by the TicketArchiver; same
+-- columns, ids kept
+create table if not exists ticket_archive(
+ ID int PRIMARY KEY,
+ PARKING_NUMBER int NOT NULL,
+ VEHICLE_REG_NUMBER varchar(10) NOT NULL,
+ PRICE double,
+ IN_TIME DATETIME NOT NULL,
+ OUT_TIME DATETIME NOT NULL,
+ DISCOUNT boolean default false
+);
+
+-- history of a vehicle, latest first
+create index TICKET_ARCHIVE_VEHICLE_IN_TIME on ticket_archive(VEHICLE_REG_NUMBER, IN_TIME);
@@ -0,0 +1,11 @@
+-- Spots held for a vehicle until RESERVED_UNTIL; the spot itself is marked
+-- unavailable in the parking table while the reservation exists
+create table if not exists reservation(
+ ID int PRIMARY KEY AUTO_INCREMENT,
+ PARKING_NUMBER int NOT NULL,
+ VEHICLE_REG_NUMBER varchar(10) NOT NULL,
+ RESERVED_UNTIL DATETIME NOT NULL,
+ FOREIGN KEY (PARKING_NUMBER) REFERENCES parking(PARKING_NUMBER)
+);
+
+create unique index RESERVATION_VEHICLE on reservation(VEHICLE_REG_NUMBER);
@@ -0,0 +1,4 @@
+-- GET_TICKETS_IN_RANGE: tickets of a period for the exports, live and archived
+create index TICKET_IN_TIME on ticket(IN_TIME);
+
+create index TICKET_ARCHIVE_IN_TIME on ticket_archive(IN_TIME);
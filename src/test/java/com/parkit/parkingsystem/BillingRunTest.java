@@ -0,0 +1,123 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.billing.BillingReport;
+import com.parkit.parkingsystem.billing.BillingRun;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.tariff.Tariff;
+import com.parkit.parkingsystem.tariff.TariffTable;
+
+public class BillingRunTest {
+
+	private static final int TICKETS = 3000;
+	private static final LocalDateTime MORNING = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	private BillingRun billingRun;
+	private PreparedStatement updatePrice;
+	private PreparedStatement updateArchivedPrice;
+
+	@BeforeEach
+	public void setUpPerTest() throws Exception {
+		Map<ParkingType, Tariff> tariffs = new EnumMap<>(ParkingType.class);
+		tariffs.put(ParkingType.CAR, TariffTable.compile("1.5", "", 30, 0));
+		tariffs.put(ParkingType.BIKE, TariffTable.compile("1", "", 30, 0));
+		billingRun = new BillingRun(new FareCalculatorService(new TariffTable(tariffs)), new ForkJoinPool(4), 1000,
+				100);
+
+		// even rows are cars, odd rows bikes, one hour each; every fourth row is priced
+		// with an outdated tariff
+		AtomicInteger row = new AtomicInteger(-1);
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenAnswer(invocation -> row.incrementAndGet() < TICKETS);
+		when(rs.getInt(1)).thenAnswer(invocation -> row.get() % 2 + 1);
+		when(rs.getInt(2)).thenAnswer(invocation -> row.get() + 1);
+		when(rs.getString(7)).thenAnswer(invocation -> (row.get() % 2 == 0) ? "CAR" : "BIKE");
+		when(rs.getDouble(3)).thenAnswer(invocation -> (row.get() % 4 < 2) ? 45.0 : currentFare(row.get()));
+		when(rs.getTimestamp(4)).thenReturn(Timestamp.valueOf(MORNING));
+		when(rs.getTimestamp(5)).thenReturn(Timestamp.valueOf(MORNING.plusHours(1)));
+		// the last thousand tickets come from the archive
+		when(rs.getInt(8)).thenAnswer(invocation -> (row.get() >= TICKETS - 1000) ? 1 : 0);
+		PreparedStatement getTickets = mock(PreparedStatement.class);
+		when(getTickets.executeQuery()).thenReturn(rs);
+		updatePrice = mock(PreparedStatement.class);
+		int[] updateCounts = new int[100];
+		Arrays.fill(updateCounts, 1);
+		when(updatePrice.executeBatch()).thenReturn(updateCounts);
+		updateArchivedPrice = mock(PreparedStatement.class);
+		when(updateArchivedPrice.executeBatch()).thenReturn(updateCounts);
+		Connection con = mock(Connection.class);
+		when(con.prepareStatement(DBConstants.GET_CLOSED_TICKETS, ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY)).thenReturn(getTickets);
+		when(con.prepareStatement(anyString())).thenReturn(updatePrice);
+		when(con.prepareStatement(DBConstants.UPDATE_ARCHIVED_TICKET_PRICE)).thenReturn(updateArchivedPrice);
+		billingRun.dataBaseConfig = mock(DataBaseConfig.class);
+		when(billingRun.dataBaseConfig.getConnection()).thenReturn(con);
+	}
+
+	@AfterEach
+	public void tearDownPerTest() {
+		billingRun.shutdown();
+	}
+
+	private static double currentFare(int row) {
+		return (row % 2 == 0) ? 90.0 : 60.0;
+	}
+
+	@Test
+	public void reportsTotalsPerParkingType() throws Exception {
+		BillingReport report = billingRun.run(true);
+
+		BillingReport.Totals cars = report.getTotals(ParkingType.CAR);
+		assertEquals(TICKETS / 2, cars.getTickets());
+		assertEquals(TICKETS / 4, cars.getChanged());
+		assertEquals(TICKETS / 4 * (45.0 + 90.0), cars.getPreviousTotal(), 1e-6);
+		assertEquals(TICKETS / 2 * 90.0, cars.getRecomputedTotal(), 1e-6);
+		BillingReport.Totals bikes = report.getTotals(ParkingType.BIKE);
+		assertEquals(TICKETS / 2, bikes.getTickets());
+		assertEquals(TICKETS / 4, bikes.getChanged());
+		assertEquals(TICKETS / 2 * 60.0, bikes.getRecomputedTotal(), 1e-6);
+		assertEquals(0, report.getUpdatedRows());
+		assertEquals(1000, report.getArchived());
+		verify(updatePrice, never()).addBatch();
+	}
+
+	@Test
+	public void writesChangedPricesInBatches() throws Exception {
+		BillingReport report = billingRun.run(false);
+
+		// 1500 changed prices in 3 chunks of 500, written in batches of 100 to the
+		// table holding the ticket: 1000 live, 500 archived
+		verify(updatePrice, times(1000)).addBatch();
+		verify(updatePrice, times(10)).executeBatch();
+		verify(updateArchivedPrice, times(500)).addBatch();
+		verify(updateArchivedPrice, times(5)).executeBatch();
+		verify(updatePrice, times(500)).setDouble(1, 90.0);
+		verify(updateArchivedPrice, times(250)).setDouble(1, 60.0);
+		assertEquals(TICKETS / 2, report.getUpdatedRows());
+	}
+}
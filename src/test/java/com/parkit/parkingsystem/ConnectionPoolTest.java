@@ -0,0 +1,149 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.config.ConnectionPool;
+import com.parkit.parkingsystem.config.ConnectionPoolConfig;
+
+public class ConnectionPoolTest {
+
+	private ConnectionPoolConfig config;
+	private ConnectionPool pool;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		config = new ConnectionPoolConfig();
+		config.setMinSize(0);
+		config.setMaxSize(2);
+		config.setAcquireTimeoutMillis(50);
+		config.setEvictionIntervalMillis(0);
+	}
+
+	@AfterEach
+	private void tearDownPerTest() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	private static Connection newConnection() throws SQLException {
+		Connection con = mock(Connection.class);
+		when(con.getAutoCommit()).thenReturn(true);
+		when(con.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+		when(con.prepareStatement(anyString(), anyInt())).thenAnswer(invocation -> mock(PreparedStatement.class));
+		return con;
+	}
+
+	@Test
+	public void releasedConnectionIsReused() throws Exception {
+		pool = new ConnectionPool("test", ConnectionPoolTest::newConnection, config);
+
+		Connection first = pool.acquire();
+		pool.release(first);
+		Connection second = pool.acquire();
+
+		assertSame(first, second);
+		assertEquals(1, pool.getCreatedCount());
+		assertEquals(2, pool.getAcquiredCount());
+	}
+
+	@Test
+	public void acquireTimesOutWhenPoolIsExhausted() throws Exception {
+		pool = new ConnectionPool("test", ConnectionPoolTest::newConnection, config);
+		pool.acquire();
+		pool.acquire();
+
+		assertThrows(SQLException.class, () -> pool.acquire());
+		assertEquals(1, pool.getTimeoutCount());
+		assertEquals(2, pool.getActiveConnections());
+	}
+
+	@Test
+	public void connectionFailingValidationIsReplaced() throws Exception {
+		config.setValidationIntervalMillis(0);
+		pool = new ConnectionPool("test", ConnectionPoolTest::newConnection, config);
+
+		Connection first = pool.acquire();
+		when(first.isValid(config.getValidationTimeoutSeconds())).thenReturn(false);
+		pool.release(first);
+		Connection second = pool.acquire();
+
+		assertNotSame(first, second);
+		verify(first).close();
+		assertEquals(1, pool.getValidationFailureCount());
+	}
+
+	@Test
+	public void poolIsPrefilledToMinSize() {
+		config.setMinSize(2);
+		pool = new ConnectionPool("test", ConnectionPoolTest::newConnection, config);
+
+		assertEquals(2, pool.getIdleConnections());
+		assertEquals(2, pool.getCreatedCount());
+	}
+
+	@Test
+	public void preparedStatementIsReusedAcrossBorrows() throws Exception {
+		pool = new ConnectionPool("test", ConnectionPoolTest::newConnection, config);
+
+		Connection con = pool.acquire();
+		PreparedStatement first = pool.prepareStatement(con, "select 1", Statement.NO_GENERATED_KEYS);
+		assertTrue(pool.recycle(first));
+		pool.release(con);
+		con = pool.acquire();
+		PreparedStatement second = pool.prepareStatement(con, "select 1", Statement.NO_GENERATED_KEYS);
+		PreparedStatement withKeys = pool.prepareStatement(con, "select 1", Statement.RETURN_GENERATED_KEYS);
+
+		assertSame(first, second);
+		assertNotSame(first, withKeys);
+		verify(first).clearParameters();
+		verify(con).prepareStatement("select 1");
+		assertEquals(1, pool.getStatementCacheHitCount());
+		assertEquals(2, pool.getStatementCacheMissCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedStatementIsEvicted() throws Exception {
+		config.setStatementCacheSize(2);
+		pool = new ConnectionPool("test", ConnectionPoolTest::newConnection, config);
+
+		Connection con = pool.acquire();
+		PreparedStatement first = pool.prepareStatement(con, "select 1", Statement.NO_GENERATED_KEYS);
+		pool.prepareStatement(con, "select 2", Statement.NO_GENERATED_KEYS);
+		pool.prepareStatement(con, "select 3", Statement.NO_GENERATED_KEYS);
+
+		verify(first).close();
+		assertFalse(pool.recycle(first));
+		assertEquals(1, pool.getStatementCacheEvictionCount());
+	}
+
+	@Test
+	public void statementOfForeignConnectionIsNotCached() throws Exception {
+		pool = new ConnectionPool("test", ConnectionPoolTest::newConnection, config);
+		Connection foreign = newConnection();
+
+		PreparedStatement ps = pool.prepareStatement(foreign, "select 1", Statement.NO_GENERATED_KEYS);
+
+		assertFalse(pool.recycle(ps));
+		assertEquals(0, pool.getStatementCacheMissCount());
+	}
+}
@@ -0,0 +1,132 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.config.ConnectionPool;
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.dao.TicketWriteBehind;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+public class DataBaseTransactionTest {
+
+	private ConnectionPool pool;
+	private Connection con;
+	private DataBaseConfig dataBaseConfig;
+	private List<String> completions;
+
+	@BeforeEach
+	private void setUpPerTest() throws Exception {
+		pool = mock(ConnectionPool.class);
+		con = mock(Connection.class);
+		when(pool.acquire()).thenReturn(con);
+		dataBaseConfig = new DataBaseConfig() {
+			@Override
+			public ConnectionPool getConnectionPool() {
+				return pool;
+			}
+		};
+		completions = new ArrayList<>();
+	}
+
+	private boolean work() {
+		try {
+			// two DAO calls: both get the transaction's connection
+			for (int call = 0; call < 2; call++) {
+				Connection daoConnection = dataBaseConfig.getConnection();
+				assertThat(daoConnection).isSameAs(con);
+				dataBaseConfig.closeConnection(daoConnection);
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		dataBaseConfig.afterCommit(() -> completions.add("commit"));
+		dataBaseConfig.afterRollback(() -> completions.add("rollback"));
+		return true;
+	}
+
+	@Test
+	public void acceptedWorkIsCommittedOnOneConnection() throws Exception {
+		assertThat(dataBaseConfig.inTransaction(this::work, accepted -> accepted)).isTrue();
+
+		verify(pool, times(1)).acquire();
+		verify(con).setAutoCommit(false);
+		verify(con).commit();
+		verify(con, never()).rollback();
+		verify(pool, times(1)).release(con);
+		assertThat(completions).containsExactly("commit");
+	}
+
+	@Test
+	public void rejectedWorkIsRolledBack() throws Exception {
+		assertThat(dataBaseConfig.inTransaction(this::work, accepted -> false)).isTrue();
+
+		verify(con, never()).commit();
+		verify(con).rollback();
+		verify(pool, times(1)).release(con);
+		assertThat(completions).containsExactly("rollback");
+	}
+
+	@Test
+	public void workWithoutDataBaseCallsTakesNoConnection() throws Exception {
+		assertThat(dataBaseConfig.inTransaction(() -> false, accepted -> accepted)).isFalse();
+
+		verify(pool, never()).acquire();
+	}
+
+	@Test
+	public void failingWorkIsRolledBackAndUnbound() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> dataBaseConfig.inTransaction(() -> {
+			work();
+			throw new IllegalArgumentException("Unknown parking type");
+		}, accepted -> true));
+
+		verify(con).rollback();
+		verify(pool, times(1)).release(con);
+		// outside of a transaction, completion actions run right away
+		dataBaseConfig.afterCommit(() -> completions.add("commit"));
+		assertThat(completions).containsExactly("rollback", "commit");
+	}
+
+	@Test
+	public void ticketWriteInATransactionBypassesTheWriteBehind() throws Exception {
+		PreparedStatement updatePs = mock(PreparedStatement.class);
+		when(con.prepareStatement(DBConstants.UPDATE_TICKET)).thenReturn(updatePs);
+		when(updatePs.executeUpdate()).thenReturn(1);
+		TicketWriteBehind writeBehind = mock(TicketWriteBehind.class);
+		TicketDAO ticketDAO = new TicketDAO();
+		ticketDAO.dataBaseConfig = dataBaseConfig;
+		ticketDAO.setWriteBehind(writeBehind);
+		Ticket ticket = new Ticket();
+		ticket.setId(1);
+		ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+		ticket.setInTime(LocalDateTime.now().minusHours(1));
+		ticket.setOutTime(LocalDateTime.now());
+
+		assertThat(dataBaseConfig.inTransaction(() -> ticketDAO.updateTicket(ticket), updated -> updated)).isTrue();
+
+		// on the connection of the transaction, committed with it
+		verify(updatePs).executeUpdate();
+		verify(con).commit();
+		verify(writeBehind, never()).update(any(Ticket.class));
+	}
+}
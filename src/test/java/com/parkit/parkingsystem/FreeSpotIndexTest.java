@@ -0,0 +1,85 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.FreeSpotIndex;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+public class FreeSpotIndexTest {
+
+	private FreeSpotIndex freeSpotIndex;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		freeSpotIndex = new FreeSpotIndex();
+		freeSpotIndex.markFree(1, ParkingType.CAR);
+		freeSpotIndex.markFree(2, ParkingType.CAR);
+		freeSpotIndex.markFree(3, ParkingType.CAR);
+		freeSpotIndex.markFree(4, ParkingType.BIKE);
+		freeSpotIndex.markFree(5, ParkingType.BIKE);
+	}
+
+	@Test
+	public void lowestFreeSpotPerType() {
+		assertEquals(1, freeSpotIndex.lowestFree(ParkingType.CAR));
+		assertEquals(4, freeSpotIndex.lowestFree(ParkingType.BIKE));
+	}
+
+	@Test
+	public void updateTakesAndReleasesSpot() {
+		freeSpotIndex.update(new ParkingSpot(1, ParkingType.CAR, false));
+		assertEquals(2, freeSpotIndex.lowestFree(ParkingType.CAR));
+
+		freeSpotIndex.update(new ParkingSpot(1, ParkingType.CAR, true));
+		assertEquals(1, freeSpotIndex.lowestFree(ParkingType.CAR));
+	}
+
+	@Test
+	public void fullTypeReturnsZero() {
+		freeSpotIndex.markTaken(4, ParkingType.BIKE);
+		freeSpotIndex.markTaken(5, ParkingType.BIKE);
+
+		assertEquals(0, freeSpotIndex.lowestFree(ParkingType.BIKE));
+		assertEquals(3, freeSpotIndex.freeCount(ParkingType.CAR));
+	}
+
+	@Test
+	public void concurrentClaimsNeverShareASpot() throws Exception {
+		int gates = 3;
+		ExecutorService executor = Executors.newFixedThreadPool(gates);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> claims = new ArrayList<>();
+		for (int i = 0; i < gates; i++) {
+			claims.add(executor.submit(() -> {
+				start.await();
+				return freeSpotIndex.claimLowest(ParkingType.CAR);
+			}));
+		}
+		start.countDown();
+
+		Set<Integer> claimed = new HashSet<>();
+		for (Future<Integer> claim : claims) {
+			claimed.add(claim.get());
+		}
+		executor.shutdown();
+
+		assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), claimed);
+		assertEquals(0, freeSpotIndex.claimLowest(ParkingType.CAR));
+		assertFalse(freeSpotIndex.claim(1, ParkingType.CAR));
+	}
+}
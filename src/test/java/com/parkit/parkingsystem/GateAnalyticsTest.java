@@ -0,0 +1,131 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.analytics.GateAnalytics;
+import com.parkit.parkingsystem.analytics.WindowStats;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.model.ExitResult;
+import com.parkit.parkingsystem.server.GateProtocol;
+import com.parkit.parkingsystem.service.GateService;
+import com.parkit.parkingsystem.simulation.SimulatedClock;
+
+public class GateAnalyticsTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	private SimulatedClock clock;
+	private GateAnalytics analytics;
+	private GateService gateService;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		clock = new SimulatedClock(START);
+		analytics = new GateAnalytics(clock, Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofDays(1));
+		gateService = new GateService(InMemoryParkingSpotStore.fromLayout("CAR:1-10,BIKE:11-12"),
+				new InMemoryTicketStore());
+		gateService.setAnalytics(analytics);
+	}
+
+	@Test
+	public void slidingWindowCountsTheTrafficOfItsBuckets() {
+		enter(ParkingType.CAR, "AAA");
+		enter(ParkingType.CAR, "BBB");
+		enter(ParkingType.BIKE, "CCC");
+		clock.advance(Duration.ofMinutes(90));
+		double fare = exit("AAA").getFare();
+
+		WindowStats window = analytics.getSlidingWindow();
+
+		// the entries left the window, the exit did not
+		assertThat(window.getEntries(ParkingType.CAR)).isZero();
+		assertThat(window.getExits(ParkingType.CAR)).isEqualTo(1);
+		assertThat(window.getRevenue(ParkingType.CAR)).isCloseTo(fare, within(0.01));
+		assertThat(window.getPeakOccupied(ParkingType.CAR)).isEqualTo(2);
+		assertThat(window.getDwellMinutesAtPercentile(ParkingType.CAR, 50)).isBetween(90L, 95L);
+		assertThat(window.getAverageDwellMinutes(ParkingType.CAR)).isEqualTo(90.0);
+		assertThat(window.getEnd()).isEqualTo(START.plusMinutes(91));
+		assertThat(analytics.getOccupied(ParkingType.CAR)).isEqualTo(1);
+		assertThat(analytics.getOccupied(ParkingType.BIKE)).isEqualTo(1);
+	}
+
+	@Test
+	public void dwellPercentilesFollowTheStays() {
+		for (int i = 0; i < 10; i++) {
+			enter(ParkingType.CAR, "CAR" + i);
+		}
+		for (int i = 0; i < 10; i++) {
+			clock.advance(Duration.ofMinutes(10));
+			exit("CAR" + i);
+		}
+
+		WindowStats period = analytics.getCurrentPeriod();
+		WindowStats window = analytics.getSlidingWindow();
+
+		assertThat(period.getExits(ParkingType.CAR)).isEqualTo(10);
+		assertThat(period.getDwellMinutesAtPercentile(ParkingType.CAR, 50)).isBetween(50L, 55L);
+		assertThat(period.getDwellMinutesAtPercentile(ParkingType.CAR, 100)).isBetween(100L, 111L);
+		assertThat(period.getPeakOccupied(ParkingType.CAR)).isEqualTo(10);
+		// the last hour saw the stays of 50 to 100 minutes
+		assertThat(window.getExits(ParkingType.CAR)).isEqualTo(6);
+		assertThat(window.getDwellMinutesAtPercentile(ParkingType.CAR, 0)).isBetween(50L, 55L);
+		assertThat(window.getPeakOccupied(ParkingType.CAR)).isEqualTo(6);
+	}
+
+	@Test
+	public void tumblingPeriodRollsOverAtMidnight() {
+		enter(ParkingType.CAR, "AAA");
+		double fare = exitAfter("AAA", Duration.ofHours(3));
+
+		clock.advance(Duration.ofDays(1));
+		enter(ParkingType.BIKE, "BBB");
+
+		WindowStats previous = analytics.getPreviousPeriod();
+		assertThat(previous.getStart()).isEqualTo(START.toLocalDate().atStartOfDay());
+		assertThat(previous.getEntries(ParkingType.CAR)).isEqualTo(1);
+		assertThat(previous.getTotalRevenue()).isCloseTo(fare, within(0.01));
+		WindowStats current = analytics.getCurrentPeriod();
+		assertThat(current.getEntries(ParkingType.CAR)).isZero();
+		assertThat(current.getEntries(ParkingType.BIKE)).isEqualTo(1);
+		assertThat(current.getTotalRevenue()).isZero();
+	}
+
+	@Test
+	public void statsCommandAnswersFromTheAggregates() {
+		enter(ParkingType.CAR, "AAA");
+
+		GateProtocol protocol = new GateProtocol(gateService);
+
+		assertThat(protocol.handle("STATS")).isEqualTo("OK " + START.minusMinutes(59) + " " + START.plusMinutes(1)
+				+ " CAR 1 0 0.0 1 0 0 BIKE 0 0 0.0 0 0 0");
+		assertThat(protocol.handle("STATS PERIOD")).startsWith("OK 2021-09-14T00:00 2021-09-15T00:00 CAR 1 ");
+		assertThat(protocol.handle("STATS HOUR")).isEqualTo("ERR INVALID_REQUEST");
+	}
+
+	private void enter(ParkingType parkingType, String vehicleRegNumber) {
+		assertThat(gateService.enter(new EntryRequest(parkingType, vehicleRegNumber, clock.getDateTime())).isAccepted())
+				.isTrue();
+	}
+
+	private ExitResult exit(String vehicleRegNumber) {
+		ExitResult result = gateService.exit(new ExitRequest(vehicleRegNumber, clock.getDateTime()));
+		assertThat(result.isAccepted()).isTrue();
+		return result;
+	}
+
+	private double exitAfter(String vehicleRegNumber, Duration stay) {
+		clock.advance(stay);
+		return exit(vehicleRegNumber).getFare();
+	}
+}
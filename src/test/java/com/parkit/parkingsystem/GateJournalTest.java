@@ -0,0 +1,150 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.journal.GateEvent;
+import com.parkit.parkingsystem.journal.GateJournal;
+import com.parkit.parkingsystem.journal.GateJournalReader;
+import com.parkit.parkingsystem.journal.GateJournalReplayer;
+import com.parkit.parkingsystem.journal.JournalRecovery;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.service.GateService;
+
+public class GateJournalTest {
+
+	private static final LocalDateTime IN_TIME = LocalDateTime.of(2020, 1, 1, 10, 0, 0, 123456789);
+
+	private Path path;
+
+	@BeforeEach
+	private void setUpPerTest() throws Exception {
+		path = Files.createTempFile("gate-journal", ".bin");
+		Files.delete(path);
+	}
+
+	@AfterEach
+	private void tearDownPerTest() throws Exception {
+		Files.deleteIfExists(path);
+	}
+
+	private static GateService newGateService() {
+		return new GateService(InMemoryParkingSpotStore.fromLayout("CAR:1-3,BIKE:4-5"), new InMemoryTicketStore());
+	}
+
+	private static List<GateEvent> readAll(Path path) throws Exception {
+		try (GateJournalReader reader = new GateJournalReader(path)) {
+			return reader.readAll();
+		}
+	}
+
+	@Test
+	public void gateEventsAreJournaledInOrder() throws Exception {
+		GateService gateService = newGateService();
+		try (GateJournal journal = new GateJournal(path, 1024, false)) {
+			gateService.addListener(journal);
+			gateService.enter(new EntryRequest(ParkingType.CAR, "ABCDEF", IN_TIME));
+			gateService.exit(new ExitRequest("ABCDEF", IN_TIME.plusHours(1)));
+		}
+
+		List<GateEvent> events = readAll(path);
+
+		assertThat(events).extracting(GateEvent::getType).containsExactly(GateEvent.Type.SPOT_CLAIMED,
+				GateEvent.Type.ENTRY, GateEvent.Type.EXIT, GateEvent.Type.SPOT_RELEASED);
+		assertThat(events).extracting(GateEvent::getSequence).containsExactly(1L, 2L, 3L, 4L);
+		GateEvent exit = events.get(2);
+		assertThat(exit.getVehicleRegNumber()).isEqualTo("ABCDEF");
+		assertThat(exit.getInTime()).isEqualTo(IN_TIME);
+		assertThat(exit.getOutTime()).isEqualTo(IN_TIME.plusHours(1));
+		assertThat(exit.getPrice()).isPositive();
+	}
+
+	@Test
+	public void recordsRollOverToTheNextRegionAndReopenContinues() throws Exception {
+		try (GateJournal journal = new GateJournal(path, 1024, false)) {
+			for (int i = 0; i < 30; i++) {
+				journal.append(GateEvent.Type.ENTRY, 1, ParkingType.CAR, i, "CAR" + i, IN_TIME, null, 0, false);
+			}
+		}
+		try (GateJournal journal = new GateJournal(path, 1024, false)) {
+			assertThat(journal.getNextSequence()).isEqualTo(31);
+			journal.append(GateEvent.Type.ENTRY, 1, ParkingType.CAR, 30, "CAR30", IN_TIME, null, 0, false);
+		}
+
+		List<GateEvent> events = readAll(path);
+
+		assertThat(events).hasSize(31);
+		assertThat(events.get(30).getVehicleRegNumber()).isEqualTo("CAR30");
+		assertThat(Files.size(path)).isGreaterThan(1024);
+	}
+
+	@Test
+	public void readingStopsAtATornRecord() throws Exception {
+		try (GateJournal journal = new GateJournal(path, 1024, false)) {
+			journal.append(GateEvent.Type.ENTRY, 1, ParkingType.CAR, 1, "ABCDEF", IN_TIME, null, 0, false);
+			journal.append(GateEvent.Type.ENTRY, 2, ParkingType.CAR, 2, "BCDEFG", IN_TIME, null, 0, false);
+		}
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			// corrupt the last byte of the second record's vehicle number
+			long secondRecordEnd = 16 + 2 * (8 + 44 + 6);
+			file.seek(secondRecordEnd - 1);
+			file.write('X');
+		}
+
+		assertThat(readAll(path)).extracting(GateEvent::getVehicleRegNumber).containsExactly("ABCDEF");
+	}
+
+	@Test
+	public void replayReproducesTheFares() throws Exception {
+		GateService gateService = newGateService();
+		try (GateJournal journal = new GateJournal(path, 1024, false)) {
+			gateService.addListener(journal);
+			gateService.enter(new EntryRequest(ParkingType.CAR, "ABCDEF", IN_TIME));
+			gateService.enter(new EntryRequest(ParkingType.BIKE, "BCDEFG", IN_TIME));
+			gateService.exit(new ExitRequest("ABCDEF", IN_TIME.plusHours(2)));
+		}
+
+		GateJournalReplayer.Report report;
+		try (GateJournalReader reader = new GateJournalReader(path)) {
+			report = new GateJournalReplayer().replay(reader, 1, Long.MAX_VALUE, newGateService());
+		}
+
+		assertThat(report.getEntries()).isEqualTo(2);
+		assertThat(report.getExits()).isEqualTo(1);
+		assertThat(report.getRejected()).isZero();
+		assertThat(report.getFareMismatches()).isZero();
+	}
+
+	@Test
+	public void recoveredStateKeepsTheLastEventOfEachSpotAndTicket() throws Exception {
+		GateService gateService = newGateService();
+		try (GateJournal journal = new GateJournal(path, 1024, false)) {
+			gateService.addListener(journal);
+			gateService.enter(new EntryRequest(ParkingType.CAR, "ABCDEF", IN_TIME));
+			gateService.enter(new EntryRequest(ParkingType.CAR, "BCDEFG", IN_TIME));
+			gateService.exit(new ExitRequest("ABCDEF", IN_TIME.plusHours(2)));
+		}
+
+		JournalRecovery.RecoveredState state;
+		try (GateJournalReader reader = new GateJournalReader(path)) {
+			state = new JournalRecovery().read(reader);
+		}
+
+		assertThat(state.getSpotAvailability()).containsEntry(1, true).containsEntry(2, false);
+		assertThat(state.getTickets().values()).extracting(GateEvent::getType)
+				.containsExactly(GateEvent.Type.EXIT, GateEvent.Type.ENTRY);
+	}
+}
@@ -0,0 +1,114 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.server.GateServer;
+import com.parkit.parkingsystem.service.GateService;
+
+public class GateServerTest {
+
+	private GateServer server;
+
+	@BeforeEach
+	private void setUpPerTest() throws IOException {
+		GateService gateService = new GateService(InMemoryParkingSpotStore.fromLayout("CAR:1-50,BIKE:51-60"),
+				new InMemoryTicketStore());
+		server = new GateServer(gateService, 0, 100, 8, 1000, 0);
+		server.start();
+	}
+
+	@AfterEach
+	private void tearDownPerTest() {
+		server.shutdown(1000);
+	}
+
+	private static class Terminal implements AutoCloseable {
+		private final Socket socket;
+		private final BufferedReader in;
+		private final PrintWriter out;
+
+		Terminal(int port) throws IOException {
+			socket = new Socket("localhost", port);
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+		}
+
+		String send(String request) throws IOException {
+			out.println(request);
+			return in.readLine();
+		}
+
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+
+	@Test
+	public void terminalEntersAndExits() throws IOException {
+		try (Terminal terminal = new Terminal(server.getPort())) {
+			assertThat(terminal.send("ENTER CAR ABCDEF 2021-09-14T08:00:00")).startsWith("OK 1 ");
+			assertThat(terminal.send("OCCUPANCY")).isEqualTo("OK CAR 49 50 BIKE 10 10");
+			assertThat(terminal.send("EXIT ABCDEF 2021-09-14T10:00:00")).startsWith("OK 180.0 ");
+			assertThat(terminal.send("EXIT ABCDEF")).isEqualTo("ERR NOT_PARKED");
+			assertThat(terminal.send("ENTER TRUCK ABCDEF")).isEqualTo("ERR INVALID_REQUEST");
+			assertThat(terminal.send("QUIT")).isEqualTo("BYE");
+		}
+	}
+
+	@Test
+	public void concurrentTerminalsGetDistinctSpots() throws Exception {
+		ExecutorService lanes = Executors.newFixedThreadPool(20);
+		List<Future<String>> responses = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			String vehicleRegNumber = "CAR" + i;
+			responses.add(lanes.submit(() -> {
+				try (Terminal terminal = new Terminal(server.getPort())) {
+					return terminal.send("ENTER CAR " + vehicleRegNumber);
+				}
+			}));
+		}
+		List<String> spots = new ArrayList<>();
+		for (Future<String> response : responses) {
+			String[] words = response.get().split(" ");
+			assertThat(words[0]).isEqualTo("OK");
+			spots.add(words[1]);
+		}
+		lanes.shutdown();
+
+		assertThat(spots).doesNotHaveDuplicates().hasSize(40);
+	}
+
+	@Test
+	public void shutdownClosesIdleTerminalsAndStopsAccepting() throws Exception {
+		int port = server.getPort();
+		try (Terminal terminal = new Terminal(port)) {
+			assertThat(terminal.send("PING")).isEqualTo("PONG");
+
+			assertThat(server.shutdown(1000)).isTrue();
+
+			assertThat(terminal.in.readLine()).isNull();
+		}
+		assertThrows(IOException.class, () -> new Terminal(port).send("PING"));
+	}
+}
@@ -0,0 +1,98 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.model.ExitResult;
+import com.parkit.parkingsystem.service.GateService;
+
+public class GateServiceTest {
+
+	private GateService gateService;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		gateService = new GateService(InMemoryParkingSpotStore.fromLayout("CAR:1-3,BIKE:4-5"),
+				new InMemoryTicketStore());
+	}
+
+	@Test
+	public void entryThenExitChargesTheStay() {
+		LocalDateTime inTime = LocalDateTime.of(2020, 1, 1, 10, 0);
+
+		EntryResult entry = gateService.enter(new EntryRequest(ParkingType.CAR, "ABCDEF", inTime));
+		ExitResult exit = gateService.exit(new ExitRequest("ABCDEF", inTime.plusHours(1)));
+
+		assertThat(entry.getStatus()).isEqualTo(GateStatus.ACCEPTED);
+		assertThat(entry.getParkingSpot().getId()).isEqualTo(1);
+		assertThat(entry.isDiscount()).isFalse();
+		assertThat(exit.getStatus()).isEqualTo(GateStatus.ACCEPTED);
+		assertThat(exit.getFare()).isPositive();
+	}
+
+	@Test
+	public void exitWithoutEntryIsRejected() {
+		ExitResult exit = gateService.exit(new ExitRequest("ABCDEF", LocalDateTime.now()));
+
+		assertThat(exit.getStatus()).isEqualTo(GateStatus.NOT_PARKED);
+	}
+
+	@Test
+	public void secondExitIsRejected() {
+		LocalDateTime inTime = LocalDateTime.of(2020, 1, 1, 10, 0);
+		gateService.enter(new EntryRequest(ParkingType.BIKE, "ABCDEF", inTime));
+		gateService.exit(new ExitRequest("ABCDEF", inTime.plusHours(1)));
+
+		ExitResult exit = gateService.exit(new ExitRequest("ABCDEF", inTime.plusHours(2)));
+
+		assertThat(exit.getStatus()).isEqualTo(GateStatus.NOT_PARKED);
+	}
+
+	@Test
+	public void blankPlateIsInvalid() {
+		EntryResult entry = gateService.enter(new EntryRequest(ParkingType.CAR, " ", LocalDateTime.now()));
+
+		assertThat(entry.getStatus()).isEqualTo(GateStatus.INVALID_REQUEST);
+	}
+
+	@Test
+	public void concurrentEntriesNeverShareASpot() throws Exception {
+		ExecutorService gates = Executors.newFixedThreadPool(8);
+		List<Future<EntryResult>> entries = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			String vehicleRegNumber = "CAR" + i;
+			entries.add(gates.submit(
+					() -> gateService.enter(new EntryRequest(ParkingType.CAR, vehicleRegNumber, LocalDateTime.now()))));
+		}
+		List<Integer> spots = new ArrayList<>();
+		int full = 0;
+		for (Future<EntryResult> entry : entries) {
+			EntryResult result = entry.get();
+			if (result.isAccepted()) {
+				spots.add(result.getParkingSpot().getId());
+			} else if (result.getStatus() == GateStatus.LOT_FULL) {
+				full++;
+			}
+		}
+		gates.shutdown();
+
+		assertThat(spots).containsExactlyInAnyOrder(1, 2, 3);
+		assertThat(full).isEqualTo(17);
+	}
+}
@@ -0,0 +1,78 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.FreeSpotIndex;
+import com.parkit.parkingsystem.dao.GateSnapshot;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.BloomFilter;
+
+public class GateSnapshotTest {
+
+	private Path directory;
+	private Path path;
+
+	@BeforeEach
+	private void setUpPerTest() throws IOException {
+		directory = Files.createTempDirectory("gate-snapshot");
+		path = directory.resolve("gate-snapshot.bin");
+	}
+
+	@AfterEach
+	private void tearDownPerTest() throws IOException {
+		Files.deleteIfExists(path);
+		Files.deleteIfExists(directory);
+	}
+
+	@Test
+	public void snapshotRestoresTheIndexes() throws IOException {
+		FreeSpotIndex freeSpotIndex = new FreeSpotIndex();
+		freeSpotIndex.markFree(2, ParkingType.CAR);
+		freeSpotIndex.markFree(3, ParkingType.CAR);
+		freeSpotIndex.markFree(5, ParkingType.BIKE);
+		Ticket ticket = new Ticket();
+		ticket.setId(42);
+		ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+		ticket.setVehicleRegNumber("ABCDEF");
+		ticket.setInTime(LocalDateTime.of(2021, 9, 14, 8, 0, 30, 500_000_000));
+		ticket.setDiscount(true);
+		BloomFilter knownVehicles = new BloomFilter(1000, 0.01);
+		knownVehicles.add("ABCDEF");
+
+		new GateSnapshot(1234L, freeSpotIndex, new int[] { 3, 2 }, Collections.singletonList(ticket), knownVehicles)
+				.write(path);
+		GateSnapshot restored = GateSnapshot.read(path);
+
+		assertThat(restored.getWrittenAtMillis()).isEqualTo(1234L);
+		assertThat(restored.getFreeSpotIndex().getFreeSpots(ParkingType.CAR)).containsExactly(2, 3);
+		assertThat(restored.getFreeSpotIndex().getFreeSpots(ParkingType.BIKE)).containsExactly(5);
+		assertThat(restored.getTotalSpots()).containsExactly(3, 2);
+		Ticket openTicket = restored.getOpenTicketIndex().get("ABCDEF");
+		assertThat(openTicket.getId()).isEqualTo(42);
+		assertThat(openTicket.getParkingSpot()).isEqualTo(ticket.getParkingSpot());
+		assertThat(openTicket.getInTime()).isEqualTo(ticket.getInTime());
+		assertThat(openTicket.isDiscount()).isTrue();
+		assertThat(restored.getKnownVehicles().mightContain("ABCDEF")).isTrue();
+		assertThat(restored.getKnownVehicles().getBitCount()).isEqualTo(knownVehicles.getBitCount());
+	}
+
+	@Test
+	public void foreignFileIsRejected() throws IOException {
+		Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+		assertThrows(IOException.class, () -> GateSnapshot.read(path));
+	}
+}
@@ -0,0 +1,96 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Clock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.InputReaderUtil;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryStorageTest {
+
+	@Mock
+	private InputReaderUtil inputReaderUtil;
+
+	private InMemoryParkingSpotStore parkingSpotStore;
+	private InMemoryTicketStore ticketStore;
+	private ParkingService parkingService;
+
+	@BeforeEach
+	private void setUpPerTest() throws Exception {
+		when(inputReaderUtil.readSelection()).thenReturn(1);
+		when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF");
+		parkingSpotStore = InMemoryParkingSpotStore.fromLayout("CAR:1-3,BIKE:4-5");
+		ticketStore = new InMemoryTicketStore();
+		parkingService = new ParkingService(inputReaderUtil, parkingSpotStore, ticketStore);
+	}
+
+	@Test
+	public void parkingACarTakesTheLowestSpot() {
+		parkingService.processIncomingVehicle();
+
+		Ticket ticket = ticketStore.getTicket("ABCDEF");
+		assertThat(ticket.getParkingSpot().getId()).isEqualTo(1);
+		assertThat(ticket.getOutTime()).isNull();
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(2);
+		assertThat(parkingSpotStore.getOccupancy().getFree(ParkingType.CAR)).isEqualTo(2);
+	}
+
+	@Test
+	public void serviceReportsToItsConsole() {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		parkingService = new ParkingService(inputReaderUtil, parkingSpotStore, ticketStore, TransactionRunner.NONE,
+				Clock.systemDefaultZone(), new PrintStream(output, true));
+
+		parkingService.processIncomingVehicle();
+
+		assertThat(output.toString()).contains("Please park your vehicle in spot number:1");
+	}
+
+	@Test
+	public void exitingCarReleasesItsSpot() {
+		parkingService.processIncomingVehicle();
+
+		parkingService.processExitingVehicle();
+
+		assertThat(ticketStore.getTicket("ABCDEF").getOutTime()).isNotNull();
+		assertThat(ticketStore.getOpenTicketCount()).isZero();
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(1);
+		assertThat(parkingSpotStore.getOccupancy().getOccupied(ParkingType.CAR)).isZero();
+	}
+
+	@Test
+	public void returningCarIsRecurring() {
+		parkingService.processIncomingVehicle();
+		parkingService.processExitingVehicle();
+
+		parkingService.processIncomingVehicle();
+
+		assertThat(ticketStore.getTicket("ABCDEF").isDiscount()).isTrue();
+	}
+
+	@Test
+	public void fullLotAllocatesNothing() {
+		when(inputReaderUtil.readSelection()).thenReturn(2);
+		parkingService.processIncomingVehicle();
+		parkingService.processIncomingVehicle();
+
+		assertThat(parkingSpotStore.claimNextAvailableSlot(ParkingType.BIKE)).isZero();
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(1);
+	}
+}
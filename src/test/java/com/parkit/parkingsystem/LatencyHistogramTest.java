@@ -0,0 +1,60 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.metrics.LatencyHistogram;
+import com.parkit.parkingsystem.metrics.MetricsRegistry;
+import com.parkit.parkingsystem.metrics.OperationMetrics;
+
+public class LatencyHistogramTest {
+
+	private LatencyHistogram histogram;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void percentilesAreWithinBucketPrecision() {
+		for (long micros = 1; micros <= 1000; micros++) {
+			histogram.record(micros * 1000);
+		}
+
+		assertThat(histogram.getCount()).isEqualTo(1000);
+		assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(500000, within(500000 * 0.07));
+		assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(990000, within(990000 * 0.07));
+		assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1000000);
+		assertThat(histogram.getMean()).isCloseTo(500500, within(1.0));
+	}
+
+	@Test
+	public void smallValuesAreExact() {
+		histogram.record(3);
+		histogram.record(7);
+
+		assertThat(histogram.getValueAtPercentile(50)).isEqualTo(3);
+		assertThat(histogram.getMax()).isEqualTo(7);
+	}
+
+	@Test
+	public void emptyHistogramReportsZero() {
+		assertThat(histogram.getValueAtPercentile(99)).isZero();
+		assertThat(histogram.getMean()).isZero();
+	}
+
+	@Test
+	public void errorsAreCountedSeparately() {
+		OperationMetrics metrics = MetricsRegistry.operation("test.errorsAreCountedSeparately");
+
+		metrics.record(metrics.start(), true);
+		metrics.record(metrics.start(), false);
+
+		assertThat(metrics.getCount()).isEqualTo(2);
+		assertThat(metrics.getErrorCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,80 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.OccupancyCounters;
+import com.parkit.parkingsystem.model.OccupancySnapshot;
+
+public class OccupancyCountersTest {
+
+	private OccupancyCounters counters;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		counters = new OccupancyCounters();
+		counters.reset(new int[] { 10, 4 }, new int[] { 10, 5 });
+	}
+
+	@Test
+	public void flipsOnlyChangeTheirType() {
+		counters.spotTaken(ParkingType.CAR);
+		counters.spotTaken(ParkingType.CAR);
+		counters.spotFreed(ParkingType.BIKE);
+
+		OccupancySnapshot snapshot = counters.snapshot();
+		assertThat(snapshot.getFree(ParkingType.CAR)).isEqualTo(8);
+		assertThat(snapshot.getOccupied(ParkingType.CAR)).isEqualTo(2);
+		assertThat(snapshot.getFree(ParkingType.BIKE)).isEqualTo(5);
+		assertThat(snapshot.toString()).isEqualTo("CAR 8 10 BIKE 5 5");
+	}
+
+	@Test
+	public void driftBelowZeroDoesNotLeakIntoTheOtherType() {
+		counters.reset(new int[] { 0, 4 }, new int[] { 10, 5 });
+
+		counters.spotTaken(ParkingType.CAR);
+		assertThat(counters.snapshot().getFree(ParkingType.CAR)).isZero();
+		assertThat(counters.snapshot().getFree(ParkingType.BIKE)).isEqualTo(4);
+
+		counters.spotFreed(ParkingType.CAR);
+		counters.spotFreed(ParkingType.CAR);
+		assertThat(counters.snapshot().getFree(ParkingType.CAR)).isEqualTo(1);
+	}
+
+	@Test
+	public void concurrentFlipsAreNotLost() throws Exception {
+		counters.reset(new int[] { 10_000, 5 }, new int[] { 10_000, 5 });
+		ExecutorService gates = Executors.newFixedThreadPool(8);
+		List<Future<?>> done = new ArrayList<>();
+		for (int gate = 0; gate < 8; gate++) {
+			done.add(gates.submit(() -> {
+				for (int i = 0; i < 1000; i++) {
+					counters.spotTaken(ParkingType.CAR);
+				}
+			}));
+		}
+		for (Future<?> gate : done) {
+			gate.get();
+		}
+		gates.shutdown();
+
+		assertThat(counters.snapshot().getFree(ParkingType.CAR)).isEqualTo(2000);
+		assertThat(counters.snapshot().getFree(ParkingType.BIKE)).isEqualTo(5);
+	}
+
+	@Test
+	public void inconsistentCountsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> counters.reset(new int[] { 11, 0 }, new int[] { 10, 0 }));
+	}
+}
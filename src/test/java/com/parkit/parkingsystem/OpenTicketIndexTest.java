@@ -0,0 +1,68 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.OpenTicketIndex;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+public class OpenTicketIndexTest {
+
+	private OpenTicketIndex index;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		index = new OpenTicketIndex();
+	}
+
+	private static Ticket newTicket(int id, String vehicleRegNumber, LocalDateTime inTime) {
+		Ticket ticket = new Ticket();
+		ticket.setId(id);
+		ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+		ticket.setVehicleRegNumber(vehicleRegNumber);
+		ticket.setInTime(inTime);
+		return ticket;
+	}
+
+	@Test
+	public void indexedTicketIsReturnedAsCopy() {
+		Ticket ticket = newTicket(1, "ABCDEF", LocalDateTime.now());
+		index.put(ticket);
+
+		Ticket indexed = index.get("ABCDEF");
+
+		assertNotSame(ticket, indexed);
+		assertEquals(1, indexed.getId());
+		indexed.setOutTime(LocalDateTime.now());
+		assertNull(index.get("ABCDEF").getOutTime());
+	}
+
+	@Test
+	public void mostRecentTicketIsKept() {
+		LocalDateTime now = LocalDateTime.now();
+		index.put(newTicket(2, "ABCDEF", now));
+		index.put(newTicket(1, "ABCDEF", now.minusHours(1)));
+
+		assertEquals(2, index.get("ABCDEF").getId());
+	}
+
+	@Test
+	public void removeIgnoresOtherTicketOfSameVehicle() {
+		LocalDateTime now = LocalDateTime.now();
+		index.put(newTicket(2, "ABCDEF", now));
+
+		index.remove(newTicket(1, "ABCDEF", now.minusHours(1)));
+		assertEquals(1, index.size());
+
+		index.remove(newTicket(2, "ABCDEF", now));
+		assertNull(index.get("ABCDEF"));
+	}
+}
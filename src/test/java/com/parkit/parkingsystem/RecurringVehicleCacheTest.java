@@ -0,0 +1,94 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.dao.RecurringVehicleCache;
+import com.parkit.parkingsystem.dao.TicketDAO;
+
+public class RecurringVehicleCacheTest {
+
+	@Test
+	public void knownVehiclesAreNeverReportedAsNew() {
+		RecurringVehicleCache cache = new RecurringVehicleCache(10000, 0.01, 100);
+		for (int i = 0; i < 10000; i++) {
+			cache.addKnown("KNOWN" + i);
+		}
+
+		for (int i = 0; i < 10000; i++) {
+			assertThat(cache.mightBeRecurring("KNOWN" + i)).isTrue();
+		}
+	}
+
+	@Test
+	public void newVehiclesAreMostlyRejectedWithoutDatabase() {
+		RecurringVehicleCache cache = new RecurringVehicleCache(10000, 0.01, 100);
+		for (int i = 0; i < 10000; i++) {
+			cache.addKnown("KNOWN" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (cache.mightBeRecurring("NEW" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives).isLessThan(300);
+	}
+
+	@Test
+	public void confirmedVehiclesAreBounded() {
+		RecurringVehicleCache cache = new RecurringVehicleCache(1000, 0.01, 2);
+		cache.addConfirmed("ABCDEF");
+		cache.addConfirmed("BCDEFG");
+		cache.addConfirmed("CDEFGH");
+
+		assertThat(cache.getConfirmedCount()).isEqualTo(2);
+		assertThat(cache.isConfirmed("ABCDEF")).isFalse();
+		assertThat(cache.isConfirmed("CDEFGH")).isTrue();
+		assertThat(cache.mightBeRecurring("ABCDEF")).isTrue();
+	}
+
+	@Test
+	public void vehiclesParkedByOtherProcessesAreAddedByTheRefresh() throws Exception {
+		Connection con = mock(Connection.class);
+		PreparedStatement ps = mock(PreparedStatement.class);
+		ResultSet rs = mock(ResultSet.class);
+		when(con.prepareStatement(DBConstants.GET_VEHICLES_WITH_TICKET_AFTER)).thenReturn(ps);
+		when(ps.executeQuery()).thenReturn(rs);
+		when(rs.next()).thenReturn(true, true, false, false, false);
+		when(rs.getString(1)).thenReturn("OTHER1", "OTHER2");
+		when(rs.getLong(2)).thenReturn(5L, 7L);
+		TicketDAO ticketDAO = new TicketDAO();
+		ticketDAO.dataBaseConfig = mock(DataBaseConfig.class);
+		when(ticketDAO.dataBaseConfig.getConnection()).thenReturn(con);
+		RecurringVehicleCache cache = new RecurringVehicleCache(1000, 0.01, 10);
+		ticketDAO.restore(null, cache);
+		try {
+			assertThat(ticketDAO.refreshRecurringVehicleCache()).isTrue();
+			assertThat(cache.mightBeRecurring("OTHER1")).isTrue();
+			assertThat(cache.mightBeRecurring("OTHER2")).isTrue();
+
+			ticketDAO.refreshRecurringVehicleCache();
+			ticketDAO.refreshRecurringVehicleCache();
+			// each refresh rescans from the id reached two refreshes ago
+			InOrder scans = inOrder(ps);
+			scans.verify(ps).setLong(1, 0);
+			scans.verify(ps).setLong(1, 0);
+			scans.verify(ps).setLong(1, 7);
+		} finally {
+			ticketDAO.close();
+		}
+	}
+}
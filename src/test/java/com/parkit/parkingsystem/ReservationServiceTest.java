@@ -0,0 +1,172 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryReservationStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Reservation;
+import com.parkit.parkingsystem.model.ReservationResult;
+import com.parkit.parkingsystem.service.GateService;
+import com.parkit.parkingsystem.service.ReservationService;
+import com.parkit.parkingsystem.simulation.SimulatedClock;
+
+public class ReservationServiceTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	private SimulatedClock clock;
+	private InMemoryParkingSpotStore parkingSpotStore;
+	private InMemoryReservationStore reservationStore;
+	private ReservationService reservationService;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		clock = new SimulatedClock(START);
+		parkingSpotStore = InMemoryParkingSpotStore.fromLayout("CAR:1-2,BIKE:3");
+		reservationStore = new InMemoryReservationStore();
+		reservationService = newReservationService();
+	}
+
+	private ReservationService newReservationService() {
+		return new ReservationService(parkingSpotStore, reservationStore, TransactionRunner.NONE, clock, 1000, 64,
+				Duration.ofDays(1));
+	}
+
+	@Test
+	public void reservationHoldsASpotUntilItExpires() {
+		ReservationResult result = reservationService.reserve(ParkingType.CAR, "ABCDEF", Duration.ofMinutes(30));
+
+		assertThat(result.isAccepted()).isTrue();
+		assertThat(result.getReservation().getParkingSpot().getId()).isEqualTo(1);
+		assertThat(result.getReservation().getReservedUntil()).isEqualTo(START.plusMinutes(30));
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(2);
+		assertThat(reservationService.reserve(ParkingType.CAR, "ABCDEF", Duration.ofMinutes(30)).getStatus())
+				.isEqualTo(GateStatus.ALREADY_RESERVED);
+
+		clock.advance(Duration.ofMinutes(29));
+		assertThat(reservationService.expire()).isZero();
+		clock.advance(Duration.ofMinutes(1));
+		assertThat(reservationService.expire()).isEqualTo(1);
+
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(1);
+		assertThat(reservationService.getReservation("ABCDEF")).isNull();
+		assertThat(reservationStore.getReservations()).isEmpty();
+	}
+
+	@Test
+	public void vehicleEntersOnItsHeldSpot() {
+		GateService gateService = new GateService(parkingSpotStore, new InMemoryTicketStore());
+		gateService.setReservationService(reservationService);
+		reservationService.reserve(ParkingType.CAR, "ABCDEF", Duration.ofMinutes(30));
+
+		EntryResult other = gateService.enter(new EntryRequest(ParkingType.CAR, "GHIJKL", START));
+		EntryResult reserved = gateService.enter(new EntryRequest(ParkingType.CAR, "ABCDEF", START));
+
+		assertThat(other.getParkingSpot().getId()).isEqualTo(2);
+		assertThat(reserved.getParkingSpot().getId()).isEqualTo(1);
+		assertThat(reservationService.getReservationCount()).isZero();
+		assertThat(reservationStore.getReservations()).isEmpty();
+		// the hold is gone, its expiry must not free the occupied spot
+		clock.advance(Duration.ofHours(1));
+		assertThat(reservationService.expire()).isZero();
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isZero();
+	}
+
+	@Test
+	public void cancelGivesTheSpotBack() {
+		reservationService.reserve(ParkingType.BIKE, "ABCDEF", Duration.ofMinutes(30));
+
+		assertThat(reservationService.cancel("ABCDEF").isAccepted()).isTrue();
+
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.BIKE)).isEqualTo(3);
+		assertThat(reservationService.cancel("ABCDEF").getStatus()).isEqualTo(GateStatus.NOT_RESERVED);
+	}
+
+	@Test
+	public void savedHoldsAreRestoredAfterARestart() {
+		parkingSpotStore.updateParking(new ParkingSpot(2, ParkingType.CAR, false));
+		Reservation pending = new Reservation(new ParkingSpot(2, ParkingType.CAR, false), "ABCDEF",
+				START.plusMinutes(10));
+		reservationStore.saveReservation(pending);
+		Reservation expired = new Reservation(new ParkingSpot(1, ParkingType.CAR, false), "GHIJKL",
+				START.minusMinutes(1));
+		parkingSpotStore.updateParking(new ParkingSpot(1, ParkingType.CAR, false));
+		reservationStore.saveReservation(expired);
+
+		ReservationService restarted = newReservationService();
+		assertThat(restarted.restore()).isEqualTo(2);
+
+		assertThat(restarted.expire()).isEqualTo(1);
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(1);
+		assertThat(restarted.getReservation("ABCDEF").getParkingSpot().getId()).isEqualTo(2);
+		clock.advance(Duration.ofMinutes(10));
+		assertThat(restarted.expire()).isEqualTo(1);
+	}
+
+	@Test
+	public void failedReleaseIsRetriedOnTheNextTick() {
+		reservationStore = new InMemoryReservationStore() {
+			private boolean failed;
+
+			@Override
+			public boolean deleteReservation(int id) {
+				if (!failed) {
+					failed = true;
+					throw new IllegalStateException("database unreachable");
+				}
+				return super.deleteReservation(id);
+			}
+		};
+		reservationService = newReservationService();
+		reservationService.reserve(ParkingType.CAR, "ABCDEF", Duration.ofMinutes(30));
+
+		clock.advance(Duration.ofMinutes(30));
+		assertThat(reservationService.expire()).isZero();
+		assertThat(reservationService.getReservation("ABCDEF")).isNotNull();
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(2);
+
+		clock.advance(Duration.ofSeconds(1));
+		assertThat(reservationService.expire()).isEqualTo(1);
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(1);
+		assertThat(reservationService.getReservationCount()).isZero();
+	}
+
+	@Test
+	public void failedCancelIsRetriedOnTheNextTick() {
+		reservationStore = new InMemoryReservationStore() {
+			private boolean failed;
+
+			@Override
+			public boolean deleteReservation(int id) {
+				if (!failed) {
+					failed = true;
+					return false;
+				}
+				return super.deleteReservation(id);
+			}
+		};
+		reservationService = newReservationService();
+		reservationService.reserve(ParkingType.BIKE, "ABCDEF", Duration.ofMinutes(30));
+
+		assertThat(reservationService.cancel("ABCDEF").getStatus()).isEqualTo(GateStatus.STORE_ERROR);
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.BIKE)).isZero();
+
+		clock.advance(Duration.ofSeconds(1));
+		assertThat(reservationService.expire()).isEqualTo(1);
+		assertThat(parkingSpotStore.getNextAvailableSlot(ParkingType.BIKE)).isEqualTo(3);
+		assertThat(reservationService.getReservation("ABCDEF")).isNull();
+	}
+}
@@ -0,0 +1,131 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.SchemaMigrator;
+import com.parkit.parkingsystem.constants.DBConstants;
+
+public class SchemaMigratorTest {
+
+	private SchemaMigrator schemaMigrator;
+	private Connection con;
+	private Statement statement;
+	private ResultSet currentVersion;
+	private PreparedStatement saveVersion;
+	private PreparedStatement getLock;
+	private ResultSet lockResult;
+	private PreparedStatement releaseLock;
+
+	@BeforeEach
+	public void setUpPerTest() throws Exception {
+		con = mock(Connection.class);
+		statement = mock(Statement.class);
+		currentVersion = mock(ResultSet.class);
+		saveVersion = mock(PreparedStatement.class);
+		getLock = mock(PreparedStatement.class);
+		lockResult = mock(ResultSet.class);
+		releaseLock = mock(PreparedStatement.class);
+		DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+		when(con.getMetaData()).thenReturn(metaData);
+		when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+		when(con.prepareStatement(DBConstants.GET_SCHEMA_LOCK)).thenReturn(getLock);
+		when(getLock.executeQuery()).thenReturn(lockResult);
+		when(lockResult.next()).thenReturn(true);
+		when(lockResult.getInt(1)).thenReturn(1);
+		when(con.prepareStatement(DBConstants.RELEASE_SCHEMA_LOCK)).thenReturn(releaseLock);
+		when(releaseLock.executeQuery()).thenReturn(mock(ResultSet.class));
+		when(con.createStatement()).thenReturn(statement);
+		when(statement.executeQuery(DBConstants.GET_SCHEMA_VERSION)).thenReturn(currentVersion);
+		when(currentVersion.next()).thenReturn(true);
+		when(con.prepareStatement(DBConstants.SAVE_SCHEMA_VERSION)).thenReturn(saveVersion);
+		when(saveVersion.executeUpdate()).thenReturn(1);
+		schemaMigrator = new SchemaMigrator();
+		schemaMigrator.dataBaseConfig = mock(DataBaseConfig.class);
+		when(schemaMigrator.dataBaseConfig.getConnection()).thenReturn(con);
+	}
+
+	@Test
+	public void newDatabaseGetsEveryMigration() throws Exception {
+		when(currentVersion.getInt(1)).thenReturn(0, SchemaMigrator.getLatestVersion());
+
+		assertEquals(SchemaMigrator.getLatestVersion(), schemaMigrator.migrate());
+		verify(saveVersion, times(SchemaMigrator.getLatestVersion())).executeUpdate();
+		verify(statement).execute(startsWith("create table if not exists parking("));
+		verify(statement).execute(startsWith("create table if not exists ticket("));
+		verify(statement).execute("create index TICKET_VEHICLE_IN_TIME on ticket(VEHICLE_REG_NUMBER, IN_TIME)");
+		verify(statement).execute("create index TICKET_OUT_TIME on ticket(OUT_TIME)");
+		verify(statement)
+				.execute("create index PARKING_TYPE_AVAILABLE on parking(TYPE, AVAILABLE, PARKING_NUMBER)");
+	}
+
+	@Test
+	public void upToDateDatabaseIsLeftAlone() throws Exception {
+		when(currentVersion.getInt(1)).thenReturn(SchemaMigrator.getLatestVersion());
+
+		assertEquals(0, schemaMigrator.migrate());
+		verify(saveVersion, never()).executeUpdate();
+		verify(statement, never()).execute(startsWith("create index"));
+	}
+
+	@Test
+	public void versionAppliedWhileWaitingForTheLockIsSkipped() throws Exception {
+		// read once the other process released the lock
+		when(currentVersion.getInt(1)).thenReturn(SchemaMigrator.getLatestVersion());
+
+		assertEquals(0, schemaMigrator.migrate());
+		verify(getLock).executeQuery();
+		verify(saveVersion, never()).executeUpdate();
+		verify(releaseLock).executeQuery();
+	}
+
+	@Test
+	public void lockTimeoutFailsTheStartup() throws Exception {
+		when(currentVersion.getInt(1)).thenReturn(1);
+		when(lockResult.getInt(1)).thenReturn(0);
+
+		assertThrows(SQLException.class, () -> schemaMigrator.migrate());
+		verify(statement, never()).execute(startsWith("create index"));
+		verify(releaseLock, never()).executeQuery();
+	}
+
+	@Test
+	public void failedScriptIsNotRecorded() throws Exception {
+		when(currentVersion.getInt(1)).thenReturn(1);
+		when(statement.execute(anyString())).thenReturn(false);
+		when(statement.execute(startsWith("create index"))).thenThrow(new SQLException("Duplicate key name", "42000"));
+
+		assertThrows(SQLException.class, () -> schemaMigrator.migrate());
+		verify(saveVersion, never()).executeUpdate();
+		verify(releaseLock).executeQuery();
+	}
+
+	@Test
+	public void connectionIsClosedWhenTheLockCannotBeReleased() throws Exception {
+		when(currentVersion.getInt(1)).thenReturn(SchemaMigrator.getLatestVersion());
+		when(releaseLock.executeQuery()).thenThrow(new SQLException("Communications link failure", "08S01"));
+
+		assertEquals(0, schemaMigrator.migrate());
+		// not handed back to the pool with the lock
+		verify(con).close();
+		verify(schemaMigrator.dataBaseConfig).closeConnection(con);
+	}
+}
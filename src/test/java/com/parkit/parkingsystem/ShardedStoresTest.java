@@ -0,0 +1,116 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.dao.ParkingSpotStore;
+import com.parkit.parkingsystem.dao.ShardRouter;
+import com.parkit.parkingsystem.dao.ShardedParkingSpotStore;
+import com.parkit.parkingsystem.dao.ShardedTicketStore;
+import com.parkit.parkingsystem.dao.TicketStore;
+import com.parkit.parkingsystem.model.EntryRequest;
+import com.parkit.parkingsystem.model.EntryResult;
+import com.parkit.parkingsystem.model.ExitRequest;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.GateService;
+
+public class ShardedStoresTest {
+
+	private static final LocalDateTime IN_TIME = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	private InMemoryParkingSpotStore northSpots;
+	private InMemoryParkingSpotStore southSpots;
+	private InMemoryTicketStore northTickets;
+	private InMemoryTicketStore southTickets;
+	private ShardedTicketStore ticketStore;
+	private GateService gateService;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		northSpots = InMemoryParkingSpotStore.fromLayout("CAR:1-2,BIKE:3");
+		southSpots = InMemoryParkingSpotStore.fromLayout("CAR:101-102,BIKE:103");
+		northTickets = new InMemoryTicketStore();
+		southTickets = new InMemoryTicketStore();
+		ticketStore = new ShardedTicketStore(new ShardRouter<TicketStore>(
+				Arrays.asList(new ShardRouter.Shard<>("north", 1, 100, northTickets),
+						new ShardRouter.Shard<>("south", 101, 200, southTickets)),
+				"north"));
+		gateService = new GateService(new ShardedParkingSpotStore(new ShardRouter<ParkingSpotStore>(
+				Arrays.asList(new ShardRouter.Shard<>("north", 1, 100, northSpots),
+						new ShardRouter.Shard<>("south", 101, 200, southSpots)),
+				"north")), ticketStore);
+	}
+
+	@Test
+	public void routerPicksTheShardOwningTheSpot() {
+		ShardRouter<String> router = new ShardRouter<>(Arrays.asList(new ShardRouter.Shard<>("north", 1, 100, "N"),
+				new ShardRouter.Shard<>("south", 101, 200, "S")), "south");
+
+		assertThat(router.forSpot(1)).isEqualTo("N");
+		assertThat(router.forSpot(100)).isEqualTo("N");
+		assertThat(router.forSpot(101)).isEqualTo("S");
+		assertThat(router.forSpot(201)).isNull();
+		assertThat(router.forLot("north")).isEqualTo("N");
+		assertThat(router.getStores()).containsExactly("S", "N");
+		assertThat(router.getStores("north")).containsExactly("N", "S");
+	}
+
+	@Test
+	public void overlappingSpotRangesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new ShardRouter<>(Arrays.asList(
+				new ShardRouter.Shard<>("north", 1, 100, "N"), new ShardRouter.Shard<>("south", 50, 200, "S")),
+				null));
+	}
+
+	@Test
+	public void entriesFillTheHomeLotBeforeTheOthers() {
+		assertThat(enter("AAA", null).getParkingSpot().getId()).isEqualTo(1);
+		assertThat(enter("BBB", null).getParkingSpot().getId()).isEqualTo(2);
+		assertThat(enter("CCC", null).getParkingSpot().getId()).isEqualTo(101);
+		assertThat(enter("DDD", "south").getParkingSpot().getId()).isEqualTo(102);
+		assertThat(enter("EEE", null).getStatus()).isEqualTo(GateStatus.LOT_FULL);
+
+		assertThat(northTickets.getOpenTicketCount()).isEqualTo(2);
+		assertThat(southTickets.getOpenTicketCount()).isEqualTo(2);
+		assertThat(gateService.getOccupancy().toString()).isEqualTo("CAR 0 4 BIKE 2 2");
+	}
+
+	@Test
+	public void exitReleasesTheSpotInItsOwnShard() {
+		enter("AAA", "south");
+
+		assertThat(gateService.exit(new ExitRequest("AAA", IN_TIME.plusHours(1))).isAccepted()).isTrue();
+
+		assertThat(southTickets.getOpenTicketCount()).isZero();
+		assertThat(southSpots.getOccupancy().getFree(ParkingType.CAR)).isEqualTo(2);
+		assertThat(northSpots.getOccupancy().getFree(ParkingType.CAR)).isEqualTo(2);
+	}
+
+	@Test
+	public void ticketOfAnotherProcessIsFoundAcrossShards() {
+		Ticket ticket = new Ticket();
+		ticket.setParkingSpot(new ParkingSpot(101, ParkingType.CAR, false));
+		ticket.setVehicleRegNumber("AAA");
+		ticket.setInTime(IN_TIME);
+		southTickets.saveTicket(ticket);
+
+		assertThat(ticketStore.getTicket("AAA").getParkingSpot().getId()).isEqualTo(101);
+		assertThat(ticketStore.isRecurring("AAA")).isTrue();
+		assertThat(ticketStore.getTicket("ZZZ")).isNull();
+	}
+
+	private EntryResult enter(String vehicleRegNumber, String lotId) {
+		return gateService.enter(new EntryRequest(ParkingType.CAR, vehicleRegNumber, IN_TIME, lotId));
+	}
+}
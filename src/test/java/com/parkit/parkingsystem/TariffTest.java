@@ -0,0 +1,61 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.tariff.Tariff;
+import com.parkit.parkingsystem.tariff.TariffTable;
+
+public class TariffTest {
+
+	private static final LocalDateTime MORNING = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	@Test
+	public void flatRateChargesEveryMinute() {
+		Tariff tariff = TariffTable.compile("1.5", "", 30, 0);
+
+		assertEquals(90.0, tariff.cost(MORNING, MORNING.plusHours(1)));
+		assertEquals(0.0, tariff.cost(MORNING, MORNING.plusMinutes(29)));
+	}
+
+	@Test
+	public void nightBandWrapsPastMidnight() {
+		Tariff tariff = TariffTable.compile("1", "22:00-06:00@0.25", 0, 0);
+		LocalDateTime evening = LocalDateTime.of(2021, 9, 14, 21, 0);
+
+		// 60 minutes at 1 then 8 hours at 0.25 and 60 minutes at 1
+		assertEquals(60 + 480 * 0.25 + 60, tariff.cost(evening, evening.plusHours(10)));
+	}
+
+	@Test
+	public void laterBandOverridesEarlierOne() {
+		Tariff tariff = TariffTable.compile("1", "08:00-18:00@2,12:00-13:00@0", 0, 0);
+
+		assertEquals(4 * 60 * 2.0, tariff.cost(MORNING, MORNING.plusHours(5)));
+	}
+
+	@Test
+	public void dailyCapLimitsEachDayOfAStay() {
+		Tariff tariff = TariffTable.compile("1", "", 0, 100);
+
+		assertEquals(100.0, tariff.cost(MORNING, MORNING.plusHours(5)));
+		assertEquals(3 * 100.0 + 30, tariff.cost(MORNING, MORNING.plusDays(3).plusMinutes(30)));
+	}
+
+	@Test
+	public void longStayCostsWholeDaysPlusRemainder() {
+		Tariff tariff = TariffTable.compile("1", "00:00-06:00@0.5", 0, 0);
+		double dayCost = 6 * 60 * 0.5 + 18 * 60;
+
+		assertEquals(365 * dayCost + 120, tariff.cost(MORNING, MORNING.plusDays(365).plusHours(2)), 1e-6);
+	}
+
+	@Test
+	public void invalidBandIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> TariffTable.compile("1", "22:00@0.5", 0, 0));
+	}
+}
@@ -0,0 +1,83 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.dao.TicketArchiver;
+
+public class TicketArchiverTest {
+
+	private static final LocalDateTime CUTOFF = LocalDateTime.of(2021, 6, 1, 0, 0);
+
+	private TicketArchiver ticketArchiver;
+	private Connection con;
+	private ResultSet archivable;
+	private PreparedStatement insert;
+	private PreparedStatement delete;
+
+	@BeforeEach
+	public void setUpPerTest() throws Exception {
+		ticketArchiver = new TicketArchiver(90, 3, 0);
+		ticketArchiver.dataBaseConfig = mock(DataBaseConfig.class);
+		con = mock(Connection.class);
+		PreparedStatement select = mock(PreparedStatement.class);
+		archivable = mock(ResultSet.class);
+		insert = mock(PreparedStatement.class);
+		delete = mock(PreparedStatement.class);
+		when(ticketArchiver.dataBaseConfig.getConnection()).thenReturn(con);
+		when(ticketArchiver.dataBaseConfig.prepareStatement(con, DBConstants.GET_ARCHIVABLE_TICKETS))
+				.thenReturn(select);
+		when(ticketArchiver.dataBaseConfig.prepareStatement(con, DBConstants.ARCHIVE_TICKET)).thenReturn(insert);
+		when(ticketArchiver.dataBaseConfig.prepareStatement(con, DBConstants.DELETE_ARCHIVED_TICKET))
+				.thenReturn(delete);
+		when(select.executeQuery()).thenReturn(archivable);
+	}
+
+	@Test
+	public void closedTicketsAreMovedInChunks() throws Exception {
+		// a full chunk of 3 then the last ticket
+		when(archivable.next()).thenReturn(true, true, true, false, true, false);
+		when(archivable.getInt(1)).thenReturn(1, 2, 3, 4);
+
+		assertEquals(4, ticketArchiver.archive(CUTOFF));
+		verify(insert, times(4)).addBatch();
+		verify(delete, times(4)).addBatch();
+		verify(delete).setInt(1, 4);
+		verify(insert, times(2)).executeBatch();
+		verify(con, times(2)).commit();
+	}
+
+	@Test
+	public void nothingToArchive() throws Exception {
+		when(archivable.next()).thenReturn(false);
+
+		assertEquals(0, ticketArchiver.archive(CUTOFF));
+		verify(insert, never()).executeBatch();
+	}
+
+	@Test
+	public void failedChunkIsRolledBack() throws Exception {
+		when(archivable.next()).thenReturn(true, false);
+		when(delete.executeBatch()).thenThrow(new SQLException("Lock wait timeout exceeded"));
+
+		assertThrows(SQLException.class, () -> ticketArchiver.archive(CUTOFF));
+		verify(con).rollback();
+		verify(con, never()).commit();
+	}
+}
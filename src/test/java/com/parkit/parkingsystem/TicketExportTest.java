@@ -0,0 +1,148 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.export.ColumnarTicketReader;
+import com.parkit.parkingsystem.export.ExportFormat;
+import com.parkit.parkingsystem.export.TicketExport;
+import com.parkit.parkingsystem.model.Ticket;
+
+public class TicketExportTest {
+
+	private static final LocalDateTime MORNING = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	private Path path;
+	private ResultSet rs;
+	private TicketExport ticketExport;
+
+	@BeforeEach
+	public void setUpPerTest() throws Exception {
+		path = Files.createTempFile("tickets", ".export");
+		Files.delete(path);
+		ticketExport = new TicketExport(256, 100);
+		rs = mock(ResultSet.class);
+		PreparedStatement getTickets = mock(PreparedStatement.class);
+		when(getTickets.executeQuery()).thenReturn(rs);
+		Connection con = mock(Connection.class);
+		when(con.prepareStatement(DBConstants.GET_TICKETS_IN_RANGE, ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY)).thenReturn(getTickets);
+		ticketExport.dataBaseConfig = mock(DataBaseConfig.class);
+		when(ticketExport.dataBaseConfig.getConnection()).thenReturn(con);
+	}
+
+	@AfterEach
+	public void tearDownPerTest() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Even rows are cars parked for an hour, odd rows bikes still parked; every
+	 * third row has the discount.
+	 */
+	private void mockTickets(int tickets) throws SQLException {
+		AtomicInteger row = new AtomicInteger(-1);
+		when(rs.next()).thenAnswer(invocation -> row.incrementAndGet() < tickets);
+		when(rs.getInt(1)).thenAnswer(invocation -> row.get() + 1);
+		when(rs.getInt(2)).thenAnswer(invocation -> row.get() % 10 + 1);
+		when(rs.getString(3)).thenAnswer(invocation -> (row.get() % 2 == 0) ? "CAR" : "BIKE");
+		when(rs.getString(4)).thenAnswer(invocation -> "PLATE" + row.get());
+		when(rs.getDouble(5)).thenAnswer(invocation -> (row.get() % 2 == 0) ? 1.5 + row.get() / 100.0 : 0.0);
+		when(rs.getTimestamp(6)).thenAnswer(invocation -> Timestamp.valueOf(MORNING.plusMinutes(row.get())));
+		when(rs.getTimestamp(7)).thenAnswer(
+				invocation -> (row.get() % 2 == 0) ? Timestamp.valueOf(MORNING.plusMinutes(row.get() + 60)) : null);
+		when(rs.getBoolean(8)).thenAnswer(invocation -> row.get() % 3 == 0);
+	}
+
+	@Test
+	public void csvHasAHeaderAndOneLinePerTicket() throws Exception {
+		mockTickets(1000);
+
+		assertThat(ticketExport.export(MORNING, MORNING.plusDays(1), ExportFormat.CSV, path)).isEqualTo(1000);
+
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		assertThat(lines).hasSize(1001);
+		assertThat(lines.get(0))
+				.isEqualTo("id,parking_number,parking_type,vehicle_reg_number,price,in_time,out_time,discount");
+		assertThat(lines.get(1)).isEqualTo("1,1,CAR,PLATE0,1.50,2021-09-14 08:00:00,2021-09-14 09:00:00,true");
+		assertThat(lines.get(2)).isEqualTo("2,2,BIKE,PLATE1,0.00,2021-09-14 08:01:00,,false");
+		assertThat(lines.get(1000)).isEqualTo("1000,10,BIKE,PLATE999,0.00,2021-09-15 00:39:00,,true");
+	}
+
+	@Test
+	public void columnarExportReadsBackEveryTicket() throws Exception {
+		mockTickets(1050);
+
+		ticketExport.export(MORNING, MORNING.plusDays(1), ExportFormat.COLUMNAR, path);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ColumnarTicketReader reader = new ColumnarTicketReader(channel);
+			for (int row = 0; row < 1050; row++) {
+				Ticket ticket = reader.next();
+				assertThat(ticket.getId()).isEqualTo(row + 1);
+				assertThat(ticket.getParkingSpot().getId()).isEqualTo(row % 10 + 1);
+				assertThat(ticket.getParkingSpot().getParkingType())
+						.isEqualTo((row % 2 == 0) ? ParkingType.CAR : ParkingType.BIKE);
+				assertThat(ticket.getVehicleRegNumber()).isEqualTo("PLATE" + row);
+				// to the cent
+				assertThat(ticket.getPrice()).isCloseTo((row % 2 == 0) ? 1.5 + row / 100.0 : 0.0, within(1e-9));
+				assertThat(ticket.getInTime()).isEqualTo(MORNING.plusMinutes(row));
+				assertThat(ticket.getOutTime()).isEqualTo((row % 2 == 0) ? MORNING.plusMinutes(row + 60) : null);
+				assertThat(ticket.isDiscount()).isEqualTo(row % 3 == 0);
+			}
+			assertThat(reader.next()).isNull();
+		}
+		// about 16 bytes per ticket, most of them the plate, against 70 in CSV
+		assertThat(Files.size(path)).isLessThan(1050 * 20);
+	}
+
+	@Test
+	public void failedExportLeavesNoFile() throws Exception {
+		mockTickets(1000);
+		when(rs.getString(3)).thenThrow(new SQLException("Connection lost"));
+
+		assertThrows(SQLException.class, () -> ticketExport.export(MORNING, MORNING.plusDays(1), ExportFormat.CSV,
+				path));
+
+		assertThat(Files.exists(path)).isFalse();
+		assertThat(Files.exists(path.resolveSibling(path.getFileName() + ".part"))).isFalse();
+	}
+
+	@Test
+	public void corruptedColumnarExportIsRejected() throws Exception {
+		mockTickets(10);
+		ticketExport.export(MORNING, MORNING.plusDays(1), ExportFormat.COLUMNAR, path);
+		byte[] bytes = Files.readAllBytes(path);
+		bytes[30] ^= 1;
+		Files.write(path, bytes);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			assertThrows(IOException.class, () -> new ColumnarTicketReader(channel).next());
+		}
+	}
+}
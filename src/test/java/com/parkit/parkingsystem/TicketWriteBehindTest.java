@@ -0,0 +1,109 @@
+package com.parkit.parkingsystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketWriteBehind;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+public class TicketWriteBehindTest {
+
+	private Connection connection;
+	private PreparedStatement insertPs;
+	private PreparedStatement updatePs;
+	private TicketWriteBehind writeBehind;
+
+	@BeforeEach
+	private void setUpPerTest() throws Exception {
+		DataBaseConfig dataBaseConfig = mock(DataBaseConfig.class);
+		connection = mock(Connection.class);
+		insertPs = mock(PreparedStatement.class);
+		updatePs = mock(PreparedStatement.class);
+		ResultSet generatedKeys = mock(ResultSet.class);
+		when(dataBaseConfig.getConnection()).thenReturn(connection);
+		when(connection.prepareStatement(anyString(), anyInt())).thenReturn(insertPs);
+		when(connection.prepareStatement(DBConstants.UPDATE_TICKET)).thenReturn(updatePs);
+		when(dataBaseConfig.prepareStatement(connection, DBConstants.SAVE_TICKET, Statement.RETURN_GENERATED_KEYS))
+				.thenReturn(insertPs);
+		when(dataBaseConfig.prepareStatement(connection, DBConstants.UPDATE_TICKET)).thenReturn(updatePs);
+		when(insertPs.getGeneratedKeys()).thenReturn(generatedKeys);
+		when(generatedKeys.next()).thenReturn(true, true, false);
+		when(generatedKeys.getInt(1)).thenReturn(41, 42);
+
+		writeBehind = new TicketWriteBehind(dataBaseConfig, 16, 16, 50, 10);
+	}
+
+	@AfterEach
+	private void tearDownPerTest() {
+		writeBehind.close();
+	}
+
+	private static Ticket newTicket(String vehicleRegNumber) {
+		Ticket ticket = new Ticket();
+		ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+		ticket.setVehicleRegNumber(vehicleRegNumber);
+		ticket.setInTime(LocalDateTime.now());
+		return ticket;
+	}
+
+	@Test
+	public void queuedTicketsAreCommittedAsOneBatch() throws Exception {
+		Ticket first = newTicket("ABCDEF");
+		Ticket second = newTicket("BCDEFG");
+
+		CompletableFuture<Boolean> firstSaved = writeBehind.save(first);
+		CompletableFuture<Boolean> secondSaved = writeBehind.save(second);
+
+		assertTrue(firstSaved.get(5, TimeUnit.SECONDS));
+		assertTrue(secondSaved.get(5, TimeUnit.SECONDS));
+		verify(insertPs, times(2)).addBatch();
+		verify(insertPs, times(1)).executeBatch();
+		verify(connection, times(1)).commit();
+		assertEquals(41, first.getId());
+		assertEquals(42, second.getId());
+	}
+
+	@Test
+	public void updateOfAnAlreadyClosedTicketFails() throws Exception {
+		Ticket closed = newTicket("ABCDEF");
+		closed.setId(1);
+		closed.setOutTime(LocalDateTime.now());
+		// guarded by OUT_TIME is null, the update matches no row
+		when(updatePs.executeBatch()).thenReturn(new int[] { 0 });
+
+		assertFalse(writeBehind.update(closed).get(5, TimeUnit.SECONDS));
+		verify(connection, times(1)).commit();
+	}
+
+	@Test
+	public void flushWaitsForPendingWrites() {
+		writeBehind.save(newTicket("ABCDEF"));
+
+		writeBehind.flush();
+
+		assertEquals(0, writeBehind.getPendingCount());
+	}
+}
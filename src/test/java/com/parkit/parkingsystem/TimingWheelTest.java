@@ -0,0 +1,54 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.util.TimingWheel;
+
+public class TimingWheelTest {
+
+	// 10 ms ticks, 8 slots per level: levels span 80 ms, 640 ms and 5.12 s
+	private final TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, 1000);
+
+	@Test
+	public void valuesExpireAtTheirDeadlineAndNotBefore() {
+		wheel.schedule("soon", 1035);
+		wheel.schedule("later", 1500);
+		wheel.schedule("much later", 4000);
+
+		assertThat(wheel.advance(1030)).isEmpty();
+		assertThat(wheel.advance(1040)).containsExactly("soon");
+		assertThat(wheel.advance(1499)).isEmpty();
+		assertThat(wheel.advance(1500)).containsExactly("later");
+		assertThat(wheel.size()).isEqualTo(1);
+		assertThat(wheel.advance(3990)).isEmpty();
+		assertThat(wheel.advance(4000)).containsExactly("much later");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	public void deadlinesPastTheTopLevelAreRefiledUntilDue() {
+		wheel.schedule("next day", 1000 + 86_400_000L);
+
+		assertThat(wheel.advance(1000 + 86_399_990L)).isEmpty();
+		assertThat(wheel.advance(1000 + 86_400_000L)).containsExactly("next day");
+	}
+
+	@Test
+	public void cancelledValuesNeverExpire() {
+		TimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", 1200);
+		wheel.schedule("kept", 1200);
+
+		assertThat(timeout.cancel()).isTrue();
+		assertThat(timeout.cancel()).isFalse();
+		assertThat(wheel.advance(2000)).containsExactly("kept");
+	}
+
+	@Test
+	public void pastDeadlineExpiresOnNextAdvance() {
+		wheel.schedule("late", 500);
+
+		assertThat(wheel.advance(1000)).containsExactly("late");
+	}
+}
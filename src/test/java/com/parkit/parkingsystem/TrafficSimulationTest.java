@@ -0,0 +1,116 @@
+package com.parkit.parkingsystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.parkit.parkingsystem.constants.GateStatus;
+import com.parkit.parkingsystem.dao.InMemoryParkingSpotStore;
+import com.parkit.parkingsystem.dao.InMemoryTicketStore;
+import com.parkit.parkingsystem.dao.TransactionRunner;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.simulation.DwellDistribution;
+import com.parkit.parkingsystem.simulation.SimulatedClock;
+import com.parkit.parkingsystem.simulation.SimulationReport;
+import com.parkit.parkingsystem.simulation.TrafficProfile;
+import com.parkit.parkingsystem.simulation.TrafficSimulation;
+import com.parkit.parkingsystem.util.ScriptedInputReaderUtil;
+
+public class TrafficSimulationTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2021, 9, 14, 8, 0);
+
+	private TrafficProfile profile;
+	private InMemoryTicketStore ticketStore;
+
+	@BeforeEach
+	private void setUpPerTest() {
+		profile = new TrafficProfile();
+		profile.setStart(START);
+		profile.setDurationMinutes(120);
+		profile.setArrivalsPerHour(60);
+		profile.setDwellDistribution(DwellDistribution.EXPONENTIAL);
+		profile.setMeanDwellMinutes(30);
+		profile.setRecurringShare(0);
+		profile.setSeed(7);
+		ticketStore = new InMemoryTicketStore();
+	}
+
+	private SimulationReport simulate(String layout) {
+		SimulatedClock clock = new SimulatedClock(START);
+		ScriptedInputReaderUtil inputReaderUtil = new ScriptedInputReaderUtil();
+		ParkingService parkingService = new ParkingService(inputReaderUtil, InMemoryParkingSpotStore.fromLayout(layout),
+				ticketStore, TransactionRunner.NONE, clock, TrafficSimulation.silentConsole());
+		return new TrafficSimulation(parkingService, inputReaderUtil, clock, profile).run();
+	}
+
+	@Test
+	public void everyVehicleParksWhenTheLotIsLargeEnough() {
+		SimulationReport report = simulate("CAR:1-500,BIKE:501-600");
+
+		// about 60 arrivals an hour for two hours
+		assertThat(report.getEntries()).isBetween(80L, 160L);
+		assertThat(report.getEntryFailures()).isEmpty();
+		assertThat(report.getExitFailures()).isEmpty();
+		assertThat(report.getExits() + report.getParked()).isEqualTo(report.getEntries());
+		assertThat(report.getEntryLatencies().getCount()).isEqualTo(report.getEntries());
+		assertThat(report.getThroughput()).isPositive();
+	}
+
+	@Test
+	public void fullLotRejectsEntries() {
+		profile.setArrivalsPerHour(600);
+		profile.setMeanDwellMinutes(600);
+
+		SimulationReport report = simulate("CAR:1-10,BIKE:11-12");
+
+		assertThat(report.getEntryFailures().get(GateStatus.LOT_FULL)).isGreaterThan(100L);
+		assertThat(report.getPeakParked()).isEqualTo(12);
+	}
+
+	@Test
+	public void recurringVehiclesGetTheDiscount() {
+		profile.setRecurringShare(1);
+		profile.setRecurringPlates(20);
+		profile.setDwellDistribution(DwellDistribution.FIXED);
+		profile.setMeanDwellMinutes(1);
+
+		SimulationReport report = simulate("CAR:1-500,BIKE:501-600");
+
+		// each of the 20 vehicles pays full price once, and the few arrivals
+		// drawing a vehicle already parked come as new vehicles
+		assertThat(report.getEntries()).isGreaterThan(80L);
+		assertThat(report.getDiscounts()).isGreaterThan(report.getEntries() / 2);
+		assertThat(report.getDiscounts()).isLessThanOrEqualTo(report.getEntries() - 20);
+	}
+
+	@Test
+	public void sameSeedReplaysTheSameTraffic() {
+		SimulationReport first = simulate("CAR:1-500,BIKE:501-600");
+		ticketStore = new InMemoryTicketStore();
+		SimulationReport second = simulate("CAR:1-500,BIKE:501-600");
+
+		assertThat(second.getEntries()).isEqualTo(first.getEntries());
+		assertThat(second.getExits()).isEqualTo(first.getExits());
+		assertThat(second.getPeakParked()).isEqualTo(first.getPeakParked());
+	}
+
+	@Test
+	public void simulatedClockInAnotherZoneMovesWithIt() {
+		SimulatedClock clock = new SimulatedClock(START);
+		Clock paris = clock.withZone(ZoneId.of("Europe/Paris"));
+
+		clock.advance(Duration.ofMinutes(90));
+
+		assertThat(paris.instant()).isEqualTo(clock.instant());
+		assertThat(LocalDateTime.now(paris)).isEqualTo(START.plusMinutes(90).plusHours(2));
+		assertThat(paris.withZone(ZoneOffset.UTC)).isSameAs(clock);
+	}
+}
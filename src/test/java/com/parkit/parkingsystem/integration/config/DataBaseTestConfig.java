@@ -1,7 +1,5 @@
 package com.parkit.parkingsystem.integration.config;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -16,24 +14,8 @@ public class DataBaseTestConfig extends DataBaseConfig {
 	private static final Logger logger = LogManager.getLogger("DataBaseTestConfig");
 
 	@Override
-	public Connection getConnection() throws ClassNotFoundException, SQLException {
-		logger.info("Create DB connection");
-		Class.forName("com.mysql.cj.jdbc.Driver");
-		return DriverManager.getConnection(
-				"jdbc:mysql://localhost:3306/test", "root", "root");
-
-	}
-
-	@Override
-	public void closeConnection(Connection con) {
-		if (con != null) {
-			try {
-				con.close();
-				logger.info("Closing DB connection");
-			} catch (SQLException e) {
-				logger.error("Error while closing connection", e);
-			}
-		}
+	protected String getUrl() {
+		return "jdbc:mysql://localhost:3306/test";
 	}
 
 	@Override
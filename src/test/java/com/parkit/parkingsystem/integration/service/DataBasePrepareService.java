@@ -1,6 +1,7 @@
 package com.parkit.parkingsystem.integration.service;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 
 import com.parkit.parkingsystem.integration.config.DataBaseTestConfig;
 
@@ -13,11 +14,20 @@ public class DataBasePrepareService {
 		try {
 			connection = dataBaseTestConfig.getConnection();
 
+			// release held spots
+			try (PreparedStatement ps = connection.prepareStatement("delete from reservation")) {
+				ps.execute();
+			}
+
 			// set parking entries to available
-			connection.prepareStatement("update parking set available = true").execute();
+			try (PreparedStatement ps = connection.prepareStatement("update parking set available = true")) {
+				ps.execute();
+			}
 
 			// clear ticket entries;
-			connection.prepareStatement("truncate table ticket").execute();
+			try (PreparedStatement ps = connection.prepareStatement("truncate table ticket")) {
+				ps.execute();
+			}
 
 		} catch (Exception e) {
 			e.printStackTrace();